@@ -0,0 +1,185 @@
+/*
+ * RemoteLight delta protocol receiver
+ *
+ * Reference sketch for the 'Delta' serial protocol of RemoteLight
+ * (de.lars.remotelightcore.devices.arduino.DeltaProtocol).
+ * Frame format:
+ *   'R' 'L' type pixels(u16) length(u16) headerChecksum payload payloadChecksum
+ *   type 0 (raw):      RGB values of all pixels
+ *   type 1 (keyframe): operations, no skips
+ *   type 2 (delta):    operations relative to the previous frame
+ * Operation byte: upper two bits select the operation, lower six bits
+ * are the number of pixels minus one.
+ *   00 skip     keep pixels
+ *   01 run      followed by one RGB value for all pixels
+ *   10 literal  followed by one RGB value per pixel
+ *
+ * Requires the FastLED library. Set NUM_LEDS, DATA_PIN and BAUD_RATE to
+ * match your setup and RemoteLight. The color order is configured in
+ * RemoteLight (RGB order setting), the sketch writes the bytes unchanged.
+ *
+ * Incoming bytes may get lost while FastLED updates the strip. Enable
+ * 'Wait for ack' in RemoteLight and set SEND_ACK to 1 to avoid this.
+ */
+
+#include <FastLED.h>
+
+#define NUM_LEDS    300
+#define DATA_PIN    6
+#define BAUD_RATE   1000000
+#define SEND_ACK    0
+#define TIMEOUT_MS  50
+
+#define TYPE_RAW      0
+#define TYPE_KEYFRAME 1
+#define TYPE_DELTA    2
+#define OP_SKIP       0x00
+#define OP_RUN        0x40
+#define OP_LITERAL    0x80
+
+CRGB leds[NUM_LEDS];
+// true after a complete raw or key frame, delta frames are ignored before
+bool synced = false;
+
+// payload state of the current frame
+uint16_t remaining;
+uint8_t checksum;
+bool valid;
+
+void setup() {
+  // RGB order: bytes are written as received
+  FastLED.addLeds<WS2812B, DATA_PIN, RGB>(leds, NUM_LEDS);
+  FastLED.clear(true);
+  Serial.begin(BAUD_RATE);
+}
+
+// read a byte or return -1 after a timeout
+int readByte() {
+  unsigned long start = millis();
+  while(!Serial.available()) {
+    if(millis() - start > TIMEOUT_MS) {
+      return -1;
+    }
+  }
+  return Serial.read();
+}
+
+// read the next payload byte, invalidates the frame on errors
+uint8_t nextByte() {
+  if(remaining == 0) {
+    valid = false;
+    return 0;
+  }
+  int b = readByte();
+  if(b < 0) {
+    valid = false;
+    remaining = 0;
+    return 0;
+  }
+  remaining--;
+  checksum ^= b;
+  return b;
+}
+
+void setPixel(uint16_t index, uint8_t r, uint8_t g, uint8_t b) {
+  if(index < NUM_LEDS) {
+    leds[index].r = r;
+    leds[index].g = g;
+    leds[index].b = b;
+  }
+}
+
+void loop() {
+  // wait for 'R' 'L'
+  static int last = -1;
+  int b = readByte();
+  if(b < 0) {
+    return;
+  }
+  if(last != 'R' || b != 'L') {
+    last = b;
+    return;
+  }
+  last = -1;
+
+  uint8_t header[6];
+  uint8_t check = 0x55;
+  for(uint8_t i = 0; i < 6; i++) {
+    int h = readByte();
+    if(h < 0) {
+      return;
+    }
+    header[i] = h;
+    if(i < 5) {
+      check ^= h;
+    }
+  }
+  if(check != header[5]) {
+    return;
+  }
+  uint8_t type = header[0];
+  uint16_t pixels = (header[1] << 8) | header[2];
+  remaining = (header[3] << 8) | header[4];
+  checksum = 0;
+  valid = type <= TYPE_DELTA && (type != TYPE_DELTA || synced);
+
+  uint16_t index = 0;
+  if(type == TYPE_RAW) {
+    for(index = 0; index < pixels && remaining > 0; index++) {
+      uint8_t r = nextByte();
+      uint8_t g = nextByte();
+      uint8_t bl = nextByte();
+      setPixel(index, r, g, bl);
+    }
+  } else {
+    while(remaining > 0) {
+      uint8_t op = nextByte();
+      uint8_t count = (op & 0x3F) + 1;
+      switch(op & 0xC0) {
+        case OP_SKIP:
+          index += count;
+          break;
+        case OP_RUN: {
+          uint8_t r = nextByte();
+          uint8_t g = nextByte();
+          uint8_t bl = nextByte();
+          for(uint8_t i = 0; i < count; i++) {
+            setPixel(index++, r, g, bl);
+          }
+          break;
+        }
+        case OP_LITERAL:
+          for(uint8_t i = 0; i < count; i++) {
+            uint8_t r = nextByte();
+            uint8_t g = nextByte();
+            uint8_t bl = nextByte();
+            setPixel(index++, r, g, bl);
+          }
+          break;
+        default:
+          valid = false;
+          break;
+      }
+    }
+  }
+
+  // drop bytes of malformed frames
+  while(remaining > 0) {
+    valid = false;
+    nextByte();
+  }
+
+  int trailer = readByte();
+  if(valid && trailer == checksum) {
+    if(type != TYPE_DELTA) {
+      synced = true;
+    }
+    FastLED.show();
+  } else {
+    // wait for the next key frame
+    synced = false;
+  }
+#if SEND_ACK
+  Serial.write('A');
+#endif
+}
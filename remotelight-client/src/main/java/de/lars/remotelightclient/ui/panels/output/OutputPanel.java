@@ -48,8 +48,11 @@ import de.lars.remotelightclient.ui.panels.output.outputComps.ChainSettingsPanel
 import de.lars.remotelightclient.ui.panels.output.outputComps.DeviceSettingsPanel;
 import de.lars.remotelightclient.ui.panels.output.outputComps.E131SettingsPanel;
 import de.lars.remotelightclient.ui.panels.output.outputComps.MultiOutputSettingsPanel;
+import de.lars.remotelightclient.ui.panels.output.outputComps.NetworkDeviceSettingsPanel;
+import de.lars.remotelightclient.ui.panels.output.outputComps.OPCSettingsPanel;
 import de.lars.remotelightclient.ui.panels.output.outputComps.RLServerSettingsPanel;
 import de.lars.remotelightclient.ui.panels.output.outputComps.VirtualOutputSettingsPanel;
+import de.lars.remotelightclient.ui.panels.output.outputComps.WLEDSettingsPanel;
 import de.lars.remotelightclient.ui.simulator.SimulatorFrame;
 import de.lars.remotelightclient.utils.ui.MenuIconFont.MenuIcon;
 import de.lars.remotelightclient.utils.ui.UiUtils;
@@ -60,11 +63,14 @@ import de.lars.remotelightcore.devices.Device;
 import de.lars.remotelightcore.devices.DeviceManager;
 import de.lars.remotelightcore.devices.arduino.Arduino;
 import de.lars.remotelightcore.devices.artnet.Artnet;
+import de.lars.remotelightcore.devices.ddp.DDP;
 import de.lars.remotelightcore.devices.e131.E131;
 import de.lars.remotelightcore.devices.link.chain.Chain;
 import de.lars.remotelightcore.devices.link.multi.MultiOutput;
+import de.lars.remotelightcore.devices.opc.OPC;
 import de.lars.remotelightcore.devices.remotelightserver.RemoteLightServer;
 import de.lars.remotelightcore.devices.virtual.VirtualOutput;
+import de.lars.remotelightcore.devices.wled.WLED;
 import de.lars.remotelightcore.lang.i18n;
 import de.lars.remotelightcore.notification.Notification;
 import de.lars.remotelightcore.notification.NotificationType;
@@ -147,6 +153,21 @@ public class OutputPanel extends MenuPanel {
 		this.configureAddPopup(itemE131, "e131");
 		popupMenu.add(itemE131);
 		
+		JMenuItem itemDdp = new JMenuItem("DDP");
+		itemDdp.setIcon(Style.getFontIcon(MenuIcon.ARTNET)); //$NON-NLS-1$
+		this.configureAddPopup(itemDdp, "ddp");
+		popupMenu.add(itemDdp);
+		
+		JMenuItem itemWled = new JMenuItem("WLED");
+		itemWled.setIcon(Style.getFontIcon(MenuIcon.ARTNET)); //$NON-NLS-1$
+		this.configureAddPopup(itemWled, "wled");
+		popupMenu.add(itemWled);
+		
+		JMenuItem itemOpc = new JMenuItem("Open Pixel Control");
+		itemOpc.setIcon(Style.getFontIcon(MenuIcon.ARTNET)); //$NON-NLS-1$
+		this.configureAddPopup(itemOpc, "opc");
+		popupMenu.add(itemOpc);
+		
 		JMenuItem itemVirtual = new JMenuItem("Virtual");
 		itemVirtual.setIcon(Style.getFontIcon(MenuIcon.VIRTUAL)); //$NON-NLS-1$
 		this.configureAddPopup(itemVirtual, "virtual");
@@ -272,6 +293,8 @@ public class OutputPanel extends MenuPanel {
 				icon = MenuIcon.ARTNET;
 			} else if(d instanceof E131) {
 				icon = MenuIcon.ARTNET; // TODO: add E1.31 icon
+			} else if(d instanceof DDP || d instanceof WLED || d instanceof OPC) {
+				icon = MenuIcon.ARTNET;
 			} else if(d instanceof VirtualOutput) {
 				icon = MenuIcon.VIRTUAL;
 			} else if(d instanceof Chain) {
@@ -284,7 +307,7 @@ public class OutputPanel extends MenuPanel {
 			BigImageButton btn =  new BigImageButton(Style.getFontIcon(icon, 35), d.getId());
 			btn.setName(d.getId());
 			btn.addMouseListener(deviceClicked);
-			if(om.getActiveOutput() != null && om.getActiveOutput() == d && d.getConnectionState() == ConnectionState.CONNECTED) {
+			if(om.isOutputActive(d) && d.getConnectionState() == ConnectionState.CONNECTED) {
 				btn.setBorder(BorderFactory.createLineBorder(Style.accent().get()));
 			}
 			panel.add(btn);
@@ -300,7 +323,12 @@ public class OutputPanel extends MenuPanel {
 					//double click -> activate
 					if(e.getClickCount() == 2) {
 						if((currentSettingsPanel == null || !currentSettingsPanel.isSetup()) && dm.isIdUsed(d.getId())) {
-							om.setActiveOutput(d);
+							if(e.isControlDown()) {
+								// keep the other outputs active
+								om.addActiveOutput(d);
+							} else {
+								om.setActiveOutput(d);
+							}
 							mainFrame.displayPanel(new OutputPanel(mainFrame));
 							break;
 						}
@@ -323,6 +351,12 @@ public class OutputPanel extends MenuPanel {
 			panel = new ArtnetSettingsPanel((Artnet) d, setup);
 		} else if(d instanceof E131) {
 			panel = new E131SettingsPanel((E131) d, setup);
+		} else if(d instanceof DDP) {
+			panel = new NetworkDeviceSettingsPanel<>((DDP) d, setup);
+		} else if(d instanceof WLED) {
+			panel = new WLEDSettingsPanel((WLED) d, setup);
+		} else if(d instanceof OPC) {
+			panel = new OPCSettingsPanel((OPC) d, setup);
 		} else if(d instanceof VirtualOutput) {
 			panel = new VirtualOutputSettingsPanel((VirtualOutput) d, setup);
 		} else if(d instanceof Chain) {
@@ -400,6 +434,15 @@ public class OutputPanel extends MenuPanel {
 			case "e131":
 				device = new E131(null);
 				break;
+			case "ddp":
+				device = new DDP(null, null);
+				break;
+			case "wled":
+				device = new WLED(null, null);
+				break;
+			case "opc":
+				device = new OPC(null, null);
+				break;
 			case "virtual":
 				device = new VirtualOutput(null, OutputManager.MIN_PIXELS);
 				break;
@@ -486,6 +529,11 @@ public class OutputPanel extends MenuPanel {
 	private OutputActionListener outputActionListener = new OutputActionListener() {
 		@Override
 		public void onOutputAction(Output output, OutputActionType type) {
+			if(type == OutputActionType.RECONNECTING) {
+				Main.getInstance().showNotification(NotificationType.WARN, "Output " + output.getId(), "Lost the connection, reconnecting in the background.");
+			} else if(type == OutputActionType.RECONNECTED) {
+				Main.getInstance().showNotification(NotificationType.SUCCESS, "Output " + output.getId(), "Reconnected.");
+			}
 			if(currentSettingsPanel == null && mainFrame.getDisplayedPanel() instanceof OutputPanel) {
 				mainFrame.displayPanel(new OutputPanel(mainFrame));
 			}
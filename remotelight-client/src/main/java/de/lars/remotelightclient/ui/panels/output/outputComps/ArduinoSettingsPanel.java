@@ -40,6 +40,7 @@ import de.lars.remotelightclient.utils.ui.UiUtils;
 import de.lars.remotelightcore.devices.arduino.Arduino;
 import de.lars.remotelightcore.devices.arduino.ComPort;
 import de.lars.remotelightcore.devices.arduino.RgbOrder;
+import de.lars.remotelightcore.devices.arduino.SerialProtocol;
 import de.lars.remotelightcore.lang.i18n;
 import de.lars.remotelightcore.out.OutputManager;
 
@@ -49,10 +50,14 @@ public class ArduinoSettingsPanel extends DeviceSettingsPanel {
 	 * 
 	 */
 	private static final long serialVersionUID = -3968905553069494626L;
+	private static final Integer[] BAUD_RATES = {115200, 230400, 460800, 500000, 921600, 1000000, 2000000};
 	private Arduino arduino;
 	private JTextField fieldId;
 	private JSpinner spinnerPixels;
 	private JComboBox<String> comboPorts;
+	private JComboBox<Integer> comboBaud;
+	private JCheckBox checkboxAckPacing;
+	private JComboBox<SerialProtocol> comboProtocol;
 	private JComboBox<RgbOrder> comboOrder;
 	private JSpinner spinnerShift;
 	private JSpinner spinnerClone;
@@ -98,6 +103,32 @@ public class ArduinoSettingsPanel extends DeviceSettingsPanel {
 		comboPorts = new JComboBox<String>();
 		panelPort.add(comboPorts);
 		
+		JPanel panelBaud = new JPanel();
+		FlowLayout flowLayout_5 = (FlowLayout) panelBaud.getLayout();
+		flowLayout_5.setAlignment(FlowLayout.LEFT);
+		panelBaud.setPreferredSize(size);
+		panelBaud.setMaximumSize(size);
+		panelBaud.setAlignmentX(Component.LEFT_ALIGNMENT);
+		add(panelBaud);
+		
+		JLabel lblBaud = new JLabel("Baud rate");
+		panelBaud.add(lblBaud);
+		
+		comboBaud = new JComboBox<Integer>(new DefaultComboBoxModel<>(BAUD_RATES));
+		comboBaud.setEditable(true);
+		panelBaud.add(comboBaud);
+		
+		checkboxAckPacing = new JCheckBox("Wait for ack");
+		checkboxAckPacing.setToolTipText("The Arduino sends a byte after each frame before the next frame is sent.");
+		panelBaud.add(checkboxAckPacing);
+		
+		JLabel lblProtocol = new JLabel("Protocol");
+		panelBaud.add(lblProtocol);
+		
+		comboProtocol = new JComboBox<SerialProtocol>(new DefaultComboBoxModel<>(SerialProtocol.values()));
+		comboProtocol.setToolTipText("The Delta protocol requires the RemoteLightDelta sketch.");
+		panelBaud.add(comboProtocol);
+		
 		JPanel panelPixels = new JPanel();
 		FlowLayout flowLayout_2 = (FlowLayout) panelPixels.getLayout();
 		flowLayout_2.setAlignment(FlowLayout.LEFT);
@@ -173,6 +204,8 @@ public class ArduinoSettingsPanel extends DeviceSettingsPanel {
 		checkboxCloneMirrored.setSelected(arduino.getOutputPatch().isCloneMirrored());
 		panelShift.add(checkboxCloneMirrored);
 		
+		addOutputSettings();
+		
 		setValues();
 	}
 	
@@ -193,6 +226,9 @@ public class ArduinoSettingsPanel extends DeviceSettingsPanel {
 			}
 		}
 		spinnerPixels.setValue(arduino.getPixels());
+		comboBaud.setSelectedItem(arduino.getBaudRate());
+		checkboxAckPacing.setSelected(arduino.isAckPacing());
+		comboProtocol.setSelectedItem(arduino.getProtocol());
 		
 		if(arduino.getRgbOrder() == null) {
 			arduino.setRgbOrder(RgbOrder.GRB);
@@ -208,10 +244,19 @@ public class ArduinoSettingsPanel extends DeviceSettingsPanel {
 		arduino.setId(fieldId.getText());
 		arduino.setSerialPort((String) comboPorts.getSelectedItem());
 		arduino.setPixels((int) spinnerPixels.getValue());
+		Object baud = comboBaud.getSelectedItem();
+		try {
+			arduino.setBaudRate(Integer.parseInt(String.valueOf(baud).trim()));
+		} catch(NumberFormatException e) {
+			return false;
+		}
+		arduino.setAckPacing(checkboxAckPacing.isSelected());
+		arduino.setProtocol((SerialProtocol) comboProtocol.getSelectedItem());
 		arduino.setRgbOrder((RgbOrder) comboOrder.getSelectedItem());
 		arduino.getOutputPatch().setShift((int) spinnerShift.getValue());
 		arduino.getOutputPatch().setClone((int) spinnerClone.getValue());
 		arduino.getOutputPatch().setCloneMirrored(checkboxCloneMirrored.isSelected());
+		saveOutputSettings();
 		return true;
 	}
 
@@ -52,6 +52,8 @@ public class ArtnetSettingsPanel extends DeviceSettingsPanel {
 	private JSpinner spinnerSubnet;
 	private JSpinner spinnerStartUniverse;
 	private JSpinner spinnerUniverseSize;
+	private JCheckBox chckbxNativeSender;
+	private JCheckBox chckbxArtSync;
 	private JSpinner spinnerShift;
 	private JSpinner spinnerClone;
 	private JCheckBox checkboxCloneMirrored;
@@ -154,6 +156,21 @@ public class ArtnetSettingsPanel extends DeviceSettingsPanel {
 		spinnerStartUniverse.setAlignmentX(Component.LEFT_ALIGNMENT);
 		panelUniverseSize.add(spinnerUniverseSize);
 		
+		JPanel panelSender = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		panelSender.setPreferredSize(size);
+		panelSender.setMaximumSize(size);
+		panelSender.setAlignmentX(Component.LEFT_ALIGNMENT);
+		add(panelSender);
+		
+		chckbxNativeSender = new JCheckBox("Built-in sender");
+		chckbxNativeSender.setToolTipText("Use the allocation-free Art-Net sender instead of artnet4j");
+		chckbxNativeSender.addChangeListener(e -> chckbxArtSync.setEnabled(chckbxNativeSender.isSelected()));
+		panelSender.add(chckbxNativeSender);
+		
+		chckbxArtSync = new JCheckBox("ArtSync");
+		chckbxArtSync.setToolTipText("Send an ArtSync packet after each frame");
+		panelSender.add(chckbxArtSync);
+		
 		JPanel panelPixels = new JPanel();
 		FlowLayout flowLayout_2 = (FlowLayout) panelPixels.getLayout();
 		flowLayout_2.setAlignment(FlowLayout.LEFT);
@@ -230,6 +247,9 @@ public class ArtnetSettingsPanel extends DeviceSettingsPanel {
 		checkboxCloneMirrored.setSelected(artnet.getOutputPatch().isCloneMirrored());
 		panelShift.add(checkboxCloneMirrored);
 		
+		addOutputSettings();
+		addTransmissionSettings(artnet.getTransmissionSettings());
+		
 		setValues();
 	}
 	
@@ -248,6 +268,9 @@ public class ArtnetSettingsPanel extends DeviceSettingsPanel {
 		spinnerSubnet.setValue(artnet.getSubnet());
 		spinnerStartUniverse.setValue(artnet.getStartUniverse());
 		spinnerUniverseSize.setValue(artnet.getUniverseSize());
+		chckbxNativeSender.setSelected(artnet.isNativeSender());
+		chckbxArtSync.setSelected(artnet.isArtSync());
+		chckbxArtSync.setEnabled(artnet.isNativeSender());
 		updateEndUniverseText();
 		
 		if(artnet.getRgbOrder() == null) {
@@ -293,9 +316,13 @@ public class ArtnetSettingsPanel extends DeviceSettingsPanel {
 		artnet.setSubnet((int) spinnerSubnet.getValue());
 		artnet.setStartUniverse((int) spinnerStartUniverse.getValue());
 		artnet.setUniverseSize((int) spinnerUniverseSize.getValue());
+		artnet.setNativeSender(chckbxNativeSender.isSelected());
+		artnet.setArtSync(chckbxArtSync.isSelected());
 		artnet.getOutputPatch().setShift((int) spinnerShift.getValue());
 		artnet.getOutputPatch().setClone((int) spinnerClone.getValue());
 		artnet.getOutputPatch().setCloneMirrored(checkboxCloneMirrored.isSelected());
+		saveOutputSettings();
+		saveTransmissionSettings();
 		return true;
 	}
 
@@ -22,9 +22,25 @@
 
 package de.lars.remotelightclient.ui.panels.output.outputComps;
 
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingConstants;
+import javax.swing.border.EmptyBorder;
 
+import de.lars.remotelightclient.ui.Style;
+import de.lars.remotelightclient.utils.ui.UiUtils;
 import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.udp.TransmissionMode;
+import de.lars.remotelightcore.devices.udp.TransmissionSettings;
+import de.lars.remotelightcore.out.patch.ColorCorrection;
 
 public abstract class DeviceSettingsPanel extends JPanel {
 
@@ -34,6 +50,19 @@ public abstract class DeviceSettingsPanel extends JPanel {
 	private static final long serialVersionUID = -1279445549682121981L;
 	private Device device;
 	private boolean setup;
+	private JSpinner spinnerGammaRed;
+	private JSpinner spinnerGammaGreen;
+	private JSpinner spinnerGammaBlue;
+	private JSpinner spinnerWhiteRed;
+	private JSpinner spinnerWhiteGreen;
+	private JSpinner spinnerWhiteBlue;
+	private JSpinner spinnerMaxFps;
+	private JSpinner spinnerKeepAlive;
+	private TransmissionSettings transmission;
+	private JComboBox<TransmissionMode> comboTransmissionMode;
+	private JSpinner spinnerBatchSize;
+	private JSpinner spinnerBatchGap;
+	private JSpinner spinnerPacing;
 
 	/**
 	 * Create the panel.
@@ -51,6 +80,145 @@ public abstract class DeviceSettingsPanel extends JPanel {
 		return setup;
 	}
 
+	/**
+	 * Add gamma, white point, keep-alive and frame rate settings of the
+	 * device to the panel. {@link #saveOutputSettings()} must be called
+	 * in {@link #save()}.
+	 */
+	protected void addOutputSettings() {
+		ColorCorrection cc = device.getColorCorrection();
+		
+		JLabel lblColorCorrection = new JLabel("Color correction", SwingConstants.LEFT);
+		lblColorCorrection.setFont(Style.getFontBold(11));
+		lblColorCorrection.setBorder(new EmptyBorder(5, 5, 0, 0));
+		add(lblColorCorrection);
+		
+		JPanel panelCorrection = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		panelCorrection.setPreferredSize(new Dimension(800, 40));
+		panelCorrection.setMaximumSize(new Dimension(800, 40));
+		panelCorrection.setAlignmentX(Component.LEFT_ALIGNMENT);
+		add(panelCorrection);
+		
+		panelCorrection.add(new JLabel("Gamma R:"));
+		spinnerGammaRed = createGammaSpinner(cc.getGammaRed());
+		panelCorrection.add(spinnerGammaRed);
+		
+		panelCorrection.add(new JLabel("G:"));
+		spinnerGammaGreen = createGammaSpinner(cc.getGammaGreen());
+		panelCorrection.add(spinnerGammaGreen);
+		
+		panelCorrection.add(new JLabel("B:"));
+		spinnerGammaBlue = createGammaSpinner(cc.getGammaBlue());
+		panelCorrection.add(spinnerGammaBlue);
+		
+		JPanel panelWhitePoint = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		panelWhitePoint.setPreferredSize(new Dimension(800, 40));
+		panelWhitePoint.setMaximumSize(new Dimension(800, 40));
+		panelWhitePoint.setAlignmentX(Component.LEFT_ALIGNMENT);
+		add(panelWhitePoint);
+		
+		panelWhitePoint.add(new JLabel("White point R:"));
+		spinnerWhiteRed = new JSpinner(new SpinnerNumberModel(cc.getWhiteRed(), 0, 255, 1));
+		UiUtils.configureSpinner(spinnerWhiteRed);
+		panelWhitePoint.add(spinnerWhiteRed);
+		
+		panelWhitePoint.add(new JLabel("G:"));
+		spinnerWhiteGreen = new JSpinner(new SpinnerNumberModel(cc.getWhiteGreen(), 0, 255, 1));
+		UiUtils.configureSpinner(spinnerWhiteGreen);
+		panelWhitePoint.add(spinnerWhiteGreen);
+		
+		panelWhitePoint.add(new JLabel("B:"));
+		spinnerWhiteBlue = new JSpinner(new SpinnerNumberModel(cc.getWhiteBlue(), 0, 255, 1));
+		UiUtils.configureSpinner(spinnerWhiteBlue);
+		panelWhitePoint.add(spinnerWhiteBlue);
+		
+		JPanel panelTiming = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		panelTiming.setPreferredSize(new Dimension(800, 40));
+		panelTiming.setMaximumSize(new Dimension(800, 40));
+		panelTiming.setAlignmentX(Component.LEFT_ALIGNMENT);
+		add(panelTiming);
+		
+		panelTiming.add(new JLabel("Max FPS (0 = unlimited):"));
+		spinnerMaxFps = new JSpinner(new SpinnerNumberModel(device.getMaxFps(), 0, 1000, 1));
+		UiUtils.configureSpinner(spinnerMaxFps);
+		panelTiming.add(spinnerMaxFps);
+		
+		panelTiming.add(new JLabel("Keep-alive ms (0 = send every frame):"));
+		spinnerKeepAlive = new JSpinner(new SpinnerNumberModel(device.getKeepAliveInterval(), 0, 60000, 100));
+		spinnerKeepAlive.setToolTipText("Unchanged frames are only sent again after this interval");
+		UiUtils.configureSpinner(spinnerKeepAlive);
+		panelTiming.add(spinnerKeepAlive);
+	}
+	
+	private JSpinner createGammaSpinner(float value) {
+		JSpinner spinner = new JSpinner(new SpinnerNumberModel((double) value,
+				ColorCorrection.MIN_GAMMA, ColorCorrection.MAX_GAMMA, 0.1));
+		UiUtils.configureSpinner(spinner);
+		return spinner;
+	}
+	
+	/**
+	 * Apply the values of the output settings to the device
+	 */
+	protected void saveOutputSettings() {
+		if(spinnerGammaRed == null)
+			return;
+		ColorCorrection cc = device.getColorCorrection();
+		cc.setGamma(((Number) spinnerGammaRed.getValue()).floatValue(),
+				((Number) spinnerGammaGreen.getValue()).floatValue(),
+				((Number) spinnerGammaBlue.getValue()).floatValue());
+		cc.setWhitePoint((int) spinnerWhiteRed.getValue(), (int) spinnerWhiteGreen.getValue(), (int) spinnerWhiteBlue.getValue());
+		device.setMaxFps((int) spinnerMaxFps.getValue());
+		device.setKeepAliveInterval((int) spinnerKeepAlive.getValue());
+	}
+
+	/**
+	 * Add packet pacing and batching settings of UDP devices to the panel.
+	 * {@link #saveTransmissionSettings()} must be called in {@link #save()}.
+	 * @param settings transmission settings of the device
+	 */
+	protected void addTransmissionSettings(TransmissionSettings settings) {
+		this.transmission = settings;
+		
+		JPanel panelTransmission = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		panelTransmission.setPreferredSize(new Dimension(800, 40));
+		panelTransmission.setMaximumSize(new Dimension(800, 40));
+		panelTransmission.setAlignmentX(Component.LEFT_ALIGNMENT);
+		add(panelTransmission);
+		
+		panelTransmission.add(new JLabel("Transmission:"));
+		comboTransmissionMode = new JComboBox<>(new DefaultComboBoxModel<>(TransmissionMode.values()));
+		comboTransmissionMode.setSelectedItem(settings.getMode());
+		panelTransmission.add(comboTransmissionMode);
+		
+		panelTransmission.add(new JLabel("Batch size:"));
+		spinnerBatchSize = new JSpinner(new SpinnerNumberModel(settings.getBatchSize(), 1, 1000, 1));
+		UiUtils.configureSpinner(spinnerBatchSize);
+		panelTransmission.add(spinnerBatchSize);
+		
+		panelTransmission.add(new JLabel("Batch gap \u00B5s:"));
+		spinnerBatchGap = new JSpinner(new SpinnerNumberModel(settings.getBatchGap(), 1, 100000, 100));
+		UiUtils.configureSpinner(spinnerBatchGap);
+		panelTransmission.add(spinnerBatchGap);
+		
+		panelTransmission.add(new JLabel("Pacing %:"));
+		spinnerPacing = new JSpinner(new SpinnerNumberModel(settings.getPacing(), 1, 100, 5));
+		UiUtils.configureSpinner(spinnerPacing);
+		panelTransmission.add(spinnerPacing);
+	}
+	
+	/**
+	 * Apply the values of the transmission settings
+	 */
+	protected void saveTransmissionSettings() {
+		if(transmission == null)
+			return;
+		transmission.setMode((TransmissionMode) comboTransmissionMode.getSelectedItem());
+		transmission.setBatchSize((int) spinnerBatchSize.getValue());
+		transmission.setBatchGap((int) spinnerBatchGap.getValue());
+		transmission.setPacing((int) spinnerPacing.getValue());
+	}
+
 	/**
 	 * 
 	 * @return returns false if ID is empty
@@ -0,0 +1,66 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightclient.ui.panels.output.outputComps;
+
+import javax.swing.JLabel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+
+import de.lars.remotelightclient.utils.ui.UiUtils;
+import de.lars.remotelightcore.devices.opc.OPC;
+
+public class OPCSettingsPanel extends NetworkDeviceSettingsPanel<OPC> {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4419253360182934470L;
+	private OPC opc;
+	private JSpinner spinnerChannel;
+
+	/**
+	 * Create the panel.
+	 */
+	public OPCSettingsPanel(OPC opc, boolean setup) {
+		super(opc, setup);
+		this.opc = opc;
+		
+		JLabel lblChannel = new JLabel("Channel (0 = all):");
+		getConnectionPanel().add(lblChannel);
+		
+		spinnerChannel = new JSpinner();
+		spinnerChannel.setModel(new SpinnerNumberModel(opc.getOpcChannel(), 0, 255, 1));
+		UiUtils.configureSpinner(spinnerChannel);
+		getConnectionPanel().add(spinnerChannel);
+	}
+
+	@Override
+	public boolean save() {
+		if(!super.save()) {
+			return false;
+		}
+		opc.setOpcChannel((int) spinnerChannel.getValue());
+		return true;
+	}
+
+}
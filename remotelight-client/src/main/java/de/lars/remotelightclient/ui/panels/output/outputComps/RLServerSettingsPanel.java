@@ -169,6 +169,8 @@ public class RLServerSettingsPanel extends DeviceSettingsPanel {
 		checkboxCloneMirrored.setSelected(rlServer.getOutputPatch().isCloneMirrored());
 		panelShift.add(checkboxCloneMirrored);
 		
+		addOutputSettings();
+		
 		setValues();
 	}
 	
@@ -199,6 +201,7 @@ public class RLServerSettingsPanel extends DeviceSettingsPanel {
 		rlServer.getOutputPatch().setShift((int) spinnerShift.getValue());
 		rlServer.getOutputPatch().setClone((int) spinnerClone.getValue());
 		rlServer.getOutputPatch().setCloneMirrored(checkboxCloneMirrored.isSelected());
+		saveOutputSettings();
 		return true;
 	}
 
@@ -0,0 +1,67 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightclient.ui.panels.output.outputComps;
+
+import javax.swing.JLabel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+
+import de.lars.remotelightclient.utils.ui.UiUtils;
+import de.lars.remotelightcore.devices.wled.WLED;
+import de.lars.remotelightcore.devices.wled.WLEDPacket;
+
+public class WLEDSettingsPanel extends NetworkDeviceSettingsPanel<WLED> {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 5243907717862190235L;
+	private WLED wled;
+	private JSpinner spinnerTimeout;
+
+	/**
+	 * Create the panel.
+	 */
+	public WLEDSettingsPanel(WLED wled, boolean setup) {
+		super(wled, setup);
+		this.wled = wled;
+		
+		JLabel lblTimeout = new JLabel("Timeout s (255 = never):");
+		getConnectionPanel().add(lblTimeout);
+		
+		spinnerTimeout = new JSpinner();
+		spinnerTimeout.setModel(new SpinnerNumberModel(wled.getTimeout(), 1, WLEDPacket.TIMEOUT_INFINITE, 1));
+		UiUtils.configureSpinner(spinnerTimeout);
+		getConnectionPanel().add(spinnerTimeout);
+	}
+
+	@Override
+	public boolean save() {
+		if(!super.save()) {
+			return false;
+		}
+		wled.setTimeout((int) spinnerTimeout.getValue());
+		return true;
+	}
+
+}
@@ -24,7 +24,10 @@ package de.lars.remotelightclient.ui.simulator;
 
 import java.awt.Color;
 import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
@@ -38,7 +41,10 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import de.lars.remotelightclient.utils.ColorSerializer;
+import de.lars.remotelightcore.devices.remotelightserver.RLFrameDecoder;
+import de.lars.remotelightcore.devices.remotelightserver.RLProtocol;
 import de.lars.remotelightcore.lang.i18n;
+import de.lars.remotelightcore.out.FrameBuffer;
 
 public class RLServerSimulator {
 	
@@ -77,20 +83,34 @@ public class RLServerSimulator {
 						Logger.info("[Simulator] Client connected: " + socket.getRemoteSocketAddress());
 						onStateChanged(i18n.getString("RLServerEmulator.Connected")); //$NON-NLS-1$
 						
-						scanner = new Scanner(new BufferedInputStream(socket.getInputStream()));
+						// offer the binary protocol, old clients ignore it
+						OutputStream out = socket.getOutputStream();
+						out.write(RLProtocol.createHandshake(RLProtocol.VERSION, RLProtocol.SUPPORTED_FLAGS));
+						out.flush();
 						
-						while(running) {
-							
-							if(scanner.hasNextLine()) {
-								String input = scanner.nextLine();
-								inputPixels = gson.fromJson(input, Color[].class);
-								if(pixelReceiver != null) {
-									pixelReceiver.onPixelReceived(inputPixels);
+						BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+						in.mark(RLProtocol.HANDSHAKE_LENGTH);
+						boolean binary = in.read() == RLProtocol.MAGIC[0];
+						in.reset();
+						
+						if(binary) {
+							receiveBinary(new DataInputStream(in));
+						} else {
+							// old client sending JSON lines
+							scanner = new Scanner(in);
+							while(running) {
+								
+								if(scanner.hasNextLine()) {
+									String input = scanner.nextLine();
+									inputPixels = gson.fromJson(input, Color[].class);
+									if(pixelReceiver != null) {
+										pixelReceiver.onPixelReceived(inputPixels);
+									}
 								}
 							}
 						}
 						
-					} catch (SocketException e) {
+					} catch (SocketException | EOFException e) {
 						// do nothing
 					} catch (Exception e) {
 						Logger.error(e);
@@ -100,6 +120,25 @@ public class RLServerSimulator {
 		}
 	}
 	
+	private void receiveBinary(DataInputStream in) throws IOException {
+		int handshake = RLProtocol.readHandshake(in);
+		if(handshake == -1)
+			throw new IOException("Invalid handshake");
+		Logger.info("[Simulator] Using binary protocol v" + RLProtocol.getVersion(handshake));
+		RLFrameDecoder decoder = new RLFrameDecoder();
+		while(running) {
+			FrameBuffer frame = decoder.read(in);
+			Color[] pixels = new Color[frame.size()];
+			for(int i = 0; i < pixels.length; i++) {
+				pixels[i] = new Color(frame.getRGB(i));
+			}
+			inputPixels = pixels;
+			if(pixelReceiver != null) {
+				pixelReceiver.onPixelReceived(inputPixels);
+			}
+		}
+	}
+	
 	public void stop() {
 		if(running) {
 			running = false;
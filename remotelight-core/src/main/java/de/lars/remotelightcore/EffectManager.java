@@ -23,12 +23,16 @@
 package de.lars.remotelightcore;
 
 import de.lars.remotelightcore.event.EventHandler;
+import de.lars.remotelightcore.metrics.PerformanceMetrics;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
-import de.lars.remotelightcore.utils.color.Color;
-import de.lars.remotelightcore.utils.color.PixelColorUtils;
+import de.lars.remotelightcore.utils.RenderClock;
 
 public abstract class EffectManager {
+	
+	private volatile PerformanceMetrics metrics;
+	private long lastSkippedFrames;
 
 	public abstract String getName();
 	public abstract void stop();
@@ -37,7 +41,41 @@ public abstract class EffectManager {
 	protected void turnOffLeds() {
 		if(RemoteLightCore.getInstance().getSettingsManager().getSetting(SettingBoolean.class, "out.effects.disableleds").get()) {
 			// turn off leds when disabling effect
-			OutputManager.addToOutput(PixelColorUtils.colorAllPixels(Color.BLACK, RemoteLightCore.getLedNum()));
+			OutputManager.addToOutput(new FrameBuffer(RemoteLightCore.getLedNum()));
+		}
+	}
+	
+	/**
+	 * @return render time, frame rate and error counters of this manager
+	 */
+	public PerformanceMetrics getMetrics() {
+		if(metrics == null) {
+			synchronized (this) {
+				if(metrics == null)
+					metrics = new PerformanceMetrics(getName());
+			}
+		}
+		return metrics;
+	}
+	
+	/**
+	 * Record a rendered frame. Frames skipped by the render clock
+	 * are counted as dropped frames.
+	 * @param task			clock task that rendered the frame
+	 * @param renderNanos	time needed to render the frame
+	 */
+	protected void recordFrame(RenderClock.Task task, long renderNanos) {
+		PerformanceMetrics m = getMetrics();
+		m.recordFrame();
+		m.recordRenderTime(renderNanos);
+		if(task != null) {
+			long skipped = task.getSkippedFrames();
+			if(skipped < lastSkippedFrames)
+				lastSkippedFrames = 0; // new task
+			if(skipped > lastSkippedFrames) {
+				m.recordDropped(skipped - lastSkippedFrames);
+				lastSkippedFrames = skipped;
+			}
 		}
 	}
 	
@@ -32,6 +32,8 @@ import de.lars.remotelightcore.effect.AbstractEffect;
 import de.lars.remotelightcore.lua.LuaManager;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.musicsync.MusicSyncManager;
+import de.lars.remotelightcore.networkinput.InputProtocol;
+import de.lars.remotelightcore.networkinput.NetworkInputManager;
 import de.lars.remotelightcore.scene.Scene;
 import de.lars.remotelightcore.scene.SceneManager;
 import de.lars.remotelightcore.screencolor.AbstractScreenColorManager;
@@ -44,9 +46,10 @@ public class EffectManagerHelper {
 	private SceneManager sm;
 	private AbstractScreenColorManager scm;
 	private LuaManager lua;
+	private NetworkInputManager nim;
 	
 	public enum EffectType {
-		Animation, Scene, MusicSync, ScreenColor, Lua
+		Animation, Scene, MusicSync, ScreenColor, Lua, NetworkInput
 	}
 	
 	public EffectManagerHelper() {
@@ -60,10 +63,11 @@ public class EffectManagerHelper {
 		sm = remoteLightCore.getSceneManager();
 		scm = remoteLightCore.getScreenColorManager();
 		lua = remoteLightCore.getLuaManager();
+		nim = remoteLightCore.getNetworkInputManager();
 		if(scm == null) {
-			allManager = new EffectManager[] {am, msm, sm, lua};
+			allManager = new EffectManager[] {am, msm, sm, lua, nim};
 		} else {
-			allManager = new EffectManager[] {am, msm, sm, lua, scm};
+			allManager = new EffectManager[] {am, msm, sm, lua, nim, scm};
 		}
 	}
 	
@@ -82,6 +86,8 @@ public class EffectManagerHelper {
 			scm.stop();
 		if(lua.isActive())
 			lua.stopLuaScript();
+		if(nim.isActive())
+			nim.stop();
 	}
 	
 	public void stopAllExceptFor(EffectType type) {
@@ -100,6 +106,9 @@ public class EffectManagerHelper {
 		if(type != EffectType.Lua && lua.isActive()) {
 			lua.stopLuaScript();
 		}
+		if(type != EffectType.NetworkInput && nim.isActive()) {
+			nim.stop();
+		}
 	}
 	
 	/**
@@ -160,13 +169,18 @@ public class EffectManagerHelper {
 			AbstractScreenColorManager scm = (AbstractScreenColorManager) manager;
 			scm.start();
 			return true;
+		} else if(manager instanceof NetworkInputManager) {
+			for(InputProtocol protocol : InputProtocol.values()) {
+				if(protocol.name().equalsIgnoreCase(effect))
+					return ((NetworkInputManager) manager).start(protocol);
+			}
 		}
 		return false;
 	}
 	
 	/**
 	 * Get all effects/animations as string
-	 * @param em corresponding manager (only animation, musicsync, scene manager)
+	 * @param em corresponding manager (only animation, musicsync, scene, network input manager)
 	 * @return a list of all effect displaynames or null if manager is not supported
 	 */
 	public List<String> getAllEffects(EffectManager manager) {
@@ -186,6 +200,10 @@ public class EffectManagerHelper {
 			for(Scene scene : m.getScenes()) {
 				names.add(scene.getDisplayname());
 			}
+		} else if(manager instanceof NetworkInputManager) {
+			for(InputProtocol protocol : InputProtocol.values()) {
+				names.add(protocol.name());
+			}
 		}
 		if(names.size() > 0) {
 			return names;
@@ -258,6 +276,10 @@ public class EffectManagerHelper {
 				out[1] = m.getActiveLuaScriptPath();
 		} else if(manager instanceof AbstractScreenColorManager) {
 			out[1] = "ScreenColor";
+		} else if(manager instanceof NetworkInputManager) {
+			NetworkInputManager m = (NetworkInputManager) manager;
+			if(m.getActiveProtocol() != null)
+				out[1] = m.getActiveProtocol().name();
 		}
 		
 		return out;
@@ -49,16 +49,17 @@ import de.lars.remotelightcore.io.AutoSave;
 import de.lars.remotelightcore.io.FileStorage;
 import de.lars.remotelightcore.lua.LuaManager;
 import de.lars.remotelightcore.musicsync.MusicSyncManager;
+import de.lars.remotelightcore.networkinput.NetworkInputManager;
 import de.lars.remotelightcore.notification.Notification;
 import de.lars.remotelightcore.notification.NotificationManager;
 import de.lars.remotelightcore.notification.NotificationType;
-import de.lars.remotelightcore.out.Output;
 import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.scene.SceneManager;
 import de.lars.remotelightcore.screencolor.AbstractScreenColorManager;
 import de.lars.remotelightcore.settings.SettingsManager;
 import de.lars.remotelightcore.utils.DirectoryUtil;
 import de.lars.remotelightcore.utils.ExceptionHandler;
+import de.lars.remotelightcore.utils.RenderClock;
 
 public class RemoteLightCore {
 	
@@ -81,6 +82,7 @@ public class RemoteLightCore {
 	private SettingsManager settingsManager;
 	private NotificationManager notificationManager;
 	private EventHandler eventHandler;
+	private RenderClock renderClock;
 	
 	private EffectManagerHelper effectManagerHelper;
 	private AnimationManager aniManager;
@@ -89,6 +91,7 @@ public class RemoteLightCore {
 	private AbstractScreenColorManager screenColorManager;
 	private LuaManager luaManager;
 	private ColorManager colorManager;
+	private NetworkInputManager networkInputManager;
 	
 	private FileStorage fileStorage;
 	private AutoSave fileAutoSaver;
@@ -138,6 +141,7 @@ public class RemoteLightCore {
 		
 		settingsManager = new SettingsManager(fileStorage);
 		settingsManager.load(fileStorage.KEY_SETTINGS_LIST);
+		renderClock = new RenderClock();
 		deviceManager = new DeviceManager();
 		outputManager = new OutputManager();
 		luaManager = new LuaManager();
@@ -147,6 +151,7 @@ public class RemoteLightCore {
 		aniManager = new AnimationManager();
 		sceneManager = new SceneManager();
 		musicManager = new MusicSyncManager();
+		networkInputManager = new NetworkInputManager();
 		effectManagerHelper = new EffectManagerHelper();
 		
 		// load devices
@@ -188,6 +193,14 @@ public class RemoteLightCore {
 		return System.getProperty("os.name").contains("Mac OS");
 	}
 	
+	/**
+	 * Get the clock all effect managers and the output loop run on
+	 * @return	the {@link RenderClock} instance
+	 */
+	public RenderClock getRenderClock() {
+		return renderClock;
+	}
+	
 	public AnimationManager getAnimationManager() {
 		return aniManager;
 	}
@@ -233,6 +246,10 @@ public class RemoteLightCore {
 		return colorManager;
 	}
 	
+	public NetworkInputManager getNetworkInputManager() {
+		return networkInputManager;
+	}
+	
 	public FileStorage getFileStorage() {
 		return fileStorage;
 	}
@@ -258,16 +275,9 @@ public class RemoteLightCore {
 	 * @return
 	 */
 	public static int getLedNum() {
-		Output out = instance.getOutputManager().getActiveOutput();
-		if(out != null) {
-			if(out.getOutputPatch().getClone() > 0) {
-				return out.getOutputPatch().getPatchedPixelNumber();
-			}
-			return out.getPixels();
-		}
-		// return not 0 to prevent ArithmeticException or ArrayIndexOutOfBoundsException which
-		// which can occur for some effects
-		return OutputManager.MIN_PIXELS;
+		// returns not 0 if there is no output to prevent ArithmeticException or
+		// ArrayIndexOutOfBoundsException which can occur for some effects
+		return instance.getOutputManager().getGeometry().getLedNum();
 	}
 	
 	/**
@@ -352,6 +362,7 @@ public class RemoteLightCore {
 			settingsManager.getSettingObject("manager.lastactive.command").setValue(activeCommand);
 			
 			this.getEffectManagerHelper().stopAll();// Stop all active effects
+			this.getOutputManager().getReconnectSupervisor().shutdown();	// Stop reconnecting outputs
 			this.getOutputManager().close();		// Close active output
 			
 			this.getDeviceManager().saveDevices(fileStorage, fileStorage.KEY_DEVICES_LIST);	// Save device list
@@ -67,6 +67,8 @@ public class SetupHelper {
 				"Delay (ms) between sending output packets.", 50, 5, 500, 5));
 		s.addSetting(new SettingBoolean("out.autoconnect", "Auto connect", SettingCategory.General,
 				"Automaticly connect/open last used output.", false));
+		s.addSetting(new SettingBoolean("out.reconnect", "Auto reconnect", SettingCategory.General,
+				"Reconnect outputs in the background when the connection is lost.", true));
 		s.addSetting(new SettingBoolean("manager.lastactive.enabled", "Auto enable last effect",
 				SettingCategory.General, "Automaticly enable last used effect/animation.", false));
 		s.addSetting(new SettingBoolean("data.autosave", "Auto save", SettingCategory.General,
@@ -78,6 +80,10 @@ public class SetupHelper {
 				null, 2, 1, 30, 1));
 		s.addSetting(new SettingBoolean("out.effects.disableleds", "Disable LEDs on effect toggle", SettingCategory.Others,
 				"Turn off LEDs when switching/toggling effects.", true));
+		s.addSetting(new SettingInt("netinput.universe", "Network input start universe", SettingCategory.Others,
+				"E1.31 universe or Art-Net port address of the first pixel.", 1, 0, 63999, 1));
+		s.addSetting(new SettingInt("netinput.universesize", "Network input universe size", SettingCategory.Others,
+				"Number of DMX channels used per universe.", 510, 3, 512, 3));
 
 		// Intern
 		s.addSetting(new SettingObject("out.lastoutput", "Last active Output", null));
@@ -36,6 +36,8 @@ import de.lars.remotelightcore.event.events.types.EffectToggleEvent.AnimationTog
 import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.settings.Setting;
 import de.lars.remotelightcore.settings.SettingsManager;
+import de.lars.remotelightcore.utils.RenderClock;
+import de.lars.remotelightcore.utils.RenderClock.TickListener;
 import de.lars.remotelightcore.utils.color.Color;
 import de.lars.remotelightcore.utils.color.PixelColorUtils;
 
@@ -46,10 +48,11 @@ public class AnimationManager extends EffectManager {
 	/** Maximum animation loop delay in ms */
 	public final static int MAX_SPEED = 200;
 	
-	private Animation activeAnimation;
+	private volatile Animation activeAnimation;
 	private List<Animation> animations;
-	private boolean active;
-	private int delay = 50;
+	private volatile boolean active;
+	private volatile int delay = 50;
+	private volatile RenderClock.Task clockTask;
 	
 	public AnimationManager() {
 		animations = new ArrayList<Animation>();
@@ -138,43 +141,54 @@ public class AnimationManager extends EffectManager {
 			active = true;
 			Logger.info("Starting Animation Thread.");
 			
-			new Thread(new Runnable() {
+			final RenderClock clock = RemoteLightCore.getInstance().getRenderClock();
+			clockTask = clock.schedule("Animation", this::getLoopDelay, new TickListener() {
+				// own task, clockTask may not be assigned yet or belong to a newer task
+				private RenderClock.Task task;
 				
 				@Override
-				public void run() {
-					while(activeAnimation != null) {
-						try {
-							
-							activeAnimation.onLoop();
-							
-						} catch(Exception e) {
-							Logger.error(e, "There was an error executing the animation '" + activeAnimation.getDisplayname() + "'.");
-							// stop on exception
-							stop();
-							break;
-						}
+				public void onTick(long elapsedNanos) {
+					if(task == null)
+						task = clock.getCurrentTask();
+					Animation animation = activeAnimation;
+					if(animation == null) {
+						clock.cancel(task);
+						active = false;
+						Logger.info("Stopped Animation Thread.");
+						// restart if an effect was set in the meantime
+						if(activeAnimation != null)
+							loop();
+						return;
+					}
+					try {
+						
+						animation.setElapsedTime(elapsedNanos);
+						long start = System.nanoTime();
+						animation.onLoop();
+						recordFrame(task, System.nanoTime() - start);
 						
-						if(activeAnimation.isAdjustable()) {
-							try {
-								Thread.sleep(delay);
-							} catch (InterruptedException e) {
-								Logger.error(e, "Animation Thread could not wait for delay! (delay: " + delay + ")");
-							}
-						} else {
-							try {
-								Thread.sleep(activeAnimation.getDelay());
-							} catch (InterruptedException e) {
-								Logger.error(e, "Animation Thread could not wait for delay! (delay: " + activeAnimation.getDelay() + ")");
-							}
-						}
+					} catch(Exception e) {
+						getMetrics().recordError();
+						Logger.error(e, "There was an error executing the animation '" + animation.getDisplayname() + "'.");
+						// stop on exception
+						stop();
 					}
-					active = false;
-					Logger.info("Stopped Animation Thread.");
 				}
-			}).start();
+			});
 		}
 	}
 	
+	/**
+	 * @return the delay of the active animation or the
+	 * 			global delay if the animation is adjustable
+	 */
+	private int getLoopDelay() {
+		Animation animation = activeAnimation;
+		if(animation == null || animation.isAdjustable())
+			return delay;
+		return animation.getDelay();
+	}
+	
 	private void registerAnimations() {
 		animations.add(new Rainbow());
 		animations.add(new RunningLight());
@@ -25,6 +25,7 @@ package de.lars.remotelightcore.animation.animations;
 import java.util.Random;
 
 import de.lars.remotelightcore.animation.Animation;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingColor;
@@ -39,11 +40,15 @@ public class Particles extends Animation {
 	
 	private Color[] strip;
 	private Particle[] particles;
+	private final SettingHandle<Boolean> staticColor;
+	private final SettingHandle<Color> staticColorValue;
 
 	public Particles() {
 		super("Particles");
 		this.addSetting(new SettingBoolean("animation.particles.staticcolor", "Static color", SettingCategory.Intern, null, false));
 		this.addSetting(new SettingColor("animation.particles.color", "Color", SettingCategory.Intern, null, Color.RED));
+		staticColor = getSettingHandle("animation.particles.staticcolor", Boolean.class);
+		staticColorValue = getSettingHandle("animation.particles.color", Color.class);
 	}
 	
 	@Override
@@ -132,8 +137,8 @@ public class Particles extends Animation {
 			int hue = (int) MathHelper.map(hueVal, -1, 1, 0, RainbowWheel.getRainbow().length-1);
 			Color color = RainbowWheel.getRainbow()[hue];
 			
-			if(((SettingBoolean)getSetting("animation.particles.staticcolor")).get()) {
-				color = ((SettingColor) getSetting("animation.particles.color")).get();
+			if(staticColor.get(false)) {
+				color = staticColorValue.get(color);
 			}
 			
 			float brightVal = (float) brightNoise.eval(brightX, brightY);
@@ -28,6 +28,7 @@ public enum CMD {
 	STOP("stop"),
 	COLOR("color"),
 	LIST("list"),
+	METRICS("metrics"),
 	CLOSE("close");
 	
 	private final String text;
@@ -25,16 +25,23 @@ package de.lars.remotelightcore.cmd;
 import static de.lars.remotelightcore.cmd.CMD.CLOSE;
 import static de.lars.remotelightcore.cmd.CMD.COLOR;
 import static de.lars.remotelightcore.cmd.CMD.LIST;
+import static de.lars.remotelightcore.cmd.CMD.METRICS;
 import static de.lars.remotelightcore.cmd.CMD.START;
 import static de.lars.remotelightcore.cmd.CMD.STOP;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import de.lars.remotelightcore.EffectManager;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.cmd.exceptions.CommandException;
 import de.lars.remotelightcore.colors.ColorManager;
+import de.lars.remotelightcore.devices.artnet.Artnet;
+import de.lars.remotelightcore.devices.e131.E131;
+import de.lars.remotelightcore.devices.udp.UniverseStats;
+import de.lars.remotelightcore.out.Output;
+import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.screencolor.AbstractScreenColorManager;
 import de.lars.remotelightcore.utils.color.Color;
 
@@ -120,6 +127,32 @@ public class CommandParser {
 					throw new CommandException("The given effect manager has no effects or is not supported.");
 				print("All effects of " + args[1] + ": " + String.join(", ", names));
 			}
+		} else if(args[0].equalsIgnoreCase(METRICS.toString())) {
+			List<Output> outputs = remoteLightCore.getOutputManager().getActiveOutputs();
+			EffectManager[] managers = remoteLightCore.getEffectManagerHelper().getAllManagers();
+			if(args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+				for(EffectManager em : managers)
+					em.getMetrics().reset();
+				for(Output output : outputs) {
+					output.getMetrics().reset();
+					for(UniverseStats stats : getUniverseStats(output))
+						stats.reset();
+				}
+				print("Successfully reset all metrics.");
+			} else {
+				OutputManager om = remoteLightCore.getOutputManager();
+				print(String.format("Output loop: %d frames produced, %d sent, %d dropped",
+						om.getFramesProduced(), om.getFramesSent(), om.getFramesDropped()));
+				for(EffectManager em : managers) {
+					if(em.getMetrics().getFrames() > 0)
+						print(em.getMetrics().toString());
+				}
+				for(Output output : outputs) {
+					print(output.getMetrics().toString());
+					for(UniverseStats stats : getUniverseStats(output))
+						print("  " + stats.toString());
+				}
+			}
 		} else if(args[0].equalsIgnoreCase(CLOSE.toString())) {
 			remoteLightCore.close(true);
 		} else {
@@ -161,6 +194,19 @@ public class CommandParser {
 		return true;
 	}
 	
+	/**
+	 * Get the per-universe statistics of UDP devices
+	 * @param output output
+	 * @return statistics or an empty list if not supported
+	 */
+	private List<UniverseStats> getUniverseStats(Output output) {
+		if(output instanceof E131)
+			return ((E131) output).getUniverseStats();
+		if(output instanceof Artnet)
+			return ((Artnet) output).getUniverseStats();
+		return Collections.emptyList();
+	}
+	
 	/**
 	 * Get effect manager
 	 * @param text name of the manager
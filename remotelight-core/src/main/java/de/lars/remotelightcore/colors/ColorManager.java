@@ -26,10 +26,10 @@ import de.lars.remotelightcore.EffectManager;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.colors.palette.model.AbstractPalette;
 import de.lars.remotelightcore.colors.palette.model.ColorGradient;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.utils.color.Color;
 import de.lars.remotelightcore.utils.color.ColorUtil;
-import de.lars.remotelightcore.utils.color.PixelColorUtils;
 
 public class ColorManager extends EffectManager {
 	
@@ -50,8 +50,9 @@ public class ColorManager extends EffectManager {
 		if(color == null)
 			color = Color.BLACK;
 		lastColor = color;
-		Color[] strip = PixelColorUtils.colorAllPixels(color, RemoteLightCore.getLedNum());
-		OutputManager.addToOutput(strip);
+		FrameBuffer frame = new FrameBuffer(RemoteLightCore.getLedNum());
+		frame.fill(color);
+		OutputManager.addToOutput(frame);
 	}
 	
 	public void showGradient(AbstractPalette gradient) {
@@ -62,11 +63,11 @@ public class ColorManager extends EffectManager {
 		float stepSize = 1.0f / pixels;
 		((ColorGradient) gradient).setStepSize(stepSize);
 		((ColorGradient) gradient).resetStepPosition();
-		Color[] strip = new Color[pixels];
+		FrameBuffer frame = new FrameBuffer(pixels);
 		for(int i = 0; i < pixels; i++) {
-			strip[i] = gradient.getNext();
+			frame.setColor(i, gradient.getNext());
 		}
-		OutputManager.addToOutput(strip);
+		OutputManager.addToOutput(frame);
 	}
 	
 	public Color getLastColor() {
@@ -0,0 +1,95 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for reconnect attempts.
+ * <p>
+ * The delay doubles with every attempt up to the maximum delay. A random
+ * part of the delay is subtracted (jitter), so devices that failed at the
+ * same time do not retry at the same time.
+ */
+public class Backoff {
+	
+	/** default delay before the first attempt in milliseconds */
+	public final static long DEFAULT_INITIAL_DELAY = 500;
+	/** default maximum delay in milliseconds */
+	public final static long DEFAULT_MAX_DELAY = 30000;
+	/** default jitter as fraction of the delay */
+	public final static double DEFAULT_JITTER = 0.5;
+	
+	private final long initialDelay;
+	private final long maxDelay;
+	private final double jitter;
+	private int attempts;
+	
+	public Backoff() {
+		this(DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, DEFAULT_JITTER);
+	}
+	
+	/**
+	 * @param initialDelay	delay before the first attempt in milliseconds
+	 * @param maxDelay		maximum delay in milliseconds
+	 * @param jitter		random fraction (0..1) that is subtracted from the delay
+	 */
+	public Backoff(long initialDelay, long maxDelay, double jitter) {
+		if(initialDelay <= 0 || maxDelay < initialDelay)
+			throw new IllegalArgumentException("Invalid delay: initial " + initialDelay + ", max " + maxDelay);
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.jitter = Math.max(0, Math.min(1, jitter));
+	}
+	
+	/**
+	 * Get the delay for the next attempt and increase the attempt counter
+	 * @return delay in milliseconds
+	 */
+	public synchronized long nextDelay() {
+		// initialDelay * 2^attempts, capped without overflow
+		long delay = attempts < 62 && initialDelay <= (maxDelay >> Math.min(attempts, 62))
+				? initialDelay << attempts : maxDelay;
+		delay = Math.min(delay, maxDelay);
+		attempts++;
+		if(jitter > 0)
+			delay -= (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+		return Math.max(1, delay);
+	}
+	
+	/**
+	 * @return number of delays handed out since the last reset
+	 */
+	public synchronized int getAttempts() {
+		return attempts;
+	}
+	
+	/**
+	 * Start again with the initial delay
+	 */
+	public synchronized void reset() {
+		attempts = 0;
+	}
+
+}
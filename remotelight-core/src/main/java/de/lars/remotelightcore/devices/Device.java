@@ -26,6 +26,9 @@ import de.lars.remotelightcore.utils.color.Color;
 import java.io.Serializable;
 
 import de.lars.remotelightcore.devices.arduino.RgbOrder;
+import de.lars.remotelightcore.metrics.PerformanceMetrics;
+import de.lars.remotelightcore.RemoteLightCore;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.out.Output;
 import de.lars.remotelightcore.out.OutputManager;
 
@@ -36,6 +39,12 @@ public abstract class Device extends Output implements Serializable {
 	 */
 	private static final long serialVersionUID = -5542594482384646241L;
 	private RgbOrder rgbOrder;
+	private transient FrameBuffer inputFrame;
+	private transient FrameBuffer patchedFrame;
+	private transient FrameBuffer lastSentFrame;
+	private transient long lastSentTime;
+	private transient volatile long suppressedFrames;
+	private transient volatile Boolean colorSendOverridden;
 	
 	/**
 	 * @param id User defined name for the device
@@ -55,12 +64,129 @@ public abstract class Device extends Output implements Serializable {
 	 */
 	public abstract void onLoad();
 	
-	public abstract void send(Color[] pixels);
+	/**
+	 * Send the patched pixels to the device.
+	 * <p>Converts the color array to a frame buffer and calls
+	 * {@link #send(FrameBuffer)} by default. Subclasses must
+	 * override at least one of both send methods.
+	 * @param pixels	color array
+	 */
+	public void send(Color[] pixels) {
+		send(FrameBuffer.fromColors(pixels));
+	}
+	
+	/**
+	 * Send the patched frame to the device. The frame buffer is
+	 * reused by the caller and must not be stored.
+	 * <p>Converts the frame to a color array and calls
+	 * {@link #send(Color[])} by default. Subclasses must
+	 * override at least one of both send methods.
+	 * @param frame		frame to send
+	 * @throws UnsupportedOperationException if the subclass overrides
+	 * 			neither of both send methods
+	 */
+	public void send(FrameBuffer frame) {
+		if(!overridesColorSend())
+			throw new UnsupportedOperationException(getClass().getName() + " must override send(FrameBuffer) or send(Color[])");
+		send(frame.toColors());
+	}
+	
+	/**
+	 * @return true if the subclass implements {@link #send(Color[])}
+	 */
+	private boolean overridesColorSend() {
+		Boolean overrides = colorSendOverridden;
+		if(overrides == null) {
+			try {
+				overrides = getClass().getMethod("send", Color[].class).getDeclaringClass() != Device.class;
+			} catch (NoSuchMethodException e) {
+				overrides = false;
+			}
+			colorSendOverridden = overrides;
+		}
+		return overrides;
+	}
 	
 	@Override
 	public void onOutput(Color[] pixels) {
-		pixels = getOutputPatch().patchOutput(pixels, getRgbOrder());
-		send(pixels);
+		if(inputFrame == null)
+			inputFrame = new FrameBuffer(pixels.length);
+		onOutput(inputFrame.setColors(pixels));
+	}
+	
+	@Override
+	public void onOutput(FrameBuffer frame) {
+		onOutput(frame, 0, frame.size());
+	}
+	
+	/**
+	 * Output a slice of a shared frame without copying it. Used by devices
+	 * that forward parts of their frame to other devices. Pixel {@code i}
+	 * of the slice is pixel {@code offset + i} of the frame, pixels outside
+	 * of the frame are black.
+	 * @param frame		shared frame, must not be modified or stored
+	 * @param offset	index of the first slice pixel in the frame, may be negative
+	 * @param length	number of pixels in the slice
+	 */
+	public void onOutput(FrameBuffer frame, int offset, int length) {
+		final PerformanceMetrics metrics = getMetrics();
+		long start = System.nanoTime();
+		if(patchedFrame == null)
+			patchedFrame = new FrameBuffer(length);
+		int[] lut = null;
+		if(isColorCorrectionEnabled()) {
+			int brightness = RemoteLightCore.getInstance().getOutputManager().getBrightness();
+			lut = getColorCorrection().getLookupTable(brightness);
+		}
+		FrameBuffer patched = getOutputPatch().patchOutput(frame, offset, length, patchedFrame, getRgbOrder(), lut);
+		long encoded = System.nanoTime();
+		metrics.recordEncodeTime(encoded - start);
+		
+		if(isFrameSuppressionEnabled()) {
+			long now = encoded;
+			if(lastSentFrame == null) {
+				lastSentFrame = new FrameBuffer(patched.size());
+			} else if((now - lastSentTime) < getKeepAliveInterval() * 1_000_000L && patched.contentEquals(lastSentFrame)) {
+				// skip unchanged frame until the keep-alive interval is reached
+				suppressedFrames++;
+				return;
+			}
+			lastSentFrame.copyFrom(patched);
+			lastSentTime = now;
+		} else if(lastSentFrame != null) {
+			// suppression was disabled
+			lastSentFrame = null;
+		}
+		send(patched);
+		metrics.recordSendTime(System.nanoTime() - encoded);
+		metrics.recordFrame();
+	}
+	
+	/**
+	 * Whether unchanged frames should only be sent in the keep-alive interval.
+	 * Disabled unless a keep-alive interval is set.
+	 * @return	true if frame suppression is enabled
+	 * @see #getKeepAliveInterval()
+	 */
+	protected boolean isFrameSuppressionEnabled() {
+		return getKeepAliveInterval() > 0;
+	}
+	
+	/**
+	 * @return number of unchanged frames that were not sent
+	 */
+	public long getSuppressedFrames() {
+		return suppressedFrames;
+	}
+	
+	/**
+	 * Whether brightness, gamma and white point should be applied
+	 * to frames sent to this device. Devices that forward frames to
+	 * other devices return false, so the correction is only applied once.
+	 * @return	true if color correction should be applied
+	 */
+	protected boolean isColorCorrectionEnabled() {
+		return true;
 	}
 	
 	public RgbOrder getRgbOrder() {
@@ -78,10 +204,29 @@ public abstract class Device extends Output implements Serializable {
 	
 	@Override
 	public void onActivate() {
+		// always send the first frame after connecting
+		lastSentFrame = null;
 		connect();
 		super.onActivate();
 	}
 	
+	/**
+	 * Close the connection and open it again. Used to reconnect
+	 * devices that lost their connection.
+	 * @return connection state after connecting
+	 * @see ReconnectSupervisor
+	 */
+	public ConnectionState reconnect() {
+		// always send the first frame after connecting
+		lastSentFrame = null;
+		try {
+			disconnect();
+		} catch(Exception e) {
+			// connection is already broken
+		}
+		return connect();
+	}
+	
 	@Override
 	public void onDeactivate() {
 		disconnect();
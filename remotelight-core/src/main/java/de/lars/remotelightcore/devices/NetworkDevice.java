@@ -0,0 +1,45 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices;
+
+/**
+ * Device that is addressed by host name and port
+ */
+public interface NetworkDevice {
+	
+	String getIp();
+	
+	void setIp(String ip);
+	
+	/**
+	 * @return port of the receiver, the protocol default if not set
+	 */
+	int getPort();
+	
+	/**
+	 * @param port port of the receiver or 0 for the protocol default
+	 */
+	void setPort(int port);
+
+}
@@ -0,0 +1,211 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tinylog.Logger;
+
+/**
+ * Reconnects devices that lost their connection in the background.
+ * <p>
+ * Reconnect attempts are scheduled with exponential backoff and jitter
+ * (see {@link Backoff}), so slow connects never block the render or output
+ * loop. An attempt runs on the executor passed to {@link #watch(Device, Executor)},
+ * e.g. the sender thread of the device so no frame is sent while reconnecting,
+ * or on one of the {@link #THREADS} supervisor threads. Devices are retried
+ * until they are connected again or the supervision is cancelled.
+ */
+public class ReconnectSupervisor {
+	
+	/** number of supervisor threads */
+	public final static int THREADS = 4;
+	
+	/**
+	 * Called on the thread of the reconnect attempt when a device is connected again
+	 */
+	public interface ReconnectListener {
+		void onReconnected(Device device);
+	}
+	
+	private final Map<Device, Entry> entries = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+	private volatile ReconnectListener listener;
+	private volatile long initialDelay = Backoff.DEFAULT_INITIAL_DELAY;
+	private volatile long maxDelay = Backoff.DEFAULT_MAX_DELAY;
+	
+	public ReconnectSupervisor() {
+		AtomicInteger threadCount = new AtomicInteger();
+		scheduler = Executors.newScheduledThreadPool(THREADS, r -> {
+			Thread t = new Thread(r, "Reconnect supervisor " + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+	
+	public void setReconnectListener(ReconnectListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Set the backoff of devices that are watched from now on
+	 * @param initialDelay	delay before the first attempt in milliseconds
+	 * @param maxDelay		maximum delay between two attempts in milliseconds
+	 */
+	public void setDelays(long initialDelay, long maxDelay) {
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+	}
+	
+	/**
+	 * Start reconnecting the device in the background,
+	 * attempts run on the supervisor threads
+	 * @param device device that lost the connection
+	 * @return false if the device is already being reconnected
+	 */
+	public boolean watch(Device device) {
+		return watch(device, null);
+	}
+	
+	/**
+	 * Start reconnecting the device in the background
+	 * @param device	device that lost the connection
+	 * @param executor	executor that runs the attempts, e.g. the thread that sends
+	 * 					to the device, or null to use the supervisor threads
+	 * @return false if the device is already being reconnected
+	 */
+	public boolean watch(Device device, Executor executor) {
+		Entry entry = new Entry(device, executor, new Backoff(initialDelay, maxDelay, Backoff.DEFAULT_JITTER));
+		if(entries.putIfAbsent(device, entry) != null)
+			return false;
+		Logger.info("Device " + device.getId() + " lost the connection, reconnecting in the background.");
+		schedule(entry);
+		return true;
+	}
+	
+	/**
+	 * Stop reconnecting the device. A device that is connected by
+	 * an attempt that is already running is disconnected again.
+	 * @param device device to cancel
+	 */
+	public void cancel(Device device) {
+		Entry entry = entries.remove(device);
+		if(entry != null)
+			entry.cancelled = true;
+	}
+	
+	/**
+	 * @param device device to check
+	 * @return true if the device is being reconnected
+	 */
+	public boolean isReconnecting(Device device) {
+		return entries.containsKey(device);
+	}
+	
+	/**
+	 * @param device device to check
+	 * @return number of reconnect attempts or 0 if the device is not being reconnected
+	 */
+	public int getAttempts(Device device) {
+		Entry entry = entries.get(device);
+		return entry != null ? entry.backoff.getAttempts() : 0;
+	}
+	
+	/**
+	 * Cancel all reconnects and stop the supervisor threads
+	 */
+	public void shutdown() {
+		for(Entry entry : entries.values())
+			entry.cancelled = true;
+		entries.clear();
+		scheduler.shutdownNow();
+	}
+	
+	private void schedule(Entry entry) {
+		if(entry.cancelled || scheduler.isShutdown())
+			return;
+		scheduler.schedule(() -> execute(entry), entry.backoff.nextDelay(), TimeUnit.MILLISECONDS);
+	}
+	
+	private void execute(Entry entry) {
+		if(entry.executor == null) {
+			attempt(entry);
+			return;
+		}
+		try {
+			entry.executor.execute(() -> attempt(entry));
+		} catch(RejectedExecutionException e) {
+			// executor is not running (yet), try again later
+			schedule(entry);
+		}
+	}
+	
+	private void attempt(Entry entry) {
+		if(entry.cancelled)
+			return;
+		Device device = entry.device;
+		ConnectionState state;
+		try {
+			state = device.reconnect();
+		} catch(Exception e) {
+			Logger.debug(e, "Reconnect of device " + device.getId() + " failed");
+			state = ConnectionState.FAILED;
+		}
+		
+		if(state != ConnectionState.CONNECTED) {
+			schedule(entry);
+			return;
+		}
+		if(entry.cancelled || !entries.remove(device, entry)) {
+			// cancelled while connecting
+			device.disconnect();
+			return;
+		}
+		Logger.info("Reconnected device " + device.getId() + " after " + entry.backoff.getAttempts() + " attempt(s).");
+		ReconnectListener l = listener;
+		if(l != null)
+			l.onReconnected(device);
+	}
+	
+	private static class Entry {
+		final Device device;
+		final Executor executor;
+		final Backoff backoff;
+		volatile boolean cancelled;
+		
+		Entry(Device device, Executor executor, Backoff backoff) {
+			this.device = device;
+			this.executor = executor;
+			this.backoff = backoff;
+		}
+	}
+
+}
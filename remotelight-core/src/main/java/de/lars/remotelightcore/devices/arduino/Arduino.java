@@ -22,8 +22,6 @@
 
 package de.lars.remotelightcore.devices.arduino;
 
-import de.lars.remotelightcore.utils.color.Color;
-
 import org.tinylog.Logger;
 
 import de.lars.remotelightcore.RemoteLightCore;
@@ -31,6 +29,7 @@ import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
 import de.lars.remotelightcore.notification.Notification;
 import de.lars.remotelightcore.notification.NotificationType;
+import de.lars.remotelightcore.out.FrameBuffer;
 
 public class Arduino extends Device {
 	
@@ -39,7 +38,11 @@ public class Arduino extends Device {
 	 */
 	private static final long serialVersionUID = 7893775235554866836L;
 	private String serialPort;
+	private int baudRate;
+	private boolean ackPacing;
+	private SerialProtocol protocol;
 	private transient ComPort out;
+	private transient byte[] outputBuffer;
 
 	public Arduino(String id, String port) {
 		super(id, 0);
@@ -78,14 +81,74 @@ public class Arduino extends Device {
 		}
 	}
 
+	/**
+	 * @return baud rate of the serial port
+	 */
+	public int getBaudRate() {
+		return baudRate > 0 ? baudRate : ComPort.DEFAULT_BAUD;
+	}
+	
+	/**
+	 * @param baudRate baud rate or 0 for the default, takes effect with the next connect
+	 */
+	public void setBaudRate(int baudRate) {
+		this.baudRate = Math.max(0, baudRate);
+	}
+	
+	/**
+	 * @return true if the Arduino acknowledges every frame
+	 */
+	public boolean isAckPacing() {
+		return ackPacing;
+	}
+	
+	/**
+	 * Wait for an ack byte from the Arduino after each frame before the next
+	 * frame is sent. The sketch must send a byte after showing a frame.
+	 * @param ackPacing true to enable ack pacing
+	 */
+	public void setAckPacing(boolean ackPacing) {
+		this.ackPacing = ackPacing;
+		if(out != null)
+			out.setAckPacing(ackPacing);
+	}
+
+	/**
+	 * @return serial protocol, {@link SerialProtocol#GLEDIATOR} by default
+	 */
+	public SerialProtocol getProtocol() {
+		return protocol != null ? protocol : SerialProtocol.GLEDIATOR;
+	}
+	
+	/**
+	 * Set the serial protocol. The sketch on the Arduino must use the same protocol.
+	 * @param protocol serial protocol
+	 */
+	public void setProtocol(SerialProtocol protocol) {
+		this.protocol = protocol;
+		if(out != null)
+			out.setEncoder(createEncoder());
+	}
+	
+	private SerialWriter.FrameEncoder createEncoder() {
+		return getProtocol() == SerialProtocol.DELTA ? new DeltaProtocol() : null;
+	}
+
 	@Override
-	public void send(Color[] pixels) {
-		byte[] outputBuffer = GlediatorProtocol.doOutput(pixels);
+	public void send(FrameBuffer frame) {
+		if(getProtocol() == SerialProtocol.DELTA) {
+			outputBuffer = DeltaProtocol.packFrame(frame, outputBuffer);
+		} else {
+			outputBuffer = GlediatorProtocol.doOutput(frame, outputBuffer);
+		}
 		out.send(outputBuffer, outputBuffer.length);
 	}
 
 	@Override
 	public ConnectionState connect() {
+		out.setBaudRate(getBaudRate());
+		out.setAckPacing(ackPacing);
+		out.setEncoder(createEncoder());
 		return out.openPort(ComPort.getComPortByName(serialPort));
 	}
 
@@ -38,10 +38,15 @@ public class ComPort implements Serializable {
 	 */
 	private static final long serialVersionUID = -269054641983915463L;
 
-	private final int BAUD = 1000000;
+	/** default baud rate */
+	public final static int DEFAULT_BAUD = 1000000;
 	
 	private SerialPort port;
 	private OutputStream output;
+	private transient SerialWriter writer;
+	private int baudRate = DEFAULT_BAUD;
+	private boolean ackPacing;
+	private transient SerialWriter.FrameEncoder encoder;
 	private boolean open;
 	private ConnectionState state;
 	
@@ -60,6 +65,55 @@ public class ComPort implements Serializable {
 		this.port = port;
 	}
 	
+	/**
+	 * @param baudRate baud rate, applied when the port is opened
+	 */
+	public void setBaudRate(int baudRate) {
+		this.baudRate = baudRate > 0 ? baudRate : DEFAULT_BAUD;
+	}
+	
+	public int getBaudRate() {
+		return baudRate;
+	}
+	
+	/**
+	 * Wait for an ack byte of the microcontroller after every frame
+	 * (Adalight-style handshake).
+	 * @param ackPacing true to enable ack pacing
+	 */
+	public void setAckPacing(boolean ackPacing) {
+		this.ackPacing = ackPacing;
+		SerialWriter w = writer;
+		if(w != null)
+			w.setAckPacing(ackPacing);
+	}
+	
+	public boolean isAckPacing() {
+		return ackPacing;
+	}
+	
+	/**
+	 * Set the encoder that is applied on the writer thread.
+	 * @param encoder encoder or {@code null} to send the data unchanged
+	 */
+	public void setEncoder(SerialWriter.FrameEncoder encoder) {
+		this.encoder = encoder;
+		SerialWriter w = writer;
+		if(w != null)
+			w.setEncoder(encoder);
+	}
+	
+	public SerialWriter.FrameEncoder getEncoder() {
+		return encoder;
+	}
+	
+	/**
+	 * @return writer of the open port or {@code null}
+	 */
+	public SerialWriter getWriter() {
+		return writer;
+	}
+	
 	public static SerialPort[] getComPorts() {
 		SerialPort ports[] = SerialPort.getCommPorts();
 		return ports;
@@ -96,8 +150,12 @@ public class ComPort implements Serializable {
 			state = ConnectionState.CONNECTED;
 			Logger.info("Successfully opened ComPort: " + port.getSystemPortName());
 			
-			port.setBaudRate(BAUD);
+			port.setBaudRate(baudRate);
 			output = port.getOutputStream();
+			writer = new SerialWriter(output, port.getInputStream(), port.getSystemPortName());
+			writer.setAckPacing(ackPacing);
+			writer.setEncoder(encoder);
+			writer.start();
 			
 		} else {
 			Logger.error("Could not open ComPort " + port.getSystemPortName());
@@ -114,6 +172,10 @@ public class ComPort implements Serializable {
 					
 					Logger.info("Closed ComPort: " + port.getSystemPortName());
 					
+					if(writer != null) {
+						writer.stop();
+						writer = null;
+					}
 					output.close();
 					port.closePort();
 					open = false;
@@ -127,13 +189,16 @@ public class ComPort implements Serializable {
 		return state;
 	}
 	
+	/**
+	 * Hand the data over to the writer thread. Never blocks, a frame
+	 * that was not written yet is replaced.
+	 * @param outputBuffer	encoded frame
+	 * @param size			number of bytes
+	 */
 	public void send(byte[] outputBuffer, int size) {
-		if(port.isOpen()) {
-			try {
-				output.write(outputBuffer, 0, size);
-			} catch (IOException e) {
-				Logger.error(e, "Error while sending data to ComPort " + port.getSystemPortName());
-			}
+		SerialWriter w = writer;
+		if(w != null && port.isOpen()) {
+			w.offer(outputBuffer, size);
 		}
 	}
 	
@@ -0,0 +1,238 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.arduino;
+
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Compressed serial protocol that sends only the changes to the previous
+ * frame. Every frame consists of:
+ * <pre>
+ * 'R' 'L' type pixels(u16) length(u16) headerChecksum payload payloadChecksum
+ * </pre>
+ * The header checksum is the XOR of type, pixels and length bytes and 0x55,
+ * the payload checksum is the XOR of all payload bytes. {@link #TYPE_RAW}
+ * payloads contain RGB data of all pixels, {@link #TYPE_KEYFRAME} and
+ * {@link #TYPE_DELTA} payloads contain a list of operations. The upper two
+ * bits of an operation byte select the operation, the lower six bits the
+ * number of pixels minus one:
+ * <ul>
+ * <li>{@link #OP_SKIP} keep the pixels of the previous frame</li>
+ * <li>{@link #OP_RUN} followed by one RGB value for all pixels</li>
+ * <li>{@link #OP_LITERAL} followed by one RGB value per pixel</li>
+ * </ul>
+ * Key frames do not contain skip operations and are sent periodically so a
+ * receiver recovers from lost bytes. Pixels not covered by a delta frame
+ * are unchanged. For each frame the smaller of raw and compressed data is sent.
+ * <p>
+ * The encoder runs on the serial writer thread, so the previous frame is
+ * always the last frame that was actually written.
+ */
+public class DeltaProtocol implements SerialWriter.FrameEncoder {
+	
+	public final static byte MAGIC_1 = 'R';
+	public final static byte MAGIC_2 = 'L';
+	public final static int TYPE_RAW = 0;
+	public final static int TYPE_KEYFRAME = 1;
+	public final static int TYPE_DELTA = 2;
+	public final static int HEADER_LENGTH = 8;
+	public final static int TRAILER_LENGTH = 1;
+	public final static int HEADER_CHECKSUM_SEED = 0x55;
+	public final static int OP_SKIP = 0x00;
+	public final static int OP_RUN = 0x40;
+	public final static int OP_LITERAL = 0x80;
+	public final static int OP_MASK = 0xC0;
+	public final static int MAX_COUNT = 64;
+	/** maximum number of pixels so that raw frames fit the length field */
+	public final static int MAX_PIXELS = 0xFFFF / 3;
+	/** default number of frames between two key frames */
+	public final static int DEFAULT_KEYFRAME_INTERVAL = 60;
+	
+	private byte[] buffer = new byte[HEADER_LENGTH + TRAILER_LENGTH];
+	private byte[] previous = new byte[0];
+	private int previousLength = -1;
+	private int keyframeInterval = DEFAULT_KEYFRAME_INTERVAL;
+	private int framesSinceKeyframe;
+	private int lastType = -1;
+	
+	/**
+	 * Pack the frame into RGB triplets, the input format of {@link #encode(byte[], int)}
+	 * @param frame		frame to pack
+	 * @param buffer	reusable output buffer or null
+	 * @return			the given buffer if it has the required length,
+	 * 					a new buffer otherwise
+	 */
+	public static byte[] packFrame(FrameBuffer frame, byte[] buffer) {
+		final int length = frame.size() * 3;
+		if(buffer == null || buffer.length != length) {
+			buffer = new byte[length];
+		}
+		int index = 0;
+		for(int i = 0; i < frame.size(); i++) {
+			int rgb = frame.getRGB(i);
+			buffer[index++] = (byte) (rgb >> 16);
+			buffer[index++] = (byte) (rgb >> 8);
+			buffer[index++] = (byte) rgb;
+		}
+		return buffer;
+	}
+	
+	/**
+	 * @param keyframeInterval number of frames between two key frames
+	 */
+	public void setKeyframeInterval(int keyframeInterval) {
+		this.keyframeInterval = keyframeInterval > 0 ? keyframeInterval : DEFAULT_KEYFRAME_INTERVAL;
+	}
+	
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+	
+	/**
+	 * @return type of the last encoded frame or -1
+	 */
+	public int getLastType() {
+		return lastType;
+	}
+	
+	@Override
+	public byte[] getBuffer() {
+		return buffer;
+	}
+	
+	@Override
+	public void reset() {
+		previousLength = -1;
+	}
+	
+	/**
+	 * Encode RGB triplets as created by {@link #packFrame(FrameBuffer, byte[])}
+	 * @param data		RGB data
+	 * @param length	number of bytes
+	 * @return			length of the encoded frame in the {@link #getBuffer() buffer}
+	 */
+	@Override
+	public int encode(byte[] data, int length) {
+		final int pixels = Math.min(length / 3, MAX_PIXELS);
+		final int rawLength = pixels * 3;
+		if(buffer.length < HEADER_LENGTH + rawLength + TRAILER_LENGTH) {
+			buffer = new byte[HEADER_LENGTH + rawLength + TRAILER_LENGTH];
+		}
+		
+		boolean keyframe = previousLength != rawLength || ++framesSinceKeyframe >= keyframeInterval;
+		int type = keyframe ? TYPE_KEYFRAME : TYPE_DELTA;
+		int payload = compress(data, pixels, !keyframe);
+		if(payload < 0 || payload >= rawLength) {
+			type = TYPE_RAW;
+			payload = rawLength;
+			System.arraycopy(data, 0, buffer, HEADER_LENGTH, rawLength);
+		}
+		if(type != TYPE_DELTA) {
+			framesSinceKeyframe = 0;
+		}
+		
+		buffer[0] = MAGIC_1;
+		buffer[1] = MAGIC_2;
+		buffer[2] = (byte) type;
+		buffer[3] = (byte) (pixels >> 8);
+		buffer[4] = (byte) pixels;
+		buffer[5] = (byte) (payload >> 8);
+		buffer[6] = (byte) payload;
+		buffer[7] = (byte) (buffer[2] ^ buffer[3] ^ buffer[4] ^ buffer[5] ^ buffer[6] ^ HEADER_CHECKSUM_SEED);
+		byte checksum = 0;
+		for(int i = HEADER_LENGTH; i < HEADER_LENGTH + payload; i++) {
+			checksum ^= buffer[i];
+		}
+		buffer[HEADER_LENGTH + payload] = checksum;
+		
+		if(previous.length < rawLength) {
+			previous = new byte[rawLength];
+		}
+		System.arraycopy(data, 0, previous, 0, rawLength);
+		previousLength = rawLength;
+		lastType = type;
+		return HEADER_LENGTH + payload + TRAILER_LENGTH;
+	}
+	
+	/**
+	 * Write the operations to the buffer
+	 * @param delta	true to skip pixels that did not change
+	 * @return		payload length or -1 if the payload would be larger than raw data
+	 */
+	private int compress(byte[] data, int pixels, boolean delta) {
+		final int limit = HEADER_LENGTH + pixels * 3;
+		int pos = HEADER_LENGTH;
+		int end = pos; // trailing skip operations are omitted
+		int i = 0;
+		while(i < pixels) {
+			if(delta && unchanged(data, i)) {
+				int n = 1;
+				while(n < MAX_COUNT && i + n < pixels && unchanged(data, i + n))
+					n++;
+				if(pos + 1 > limit)
+					return -1;
+				buffer[pos++] = (byte) (OP_SKIP | (n - 1));
+				i += n;
+				continue;
+			}
+			
+			int n = 1;
+			while(n < MAX_COUNT && i + n < pixels && samePixel(data, i, i + n))
+				n++;
+			if(n > 1) {
+				if(pos + 4 > limit)
+					return -1;
+				buffer[pos++] = (byte) (OP_RUN | (n - 1));
+				System.arraycopy(data, i * 3, buffer, pos, 3);
+				pos += 3;
+			} else {
+				// literal until a skip or a run starts
+				while(n < MAX_COUNT && i + n < pixels
+						&& !(delta && unchanged(data, i + n))
+						&& !(i + n + 1 < pixels && samePixel(data, i + n, i + n + 1)))
+					n++;
+				if(pos + 1 + n * 3 > limit)
+					return -1;
+				buffer[pos++] = (byte) (OP_LITERAL | (n - 1));
+				System.arraycopy(data, i * 3, buffer, pos, n * 3);
+				pos += n * 3;
+			}
+			i += n;
+			end = pos;
+		}
+		return end - HEADER_LENGTH;
+	}
+	
+	private boolean unchanged(byte[] data, int pixel) {
+		final int i = pixel * 3;
+		return data[i] == previous[i] && data[i + 1] == previous[i + 1] && data[i + 2] == previous[i + 2];
+	}
+	
+	private boolean samePixel(byte[] data, int a, int b) {
+		a *= 3;
+		b *= 3;
+		return data[a] == data[b] && data[a + 1] == data[b + 1] && data[a + 2] == data[b + 2];
+	}
+
+}
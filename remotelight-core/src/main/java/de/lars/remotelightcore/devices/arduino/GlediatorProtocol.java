@@ -22,10 +22,44 @@
 
 package de.lars.remotelightcore.devices.arduino;
 
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.utils.color.Color;
 
 public class GlediatorProtocol {
 	
+	/**
+	 * Encode the frame using the Glediator protocol
+	 * @param frame		frame to encode
+	 * @param buffer	reusable output buffer or null
+	 * @return			the given buffer if it has the required length,
+	 * 					a new buffer otherwise
+	 */
+	public static byte[] doOutput(FrameBuffer frame, byte[] buffer) {
+		final int length = frame.size() * 3 + 1;
+		if(buffer == null || buffer.length != length) {
+			buffer = new byte[length];
+		}
+		
+		buffer[0] = 1;
+		int index = 1;
+		
+		for(int i = 0; i < frame.size(); i++) {
+			int rgb = frame.getRGB(i);
+			
+			byte b1 = (byte) (rgb >> 16);
+			byte b2 = (byte) (rgb >> 8);
+			byte b3 = (byte) rgb;
+			
+			// 1 is reserved for the start byte
+			buffer[index] = b1 == 1 ? 2 : b1;
+			buffer[index + 1] = b2 == 1 ? 2 : b2;
+			buffer[index + 2] = b3 == 1 ? 2 : b3;
+			
+			index += 3;
+		}
+		return buffer;
+	}
+	
 	public static byte[] doOutput(Color[] leds) {
 		
 		int index = 0;
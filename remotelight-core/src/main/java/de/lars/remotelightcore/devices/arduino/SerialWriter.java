@@ -0,0 +1,298 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.arduino;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.tinylog.Logger;
+
+/**
+ * Writes frames to a serial port on its own thread.
+ * <p>
+ * Frames are handed over through a single slot that only holds the
+ * newest frame, so {@link #offer(byte[], int)} never blocks and a slow
+ * microcontroller never receives outdated frames. With ack pacing enabled
+ * (Adalight-style handshake) the writer waits until the microcontroller
+ * sends a byte after processing a frame before the next frame is written.
+ * If no ack arrives within the timeout, the next frame is sent anyway.
+ */
+public class SerialWriter {
+	
+	/**
+	 * Encodes frames on the writer thread. Encoders that depend on previously
+	 * sent frames only see frames that are actually written.
+	 */
+	public interface FrameEncoder {
+		
+		/**
+		 * Encode the frame into the buffer returned by {@link #getBuffer()}
+		 * @param data		frame data
+		 * @param length	number of bytes
+		 * @return			length of the encoded frame
+		 */
+		int encode(byte[] data, int length);
+		
+		/**
+		 * @return buffer containing the last encoded frame
+		 */
+		byte[] getBuffer();
+		
+		/**
+		 * Forget all previously sent frames, called when a write failed.
+		 */
+		void reset();
+		
+	}
+	
+	/** default time to wait for an ack in milliseconds */
+	public final static int DEFAULT_ACK_TIMEOUT = 100;
+	
+	private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long ACK_POLL_INTERVAL = TimeUnit.MICROSECONDS.toNanos(100);
+	
+	private final OutputStream out;
+	private final InputStream ackInput;
+	private final String name;
+	private final Object lock = new Object();
+	private final AtomicLong framesWritten = new AtomicLong();
+	private final AtomicLong framesDropped = new AtomicLong();
+	private final AtomicLong ackTimeouts = new AtomicLong();
+	private final AtomicLong writeErrors = new AtomicLong();
+	// pending: guarded by lock, writing: owned by the writer thread
+	private byte[] pending = new byte[0];
+	private int pendingLength = -1;
+	private byte[] writing = new byte[0];
+	private boolean awaitingAck;
+	private volatile FrameEncoder encoder;
+	private volatile boolean ackPacing;
+	private volatile int ackTimeout = DEFAULT_ACK_TIMEOUT;
+	private volatile boolean running;
+	private volatile Thread thread;
+	
+	/**
+	 * @param out		serial output stream
+	 * @param ackInput	serial input stream for ack pacing or {@code null}
+	 * @param name		name used for the thread and log messages
+	 */
+	public SerialWriter(OutputStream out, InputStream ackInput, String name) {
+		this.out = out;
+		this.ackInput = ackInput;
+		this.name = name;
+	}
+	
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		thread = new Thread(this::run, "Serial writer " + name);
+		thread.start();
+	}
+	
+	/**
+	 * Stop the writer thread and wait until the current frame is written.
+	 */
+	public void stop() {
+		Thread t;
+		synchronized (this) {
+			running = false;
+			t = thread;
+			thread = null;
+		}
+		if(t != null && t != Thread.currentThread()) {
+			LockSupport.unpark(t);
+			try {
+				t.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Hand a frame over to the writer thread. The data is copied, a frame
+	 * that was not written yet is replaced.
+	 * @param data		encoded frame
+	 * @param length	number of bytes
+	 */
+	public void offer(byte[] data, int length) {
+		synchronized (lock) {
+			if(pending.length < length)
+				pending = new byte[length];
+			System.arraycopy(data, 0, pending, 0, length);
+			if(pendingLength >= 0)
+				framesDropped.incrementAndGet();
+			pendingLength = length;
+		}
+		Thread t = thread;
+		if(t != null)
+			LockSupport.unpark(t);
+	}
+	
+	/**
+	 * Set an encoder that is applied to every frame before it is written.
+	 * @param encoder encoder or {@code null} to write frames unchanged
+	 */
+	public void setEncoder(FrameEncoder encoder) {
+		this.encoder = encoder;
+	}
+	
+	public FrameEncoder getEncoder() {
+		return encoder;
+	}
+	
+	/**
+	 * Enable ack pacing. Requires an ack input stream.
+	 * @param ackPacing true to wait for an ack after every frame
+	 */
+	public void setAckPacing(boolean ackPacing) {
+		this.ackPacing = ackPacing;
+	}
+	
+	public boolean isAckPacing() {
+		return ackPacing;
+	}
+	
+	/**
+	 * @param ackTimeout time to wait for an ack in milliseconds
+	 */
+	public void setAckTimeout(int ackTimeout) {
+		this.ackTimeout = ackTimeout > 0 ? ackTimeout : DEFAULT_ACK_TIMEOUT;
+	}
+	
+	public int getAckTimeout() {
+		return ackTimeout;
+	}
+	
+	/**
+	 * @return number of frames written to the port
+	 */
+	public long getFramesWritten() {
+		return framesWritten.get();
+	}
+	
+	/**
+	 * @return number of frames replaced by a newer frame before they were written
+	 */
+	public long getFramesDropped() {
+		return framesDropped.get();
+	}
+	
+	/**
+	 * @return number of frames after which no ack arrived in time
+	 */
+	public long getAckTimeouts() {
+		return ackTimeouts.get();
+	}
+	
+	public long getWriteErrors() {
+		return writeErrors.get();
+	}
+	
+	private void run() {
+		Logger.debug("Started serial writer thread for " + name);
+		while(running) {
+			if(awaitingAck) {
+				// take the frame after the ack, so the newest frame is sent
+				awaitingAck = false;
+				if(!waitForAck())
+					ackTimeouts.incrementAndGet();
+				continue;
+			}
+			
+			int length = takePending();
+			if(length < 0) {
+				LockSupport.parkNanos(this, IDLE_WAIT);
+				continue;
+			}
+			FrameEncoder enc = encoder;
+			byte[] data = writing;
+			try {
+				if(enc != null) {
+					length = enc.encode(writing, length);
+					data = enc.getBuffer();
+				}
+				out.write(data, 0, length);
+				out.flush();
+				framesWritten.incrementAndGet();
+				awaitingAck = ackPacing && ackInput != null;
+			} catch(IOException e) {
+				writeErrors.incrementAndGet();
+				if(enc != null)
+					enc.reset();
+				Logger.error(e, "Error while sending data to ComPort " + name);
+			}
+		}
+		Logger.debug("Stopped serial writer thread for " + name);
+	}
+	
+	/**
+	 * Swap the pending frame into the write buffer
+	 * @return number of bytes or -1 if there is no new frame
+	 */
+	private int takePending() {
+		synchronized (lock) {
+			int length = pendingLength;
+			if(length >= 0) {
+				byte[] b = writing;
+				writing = pending;
+				pending = b;
+				pendingLength = -1;
+			}
+			return length;
+		}
+	}
+	
+	/**
+	 * Wait until the microcontroller sends at least one byte.
+	 * All available bytes are consumed.
+	 * @return false if no ack arrived within the timeout
+	 */
+	private boolean waitForAck() {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeout);
+		try {
+			while(running && System.nanoTime() < deadline) {
+				int available = ackInput.available();
+				if(available > 0) {
+					for(int i = 0; i < available; i++)
+						ackInput.read();
+					return true;
+				}
+				LockSupport.parkNanos(this, ACK_POLL_INTERVAL);
+			}
+		} catch(IOException e) {
+			Logger.error(e, "Could not read ack from ComPort " + name);
+		}
+		return false;
+	}
+
+}
@@ -22,14 +22,21 @@
 
 package de.lars.remotelightcore.devices.artnet;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+
 import org.tinylog.Logger;
 
 import ch.bildspur.artnet.ArtNetClient;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.udp.TransmissionSettings;
+import de.lars.remotelightcore.devices.udp.UniverseStats;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.settings.types.SettingInt;
-import de.lars.remotelightcore.utils.color.Color;
 
 public class Artnet extends Device {
 	private static final long serialVersionUID = 620972378928905059L;
@@ -42,6 +49,10 @@ public class Artnet extends Device {
 	private int subnet;
 	private int startUniverse;
 	private int universeSize = MAX_UNIVERSE_SIZE;
+	private boolean nativeSender;
+	private boolean artSync;
+	private TransmissionSettings transmission;
+	private transient volatile ArtnetSender sender;
 	
 	public Artnet(String id) {
 		super(id, 0);
@@ -87,9 +98,70 @@ public class Artnet extends Device {
 	public void setUniverseSize(int universeSize) {
 		this.universeSize = universeSize;
 	}
+	
+	/**
+	 * @return true if the built-in allocation-free sender is
+	 * 			used instead of the artnet4j client
+	 */
+	public boolean isNativeSender() {
+		return nativeSender;
+	}
+	
+	/**
+	 * Select the built-in sender or the artnet4j client.
+	 * Takes effect with the next connect.
+	 * @param nativeSender	true to use the built-in sender
+	 */
+	public void setNativeSender(boolean nativeSender) {
+		this.nativeSender = nativeSender;
+	}
+	
+	/**
+	 * @return true if an ArtSync packet is sent after each frame
+	 * 			(built-in sender only)
+	 */
+	public boolean isArtSync() {
+		return artSync;
+	}
+	
+	public void setArtSync(boolean artSync) {
+		this.artSync = artSync;
+	}
+	
+	/**
+	 * @return pacing or batching of the universe packets
+	 * 			(built-in sender only)
+	 */
+	public TransmissionSettings getTransmissionSettings() {
+		if(transmission == null)
+			transmission = new TransmissionSettings();
+		return transmission;
+	}
+	
+	public void setTransmissionSettings(TransmissionSettings transmission) {
+		this.transmission = transmission;
+		ArtnetSender s = sender;
+		if(s != null)
+			s.setTransmissionSettings(getTransmissionSettings());
+	}
+	
+	/**
+	 * @return per-universe statistics of the built-in sender
+	 * 			or an empty list if not available
+	 */
+	public List<UniverseStats> getUniverseStats() {
+		ArtnetSender s = sender;
+		return s != null ? s.getScheduler().getAllStats() : Collections.emptyList();
+	}
 
 	@Override
 	public ConnectionState connect() {
+		// the backend may have been changed while connected
+		if(nativeSender) {
+			stopArtnet();
+			return connectNative();
+		}
+		closeSender();
 		artnet.start();
 		
 		// Output is laggy if output delay > 45
@@ -104,17 +176,57 @@ public class Artnet extends Device {
 		return ConnectionState.FAILED;
 	}
 
+	private ConnectionState connectNative() {
+		try {
+			InetAddress target = InetAddress.getByName(broadcast ? "255.255.255.255" : address.trim());
+			ArtnetSender s = new ArtnetSender();
+			s.setTransmissionSettings(getTransmissionSettings());
+			s.configure(target, subnet, startUniverse, universeSize, artSync);
+			sender = s;
+			return ConnectionState.CONNECTED;
+		} catch(IOException | RuntimeException e) {
+			Logger.error(e, "Could not initialize Art-Net sender!");
+			return ConnectionState.FAILED;
+		}
+	}
+
+	/**
+	 * Stops the backend that is actually running, which is not
+	 * necessarily the selected one if the setting changed meanwhile.
+	 */
 	@Override
 	public ConnectionState disconnect() {
-		artnet.stop();
+		closeSender();
+		stopArtnet();
 		if(artnet.isRunning()) {
 			return ConnectionState.CONNECTED;
 		}
 		return ConnectionState.DISCONNECTED;
 	}
+	
+	private void closeSender() {
+		ArtnetSender s = sender;
+		sender = null;
+		if(s != null) {
+			try {
+				s.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close Art-Net sender.");
+			}
+		}
+	}
+	
+	private void stopArtnet() {
+		if(artnet != null && artnet.isRunning()) {
+			artnet.stop();
+		}
+	}
 
 	@Override
 	public ConnectionState getConnectionState() {
+		if(sender != null) {
+			return ConnectionState.CONNECTED;
+		}
 		if(artnet.isRunning()) {
 			return ConnectionState.CONNECTED;
 		}
@@ -135,8 +247,19 @@ public class Artnet extends Device {
 	}
 
 	@Override
-	public void send(Color[] pixels) {
-		final int dataLength = pixels.length * 3;
+	public void send(FrameBuffer frame) {
+		// route by the running backend, not by the (possibly changed) setting
+		ArtnetSender s = sender;
+		if(s != null) {
+			try {
+				s.send(frame);
+			} catch (IOException e) {
+				Logger.error(e, "Could not send Art-Net data.");
+				disconnect();
+			}
+			return;
+		}
+		final int dataLength = frame.size() * 3;
 		final int MAX_LENGTH = universeSize; // maximal dmx data length
 		
 		int arrayLength = dataLength > MAX_LENGTH ? MAX_LENGTH : dataLength;
@@ -145,11 +268,11 @@ public class Artnet extends Device {
 		int offset = 0;
 		
 		// loop over each pixel
-		for(int i = 0; i < pixels.length; i++) {
-			byte[] rgbData = {(byte) pixels[i].getRed(), (byte) pixels[i].getGreen(), (byte) pixels[i].getBlue()};
+		for(int i = 0; i < frame.size(); i++) {
+			int rgb = frame.getRGB(i);
 			
-			// loop over RGB data array
-			for(int d = 0; d < rgbData.length; d++) {
+			// loop over RGB channels
+			for(int shift = 16; shift >= 0; shift -= 8) {
 				// check if max length of universe is reached
 				if(offset >= MAX_LENGTH) {
 					// current universe is full; output universe and use next universe
@@ -168,7 +291,7 @@ public class Artnet extends Device {
 				}
 				
 				// add to output data buffer
-				dmxData[offset] = rgbData[d];
+				dmxData[offset] = (byte) (rgb >> shift);
 				// increment offset
 				offset++;
 			}
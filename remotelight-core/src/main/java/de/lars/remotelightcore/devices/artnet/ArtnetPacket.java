@@ -0,0 +1,114 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.devices.artnet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoder for Art-Net ArtDmx and ArtSync packets
+ */
+public class ArtnetPacket {
+	
+	/** Art-Net UDP port */
+	public final static int PORT = 0x1936;
+	/** Art-Net protocol version */
+	public final static int PROTOCOL_VERSION = 14;
+	public final static int OP_DMX = 0x5000;
+	public final static int OP_SYNC = 0x5200;
+	/** length of the ArtDmx header */
+	public final static int HEADER_LENGTH = 18;
+	/** length of an ArtSync packet */
+	public final static int SYNC_LENGTH = 14;
+	/** offset of the OpCode (little endian) */
+	public final static int OPCODE_OFFSET = 8;
+	/** offset of the sequence number in an ArtDmx packet */
+	public final static int SEQUENCE_OFFSET = 12;
+	/** offset of the 15 bit port address (little endian) in an ArtDmx packet */
+	public final static int PORT_ADDRESS_OFFSET = 14;
+	/** offset of the DMX data length in an ArtDmx packet */
+	public final static int LENGTH_OFFSET = 16;
+	/** offset of the first DMX slot in an ArtDmx packet */
+	public final static int DATA_OFFSET = HEADER_LENGTH;
+	
+	private final static byte[] ID = "Art-Net\0".getBytes(StandardCharsets.US_ASCII);
+	
+	/**
+	 * Get the 15 bit port address of a universe
+	 * @param subnet	the subnet
+	 * @param universe	the universe
+	 * @return			port address (net, subnet and universe)
+	 */
+	public static int getPortAddress(int subnet, int universe) {
+		return ((subnet << 4) | universe) & 0x7FFF;
+	}
+	
+	/**
+	 * Create an ArtDmx packet with empty DMX data in a direct buffer.
+	 * Only the sequence number and the DMX slots need to be updated
+	 * before sending it.
+	 * 
+	 * @param portAddress	15 bit port address
+	 * @param slots			number of DMX slots (1-512), odd numbers
+	 * 						are padded to an even length
+	 * @return				direct buffer containing the packet
+	 * @see #SEQUENCE_OFFSET
+	 * @see #DATA_OFFSET
+	 */
+	public static ByteBuffer createDmxTemplate(int portAddress, int slots) {
+		if(slots < 1 || slots > 512)
+			throw new IllegalArgumentException("Invalid number of DMX slots: " + slots);
+		int length = slots + (slots & 1);	// length must be even
+		ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_LENGTH + length).order(ByteOrder.BIG_ENDIAN);
+		putHeader(buffer, OP_DMX);
+		buffer.put((byte) 0);								// Sequence (1 byte), set per frame
+		buffer.put((byte) 0);								// Physical (1 byte)
+		buffer.put((byte) (portAddress & 0xFF));			// SubUni (1 byte)
+		buffer.put((byte) ((portAddress >> 8) & 0x7F));		// Net (1 byte)
+		buffer.putShort((short) length);					// Length (2 bytes)
+		buffer.clear();
+		return buffer;
+	}
+	
+	/**
+	 * Create an ArtSync packet in a direct buffer
+	 * @return direct buffer containing the packet
+	 */
+	public static ByteBuffer createSyncPacket() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(SYNC_LENGTH).order(ByteOrder.BIG_ENDIAN);
+		putHeader(buffer, OP_SYNC);
+		buffer.put((byte) 0);								// Aux1 (1 byte)
+		buffer.put((byte) 0);								// Aux2 (1 byte)
+		buffer.clear();
+		return buffer;
+	}
+	
+	private static void putHeader(ByteBuffer buffer, int opCode) {
+		buffer.put(ID);										// ID (8 bytes)
+		buffer.put((byte) (opCode & 0xFF));					// OpCode (2 bytes, little endian)
+		buffer.put((byte) (opCode >> 8));
+		buffer.putShort((short) PROTOCOL_VERSION);			// ProtVer (2 bytes)
+	}
+
+}
@@ -0,0 +1,212 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.devices.artnet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import de.lars.remotelightcore.devices.udp.PacketScheduler;
+import de.lars.remotelightcore.devices.udp.TransmissionSettings;
+import de.lars.remotelightcore.devices.udp.UniverseStats;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Sends frames as ArtDmx packets without per-frame allocations.
+ * <p>
+ * One ArtDmx packet per universe is kept in a direct buffer and only the
+ * sequence number and the DMX slots are updated in place. If enabled, an
+ * ArtSync packet is sent after the last universe so that nodes output all
+ * universes of the frame at once.
+ */
+public class ArtnetSender implements Closeable {
+	
+	private final DatagramChannel channel;
+	private final PacketScheduler scheduler;
+	private final int targetPort;
+	private final ByteBuffer syncPacket = ArtnetPacket.createSyncPacket();
+	private ByteBuffer[] packets = new ByteBuffer[0];
+	private SocketAddress[] targets = new SocketAddress[0];
+	private UniverseStats[] stats = new UniverseStats[0];
+	private int[] slots = new int[0];
+	private int sequenceNumber = 1;
+	
+	private SocketAddress target;
+	private int subnet;
+	private int startUniverse;
+	private int universeSize = Artnet.MAX_UNIVERSE_SIZE;
+	private boolean sync;
+	private int layoutChannels = -1;
+	
+	/**
+	 * Create a sender using any free local port
+	 * @throws IOException if the channel could not be opened
+	 */
+	public ArtnetSender() throws IOException {
+		this(new InetSocketAddress(0), ArtnetPacket.PORT);
+	}
+	
+	/**
+	 * @param bindAddress	local address
+	 * @param targetPort	port of the nodes
+	 * @throws IOException	if the channel could not be opened
+	 */
+	public ArtnetSender(InetSocketAddress bindAddress, int targetPort) throws IOException {
+		this.targetPort = targetPort;
+		channel = DatagramChannel.open(StandardProtocolFamily.INET);
+		try {
+			channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+			channel.bind(bindAddress);
+		} catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+		scheduler = new PacketScheduler(channel);
+	}
+	
+	/**
+	 * @param settings pacing or batching of the packets
+	 */
+	public void setTransmissionSettings(TransmissionSettings settings) {
+		scheduler.setSettings(settings);
+	}
+	
+	/**
+	 * @return the scheduler including the per-universe statistics
+	 */
+	public PacketScheduler getScheduler() {
+		return scheduler;
+	}
+	
+	/**
+	 * Set the universe layout. Packets are rebuilt with the next frame.
+	 * @param address		node address or broadcast address
+	 * @param subnet		the subnet
+	 * @param startUniverse	first universe
+	 * @param universeSize	number of DMX slots per universe
+	 * @param sync			send an ArtSync packet after each frame
+	 */
+	public void configure(InetAddress address, int subnet, int startUniverse, int universeSize, boolean sync) {
+		this.target = new InetSocketAddress(address, targetPort);
+		this.subnet = subnet;
+		this.startUniverse = startUniverse;
+		this.universeSize = Math.max(3, Math.min(Artnet.MAX_UNIVERSE_SIZE, universeSize));
+		this.sync = sync;
+		layoutChannels = -1;
+	}
+	
+	/**
+	 * Send all universes of the frame
+	 * @param frame			RGB frame
+	 * @throws IOException	if a packet could not be sent
+	 */
+	public void send(FrameBuffer frame) throws IOException {
+		if(target == null)
+			throw new IllegalStateException("Art-Net sender is not configured.");
+		final int channels = frame.size() * 3;
+		if(channels != layoutChannels)
+			buildPackets(channels);
+		if(packets.length == 0)
+			return;
+		
+		// write DMX slots into the prebuilt packets
+		final int[] pixels = frame.getData();
+		int u = 0;
+		ByteBuffer packet = packets[0];
+		int pos = ArtnetPacket.DATA_OFFSET;
+		int end = pos + slots[0];
+		for(int i = 0; i < frame.size(); i++) {
+			int rgb = pixels[i];
+			for(int shift = 16; shift >= 0; shift -= 8) {
+				if(pos == end) {
+					// current universe is full, continue with next universe
+					u++;
+					packet = packets[u];
+					pos = ArtnetPacket.DATA_OFFSET;
+					end = pos + slots[u];
+				}
+				packet.put(pos++, (byte) (rgb >> shift));
+			}
+		}
+		
+		// sequence 0 disables reordering on the nodes, use 1-255
+		final byte sequence = (byte) sequenceNumber;
+		if(++sequenceNumber > 255)
+			sequenceNumber = 1;
+		for(ByteBuffer p : packets) {
+			p.put(ArtnetPacket.SEQUENCE_OFFSET, sequence);
+			p.clear();
+		}
+		scheduler.transmit(packets, targets, stats);
+		if(sync) {
+			syncPacket.clear();
+			scheduler.send(syncPacket, target, null);
+		}
+	}
+	
+	private void buildPackets(int channels) {
+		int count = (channels + universeSize - 1) / universeSize;
+		ByteBuffer[] list = new ByteBuffer[count];
+		SocketAddress[] targetList = new SocketAddress[count];
+		UniverseStats[] statsList = new UniverseStats[count];
+		int[] sizes = new int[count];
+		// drop statistics of universes that are no longer sent
+		scheduler.clearStats();
+		for(int i = 0; i < count; i++) {
+			int portAddress = ArtnetPacket.getPortAddress(subnet, startUniverse + i);
+			sizes[i] = Math.min(universeSize, channels - i * universeSize);
+			list[i] = ArtnetPacket.createDmxTemplate(portAddress, sizes[i]);
+			targetList[i] = target;
+			statsList[i] = scheduler.getStats(portAddress);
+		}
+		packets = list;
+		targets = targetList;
+		stats = statsList;
+		slots = sizes;
+		layoutChannels = channels;
+	}
+	
+	/**
+	 * @return number of universes of the last frame
+	 */
+	public int getUniverseCount() {
+		return packets.length;
+	}
+	
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,125 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.ddp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.tinylog.Logger;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.NetworkDevice;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Output device for receivers supporting DDP, e.g. WLED or ESPixelStick
+ */
+public class DDP extends Device implements NetworkDevice {
+	private static final long serialVersionUID = 5183309546129475627L;
+	
+	private String ip;
+	private int port;
+	private transient volatile DDPSender sender;
+
+	public DDP(String id, String ip) {
+		super(id, 0);
+		this.ip = ip;
+	}
+	
+	public String getIp() {
+		return ip;
+	}
+	
+	public void setIp(String ip) {
+		this.ip = ip;
+	}
+	
+	/**
+	 * @return UDP port of the receiver
+	 */
+	public int getPort() {
+		return port > 0 ? port : DDPPacket.PORT;
+	}
+	
+	/**
+	 * @param port UDP port of the receiver or 0 for the default port
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	@Override
+	public ConnectionState connect() {
+		try {
+			InetSocketAddress target = new InetSocketAddress(ip.trim(), getPort());
+			if(target.isUnresolved())
+				throw new IOException("Could not resolve host " + ip);
+			DDPSender s = new DDPSender();
+			s.setTarget(target);
+			sender = s;
+			return ConnectionState.CONNECTED;
+		} catch(IOException | RuntimeException e) {
+			Logger.error(e, "Could not initialize DDP sender!");
+			return ConnectionState.FAILED;
+		}
+	}
+
+	@Override
+	public ConnectionState disconnect() {
+		DDPSender s = sender;
+		sender = null;
+		if(s != null) {
+			try {
+				s.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close DDP sender.");
+			}
+		}
+		return ConnectionState.DISCONNECTED;
+	}
+
+	@Override
+	public ConnectionState getConnectionState() {
+		return (sender != null) ? ConnectionState.CONNECTED : ConnectionState.DISCONNECTED;
+	}
+
+	@Override
+	public void send(FrameBuffer frame) {
+		DDPSender s = sender;
+		if(s == null)
+			return;
+		try {
+			s.send(frame);
+		} catch (IOException e) {
+			Logger.error(e, "Could not send DDP data.");
+			disconnect();
+		}
+	}
+
+	@Override
+	public void onLoad() {
+	}
+
+}
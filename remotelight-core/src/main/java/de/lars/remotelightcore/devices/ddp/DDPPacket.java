@@ -0,0 +1,97 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.ddp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoder for DDP (Distributed Display Protocol) data packets.
+ * <p>
+ * Every packet starts with a 10 byte header followed by up to
+ * {@link #MAX_DATA_LENGTH} bytes of RGB data. The data offset in the
+ * header addresses the first byte of the packet in the whole frame, so
+ * large strips need no universe splitting. The push flag tells the
+ * receiver to display the frame and is set on the last packet only.
+ * 
+ * @see <a href="http://www.3waylabs.com/ddp/">DDP specification</a>
+ */
+public class DDPPacket {
+	
+	/** DDP UDP port */
+	public final static int PORT = 4048;
+	public final static int HEADER_LENGTH = 10;
+	/** maximum number of RGB pixels per packet */
+	public final static int MAX_PIXELS = 480;
+	/** maximum number of data bytes per packet */
+	public final static int MAX_DATA_LENGTH = MAX_PIXELS * 3;
+	
+	/** protocol version 1 (bits 6-7 of the flags) */
+	public final static int FLAG_VERSION_1 = 0x40;
+	/** display the data of all packets received so far */
+	public final static int FLAG_PUSH = 0x01;
+	/** RGB, 8 bit per channel */
+	public final static int TYPE_RGB24 = 0x0B;
+	/** default output device of the receiver */
+	public final static int DESTINATION_DISPLAY = 1;
+	
+	public final static int FLAGS_OFFSET = 0;
+	/** offset of the 4 bit sequence number (1-15, 0 = not used) */
+	public final static int SEQUENCE_OFFSET = 1;
+	public final static int TYPE_OFFSET = 2;
+	public final static int DESTINATION_OFFSET = 3;
+	/** offset of the 32 bit data offset in bytes (big endian) */
+	public final static int DATA_OFFSET_OFFSET = 4;
+	/** offset of the 16 bit data length (big endian) */
+	public final static int LENGTH_OFFSET = 8;
+	/** offset of the first data byte */
+	public final static int DATA_OFFSET = HEADER_LENGTH;
+	
+	/**
+	 * Create a data packet with empty pixel data in a direct buffer.
+	 * Only the sequence number and the pixel data need to be updated
+	 * before sending it.
+	 * 
+	 * @param dataOffset	offset of the first byte in the frame
+	 * @param length		number of data bytes (1-{@link #MAX_DATA_LENGTH})
+	 * @param push			true if this is the last packet of a frame
+	 * @return				direct buffer containing the packet
+	 * @see #SEQUENCE_OFFSET
+	 * @see #DATA_OFFSET
+	 */
+	public static ByteBuffer createTemplate(int dataOffset, int length, boolean push) {
+		if(length < 1 || length > MAX_DATA_LENGTH)
+			throw new IllegalArgumentException("Invalid DDP data length: " + length);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_LENGTH + length).order(ByteOrder.BIG_ENDIAN);
+		buffer.put((byte) (FLAG_VERSION_1 | (push ? FLAG_PUSH : 0)));
+		buffer.put((byte) 0);	// sequence number
+		buffer.put((byte) TYPE_RGB24);
+		buffer.put((byte) DESTINATION_DISPLAY);
+		buffer.putInt(dataOffset);
+		buffer.putShort((short) length);
+		buffer.clear();
+		return buffer;
+	}
+
+}
@@ -0,0 +1,72 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.ddp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import de.lars.remotelightcore.devices.udp.ChunkedUdpSender;
+
+/**
+ * Sends frames as DDP packets.
+ * <p>
+ * One packet is prebuilt for every {@link DDPPacket#MAX_PIXELS} pixels,
+ * the push flag is set on the last packet of a frame.
+ */
+public class DDPSender extends ChunkedUdpSender {
+	
+	private int sequenceNumber = 1;
+	
+	/**
+	 * Create a sender bound to any free port
+	 * @throws IOException if the channel could not be opened
+	 */
+	public DDPSender() throws IOException {
+		this(null);
+	}
+	
+	/**
+	 * @param bindAddress	local address or {@code null} for any free port
+	 * @throws IOException	if the channel could not be opened
+	 */
+	public DDPSender(InetSocketAddress bindAddress) throws IOException {
+		super(bindAddress, "DDP", DDPPacket.MAX_PIXELS, DDPPacket.DATA_OFFSET);
+	}
+	
+	@Override
+	protected ByteBuffer createPacket(int firstPixel, int pixels, boolean last) {
+		return DDPPacket.createTemplate(firstPixel * 3, pixels * 3, last);
+	}
+	
+	@Override
+	protected void updateHeaders(ByteBuffer[] packets) {
+		final byte sequence = (byte) sequenceNumber;
+		if(++sequenceNumber > 15)
+			sequenceNumber = 1;
+		for(ByteBuffer p : packets)
+			p.put(DDPPacket.SEQUENCE_OFFSET, sequence);
+	}
+
+}
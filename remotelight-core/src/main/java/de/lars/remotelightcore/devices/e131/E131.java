@@ -1,18 +1,18 @@
 package de.lars.remotelightcore.devices.e131;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
-import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
 
 import org.tinylog.Logger;
 
 import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
-import de.lars.remotelightcore.utils.color.Color;
+import de.lars.remotelightcore.devices.udp.TransmissionSettings;
+import de.lars.remotelightcore.devices.udp.UniverseStats;
+import de.lars.remotelightcore.out.FrameBuffer;
 
 public class E131 extends Device {
 	private static final long serialVersionUID = -4989081425851612020L;
@@ -22,15 +22,15 @@ public class E131 extends Device {
 	/** Minimum universe size: 3 for a single pixel (RGB) */
 	public final static int MIN_UNIVERSE_SIZE = 3;
 	
-	private transient int sequenceNumber;
 	private int startUniverse;
 	private int universeSize = E131Packet.DATA_LENGTH;
+	private int syncUniverse;
 	
 	private String unicastIP;
 	private InetAddress address;
 	private boolean multicast;
-	private transient DatagramSocket dSocket;
-	private transient E131Packet e131Packet;
+	private TransmissionSettings transmission;
+	private transient volatile E131Sender sender;
 
 	public E131(String id) {
 		super(id, 0);
@@ -67,16 +67,56 @@ public class E131 extends Device {
 	public void setUniverseSize(int universeSize) {
 		this.universeSize = universeSize;
 	}
+	
+	/**
+	 * @return synchronization universe or 0 if synchronization is disabled
+	 */
+	public int getSyncUniverse() {
+		return syncUniverse;
+	}
+	
+	/**
+	 * Set the universe used for synchronization packets. Receivers that
+	 * support E1.31 synchronization output all universes of a frame at once.
+	 * @param syncUniverse	universe number (1-63999) or 0 to disable
+	 */
+	public void setSyncUniverse(int syncUniverse) {
+		this.syncUniverse = syncUniverse;
+	}
+
+	/**
+	 * @return pacing or batching of the universe packets
+	 */
+	public TransmissionSettings getTransmissionSettings() {
+		if(transmission == null)
+			transmission = new TransmissionSettings();
+		return transmission;
+	}
+	
+	public void setTransmissionSettings(TransmissionSettings transmission) {
+		this.transmission = transmission;
+		E131Sender s = sender;
+		if(s != null)
+			s.setTransmissionSettings(getTransmissionSettings());
+	}
+	
+	/**
+	 * @return per-universe statistics or an empty list if not connected
+	 */
+	public List<UniverseStats> getUniverseStats() {
+		E131Sender s = sender;
+		return s != null ? s.getScheduler().getAllStats() : Collections.emptyList();
+	}
 
 	protected void initializeSocket() {
 		try {
 			address = getAddress();
-			dSocket = new DatagramSocket(null);
-			dSocket.setReuseAddress(true);
-			dSocket.setBroadcast(true);
-			dSocket.bind(new InetSocketAddress((InetAddress) null, PORT));
-		} catch (UnknownHostException | SocketException e) {
-			dSocket = null;
+			E131Sender s = new E131Sender();
+			s.setTransmissionSettings(getTransmissionSettings());
+			s.configure(startUniverse, universeSize, multicast ? null : address, syncUniverse);
+			sender = s;
+		} catch (IOException e) {
+			sender = null;
 			Logger.error(e, "Could not initialize E1.31 client!");
 		}
 	}
@@ -85,14 +125,11 @@ public class E131 extends Device {
 		if(!multicast) {
 			return InetAddress.getByName(unicastIP);
 		}
-		// multicast address must be 239.255.UHB.ULB (UHB = universe high byte, ULB = universe low byte)
-		byte[] addressBytes = {(byte) 239, (byte) 255, (byte) (startUniverse >> 8), (byte) (startUniverse % 255)};
-		return InetAddress.getByAddress(addressBytes);
+		return E131Sender.getMulticastAddress(startUniverse);
 	}
 	
 	@Override
 	public void onLoad() {
-		e131Packet = new E131Packet();
 		if(universeSize == 0) {
 			universeSize = E131Packet.DATA_LENGTH;
 		}
@@ -103,91 +140,43 @@ public class E131 extends Device {
 
 	@Override
 	public ConnectionState connect() {
-		if(e131Packet == null) onLoad();
+		onLoad();
 		initializeSocket();
-		return (dSocket != null) ? ConnectionState.CONNECTED : ConnectionState.FAILED;
+		return (sender != null) ? ConnectionState.CONNECTED : ConnectionState.FAILED;
 	}
 
 	@Override
 	public ConnectionState disconnect() {
-		dSocket.close();
-		dSocket = null;
+		E131Sender s = sender;
+		sender = null;
+		if(s != null) {
+			try {
+				s.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close E1.31 client.");
+			}
+		}
 		return ConnectionState.DISCONNECTED;
 	}
 
 	@Override
 	public ConnectionState getConnectionState() {
-		return (dSocket != null) ? ConnectionState.CONNECTED : ConnectionState.DISCONNECTED;
+		return (sender != null) ? ConnectionState.CONNECTED : ConnectionState.DISCONNECTED;
 	}
 
 	@Override
-	public void send(Color[] pixels) {
-		final int dataLength = pixels.length * 3;
-		final int MAX_LENGTH = universeSize; // maximal dmx data length
-		
-		int arrayLength = dataLength > MAX_LENGTH ? MAX_LENGTH : dataLength;
-		byte[] dmxData = new byte[arrayLength];
-		int currUniverse = startUniverse;
-		int offset = 0;
-		
-		// loop over each pixel
-		for(int i = 0; i < pixels.length; i++) {
-			byte[] rgbData = {(byte) pixels[i].getRed(), (byte) pixels[i].getGreen(), (byte) pixels[i].getBlue()};
-			
-			// loop over RGB data array
-			for(int d = 0; d < rgbData.length; d++) {
-				// check if max length of universe is reached
-				if(offset >= MAX_LENGTH) {
-					// current universe is full; output universe and use next universe
-					sendDmxData(currUniverse, dmxData);
-					
-					// use next universe
-					currUniverse++;
-					// reset offset
-					offset = 0;
-					
-					// create new buffer
-					int usedUniverses = currUniverse - startUniverse;
-					int remainingDataLength = dataLength - usedUniverses * MAX_LENGTH;
-					int size = remainingDataLength > MAX_LENGTH ? MAX_LENGTH : remainingDataLength;
-					dmxData = new byte[size];
-				}
-				
-				// add to output data buffer
-				dmxData[offset] = rgbData[d];
-				// increment offset
-				offset++;
-			}
-		}
-		// output universe
-		sendDmxData(currUniverse, dmxData);
-	}
-	
-	protected void sendDmxData(int universe, byte[] colorData) {
-		byte[] packetData;
-		synchronized (e131Packet) {
-			packetData = e131Packet.createPacket(universe, sequenceNumber, colorData);
-		}
-		incrementSequenceNumber();
-		
-		if(getConnectionState() == ConnectionState.CONNECTED) {
-			// construct new DatagramPacket
-			DatagramPacket dPacket = new DatagramPacket(packetData, packetData.length, address, PORT);
-			// send the packet
-			try {
-				dSocket.send(dPacket);
-			} catch (IOException e) {
-				Logger.error(e, "Could not send E1.31 data.");
-				disconnect();
-			}
+	public void send(FrameBuffer frame) {
+		E131Sender s = sender;
+		if(s == null)
+			return;
+		try {
+			s.send(frame);
+		} catch (IOException e) {
+			Logger.error(e, "Could not send E1.31 data.");
+			disconnect();
 		}
 	}
 	
-	protected void incrementSequenceNumber() {
-		if(++sequenceNumber > 255)
-			sequenceNumber = 0;
-	}
-	
 	public int getEndUniverse(int startUniverse, int universeSize, int pixels) {
 		return startUniverse + (3 * pixels / universeSize);
 	}
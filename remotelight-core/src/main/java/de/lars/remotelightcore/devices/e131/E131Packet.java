@@ -11,12 +11,67 @@ public class E131Packet {
 	public final static int LENGTH = 638;
 	/** max DMX data length */
 	public final static int DATA_LENGTH = 512;
+	/** offset of the root layer vector */
+	public final static int ROOT_VECTOR_OFFSET = 18;
+	/** offset of the sender's CID (16 bytes) */
+	public final static int CID_OFFSET = 22;
+	/** offset of the framing layer vector */
+	public final static int FRAMING_VECTOR_OFFSET = 40;
+	/** offset of the priority in a data packet */
+	public final static int PRIORITY_OFFSET = 108;
+	/** offset of the synchronization address in a data packet */
+	public final static int SYNC_ADDRESS_OFFSET = 109;
+	/** offset of the sequence number in a data packet */
+	public final static int SEQUENCE_OFFSET = 111;
+	/** offset of the options flags in a data packet */
+	public final static int OPTIONS_OFFSET = 112;
+	/** offset of the universe number in a data packet */
+	public final static int UNIVERSE_OFFSET = 113;
+	/** offset of the property value count (start code + DMX slots) in a data packet */
+	public final static int PROPERTY_COUNT_OFFSET = 123;
+	/** offset of the DMX start code in a data packet */
+	public final static int START_CODE_OFFSET = 125;
+	/** offset of the first DMX slot (after the start code) in a data packet */
+	public final static int DATA_OFFSET = 126;
+	/** length of a synchronization packet */
+	public final static int SYNC_LENGTH = 49;
+	/** offset of the sequence number in a synchronization packet */
+	public final static int SYNC_SEQUENCE_OFFSET = 44;
+	/** offset of the synchronization address in a synchronization packet */
+	public final static int SYNC_UNIVERSE_OFFSET = 45;
+	/** default priority of a source */
+	public final static int DEFAULT_PRIORITY = 100;
+	/** options flag: data is for visualization only */
+	public final static int OPTION_PREVIEW_DATA = 0x80;
+	/** options flag: the source stops sending this universe */
+	public final static int OPTION_STREAM_TERMINATED = 0x40;
+	/** root layer vector of data packets */
+	public final static int VECTOR_ROOT_E131_DATA = 0x00000004;
+	/** root layer vector of synchronization packets */
+	public final static int VECTOR_ROOT_E131_EXTENDED = 0x00000008;
+	/** framing layer vector of data packets */
+	public final static int VECTOR_E131_DATA_PACKET = 0x00000002;
+	/** framing layer vector of synchronization packets */
+	public final static int VECTOR_E131_EXTENDED_SYNCHRONIZATION = 0x00000001;
 	/** Sender's unique ID generated using current user name */
 	public final static UUID CLIENT_UUID = UUID.nameUUIDFromBytes(new String("RemoteLight_" + System.getProperty("user.name")).getBytes(StandardCharsets.UTF_8));
 	
 	private ByteBuffer buffer;
 	
 	public byte[] createPacket(int universe, int sequenceId, byte[] colorData) {
+		return createPacket(universe, sequenceId, colorData, 0);
+	}
+	
+	/**
+	 * Create a data packet
+	 * @param universe		the universe number
+	 * @param sequenceId	sequence number
+	 * @param colorData		DMX data (max 512 bytes)
+	 * @param syncAddress	universe of the synchronization packets
+	 * 						or 0 if the data should be applied immediately
+	 * @return				the packet data
+	 */
+	public byte[] createPacket(int universe, int sequenceId, byte[] colorData, int syncAddress) {
 		if(colorData.length > DATA_LENGTH)
 			throw new IllegalStateException("Maximum DMX data length exceeded: " + colorData.length + " (max " + DATA_LENGTH + ")");
 		
@@ -25,6 +80,7 @@ public class E131Packet {
 		 */
 		DmpLayer dmpLayer = new DmpLayer();
 		FramingLayer framingLayer = new FramingLayer(universe, sequenceId);
+		framingLayer.syncAddress = syncAddress;
 		RootLayer rootLayer = new RootLayer();
 		
 		/*
@@ -52,7 +108,7 @@ public class E131Packet {
 		/*
 		 * Assemble Layers (put data in buffer)
 		 */
-		rootLayer.putData();
+		rootLayer.putData(VECTOR_ROOT_E131_DATA);
 		framingLayer.putData();
 		dmpLayer.putData(colorData);
 		
@@ -62,12 +118,67 @@ public class E131Packet {
 		return buffer.array().clone();
 	}
 	
+	/**
+	 * Create a reusable packet with empty DMX data in a direct buffer.
+	 * Only the sequence number and the DMX slots need to be updated
+	 * before sending it.
+	 * 
+	 * @param universe		the universe number
+	 * @param slots			number of DMX slots (1-512)
+	 * @param syncAddress	synchronization universe or 0
+	 * @return				direct buffer containing the packet
+	 * @see #SEQUENCE_OFFSET
+	 * @see #DATA_OFFSET
+	 */
+	public ByteBuffer createTemplate(int universe, int slots, int syncAddress) {
+		return toDirectBuffer(createPacket(universe, 0, new byte[slots], syncAddress));
+	}
+	
+	/**
+	 * Create a synchronization packet. Receivers hold back all data packets
+	 * with this synchronization address until the packet arrives.
+	 * 
+	 * @param syncAddress	the synchronization universe
+	 * @param sequenceId	sequence number
+	 * @return				the packet data
+	 */
+	public byte[] createSyncPacket(int syncAddress, int sequenceId) {
+		buffer = ByteBuffer.allocate(SYNC_LENGTH).order(ByteOrder.BIG_ENDIAN);
+		RootLayer rootLayer = new RootLayer();
+		rootLayer.length = SYNC_LENGTH - 16;
+		rootLayer.putData(VECTOR_ROOT_E131_EXTENDED);
+		
+		buffer.putShort((short) (0x7000 | (SYNC_LENGTH - 38)));	// Flags & Length (2 bytes)
+		buffer.putInt(VECTOR_E131_EXTENDED_SYNCHRONIZATION);	// Vector (4 bytes)
+		buffer.put((byte) sequenceId);							// Sequence Number (1 byte)
+		buffer.putShort((short) syncAddress);					// Synchronization Address (2 bytes)
+		buffer.putShort((short) 0);								// Reserved (2 bytes)
+		return buffer.array().clone();
+	}
+	
+	/**
+	 * Create a reusable synchronization packet in a direct buffer
+	 * @param syncAddress	the synchronization universe
+	 * @return				direct buffer containing the packet
+	 * @see #SYNC_SEQUENCE_OFFSET
+	 */
+	public ByteBuffer createSyncTemplate(int syncAddress) {
+		return toDirectBuffer(createSyncPacket(syncAddress, 0));
+	}
+	
+	private static ByteBuffer toDirectBuffer(byte[] packet) {
+		ByteBuffer direct = ByteBuffer.allocateDirect(packet.length).order(ByteOrder.BIG_ENDIAN);
+		direct.put(packet);
+		direct.clear();
+		return direct;
+	}
+	
 	
 	class RootLayer {
 		
 		int length = LENGTH - 16; // 22 + frameLayer length (22 + 600 for full payload)
 		
-		void putData() {
+		void putData(int vector) {
 			buffer.putShort((short) 0x0010);			// Preamble Size (2 bytes)
 			buffer.putShort((short) 0x0000);			// Post-amble Size (2 bytes)
 														// ACN Packet Identifier (12 bytes)
@@ -75,7 +186,7 @@ public class E131Packet {
 			buffer.put(ACN_PID);
 			
 			buffer.putShort((short) (0x7000 | length));	// Flags & Length (2 bytes) (low 12 bits = PDU length, high 4 bits = 0x7)
-			buffer.putInt(0x00000004);					// Vector (4 bytes)
+			buffer.putInt(vector);						// Vector (4 bytes)
 														// CID (16 bytes = 8 bytes + 8 bytes)
 			buffer.putLong(CLIENT_UUID.getMostSignificantBits());
 			buffer.putLong(CLIENT_UUID.getLeastSignificantBits());
@@ -88,6 +199,7 @@ public class E131Packet {
 		int length = LENGTH - 38; // frameLayer length + dmpLayer length (600 for full payload)
 		int universe;
 		int sequenceId;
+		int syncAddress;
 		
 		public FramingLayer(int universe, int sequenceId) {
 			this.universe = universe;
@@ -96,14 +208,14 @@ public class E131Packet {
 		
 		void putData() {
 			buffer.putShort((short) (0x7000 | length));	// Flags & Length (2 bytes) (low 12 bits = PDU length, high 4 bits = 0x7)
-			buffer.putInt(0x00000002);					// Vector (4 bytes)
+			buffer.putInt(VECTOR_E131_DATA_PACKET);		// Vector (4 bytes)
 														// Source Name (64 bytes) [UTF-8]
 			final byte[] SOURCE_NAME = new String("RemoteLight").getBytes(StandardCharsets.UTF_8); // 11 bytes
 			buffer.put(SOURCE_NAME);
 			buffer.position(108); // set position to octet 108
 			
-			buffer.put((byte) 100);						// Priority (1 byte) [0-200]
-			buffer.putShort((short) 0);					// Synchronization Address (2 bytes)
+			buffer.put((byte) DEFAULT_PRIORITY);			// Priority (1 byte) [0-200]
+			buffer.putShort((short) syncAddress);		// Synchronization Address (2 bytes)
 			buffer.put((byte) sequenceId);				// Sequence Number (1 byte)
 			buffer.put((byte) 0);						// Options Flags (1 byte)
 			buffer.putShort((short) universe);			// Universe Number (2 bytes)
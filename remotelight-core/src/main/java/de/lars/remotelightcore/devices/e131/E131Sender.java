@@ -0,0 +1,257 @@
+package de.lars.remotelightcore.devices.e131;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import de.lars.remotelightcore.devices.udp.PacketScheduler;
+import de.lars.remotelightcore.devices.udp.TransmissionSettings;
+import de.lars.remotelightcore.devices.udp.UniverseStats;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Sends frames as E1.31 data packets without per-frame allocations.
+ * <p>
+ * One complete packet per universe is kept in a direct buffer. For every
+ * frame only the DMX slots and the sequence number are written in place
+ * before the packet is handed to the {@link DatagramChannel}. The packets
+ * are rebuilt when the number of pixels or the universe layout changes.
+ * <p>
+ * If a synchronization universe is set, every data packet carries its
+ * address and a synchronization packet is sent after the last universe,
+ * so receivers apply all universes of a frame at the same time.
+ */
+public class E131Sender implements Closeable {
+	
+	private final E131Packet packetBuilder = new E131Packet();
+	private final DatagramChannel channel;
+	private final PacketScheduler scheduler;
+	private final int targetPort;
+	private Universe[] universes = new Universe[0];
+	// packet list handed to the scheduler
+	private ByteBuffer[] packets = new ByteBuffer[0];
+	private SocketAddress[] targets = new SocketAddress[0];
+	private UniverseStats[] stats = new UniverseStats[0];
+	private ByteBuffer syncPacket;
+	private SocketAddress syncTarget;
+	private UniverseStats syncStats;
+	private int sequenceNumber;
+	private int syncSequenceNumber;
+	
+	// layout the packets were built for
+	private int startUniverse;
+	private int universeSize = E131Packet.DATA_LENGTH;
+	private InetAddress unicastAddress;
+	private int syncUniverse;
+	private int layoutChannels = -1;
+	
+	/**
+	 * Create a sender bound to any free port, the E1.31 port
+	 * is left to the network input (see {@link de.lars.remotelightcore.networkinput.NetworkInputManager})
+	 * @throws IOException if the channel could not be opened
+	 */
+	public E131Sender() throws IOException {
+		this(new InetSocketAddress(0), E131.PORT);
+	}
+	
+	/**
+	 * @param bindAddress	local address or {@code null} for any free port
+	 * @param targetPort	port of the receivers
+	 * @throws IOException	if the channel could not be opened
+	 */
+	public E131Sender(InetSocketAddress bindAddress, int targetPort) throws IOException {
+		this.targetPort = targetPort;
+		channel = DatagramChannel.open(StandardProtocolFamily.INET);
+		try {
+			channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+			channel.bind(bindAddress);
+		} catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+		scheduler = new PacketScheduler(channel);
+	}
+	
+	/**
+	 * @param settings pacing or batching of the packets
+	 */
+	public void setTransmissionSettings(TransmissionSettings settings) {
+		scheduler.setSettings(settings);
+	}
+	
+	/**
+	 * @return the scheduler including the per-universe statistics
+	 */
+	public PacketScheduler getScheduler() {
+		return scheduler;
+	}
+	
+	/**
+	 * Set the universe layout. Packets are rebuilt with the next frame.
+	 * @param startUniverse		first universe
+	 * @param universeSize		number of DMX slots per universe
+	 * @param unicastAddress	receiver address or {@code null} to send
+	 * 							every universe to its multicast group
+	 */
+	public void configure(int startUniverse, int universeSize, InetAddress unicastAddress) {
+		configure(startUniverse, universeSize, unicastAddress, 0);
+	}
+	
+	/**
+	 * Set the universe layout. Packets are rebuilt with the next frame.
+	 * @param startUniverse		first universe
+	 * @param universeSize		number of DMX slots per universe
+	 * @param unicastAddress	receiver address or {@code null} to send
+	 * 							every universe to its multicast group
+	 * @param syncUniverse		universe of the synchronization packet that is sent
+	 * 							after the last universe of a frame, 0 to disable
+	 */
+	public void configure(int startUniverse, int universeSize, InetAddress unicastAddress, int syncUniverse) {
+		this.syncUniverse = Math.max(0, syncUniverse);
+		this.startUniverse = startUniverse;
+		this.universeSize = Math.max(E131.MIN_UNIVERSE_SIZE, Math.min(E131Packet.DATA_LENGTH, universeSize));
+		this.unicastAddress = unicastAddress;
+		layoutChannels = -1;
+	}
+	
+	/**
+	 * Send all universes of the frame
+	 * @param frame			RGB frame
+	 * @throws IOException	if a packet could not be sent
+	 */
+	public void send(FrameBuffer frame) throws IOException {
+		final int channels = frame.size() * 3;
+		if(channels != layoutChannels)
+			buildPackets(channels);
+		if(universes.length == 0)
+			return;
+		
+		// write DMX slots into the prebuilt packets
+		final int[] pixels = frame.getData();
+		int u = 0;
+		ByteBuffer packet = universes[0].packet;
+		int pos = E131Packet.DATA_OFFSET;
+		int end = pos + universes[0].slots;
+		for(int i = 0; i < frame.size(); i++) {
+			int rgb = pixels[i];
+			for(int shift = 16; shift >= 0; shift -= 8) {
+				if(pos == end) {
+					// current universe is full, continue with next universe
+					Universe next = universes[++u];
+					packet = next.packet;
+					pos = E131Packet.DATA_OFFSET;
+					end = pos + next.slots;
+				}
+				packet.put(pos++, (byte) (rgb >> shift));
+			}
+		}
+		
+		final byte sequence = (byte) sequenceNumber;
+		if(++sequenceNumber > 255)
+			sequenceNumber = 0;
+		for(ByteBuffer p : packets) {
+			p.put(E131Packet.SEQUENCE_OFFSET, sequence);
+			p.clear();
+		}
+		scheduler.transmit(packets, targets, stats);
+		
+		if(syncPacket != null) {
+			// receivers output all universes at once when the sync packet arrives
+			syncPacket.put(E131Packet.SYNC_SEQUENCE_OFFSET, (byte) syncSequenceNumber);
+			if(++syncSequenceNumber > 255)
+				syncSequenceNumber = 0;
+			syncPacket.clear();
+			scheduler.send(syncPacket, syncTarget, syncStats);
+		}
+	}
+	
+	private void buildPackets(int channels) throws UnknownHostException {
+		int count = (channels + universeSize - 1) / universeSize;
+		Universe[] list = new Universe[count];
+		ByteBuffer[] packetList = new ByteBuffer[count];
+		SocketAddress[] targetList = new SocketAddress[count];
+		UniverseStats[] statsList = new UniverseStats[count];
+		// drop statistics of universes that are no longer sent
+		scheduler.clearStats();
+		for(int i = 0; i < count; i++) {
+			int universe = startUniverse + i;
+			int slots = Math.min(universeSize, channels - i * universeSize);
+			list[i] = new Universe(universe, slots, packetBuilder.createTemplate(universe, slots, syncUniverse), getTarget(universe));
+			packetList[i] = list[i].packet;
+			targetList[i] = list[i].target;
+			statsList[i] = scheduler.getStats(universe);
+		}
+		universes = list;
+		packets = packetList;
+		targets = targetList;
+		stats = statsList;
+		if(syncUniverse > 0) {
+			syncPacket = packetBuilder.createSyncTemplate(syncUniverse);
+			syncTarget = getTarget(syncUniverse);
+			syncStats = scheduler.getStats(syncUniverse);
+		} else {
+			syncPacket = null;
+			syncTarget = null;
+			syncStats = null;
+		}
+		layoutChannels = channels;
+	}
+	
+	private SocketAddress getTarget(int universe) throws UnknownHostException {
+		if(unicastAddress != null)
+			return new InetSocketAddress(unicastAddress, targetPort);
+		return new InetSocketAddress(getMulticastAddress(universe), targetPort);
+	}
+	
+	/**
+	 * Multicast address must be 239.255.UHB.ULB
+	 * (UHB = universe high byte, ULB = universe low byte)
+	 * @param universe	the universe number
+	 * @return			multicast address of the universe
+	 * @throws UnknownHostException never thrown for valid universes
+	 */
+	public static InetAddress getMulticastAddress(int universe) throws UnknownHostException {
+		byte[] addressBytes = {(byte) 239, (byte) 255, (byte) (universe >> 8), (byte) universe};
+		return InetAddress.getByAddress(addressBytes);
+	}
+	
+	/**
+	 * @return number of universes of the last frame
+	 */
+	public int getUniverseCount() {
+		return universes.length;
+	}
+	
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	
+	private static class Universe {
+		final int universe;
+		final int slots;
+		final ByteBuffer packet;
+		final SocketAddress target;
+		
+		Universe(int universe, int slots, ByteBuffer packet, SocketAddress target) {
+			this.universe = universe;
+			this.slots = slots;
+			this.packet = packet;
+			this.target = target;
+		}
+	}
+
+}
@@ -0,0 +1,491 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.link;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tinylog.Logger;
+
+import de.lars.remotelightcore.devices.Backoff;
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Sends frames of a linked device ({@link de.lars.remotelightcore.devices.link.chain.Chain},
+ * {@link de.lars.remotelightcore.devices.link.multi.MultiOutput}) to all
+ * linked devices in parallel.
+ * <p>
+ * Every linked device has at most one frame in flight. The caller waits
+ * until all devices are done or the deadline is reached. Devices that are
+ * still busy skip the following frames, so one slow device never delays the
+ * others. The connection states of the linked devices are cached and updated
+ * by a monitor thread, which also reconnects failed devices in the background
+ * with exponential backoff (see {@link Backoff}) while the remaining devices
+ * keep running.
+ * <p>
+ * The shared frame is copied once per dispatch into a snapshot, the linked
+ * devices read their slices from it without copying (see
+ * {@link Device#onOutput(FrameBuffer, int, int)}). A snapshot is only reused
+ * when no device reads it any more, so the caller may reuse the shared frame
+ * as soon as {@link #dispatch(FrameBuffer, int[], int[])} returns, even if a
+ * device is still busy after the deadline.
+ */
+public class FanOutDispatcher {
+	
+	/** default time to wait for the linked devices in milliseconds */
+	public final static int DEFAULT_DEADLINE = 50;
+	/** interval in which the connection states are updated in milliseconds */
+	public final static int STATE_INTERVAL = 500;
+	/** maximum time to wait for the linked devices to connect in milliseconds */
+	public final static int CONNECT_TIMEOUT = 10000;
+	/** maximum time to wait for frames in flight when stopping in milliseconds */
+	public final static int STOP_TIMEOUT = 1000;
+	
+	private final String name;
+	private final int maxThreads;
+	private volatile Child[] children = new Child[0];
+	// only accessed by the dispatching thread, at most one snapshot per busy device plus one
+	private final List<Snapshot> snapshots = new ArrayList<>();
+	private volatile int deadline = DEFAULT_DEADLINE;
+	private volatile boolean running;
+	private ThreadPoolExecutor executor;
+	private ScheduledExecutorService monitor;
+	
+	/**
+	 * @param name name of the linked device, used for threads and log messages
+	 */
+	public FanOutDispatcher(String name) {
+		this.name = name;
+		this.maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Update the linked devices. Statistics of devices that are
+	 * still linked are kept.
+	 * @param devices linked devices
+	 */
+	public synchronized void setDevices(List<Device> devices) {
+		Child[] old = children;
+		Child[] updated = new Child[devices.size()];
+		for(int i = 0; i < updated.length; i++) {
+			Device d = devices.get(i);
+			for(Child c : old) {
+				if(c.device == d) {
+					updated[i] = c;
+					break;
+				}
+			}
+			if(updated[i] == null)
+				updated[i] = new Child(d);
+		}
+		children = updated;
+		if(running) {
+			// connect new devices in the background
+			monitor.execute(this::updateStates);
+		}
+	}
+	
+	/**
+	 * @param deadline time to wait for the linked devices in milliseconds
+	 */
+	public void setDeadline(int deadline) {
+		this.deadline = deadline > 0 ? deadline : DEFAULT_DEADLINE;
+	}
+	
+	public int getDeadline() {
+		return deadline;
+	}
+	
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Connect all linked devices in parallel and start the monitor.
+	 * @return {@link ConnectionState#CONNECTED} if at least one device is connected
+	 */
+	public synchronized ConnectionState start() {
+		if(running)
+			return getState();
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread t = new Thread(r, name + " fan-out " + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		
+		Child[] c = children;
+		CountDownLatch connected = new CountDownLatch(c.length);
+		for(Child child : c) {
+			child.disconnectPending = false;
+			executor.execute(() -> {
+				child.connect();
+				connected.countDown();
+			});
+		}
+		try {
+			connected.await(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		boolean anyConnected = false;
+		for(Child child : c) {
+			anyConnected |= child.state == ConnectionState.CONNECTED;
+		}
+		if(!anyConnected && c.length > 0) {
+			Logger.warn("[" + name + "] Could not connect any linked device.");
+			running = true; // allow stop() to clean up
+			stop();
+			return ConnectionState.FAILED;
+		}
+		
+		running = true;
+		monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, name + " monitor");
+			t.setDaemon(true);
+			return t;
+		});
+		monitor.scheduleWithFixedDelay(this::updateStates, STATE_INTERVAL, STATE_INTERVAL, TimeUnit.MILLISECONDS);
+		return getState();
+	}
+	
+	/**
+	 * Stop the monitor and disconnect all linked devices. Waits up to
+	 * {@link #STOP_TIMEOUT} for frames in flight, devices that are still
+	 * sending after that are disconnected as soon as their frame is done.
+	 */
+	public synchronized void stop() {
+		if(!running)
+			return;
+		running = false;
+		if(monitor != null) {
+			monitor.shutdownNow();
+			monitor = null;
+		}
+		executor.shutdown();
+		try {
+			if(!executor.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS))
+				Logger.warn("[" + name + "] Linked devices are still sending after " + STOP_TIMEOUT + " ms, disconnecting them when done.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		executor = null;
+		for(Child c : children) {
+			c.state = ConnectionState.DISCONNECTED;
+			c.disconnectPending = true;
+			c.disconnectIfIdle();
+		}
+	}
+	
+	/**
+	 * @return {@link ConnectionState#CONNECTED} while running,
+	 * 			failed devices are reconnected in the background
+	 */
+	public ConnectionState getState() {
+		return running ? ConnectionState.CONNECTED : ConnectionState.DISCONNECTED;
+	}
+	
+	/**
+	 * Send slices of the frame to all connected devices in parallel and wait
+	 * until all devices are done or the deadline is reached.
+	 * @param frame		shared frame
+	 * @param offsets	index of the first pixel of every linked device in the shared frame
+	 * @param lengths	number of pixels of every linked device
+	 */
+	public void dispatch(FrameBuffer frame, int[] offsets, int[] lengths) {
+		final ThreadPoolExecutor e = executor;
+		if(!running || e == null)
+			return;
+		final Child[] c = children;
+		final int count = Math.min(c.length, Math.min(offsets.length, lengths.length));
+		final CountDownLatch done = new CountDownLatch(count);
+		Snapshot snapshot = null;
+		for(int i = 0; i < count; i++) {
+			Child child = c[i];
+			if(child.state != ConnectionState.CONNECTED || !child.busy.compareAndSet(false, true)) {
+				// not connected or still busy with a previous frame
+				if(child.state == ConnectionState.CONNECTED)
+					child.framesSkipped.incrementAndGet();
+				done.countDown();
+				continue;
+			}
+			if(snapshot == null)
+				snapshot = takeSnapshot(frame);
+			snapshot.users.incrementAndGet();
+			child.snapshot = snapshot;
+			child.offset = offsets[i];
+			child.length = lengths[i];
+			child.done = done;
+			try {
+				e.execute(child);
+			} catch(Exception ex) {
+				snapshot.users.decrementAndGet();
+				child.snapshot = null;
+				child.busy.set(false);
+				done.countDown();
+			}
+		}
+		try {
+			if(!done.await(deadline, TimeUnit.MILLISECONDS))
+				Logger.trace("[" + name + "] Linked device did not finish within " + deadline + " ms");
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Copy the frame into a snapshot that is not read by any device
+	 */
+	private Snapshot takeSnapshot(FrameBuffer frame) {
+		Snapshot free = null;
+		for(Snapshot s : snapshots) {
+			if(s.users.get() == 0) {
+				free = s;
+				break;
+			}
+		}
+		if(free == null) {
+			free = new Snapshot();
+			snapshots.add(free);
+		}
+		free.frame.copyFrom(frame);
+		return free;
+	}
+	
+	/**
+	 * @return status of all linked devices
+	 */
+	public List<ChildStatus> getStatus() {
+		List<ChildStatus> list = new ArrayList<>();
+		for(Child c : children) {
+			list.add(new ChildStatus(c));
+		}
+		return Collections.unmodifiableList(list);
+	}
+	
+	/**
+	 * Update the cached states and reconnect failed devices.
+	 * Runs on the monitor thread.
+	 */
+	private void updateStates() {
+		final long now = System.currentTimeMillis();
+		for(Child c : children) {
+			if(!running)
+				return;
+			ConnectionState previous = c.state;
+			c.updateState();
+			if(c.state == ConnectionState.CONNECTED) {
+				c.backoff.reset();
+				continue;
+			}
+			if(previous == ConnectionState.CONNECTED) {
+				Logger.warn("[" + name + "] Linked device " + c.device.getId() + " lost connection, reconnecting in the background.");
+				c.nextAttempt = now + c.backoff.nextDelay();
+			} else if(now >= c.nextAttempt) {
+				if(!c.reconnect())
+					continue; // frame in flight, try again with the next update
+				c.reconnects.incrementAndGet();
+				if(c.state == ConnectionState.CONNECTED) {
+					Logger.info("[" + name + "] Reconnected linked device " + c.device.getId());
+					c.backoff.reset();
+				} else {
+					c.nextAttempt = System.currentTimeMillis() + c.backoff.nextDelay();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Snapshot of the state and statistics of a linked device
+	 */
+	public static class ChildStatus {
+		private final Device device;
+		private final ConnectionState state;
+		private final long framesSent;
+		private final long framesSkipped;
+		private final long sendErrors;
+		private final long reconnects;
+		
+		private ChildStatus(Child c) {
+			device = c.device;
+			state = c.state;
+			framesSent = c.framesSent.get();
+			framesSkipped = c.framesSkipped.get();
+			sendErrors = c.sendErrors.get();
+			reconnects = c.reconnects.get();
+		}
+		
+		public Device getDevice() {
+			return device;
+		}
+		
+		/**
+		 * @return cached connection state
+		 */
+		public ConnectionState getState() {
+			return state;
+		}
+		
+		public long getFramesSent() {
+			return framesSent;
+		}
+		
+		/**
+		 * @return number of frames skipped because the device was still busy
+		 */
+		public long getFramesSkipped() {
+			return framesSkipped;
+		}
+		
+		public long getSendErrors() {
+			return sendErrors;
+		}
+		
+		/**
+		 * @return number of reconnect attempts
+		 */
+		public long getReconnects() {
+			return reconnects;
+		}
+	}
+	
+	/**
+	 * Linked device with its cached state. Runs one frame at a time.
+	 */
+	private static class Child implements Runnable {
+		final Device device;
+		final AtomicBoolean busy = new AtomicBoolean();
+		final AtomicLong framesSent = new AtomicLong();
+		final AtomicLong framesSkipped = new AtomicLong();
+		final AtomicLong sendErrors = new AtomicLong();
+		final AtomicLong reconnects = new AtomicLong();
+		volatile ConnectionState state = ConnectionState.DISCONNECTED;
+		final Backoff backoff = new Backoff();
+		volatile long nextAttempt;
+		volatile boolean disconnectPending;
+		// current slice, written before the task is submitted
+		Snapshot snapshot;
+		int offset;
+		int length;
+		CountDownLatch done;
+		
+		Child(Device device) {
+			this.device = device;
+		}
+		
+		void connect() {
+			try {
+				device.connect();
+			} catch(Exception e) {
+				Logger.error(e, "Could not connect linked device " + device.getId());
+			}
+			updateState();
+		}
+		
+		/**
+		 * Disconnect the device if a disconnect is pending and no frame is in flight.
+		 */
+		void disconnectIfIdle() {
+			if(!disconnectPending || !busy.compareAndSet(false, true))
+				return;
+			try {
+				if(disconnectPending) {
+					disconnectPending = false;
+					device.disconnect();
+				}
+			} catch(Exception e) {
+				Logger.error(e, "Could not disconnect linked device " + device.getId());
+			} finally {
+				busy.set(false);
+			}
+		}
+		
+		/**
+		 * Reconnect the device if no frame is in flight.
+		 * @return false if the device is busy and was not reconnected
+		 */
+		boolean reconnect() {
+			if(!busy.compareAndSet(false, true))
+				return false;
+			try {
+				device.reconnect();
+			} catch(Exception e) {
+				Logger.debug(e, "Could not reconnect linked device " + device.getId());
+			} finally {
+				busy.set(false);
+			}
+			updateState();
+			return true;
+		}
+		
+		void updateState() {
+			try {
+				state = device.getConnectionState();
+			} catch(Exception e) {
+				state = ConnectionState.FAILED;
+			}
+		}
+		
+		@Override
+		public void run() {
+			try {
+				device.onOutput(snapshot.frame, offset, length);
+				framesSent.incrementAndGet();
+			} catch(Exception e) {
+				sendErrors.incrementAndGet();
+				device.getMetrics().recordError();
+				Logger.error(e, "Could not send frame to linked device " + device.getId());
+			} finally {
+				snapshot.users.decrementAndGet();
+				snapshot = null;
+				busy.set(false);
+				done.countDown();
+				disconnectIfIdle();
+			}
+		}
+	}
+	
+	/**
+	 * Copy of a shared frame with the number of devices that read it
+	 */
+	private static class Snapshot {
+		final FrameBuffer frame = new FrameBuffer(0);
+		final AtomicInteger users = new AtomicInteger();
+	}
+
+}
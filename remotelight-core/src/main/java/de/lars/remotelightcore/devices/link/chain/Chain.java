@@ -22,9 +22,7 @@
 
 package de.lars.remotelightcore.devices.link.chain;
 
-import de.lars.remotelightcore.utils.color.Color;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -33,14 +31,19 @@ import org.tinylog.Logger;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.link.FanOutDispatcher;
 import de.lars.remotelightcore.notification.Notification;
 import de.lars.remotelightcore.notification.NotificationType;
+import de.lars.remotelightcore.out.FrameBuffer;
 
 public class Chain extends Device {
 	private static final long serialVersionUID = 5415005609912021244L;
 	
 	private transient List<Device> devices;
 	private ArrayList<String> deviceIds;
+	private transient FanOutDispatcher dispatcher;
+	private transient int[] offsets;
+	private transient int[] lengths;
 
 	public Chain(String id) {
 		super(id, 0);
@@ -52,24 +55,39 @@ public class Chain extends Device {
 		return devices;
 	}
 	
+	/**
+	 * @return dispatcher that sends frames to the linked devices
+	 */
+	public FanOutDispatcher getDispatcher() {
+		if(dispatcher == null) {
+			dispatcher = new FanOutDispatcher("Chain " + getId());
+			if(devices != null)
+				dispatcher.setDevices(devices);
+		}
+		return dispatcher;
+	}
+	
 	public void addDevices(Device... devices) {
 		for(Device d : devices) {
 			Objects.requireNonNull(d, "Device should not be null.");
 			this.devices.add(d);
 			this.deviceIds.add(d.getId());
 		}
+		getDispatcher().setDevices(this.devices);
 		updatePixelNum();
 	}
 	
 	public void removeDevice(Device d) {
 		devices.remove(d);
 		deviceIds.remove(d.getId());
+		getDispatcher().setDevices(devices);
 		updatePixelNum();
 	}
 	
 	public void clearDevices() {
 		devices.clear();
 		deviceIds.clear();
+		getDispatcher().setDevices(devices);
 	}
 	
 	public void updatePixelNum() {
@@ -83,33 +101,19 @@ public class Chain extends Device {
 
 	@Override
 	public ConnectionState connect() {
-		for(Device d : devices) {
-			d.connect();
-		}
-		return getConnectionState();
+		return getDispatcher().start();
 	}
 
 	@Override
 	public ConnectionState disconnect() {
-		for(Device d : devices) {
-			d.disconnect();
-		}
+		getDispatcher().stop();
 		return getConnectionState();
 	}
 
 	@Override
 	public ConnectionState getConnectionState() {
-		boolean disconnected = false;
-		for(Device d : devices) {
-			if(d.getConnectionState() == ConnectionState.FAILED) {
-				disconnect();
-				return ConnectionState.FAILED;
-			}
-			if(d.getConnectionState() == ConnectionState.DISCONNECTED) {
-				disconnected = true;
-			}
-		}
-		return disconnected ? ConnectionState.DISCONNECTED : ConnectionState.CONNECTED;
+		// failed devices are reconnected by the dispatcher
+		return getDispatcher().getState();
 	}
 
 	@Override
@@ -137,19 +141,38 @@ public class Chain extends Device {
 			RemoteLightCore.getInstance().showNotification(
 					new Notification(NotificationType.WARN, getId() + " (Chain)", "Could not find the following devices: " + notFound));
 		}
+		getDispatcher().setDevices(devices);
 	}
 
 	@Override
-	public void send(Color[] pixels) {
-		if(pixels.length >= super.getPixels()) {
+	protected boolean isColorCorrectionEnabled() {
+		// applied by the linked devices
+		return false;
+	}
+	
+	@Override
+	protected boolean isFrameSuppressionEnabled() {
+		// handled by the linked devices
+		return false;
+	}
+
+	@Override
+	public void send(FrameBuffer frame) {
+		if(frame.size() >= super.getPixels()) {
+			if(offsets == null || offsets.length != devices.size()) {
+				offsets = new int[devices.size()];
+				lengths = new int[devices.size()];
+			}
 			int index = 0;
-			for(Device d : devices) {
-				Color[] subArray = Arrays.copyOfRange(pixels, index, index + d.getPixels());
-				d.onOutput(subArray);
+			for(int i = 0; i < devices.size(); i++) {
+				Device d = devices.get(i);
+				offsets[i] = index;
+				lengths[i] = d.getPixels();
 				index += d.getPixels();
 			}
+			getDispatcher().dispatch(frame, offsets, lengths);
 		} else {
-			Logger.error("Wrong output packet lenght! Expected " + super.getPixels() + ", got " + pixels.length);
+			Logger.error("Wrong output packet lenght! Expected " + super.getPixels() + ", got " + frame.size());
 		}
 	}
 
@@ -22,9 +22,7 @@
 
 package de.lars.remotelightcore.devices.link.multi;
 
-import de.lars.remotelightcore.utils.color.Color;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -33,9 +31,10 @@ import org.tinylog.Logger;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.link.FanOutDispatcher;
 import de.lars.remotelightcore.notification.Notification;
 import de.lars.remotelightcore.notification.NotificationType;
-import de.lars.remotelightcore.utils.color.PixelColorUtils;
+import de.lars.remotelightcore.out.FrameBuffer;
 
 public class MultiOutput extends Device {
 	private static final long serialVersionUID = 5961337662461972542L;
@@ -43,6 +42,9 @@ public class MultiOutput extends Device {
 	private transient List<Device> devices;
 	private List<String> deviceIds;
 	private DividingMethod processingMethod;
+	private transient FanOutDispatcher dispatcher;
+	private transient int[] offsets;
+	private transient int[] lengths;
 
 	public MultiOutput(String id) {
 		super(id, 0);
@@ -55,12 +57,25 @@ public class MultiOutput extends Device {
 		return devices;
 	}
 	
+	/**
+	 * @return dispatcher that sends frames to the linked devices
+	 */
+	public FanOutDispatcher getDispatcher() {
+		if(dispatcher == null) {
+			dispatcher = new FanOutDispatcher("MultiOutput " + getId());
+			if(devices != null)
+				dispatcher.setDevices(devices);
+		}
+		return dispatcher;
+	}
+	
 	public void addDevices(Device... devices) {
 		for(Device d : devices) {
 			Objects.requireNonNull(d, "Device should not be null.");
 			this.devices.add(d);
 			this.deviceIds.add(d.getId());
 		}
+		getDispatcher().setDevices(this.devices);
 		updatePixelNum();
 	}
 	
@@ -76,12 +91,14 @@ public class MultiOutput extends Device {
 	public void removeDevice(Device d) {
 		devices.remove(d);
 		deviceIds.remove(d.getId());
+		getDispatcher().setDevices(devices);
 		updatePixelNum();
 	}
 	
 	public void clearDevices() {
 		devices.clear();
 		deviceIds.clear();
+		getDispatcher().setDevices(devices);
 	}
 	
 	public void updatePixelNum() {
@@ -119,33 +136,19 @@ public class MultiOutput extends Device {
 
 	@Override
 	public ConnectionState connect() {
-		for(Device d : devices) {
-			d.connect();
-		}
-		return getConnectionState();
+		return getDispatcher().start();
 	}
 
 	@Override
 	public ConnectionState disconnect() {
-		for(Device d : devices) {
-			d.disconnect();
-		}
+		getDispatcher().stop();
 		return getConnectionState();
 	}
 
 	@Override
 	public ConnectionState getConnectionState() {
-		boolean disconnected = false;
-		for(Device d : devices) {
-			if(d.getConnectionState() == ConnectionState.FAILED) {
-				disconnect();
-				return ConnectionState.FAILED;
-			}
-			if(d.getConnectionState() == ConnectionState.DISCONNECTED) {
-				disconnected = true;
-			}
-		}
-		return disconnected ? ConnectionState.DISCONNECTED : ConnectionState.CONNECTED;
+		// failed devices are reconnected by the dispatcher
+		return getDispatcher().getState();
 	}
 
 	@Override
@@ -173,43 +176,72 @@ public class MultiOutput extends Device {
 			RemoteLightCore.getInstance().showNotification(
 					new Notification(NotificationType.WARN, getId() + " (MultiOutput)", "Could not find the following devices: " + notFound));
 		}
+		getDispatcher().setDevices(devices);
 	}
 
 	@Override
-	public void send(Color[] pixels) {
-		if(pixels.length >= super.getPixels()) {
-			if(pixels.length != super.getPixels())
-				pixels = Arrays.copyOfRange(pixels, 0, super.getPixels());
-			
-			for(Device d : devices) {
-				d.onOutput(processPixels(d, pixels));
+	protected boolean isColorCorrectionEnabled() {
+		// applied by the linked devices
+		return false;
+	}
+	
+	@Override
+	protected boolean isFrameSuppressionEnabled() {
+		// handled by the linked devices
+		return false;
+	}
+
+	@Override
+	public void send(FrameBuffer frame) {
+		if(frame.size() >= super.getPixels()) {
+			if(offsets == null || offsets.length != devices.size()) {
+				offsets = new int[devices.size()];
+				lengths = new int[devices.size()];
 			}
+			for(int i = 0; i < devices.size(); i++) {
+				Device d = devices.get(i);
+				offsets[i] = getSliceOffset(d);
+				lengths[i] = getSliceLength(d);
+			}
+			getDispatcher().dispatch(frame, offsets, lengths);
 		} else {
-			Logger.error("Wrong output packet lenght! Expected " + super.getPixels() + ", got " + pixels.length);
+			Logger.error("Wrong output packet lenght! Expected " + super.getPixels() + ", got " + frame.size());
 		}
 	}
 	
 	
-	private Color[] processPixels(Device d, Color[] pixels) {
-		if(processingMethod == DividingMethod.CUT_OVERHANGING && d.getPixels() < pixels.length) {
-			return Arrays.copyOfRange(pixels, 0, d.getPixels());
-		} else if(processingMethod == DividingMethod.CUT_OVERHANGING_CENTER && d.getPixels() < pixels.length) {
-			int diff = pixels.length - d.getPixels();
-			int from = diff / 2;
-			return Arrays.copyOfRange(pixels, from, pixels.length - (diff - from));
-			
-		} else if(processingMethod == DividingMethod.BLACK_OVERHANGING && d.getPixels() > pixels.length) {
-			Color[] newArr = PixelColorUtils.colorAllPixels(Color.BLACK, d.getPixels());
-			System.arraycopy(pixels, 0, newArr, 0, pixels.length);
-			return newArr;
-		} else if(processingMethod == DividingMethod.BLACK_OVERHANGING_CENTER && d.getPixels() > pixels.length) {
-			int diff = d.getPixels() - pixels.length;
-			Color[] newArr = PixelColorUtils.colorAllPixels(Color.BLACK, d.getPixels());
-			System.arraycopy(pixels, 0, newArr, diff / 2, pixels.length);
-			return newArr;
-			
+	/**
+	 * Get the index of the first pixel of the slice for the device.
+	 * A negative offset pads the start of the device with black pixels.
+	 * @param d		target device
+	 * @return		offset in the input frame
+	 */
+	private int getSliceOffset(Device d) {
+		final int length = super.getPixels();
+		if(processingMethod == DividingMethod.CUT_OVERHANGING_CENTER && d.getPixels() < length) {
+			return (length - d.getPixels()) / 2;
+		} else if(processingMethod == DividingMethod.BLACK_OVERHANGING_CENTER && d.getPixels() > length) {
+			return -((d.getPixels() - length) / 2);
+		}
+		return 0;
+	}
+	
+	/**
+	 * Fit the frame to the pixel number of the device. Pixels of the
+	 * slice outside of the input frame are black.
+	 * @param d		target device
+	 * @return		number of pixels in the slice
+	 */
+	private int getSliceLength(Device d) {
+		final int length = super.getPixels();
+		if((processingMethod == DividingMethod.CUT_OVERHANGING || processingMethod == DividingMethod.CUT_OVERHANGING_CENTER)
+				&& d.getPixels() < length) {
+			return d.getPixels();
+		} else if((processingMethod == DividingMethod.BLACK_OVERHANGING || processingMethod == DividingMethod.BLACK_OVERHANGING_CENTER)
+				&& d.getPixels() > length) {
+			return d.getPixels();
 		}
-		return pixels;
+		return length;
 	}
 
 }
@@ -0,0 +1,123 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.opc;
+
+import java.net.InetSocketAddress;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.NetworkDevice;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Output device for Open Pixel Control servers, e.g. Fadecandy
+ */
+public class OPC extends Device implements NetworkDevice {
+	private static final long serialVersionUID = 8340625547315107921L;
+	
+	private String ip;
+	private int port;
+	private int opcChannel;
+	private transient volatile OPCClient client;
+
+	public OPC(String id, String ip) {
+		super(id, 0);
+		this.ip = ip;
+	}
+	
+	public String getIp() {
+		return ip;
+	}
+	
+	public void setIp(String ip) {
+		this.ip = ip;
+	}
+	
+	/**
+	 * @return TCP port of the OPC server
+	 */
+	public int getPort() {
+		return port > 0 ? port : OPCClient.PORT;
+	}
+	
+	/**
+	 * @param port TCP port of the OPC server or 0 for the default port
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+	
+	/**
+	 * @return OPC channel (0 = all channels)
+	 */
+	public int getOpcChannel() {
+		return opcChannel;
+	}
+	
+	public void setOpcChannel(int opcChannel) {
+		this.opcChannel = Math.max(0, Math.min(255, opcChannel));
+	}
+	
+	public OPCClient getClient() {
+		return client;
+	}
+
+	@Override
+	public ConnectionState connect() {
+		if(ip == null || ip.trim().isEmpty())
+			return ConnectionState.FAILED;
+		OPCClient c = new OPCClient(InetSocketAddress.createUnresolved(ip.trim(), getPort()), opcChannel);
+		ConnectionState state = c.connect();
+		if(state == ConnectionState.CONNECTED)
+			client = c;
+		return state;
+	}
+
+	@Override
+	public ConnectionState disconnect() {
+		OPCClient c = client;
+		client = null;
+		if(c != null)
+			c.disconnect();
+		return ConnectionState.DISCONNECTED;
+	}
+
+	@Override
+	public ConnectionState getConnectionState() {
+		OPCClient c = client;
+		return c != null ? c.getState() : ConnectionState.DISCONNECTED;
+	}
+
+	@Override
+	public void send(FrameBuffer frame) {
+		OPCClient c = client;
+		if(c != null)
+			c.send(frame);
+	}
+
+	@Override
+	public void onLoad() {
+	}
+
+}
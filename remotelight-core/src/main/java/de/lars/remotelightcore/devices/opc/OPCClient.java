@@ -0,0 +1,380 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.opc;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.tinylog.Logger;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Open Pixel Control client writing binary set-pixel messages
+ * through a non-blocking {@link SocketChannel}.
+ * <p>
+ * {@link #send(FrameBuffer)} only encodes the frame and hands it over to
+ * the I/O thread of the client, it never blocks. If the server reads
+ * slower than frames arrive, the pending frame is replaced by the newest
+ * one instead of queuing up in the socket. Connecting, including the
+ * host name lookup, is done by the I/O thread as well. Lost connections
+ * are re-established by the I/O thread, the last frame is sent again
+ * after reconnecting.
+ * <p>
+ * The selector and the socket are owned by the I/O thread, they are
+ * opened and closed only by that thread.
+ */
+public class OPCClient implements Closeable {
+	
+	/** default OPC port */
+	public final static int PORT = 7890;
+	public final static int HEADER_LENGTH = 4;
+	/** set 8-bit pixel colors */
+	public final static int COMMAND_SET_PIXELS = 0;
+	/** maximum number of RGB pixels per message (16 bit length) */
+	public final static int MAX_PIXELS = 0xFFFF / 3;
+	
+	private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toNanos(3);
+	private static final long RECONNECT_DELAY = TimeUnit.SECONDS.toNanos(2);
+	private static final long SELECT_TIMEOUT = 1000;
+	
+	private final InetSocketAddress address;
+	private final int opcChannel;
+	private final Object lock = new Object();
+	private final AtomicLong framesSent = new AtomicLong();
+	private final AtomicLong framesDropped = new AtomicLong();
+	private final AtomicLong reconnects = new AtomicLong();
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+	// fill: owned by the caller of send(), writing: owned by the I/O thread
+	private ByteBuffer fill = createBuffer(0);
+	private ByteBuffer latest = createBuffer(0);
+	private ByteBuffer writing = createBuffer(0);
+	private boolean hasLatest;
+	
+	private volatile boolean running;
+	private volatile boolean linkUp;
+	private volatile ConnectionState state = ConnectionState.DISCONNECTED;
+	private Thread thread;
+	private volatile Selector selector;
+	private SocketChannel channel;
+	private SelectionKey key;
+	
+	/**
+	 * @param address		address of the OPC server
+	 * @param opcChannel	OPC channel (0 = all channels)
+	 */
+	public OPCClient(InetSocketAddress address, int opcChannel) {
+		this.address = address;
+		this.opcChannel = opcChannel & 0xFF;
+	}
+	
+	/**
+	 * Start the I/O thread which connects to the server in the background.
+	 * This method does not block, use {@link #isLinkUp()} to check if
+	 * the connection is established.
+	 * @return {@link ConnectionState#CONNECTED} or {@link ConnectionState#FAILED}
+	 * 			if the I/O thread of a previous connection is still running
+	 */
+	public synchronized ConnectionState connect() {
+		if(running)
+			return state;
+		if(thread != null && thread.isAlive()) {
+			Logger.warn("Previous OPC client thread for " + address + " is still running.");
+			return ConnectionState.FAILED;
+		}
+		running = true;
+		state = ConnectionState.CONNECTED;
+		thread = new Thread(this::run, "OPC client " + address);
+		thread.start();
+		return state;
+	}
+	
+	/**
+	 * Stop the I/O thread and close the connection
+	 */
+	public ConnectionState disconnect() {
+		Thread t;
+		synchronized (this) {
+			running = false;
+			state = ConnectionState.DISCONNECTED;
+			t = thread;
+		}
+		if(t != null) {
+			// the I/O thread closes the connection and its selector on its own
+			Selector s = selector;
+			if(s != null)
+				s.wakeup();
+			LockSupport.unpark(t);
+			try {
+				t.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if(t.isAlive())
+				Logger.warn("OPC client thread for " + address + " did not stop in time.");
+		}
+		return state;
+	}
+	
+	@Override
+	public void close() {
+		disconnect();
+	}
+	
+	/**
+	 * @return {@link ConnectionState#CONNECTED} as long as the client is
+	 * 			running, even while it is reconnecting
+	 */
+	public ConnectionState getState() {
+		return state;
+	}
+	
+	/**
+	 * @return true if the socket is currently connected to the server
+	 */
+	public boolean isLinkUp() {
+		return linkUp;
+	}
+	
+	/**
+	 * @return number of frames completely written to the socket
+	 */
+	public long getFramesSent() {
+		return framesSent.get();
+	}
+	
+	/**
+	 * @return number of frames replaced by a newer frame before they were written
+	 */
+	public long getFramesDropped() {
+		return framesDropped.get();
+	}
+	
+	/**
+	 * @return number of successful reconnects
+	 */
+	public long getReconnects() {
+		return reconnects.get();
+	}
+	
+	/**
+	 * Encode the frame and hand it over to the I/O thread. Frames with
+	 * more than {@link #MAX_PIXELS} pixels are cut.
+	 * @param frame RGB frame
+	 */
+	public void send(FrameBuffer frame) {
+		if(!running)
+			return;
+		final int pixels = Math.min(frame.size(), MAX_PIXELS);
+		final int length = pixels * 3;
+		ByteBuffer b = fill;
+		if(b.capacity() < HEADER_LENGTH + length)
+			b = createBuffer(length);
+		b.clear();
+		b.put((byte) opcChannel);
+		b.put((byte) COMMAND_SET_PIXELS);
+		b.putShort((short) length);
+		final int[] data = frame.getData();
+		for(int i = 0; i < pixels; i++) {
+			int rgb = data[i];
+			b.put((byte) (rgb >> 16));
+			b.put((byte) (rgb >> 8));
+			b.put((byte) rgb);
+		}
+		b.flip();
+		
+		synchronized (lock) {
+			fill = latest;
+			latest = b;
+			if(hasLatest)
+				framesDropped.incrementAndGet();
+			hasLatest = true;
+		}
+		Selector s = selector;
+		if(s != null)
+			s.wakeup();
+	}
+	
+	private void run() {
+		Logger.debug("Started OPC client thread for " + address);
+		try {
+			selector = Selector.open();
+		} catch (IOException e) {
+			Logger.error(e, "Could not open selector for OPC client " + address);
+			running = false;
+			state = ConnectionState.FAILED;
+			return;
+		}
+		try {
+			runLoop();
+		} finally {
+			closeChannel();
+			closeSelector();
+			Logger.debug("Stopped OPC client thread for " + address);
+		}
+	}
+	
+	private void runLoop() {
+		boolean wasConnected = false;
+		while(running) {
+			if(channel == null) {
+				try {
+					open();
+				} catch(IOException e) {
+					if(running) {
+						if(!wasConnected)
+							Logger.info("Could not connect to OPC server " + address + ": " + e.getMessage());
+						LockSupport.parkNanos(this, RECONNECT_DELAY);
+					}
+					continue;
+				}
+				if(wasConnected) {
+					reconnects.incrementAndGet();
+					// send the last frame again, a partial message was lost with the old connection
+					writing.rewind();
+					Logger.info("Reconnected to OPC server " + address);
+				}
+				wasConnected = true;
+			}
+			
+			try {
+				if(!writing.hasRemaining())
+					takeLatest();
+				if(writing.hasRemaining()) {
+					channel.write(writing);
+					if(!writing.hasRemaining())
+						framesSent.incrementAndGet();
+				}
+				// wait for free socket buffer, a new frame or data from the server
+				key.interestOps(writing.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+				selector.select(SELECT_TIMEOUT);
+				if(key.isReadable()) {
+					// OPC servers do not send anything, only detect closed connections
+					readBuffer.clear();
+					if(channel.read(readBuffer) < 0)
+						throw new EOFException("Connection closed by server");
+				}
+				selector.selectedKeys().clear();
+			} catch(IOException e) {
+				if(running)
+					Logger.warn("Lost connection to OPC server " + address + ": " + e.getMessage());
+				closeChannel();
+			}
+		}
+	}
+	
+	private void takeLatest() {
+		synchronized (lock) {
+			if(hasLatest) {
+				ByteBuffer b = writing;
+				writing = latest;
+				latest = b;
+				hasLatest = false;
+			}
+		}
+	}
+	
+	/**
+	 * Connect without blocking the selector, a call to {@link #disconnect()}
+	 * cancels a pending connection attempt.
+	 */
+	private void open() throws IOException {
+		InetSocketAddress target = address;
+		if(target.isUnresolved()) {
+			target = new InetSocketAddress(address.getHostString(), address.getPort());
+			if(target.isUnresolved())
+				throw new UnknownHostException(address.getHostString());
+		}
+		SocketChannel ch = SocketChannel.open();
+		try {
+			ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			ch.configureBlocking(false);
+			SelectionKey k = ch.register(selector, SelectionKey.OP_CONNECT);
+			final long deadline = System.nanoTime() + CONNECT_TIMEOUT;
+			if(!ch.connect(target)) {
+				while(!ch.finishConnect()) {
+					final long remaining = deadline - System.nanoTime();
+					if(!running)
+						throw new IOException("Connection attempt cancelled");
+					if(remaining <= 0)
+						throw new SocketTimeoutException("Connect timed out");
+					selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+					selector.selectedKeys().clear();
+				}
+			}
+			k.interestOps(SelectionKey.OP_READ);
+			key = k;
+		} catch(IOException e) {
+			ch.close();
+			throw e;
+		}
+		channel = ch;
+		linkUp = true;
+	}
+	
+	private void closeChannel() {
+		linkUp = false;
+		if(channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close OPC connection.");
+			}
+			channel = null;
+			key = null;
+		}
+	}
+	
+	private void closeSelector() {
+		if(selector != null) {
+			try {
+				selector.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close selector.");
+			}
+			selector = null;
+		}
+	}
+	
+	private static ByteBuffer createBuffer(int dataLength) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_LENGTH + dataLength).order(ByteOrder.BIG_ENDIAN);
+		buffer.limit(0);
+		return buffer;
+	}
+
+}
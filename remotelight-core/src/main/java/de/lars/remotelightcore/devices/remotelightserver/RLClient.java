@@ -22,16 +22,23 @@
 
 package de.lars.remotelightcore.devices.remotelightserver;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
 import org.tinylog.Logger;
 
 import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.utils.color.Color;
 
 public class RLClient implements Serializable {
@@ -41,11 +48,16 @@ public class RLClient implements Serializable {
 	 */
 	private static final long serialVersionUID = 1077693134503577060L;
 	public final static int PORT = 20002;
+	/** time to wait for the binary protocol handshake of the server */
+	public final static int HANDSHAKE_TIMEOUT = 500;
 	private String hostname;
 	private boolean connected;
 	private InetSocketAddress address;
 	private Socket socket;
 	private PrintWriter out;
+	private transient OutputStream binaryOut;
+	private transient RLFrameEncoder encoder;
+	private int protocolVersion;
 	private ConnectionState state = ConnectionState.DISCONNECTED;
 	
 	public RLClient(String hostname) {
@@ -62,7 +74,8 @@ public class RLClient implements Serializable {
 				Logger.info("[Client] Connecting to " + address.toString());
 				
 				socket.connect(address, 5000);
-				out = new PrintWriter(new BufferedOutputStream(socket.getOutputStream()));
+				socket.setTcpNoDelay(true);
+				negotiateProtocol();
 				
 				state = ConnectionState.CONNECTED;
 				return state;
@@ -80,6 +93,46 @@ public class RLClient implements Serializable {
 		return state;
 	}
 	
+	/**
+	 * Wait for the handshake of the server and select the binary protocol
+	 * if supported. Falls back to JSON lines for old servers that do not
+	 * send a handshake.
+	 */
+	private void negotiateProtocol() throws IOException {
+		protocolVersion = 0;
+		binaryOut = null;
+		out = null;
+		int handshake = -1;
+		socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+		try {
+			handshake = RLProtocol.readHandshake(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+		} catch(SocketTimeoutException | EOFException e) {
+			// old server, does not send a handshake
+		}
+		socket.setSoTimeout(0);
+		
+		if(handshake != -1 && RLProtocol.getVersion(handshake) >= 1) {
+			int version = Math.min(RLProtocol.VERSION, RLProtocol.getVersion(handshake));
+			int flags = RLProtocol.getFlags(handshake) & RLProtocol.SUPPORTED_FLAGS;
+			binaryOut = new BufferedOutputStream(socket.getOutputStream());
+			binaryOut.write(RLProtocol.createHandshake(version, flags));
+			binaryOut.flush();
+			encoder = new RLFrameEncoder(flags);
+			protocolVersion = version;
+			Logger.info("[Client] Using binary protocol v" + version + " (flags " + flags + ")");
+		} else {
+			out = new PrintWriter(new BufferedOutputStream(socket.getOutputStream()));
+			Logger.info("[Client] Server does not support the binary protocol, using JSON");
+		}
+	}
+	
+	/**
+	 * @return version of the binary protocol or 0 if JSON is used
+	 */
+	public int getProtocolVersion() {
+		return protocolVersion;
+	}
+	
 	public ConnectionState disconnect() {
 		connected = false;
 		state = ConnectionState.DISCONNECTED;
@@ -110,9 +163,17 @@ public class RLClient implements Serializable {
 	}
 	
 	public void send(Color[] pixels) {
+		send(FrameBuffer.fromColors(pixels));
+	}
+	
+	public void send(FrameBuffer frame) {
 		if(connected) {
+			if(binaryOut != null) {
+				sendBinary(frame);
+				return;
+			}
 			try {
-				String json = serializeToJSON(pixels);
+				String json = serializeToJSON(frame);
 				out.println(json);
 				if(out.checkError()) {
 					// Server is disconnected
@@ -125,6 +186,17 @@ public class RLClient implements Serializable {
 		}
 	}
 	
+	private void sendBinary(FrameBuffer frame) {
+		try {
+			int length = encoder.encode(frame);
+			binaryOut.write(encoder.getBuffer(), 0, length);
+			binaryOut.flush();
+		} catch (IOException e) {
+			Logger.error(e, "Could not send frame to server!");
+			this.disconnect();
+		}
+	}
+	
 	public String serializeToJSON(Color[] pixels) {
 		// create JSON manually to keep support for RemoteLightServer
 		// protocol should be replaced in future versions
@@ -140,5 +212,21 @@ public class RLClient implements Serializable {
 		sb.append(']');
 		return sb.toString();
 	}
+	
+	public String serializeToJSON(FrameBuffer frame) {
+		StringBuilder sb = new StringBuilder(frame.size() * 32 + 2);
+		sb.append('[');
+		for(int i = 0; i < frame.size(); i++) {
+			sb.append("{\"value\":");
+			// same value as Color#getRGB() (opaque alpha)
+			sb.append(0xFF000000 | frame.getRGB(i));
+			sb.append(",\"falpha\":0.0}");
+			if(i != frame.size() - 1) {
+				sb.append(',');
+			}
+		}
+		sb.append(']');
+		return sb.toString();
+	}
 
 }
@@ -0,0 +1,131 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.remotelightserver;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Decodes frames of the binary {@link RLProtocol}. The returned frame
+ * buffer is reused for every frame and holds the base for delta frames.
+ */
+public class RLFrameDecoder {
+	
+	private final FrameBuffer frame = new FrameBuffer(0);
+	private byte[] buffer = new byte[0];
+	private boolean hasFrame;
+	
+	/**
+	 * Read and decode the next frame
+	 * @param in	input stream
+	 * @return		the decoded frame (same instance for every call)
+	 * @throws IOException if the stream could not be read or contains invalid data
+	 */
+	public FrameBuffer read(DataInputStream in) throws IOException {
+		int type = in.readUnsignedByte();
+		int pixels = in.readInt();
+		int length = in.readInt();
+		if(pixels < 0 || pixels > RLProtocol.MAX_PIXELS)
+			throw new IOException("Invalid number of pixels: " + pixels);
+		if(length < 0 || length > pixels * 4 + 4)
+			throw new IOException("Invalid payload length: " + length);
+		if(buffer.length < length)
+			buffer = new byte[length];
+		in.readFully(buffer, 0, length);
+		decode(type, pixels, buffer, length);
+		return frame;
+	}
+	
+	/**
+	 * Decode a frame payload
+	 * @param type		encoding type
+	 * @param pixels	number of pixels
+	 * @param data		payload
+	 * @param length	payload length
+	 * @return			the decoded frame (same instance for every call)
+	 * @throws IOException if the payload is invalid
+	 */
+	public FrameBuffer decode(int type, int pixels, byte[] data, int length) throws IOException {
+		switch (type) {
+		case RLProtocol.TYPE_RAW:
+			if(length != pixels * 3)
+				throw new IOException("Invalid raw frame length: " + length);
+			frame.resize(pixels);
+			for(int i = 0, pos = 0; i < pixels; i++, pos += 3)
+				frame.setRGB(i, getRgb(data, pos));
+			break;
+			
+		case RLProtocol.TYPE_RLE: {
+			if(length % 4 != 0)
+				throw new IOException("Invalid RLE frame length: " + length);
+			frame.resize(pixels);
+			final int[] out = frame.getData();
+			int index = 0;
+			for(int pos = 0; pos < length; pos += 4) {
+				int run = data[pos] & 0xFF;
+				if(run == 0 || index + run > pixels)
+					throw new IOException("Invalid RLE run at pixel " + index);
+				int rgb = getRgb(data, pos + 1);
+				for(int end = index + run; index < end; index++)
+					out[index] = rgb;
+			}
+			if(index != pixels)
+				throw new IOException("RLE frame contains " + index + " of " + pixels + " pixels");
+			break;
+		}
+			
+		case RLProtocol.TYPE_DELTA: {
+			if(!hasFrame || frame.size() != pixels)
+				throw new IOException("Delta frame without matching previous frame");
+			final int[] out = frame.getData();
+			int index = 0;
+			int pos = 0;
+			while(pos < length) {
+				if(pos + 4 > length)
+					throw new IOException("Truncated delta segment");
+				index += (data[pos] & 0xFF) << 8 | (data[pos + 1] & 0xFF);
+				int count = (data[pos + 2] & 0xFF) << 8 | (data[pos + 3] & 0xFF);
+				pos += 4;
+				if(index + count > pixels || pos + count * 3 > length)
+					throw new IOException("Invalid delta segment at pixel " + index);
+				for(int end = index + count; index < end; index++, pos += 3)
+					out[index] = getRgb(data, pos);
+			}
+			break;
+		}
+			
+		default:
+			throw new IOException("Unknown frame type: " + type);
+		}
+		hasFrame = true;
+		return frame;
+	}
+	
+	private static int getRgb(byte[] data, int pos) {
+		return (data[pos] & 0xFF) << 16 | (data[pos + 1] & 0xFF) << 8 | (data[pos + 2] & 0xFF);
+	}
+
+}
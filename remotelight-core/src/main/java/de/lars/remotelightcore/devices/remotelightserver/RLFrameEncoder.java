@@ -0,0 +1,227 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.remotelightserver;
+
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Encodes frames for the binary {@link RLProtocol}. For every frame the
+ * smallest of the raw, RLE and delta encodings (as far as enabled) is
+ * selected. The encoder keeps a copy of the last frame for delta encoding,
+ * {@link #reset()} must be called for every new connection.
+ */
+public class RLFrameEncoder {
+	
+	private final int flags;
+	private int[] previous = new int[0];
+	private int previousSize = -1;
+	private byte[] buffer = new byte[RLProtocol.FRAME_HEADER_LENGTH];
+	
+	/**
+	 * @param flags negotiated encoding flags
+	 */
+	public RLFrameEncoder(int flags) {
+		this.flags = flags;
+	}
+	
+	public int getFlags() {
+		return flags;
+	}
+	
+	/**
+	 * Forget the last frame, the next frame is sent without delta encoding
+	 */
+	public void reset() {
+		previousSize = -1;
+	}
+	
+	/**
+	 * @return buffer containing the last encoded frame
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Encode the frame into the {@link #getBuffer() buffer}
+	 * @param frame	RGB frame
+	 * @return		number of bytes including the header
+	 */
+	public int encode(FrameBuffer frame) {
+		final int size = frame.size();
+		final int[] pixels = frame.getData();
+		// worst case of all encodings is 4 bytes per pixel
+		final int capacity = RLProtocol.FRAME_HEADER_LENGTH + size * 4 + 4;
+		if(buffer.length < capacity)
+			buffer = new byte[capacity];
+		
+		int type = RLProtocol.TYPE_RAW;
+		int length = size * 3;
+		if((flags & RLProtocol.FLAG_RLE) != 0) {
+			int rle = getRleLength(pixels, size);
+			if(rle < length) {
+				type = RLProtocol.TYPE_RLE;
+				length = rle;
+			}
+		}
+		if((flags & RLProtocol.FLAG_DELTA) != 0 && previousSize == size) {
+			int delta = getDeltaLength(pixels, size);
+			if(delta < length) {
+				type = RLProtocol.TYPE_DELTA;
+				length = delta;
+			}
+		}
+		
+		final int pos = RLProtocol.FRAME_HEADER_LENGTH;
+		int end;
+		switch (type) {
+		case RLProtocol.TYPE_RLE:
+			end = writeRle(pixels, size, pos);
+			break;
+		case RLProtocol.TYPE_DELTA:
+			end = writeDelta(pixels, size, pos);
+			break;
+		default:
+			end = writeRaw(pixels, size, pos);
+			break;
+		}
+		buffer[0] = (byte) type;
+		putInt(1, size);
+		putInt(5, end - pos);
+		
+		// remember frame for delta encoding
+		if(previous.length < size)
+			previous = new int[size];
+		System.arraycopy(pixels, 0, previous, 0, size);
+		previousSize = size;
+		return end;
+	}
+	
+	private int getRleLength(int[] pixels, int size) {
+		int length = 0;
+		int i = 0;
+		while(i < size) {
+			i += getRun(pixels, i, size);
+			length += 4;
+		}
+		return length;
+	}
+	
+	private int getDeltaLength(int[] pixels, int size) {
+		int length = 0;
+		int i = 0;
+		while(i < size) {
+			int skip = getUnchanged(pixels, i, size);
+			i += skip;
+			if(i == size)
+				break;
+			int count = getChanged(pixels, i, size);
+			i += count;
+			length += 4 + count * 3;
+		}
+		return length;
+	}
+	
+	private int writeRaw(int[] pixels, int size, int pos) {
+		for(int i = 0; i < size; i++)
+			pos = putRgb(pos, pixels[i]);
+		return pos;
+	}
+	
+	private int writeRle(int[] pixels, int size, int pos) {
+		int i = 0;
+		while(i < size) {
+			int run = getRun(pixels, i, size);
+			buffer[pos++] = (byte) run;
+			pos = putRgb(pos, pixels[i]);
+			i += run;
+		}
+		return pos;
+	}
+	
+	private int writeDelta(int[] pixels, int size, int pos) {
+		int i = 0;
+		while(i < size) {
+			int skip = getUnchanged(pixels, i, size);
+			i += skip;
+			if(i == size)
+				break;
+			int count = getChanged(pixels, i, size);
+			putShort(pos, skip);
+			putShort(pos + 2, count);
+			pos += 4;
+			for(int end = i + count; i < end; i++)
+				pos = putRgb(pos, pixels[i]);
+		}
+		return pos;
+	}
+	
+	/** number of equal pixels starting at index (max. {@link RLProtocol#MAX_RUN}) */
+	private int getRun(int[] pixels, int index, int size) {
+		int end = Math.min(size, index + RLProtocol.MAX_RUN);
+		int rgb = pixels[index];
+		int i = index + 1;
+		while(i < end && pixels[i] == rgb)
+			i++;
+		return i - index;
+	}
+	
+	/** number of unchanged pixels starting at index (max. {@link RLProtocol#MAX_SEGMENT}) */
+	private int getUnchanged(int[] pixels, int index, int size) {
+		int end = Math.min(size, index + RLProtocol.MAX_SEGMENT);
+		int i = index;
+		while(i < end && pixels[i] == previous[i])
+			i++;
+		return i - index;
+	}
+	
+	/** number of changed pixels starting at index (max. {@link RLProtocol#MAX_SEGMENT}) */
+	private int getChanged(int[] pixels, int index, int size) {
+		int end = Math.min(size, index + RLProtocol.MAX_SEGMENT);
+		int i = index;
+		while(i < end && pixels[i] != previous[i])
+			i++;
+		return i - index;
+	}
+	
+	private int putRgb(int pos, int rgb) {
+		buffer[pos] = (byte) (rgb >> 16);
+		buffer[pos + 1] = (byte) (rgb >> 8);
+		buffer[pos + 2] = (byte) rgb;
+		return pos + 3;
+	}
+	
+	private void putShort(int pos, int value) {
+		buffer[pos] = (byte) (value >> 8);
+		buffer[pos + 1] = (byte) value;
+	}
+	
+	private void putInt(int pos, int value) {
+		buffer[pos] = (byte) (value >> 24);
+		buffer[pos + 1] = (byte) (value >> 16);
+		buffer[pos + 2] = (byte) (value >> 8);
+		buffer[pos + 3] = (byte) value;
+	}
+
+}
@@ -0,0 +1,125 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.remotelightserver;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary framing of the RemoteLightServer protocol.
+ * <p>
+ * <b>Handshake:</b> a server supporting the binary protocol sends
+ * {@link #MAGIC}, its highest protocol version and the supported
+ * encoding flags right after accepting the connection. A client that
+ * wants to use the binary protocol answers with the same structure,
+ * containing the selected version and the flags both sides support.
+ * Old servers send nothing, in this case the client keeps using the
+ * JSON line protocol. Old clients start with a JSON line, which never
+ * begins with the magic, so servers can fall back as well.
+ * <p>
+ * <b>Frames:</b> every frame starts with a {@link #FRAME_HEADER_LENGTH}
+ * byte header: the encoding type (1 byte), the number of pixels (4 bytes)
+ * and the payload length (4 bytes), followed by the payload. All numbers
+ * are big endian.
+ * <ul>
+ * <li>{@link #TYPE_RAW}: 3 bytes RGB per pixel</li>
+ * <li>{@link #TYPE_RLE}: runs of a repeat count (1 byte, 1-255) and RGB</li>
+ * <li>{@link #TYPE_DELTA}: changes to the previous frame as segments of
+ * the number of unchanged pixels to skip (2 bytes), the number of changed
+ * pixels (2 bytes) and their RGB values</li>
+ * </ul>
+ */
+public class RLProtocol {
+	
+	public final static byte[] MAGIC = "RLBP".getBytes(StandardCharsets.US_ASCII);
+	/** current protocol version */
+	public final static int VERSION = 1;
+	/** run-length encoding supported */
+	public final static int FLAG_RLE = 0x01;
+	/** delta encoding supported */
+	public final static int FLAG_DELTA = 0x02;
+	/** all encodings supported by this implementation */
+	public final static int SUPPORTED_FLAGS = FLAG_RLE | FLAG_DELTA;
+	
+	public final static int HANDSHAKE_LENGTH = MAGIC.length + 2;
+	public final static int FRAME_HEADER_LENGTH = 9;
+	
+	public final static int TYPE_RAW = 0;
+	public final static int TYPE_RLE = 1;
+	public final static int TYPE_DELTA = 2;
+	
+	/** maximum number of pixels per frame accepted by the decoder */
+	public final static int MAX_PIXELS = 1 << 20;
+	/** longest run of a RLE entry */
+	public final static int MAX_RUN = 255;
+	/** longest skip or change count of a delta segment */
+	public final static int MAX_SEGMENT = 0xFFFF;
+	
+	/**
+	 * Create the handshake message
+	 * @param version	protocol version
+	 * @param flags		encoding flags
+	 * @return			handshake bytes
+	 */
+	public static byte[] createHandshake(int version, int flags) {
+		byte[] data = Arrays.copyOf(MAGIC, HANDSHAKE_LENGTH);
+		data[MAGIC.length] = (byte) version;
+		data[MAGIC.length + 1] = (byte) flags;
+		return data;
+	}
+	
+	/**
+	 * Read a handshake message
+	 * @param in	input stream
+	 * @return		version in the upper and flags in the lower byte
+	 * 				or -1 if the data is not a valid handshake
+	 * @throws IOException if the stream could not be read
+	 */
+	public static int readHandshake(DataInputStream in) throws IOException {
+		byte[] data = new byte[HANDSHAKE_LENGTH];
+		in.readFully(data);
+		if(!Arrays.equals(MAGIC, Arrays.copyOf(data, MAGIC.length)))
+			return -1;
+		return (data[MAGIC.length] & 0xFF) << 8 | (data[MAGIC.length + 1] & 0xFF);
+	}
+	
+	/**
+	 * @param handshake value returned by {@link #readHandshake(DataInputStream)}
+	 * @return protocol version
+	 */
+	public static int getVersion(int handshake) {
+		return handshake >> 8;
+	}
+	
+	/**
+	 * @param handshake value returned by {@link #readHandshake(DataInputStream)}
+	 * @return encoding flags
+	 */
+	public static int getFlags(int handshake) {
+		return handshake & 0xFF;
+	}
+
+}
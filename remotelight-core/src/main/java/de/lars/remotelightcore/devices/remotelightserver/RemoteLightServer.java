@@ -22,10 +22,9 @@
 
 package de.lars.remotelightcore.devices.remotelightserver;
 
-import de.lars.remotelightcore.utils.color.Color;
-
 import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.out.FrameBuffer;
 
 public class RemoteLightServer extends Device {
 	
@@ -56,8 +55,8 @@ public class RemoteLightServer extends Device {
 	}
 
 	@Override
-	public void send(Color[] pixels) {
-		client.send(pixels);
+	public void send(FrameBuffer frame) {
+		client.send(frame);
 	}
 
 	@Override
@@ -0,0 +1,161 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.udp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Base class for protocols that send a frame as RGB chunks with a
+ * fixed maximum number of pixels over a {@link DatagramChannel}.
+ * <p>
+ * Every chunk has its own prebuilt packet, per frame only the pixel data
+ * and the header fields written by {@link #updateHeaders(ByteBuffer[])}
+ * are changed in place. The packets are rebuilt when the number of
+ * pixels changes.
+ */
+public abstract class ChunkedUdpSender implements Closeable {
+	
+	private final DatagramChannel channel;
+	private final String protocol;
+	private final int chunkPixels;
+	private final int dataOffset;
+	private SocketAddress target;
+	private ByteBuffer[] packets = new ByteBuffer[0];
+	private int layoutPixels = -1;
+	
+	/**
+	 * @param bindAddress	local address or {@code null} for any free port
+	 * @param protocol		protocol name used in error messages
+	 * @param chunkPixels	maximum number of pixels per packet
+	 * @param dataOffset	offset of the pixel data in the packets
+	 * @throws IOException	if the channel could not be opened
+	 */
+	protected ChunkedUdpSender(InetSocketAddress bindAddress, String protocol, int chunkPixels, int dataOffset) throws IOException {
+		this.protocol = protocol;
+		this.chunkPixels = chunkPixels;
+		this.dataOffset = dataOffset;
+		channel = DatagramChannel.open(StandardProtocolFamily.INET);
+		try {
+			channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+			channel.bind(bindAddress);
+		} catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Create the packet template of a chunk
+	 * @param firstPixel	index of the first pixel of the chunk
+	 * @param pixels		number of pixels in the chunk
+	 * @param last			true if this is the last chunk of the frame
+	 * @return				packet with a capacity of exactly the packet length
+	 */
+	protected abstract ByteBuffer createPacket(int firstPixel, int pixels, boolean last);
+	
+	/**
+	 * Write the header fields that change per frame (e.g. the sequence
+	 * number) into the packets. Called after the pixel data is written.
+	 * @param packets	packets of the frame
+	 */
+	protected abstract void updateHeaders(ByteBuffer[] packets);
+	
+	/**
+	 * @param target address and port of the receiver
+	 */
+	public void setTarget(SocketAddress target) {
+		this.target = target;
+	}
+	
+	public SocketAddress getTarget() {
+		return target;
+	}
+	
+	/**
+	 * Send all chunks of the frame
+	 * @param frame			RGB frame
+	 * @throws IOException	if a packet could not be sent
+	 */
+	public void send(FrameBuffer frame) throws IOException {
+		final SocketAddress t = target;
+		if(t == null)
+			throw new IOException("No " + protocol + " target address set.");
+		if(frame.size() != layoutPixels)
+			buildPackets(frame.size());
+		
+		final int[] pixels = frame.getData();
+		int index = 0;
+		for(ByteBuffer p : packets) {
+			int end = p.capacity();
+			for(int pos = dataOffset; pos < end; pos += 3) {
+				int rgb = pixels[index++];
+				p.put(pos, (byte) (rgb >> 16));
+				p.put(pos + 1, (byte) (rgb >> 8));
+				p.put(pos + 2, (byte) rgb);
+			}
+		}
+		updateHeaders(packets);
+		for(ByteBuffer p : packets) {
+			p.clear();
+			channel.send(p, t);
+		}
+	}
+	
+	private void buildPackets(int pixels) {
+		int count = (pixels + chunkPixels - 1) / chunkPixels;
+		ByteBuffer[] list = new ByteBuffer[count];
+		for(int i = 0; i < count; i++) {
+			int first = i * chunkPixels;
+			list[i] = createPacket(first, Math.min(chunkPixels, pixels - first), i == count - 1);
+		}
+		packets = list;
+		layoutPixels = pixels;
+	}
+	
+	/**
+	 * @return number of packets of the last frame
+	 */
+	public int getPacketCount() {
+		return packets.length;
+	}
+	
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
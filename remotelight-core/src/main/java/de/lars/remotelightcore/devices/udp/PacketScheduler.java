@@ -0,0 +1,189 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.devices.udp;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Puts the packets of a frame on the network according to the
+ * {@link TransmissionSettings} of the device.
+ * <p>
+ * Sending dozens of universes in a single burst can overflow the buffers
+ * of cheap receivers and switches. In {@link TransmissionMode#PACED} mode
+ * the packets are spread evenly across a part of the measured frame
+ * interval, in {@link TransmissionMode#BATCHED} mode they are sent in
+ * groups with a short pause in between. Waiting happens on the calling
+ * (sender) thread, the deadline of every packet is computed from the
+ * start of the frame so that timer inaccuracies do not add up.
+ */
+public class PacketScheduler {
+	
+	/** frame gaps above this value (e.g. keep-alive frames) are ignored for pacing */
+	private static final long MAX_FRAME_INTERVAL = TimeUnit.MILLISECONDS.toNanos(250);
+	/** waits shorter than this are skipped */
+	private static final long MIN_WAIT = TimeUnit.MICROSECONDS.toNanos(20);
+	
+	private final DatagramChannel channel;
+	private final Map<Integer, UniverseStats> stats = new ConcurrentHashMap<>();
+	private volatile TransmissionSettings settings = new TransmissionSettings();
+	private long lastFrameStart;
+	private long frameInterval;
+	
+	public PacketScheduler(DatagramChannel channel) {
+		this.channel = channel;
+	}
+	
+	/**
+	 * @param settings transmission settings, changes are applied with the next frame
+	 */
+	public void setSettings(TransmissionSettings settings) {
+		this.settings = settings != null ? settings : new TransmissionSettings();
+	}
+	
+	public TransmissionSettings getSettings() {
+		return settings;
+	}
+	
+	/**
+	 * Get or create the statistics of a universe. The returned object
+	 * should be kept by the caller and passed to {@link #transmit}.
+	 * @param universe	universe number as written into the packets
+	 * 					(see {@link UniverseStats})
+	 * @return			statistics of the universe
+	 */
+	public UniverseStats getStats(int universe) {
+		return stats.computeIfAbsent(universe, UniverseStats::new);
+	}
+	
+	/**
+	 * @return statistics of all universes sorted by universe number
+	 */
+	public List<UniverseStats> getAllStats() {
+		List<UniverseStats> list = new ArrayList<>(stats.values());
+		list.sort((a, b) -> Integer.compare(a.getUniverse(), b.getUniverse()));
+		return list;
+	}
+	
+	/**
+	 * Reset the counters of all universes. The statistics objects
+	 * stay valid, so the sender does not need to request them again.
+	 */
+	public void resetStats() {
+		for(UniverseStats s : stats.values())
+			s.reset();
+	}
+	
+	/**
+	 * Remove the statistics of all universes. Must be called when the
+	 * universe layout is rebuilt, before requesting the statistics of
+	 * the new universes with {@link #getStats(int)}.
+	 */
+	public void clearStats() {
+		stats.clear();
+	}
+	
+	/**
+	 * @return smoothed interval between two frames in nanoseconds
+	 * 			or 0 if not known yet
+	 */
+	public long getFrameInterval() {
+		return frameInterval;
+	}
+	
+	/**
+	 * Send the packets of a frame. The position and limit of every
+	 * buffer must mark the packet data.
+	 * @param packets		packet buffers
+	 * @param targets		target address of each packet
+	 * @param universeStats	statistics of each packet
+	 * @throws IOException	if a packet could not be sent
+	 */
+	public void transmit(ByteBuffer[] packets, SocketAddress[] targets, UniverseStats[] universeStats) throws IOException {
+		final int count = packets.length;
+		final long start = System.nanoTime();
+		if(lastFrameStart != 0) {
+			long interval = start - lastFrameStart;
+			if(interval < MAX_FRAME_INTERVAL)
+				frameInterval = frameInterval == 0 ? interval : frameInterval + (interval - frameInterval) / 8;
+		}
+		lastFrameStart = start;
+		
+		final TransmissionSettings s = settings;
+		final TransmissionMode mode = s.getMode();
+		final long gap;
+		int batchSize = count;
+		if(mode == TransmissionMode.PACED && count > 1) {
+			gap = frameInterval * s.getPacing() / 100 / count;
+			batchSize = 1;
+		} else if(mode == TransmissionMode.BATCHED) {
+			batchSize = s.getBatchSize();
+			gap = TimeUnit.MICROSECONDS.toNanos(s.getBatchGap());
+		} else {
+			gap = 0;
+		}
+		
+		long deadline = start;
+		for(int i = 0; i < count; i++) {
+			if(i > 0 && gap > 0 && i % batchSize == 0) {
+				deadline += gap;
+				long wait;
+				while((wait = deadline - System.nanoTime()) > MIN_WAIT)
+					LockSupport.parkNanos(this, wait);
+			}
+			send(packets[i], targets[i], universeStats[i]);
+		}
+	}
+	
+	/**
+	 * Send a single packet without delay, e.g. a synchronization packet
+	 * @param packet		packet buffer
+	 * @param target		target address
+	 * @param universeStats	statistics or {@code null}
+	 * @throws IOException	if the packet could not be sent
+	 */
+	public void send(ByteBuffer packet, SocketAddress target, UniverseStats universeStats) throws IOException {
+		final int length = packet.remaining();
+		final long begin = System.nanoTime();
+		try {
+			channel.send(packet, target);
+		} catch(IOException e) {
+			if(universeStats != null)
+				universeStats.recordError();
+			throw e;
+		}
+		if(universeStats != null) {
+			long end = System.nanoTime();
+			universeStats.recordPacket(length, end - begin, end);
+		}
+	}
+
+}
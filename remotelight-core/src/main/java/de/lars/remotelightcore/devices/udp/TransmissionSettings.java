@@ -0,0 +1,88 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.devices.udp;
+
+import java.io.Serializable;
+
+/**
+ * Transmission settings of a UDP device. A value of 0 means default.
+ */
+public class TransmissionSettings implements Serializable {
+	private static final long serialVersionUID = 3467045839016123541L;
+	
+	public static final int DEFAULT_BATCH_SIZE = 8;
+	/** default pause between two batches in microseconds */
+	public static final int DEFAULT_BATCH_GAP = 500;
+	/** default part of the frame interval used for paced transmission in percent */
+	public static final int DEFAULT_PACING = 50;
+	
+	private TransmissionMode mode;
+	private int batchSize;
+	private int batchGap;
+	private int pacing;
+	
+	public TransmissionSettings() {
+	}
+	
+	public TransmissionMode getMode() {
+		return mode != null ? mode : TransmissionMode.BURST;
+	}
+	
+	public void setMode(TransmissionMode mode) {
+		this.mode = mode;
+	}
+	
+	/**
+	 * @return number of packets per batch
+	 */
+	public int getBatchSize() {
+		return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+	}
+	
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(0, batchSize);
+	}
+	
+	/**
+	 * @return pause between two batches in microseconds
+	 */
+	public int getBatchGap() {
+		return batchGap > 0 ? batchGap : DEFAULT_BATCH_GAP;
+	}
+	
+	public void setBatchGap(int batchGap) {
+		this.batchGap = Math.max(0, batchGap);
+	}
+	
+	/**
+	 * @return part of the frame interval the packets are spread across (1-100%)
+	 */
+	public int getPacing() {
+		return pacing > 0 ? Math.min(100, pacing) : DEFAULT_PACING;
+	}
+	
+	public void setPacing(int pacing) {
+		this.pacing = Math.max(0, Math.min(100, pacing));
+	}
+
+}
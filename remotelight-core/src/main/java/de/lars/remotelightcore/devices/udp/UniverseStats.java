@@ -0,0 +1,117 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.devices.udp;
+
+/**
+ * Send-side statistics of a single universe.
+ * Written by the sender thread only, readable from any thread.
+ * <p>
+ * The universe number is the one written into the packets: the
+ * E1.31 universe or the 15 bit Art-Net port address (net, subnet
+ * and universe).
+ */
+public class UniverseStats {
+	
+	private final int universe;
+	private volatile long packets;
+	private volatile long bytes;
+	private volatile long errors;
+	private volatile long sendTime;
+	private volatile long maxSendTime;
+	private volatile long lastSend;
+	
+	public UniverseStats(int universe) {
+		this.universe = universe;
+	}
+	
+	void recordPacket(int length, long sendNanos, long timestamp) {
+		packets++;
+		bytes += length;
+		sendTime += sendNanos;
+		if(sendNanos > maxSendTime)
+			maxSendTime = sendNanos;
+		lastSend = timestamp;
+	}
+	
+	void recordError() {
+		errors++;
+	}
+	
+	/**
+	 * Reset all counters. Packets that are sent at the same
+	 * time may not be reset.
+	 */
+	public void reset() {
+		packets = 0;
+		bytes = 0;
+		errors = 0;
+		sendTime = 0;
+		maxSendTime = 0;
+		lastSend = 0;
+	}
+	
+	public int getUniverse() {
+		return universe;
+	}
+	
+	public long getPackets() {
+		return packets;
+	}
+	
+	public long getBytes() {
+		return bytes;
+	}
+	
+	public long getErrors() {
+		return errors;
+	}
+	
+	/**
+	 * @return mean time of a send call in microseconds
+	 */
+	public double getMeanSendTime() {
+		long p = packets;
+		return p == 0 ? 0 : sendTime / 1000.0 / p;
+	}
+	
+	/**
+	 * @return longest send call in microseconds
+	 */
+	public double getMaxSendTime() {
+		return maxSendTime / 1000.0;
+	}
+	
+	/**
+	 * @return {@link System#nanoTime()} of the last packet or 0
+	 */
+	public long getLastSend() {
+		return lastSend;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Universe %d: %d packets, %d bytes, %d errors, send mean %.1f / max %.1f us",
+				universe, packets, bytes, errors, getMeanSendTime(), getMaxSendTime());
+	}
+
+}
@@ -23,20 +23,51 @@
 package de.lars.remotelightcore.devices.virtual;
 
 import de.lars.remotelightcore.utils.color.Color;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.tinylog.Logger;
+
+/**
+ * Sends the pixels of a {@link VirtualOutput} to all attached receivers.
+ * <p>
+ * In {@link DispatchMode#ASYNCHRONOUS} mode (default) every receiver has its
+ * own mailbox that only holds the newest strip. Mailboxes are drained on an
+ * executor, at most one strip per receiver at a time, so a slow receiver only
+ * skips strips (counted as dropped) instead of delaying the output or other
+ * receivers. Receivers can be added and removed from any thread.
+ */
 public class PixelOutputStream {
 	
-	private Set<PixelStreamReceiver> setReceiver;
-	private boolean active = false;
+	private static final AtomicInteger threadCount = new AtomicInteger();
+	/** shared executor, receivers are drained one strip at a time */
+	private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "Pixel stream receiver " + threadCount.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	});
+	
+	private final Map<PixelStreamReceiver, Mailbox> receivers = new ConcurrentHashMap<>();
+	private volatile DispatchMode dispatchMode = DispatchMode.ASYNCHRONOUS;
+	private volatile Executor executor = DEFAULT_EXECUTOR;
+	private volatile boolean active = false;
 	
 	public PixelOutputStream(Collection<PixelStreamReceiver> receivers) {
-		setReceiver = new HashSet<PixelStreamReceiver>();
-		setReceiver.addAll(receivers);
+		for(PixelStreamReceiver r : receivers) {
+			addReceiver(r);
+		}
 	}
 	
 	public PixelOutputStream() {
@@ -45,17 +76,18 @@ public class PixelOutputStream {
 
 	/**
 	 * Write a color array that represents the strip and send it to all
-	 * attached pixel stream receiver.
+	 * attached pixel stream receiver. The array is handed over to the
+	 * receivers and must not be modified afterwards.
 	 * @param strip		color array representing the strip
 	 */
 	protected void writeStrip(Color[] strip) {
 		if(!active) return;
-		for(Iterator<PixelStreamReceiver> it = setReceiver.iterator(); it.hasNext();) {
-			PixelStreamReceiver rec = it.next();
-			if(rec == null)
-				it.remove(); // remove null receiver from set
+		final boolean async = dispatchMode == DispatchMode.ASYNCHRONOUS;
+		for(Mailbox m : receivers.values()) {
+			if(async)
+				m.offer(strip);
 			else
-				rec.receivedPixelData(strip);
+				m.deliver(strip, System.nanoTime());
 		}
 	}
 	
@@ -74,6 +106,33 @@ public class PixelOutputStream {
 	 */
 	protected void setActive(boolean active) {
 		this.active = active;
+		if(!active) {
+			// discard strips that were not delivered yet
+			for(Mailbox m : receivers.values())
+				m.pending.set(null);
+		}
+	}
+	
+	/**
+	 * @return how strips are passed to the receivers
+	 */
+	public DispatchMode getDispatchMode() {
+		return dispatchMode;
+	}
+	
+	/**
+	 * @param dispatchMode	how strips are passed to the receivers
+	 */
+	public void setDispatchMode(DispatchMode dispatchMode) {
+		this.dispatchMode = dispatchMode != null ? dispatchMode : DispatchMode.ASYNCHRONOUS;
+	}
+	
+	/**
+	 * Set the executor that drains the receiver mailboxes in asynchronous mode
+	 * @param executor	executor or null for the default executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor != null ? executor : DEFAULT_EXECUTOR;
 	}
 	
 	/**
@@ -82,7 +141,9 @@ public class PixelOutputStream {
 	 * @return			true if this instance did not already contain the specified receiver
 	 */
 	public boolean addReceiver(PixelStreamReceiver receiver) {
-		return setReceiver.add(receiver);
+		if(receiver == null)
+			return false;
+		return receivers.putIfAbsent(receiver, new Mailbox(receiver)) == null;
 	}
 	
 	/**
@@ -91,7 +152,168 @@ public class PixelOutputStream {
 	 * @return			true if this instance contained the specified receiver
 	 */
 	public boolean removeReceiver(PixelStreamReceiver receiver) {
-		return setReceiver.remove(receiver);
+		if(receiver == null)
+			return false;
+		Mailbox m = receivers.remove(receiver);
+		if(m != null)
+			m.pending.set(null);
+		return m != null;
+	}
+	
+	/**
+	 * @return lag and drop counters of all receivers
+	 */
+	public List<ReceiverStats> getReceiverStats() {
+		List<ReceiverStats> list = new ArrayList<>();
+		for(Mailbox m : receivers.values())
+			list.add(new ReceiverStats(m));
+		return list;
+	}
+	
+	/**
+	 * @param receiver	attached receiver
+	 * @return			lag and drop counters or null if the receiver is not attached
+	 */
+	public ReceiverStats getReceiverStats(PixelStreamReceiver receiver) {
+		Mailbox m = receiver != null ? receivers.get(receiver) : null;
+		return m != null ? new ReceiverStats(m) : null;
+	}
+	
+	/**
+	 * Snapshot of the counters of a receiver
+	 */
+	public static class ReceiverStats {
+		private final PixelStreamReceiver receiver;
+		private final long delivered;
+		private final long dropped;
+		private final long errors;
+		private final long lastLag;
+		private final long maxLag;
+		
+		private ReceiverStats(Mailbox m) {
+			receiver = m.receiver;
+			delivered = m.delivered.get();
+			dropped = m.dropped.get();
+			errors = m.errors.get();
+			lastLag = m.lastLag;
+			maxLag = m.maxLag;
+		}
+		
+		public PixelStreamReceiver getReceiver() {
+			return receiver;
+		}
+		
+		/**
+		 * @return number of strips passed to the receiver
+		 */
+		public long getDelivered() {
+			return delivered;
+		}
+		
+		/**
+		 * @return number of strips replaced by a newer strip before delivery
+		 */
+		public long getDropped() {
+			return dropped;
+		}
+		
+		/**
+		 * @return number of exceptions thrown by the receiver
+		 */
+		public long getErrors() {
+			return errors;
+		}
+		
+		/**
+		 * @return time between writing and delivering the last strip in nanoseconds
+		 */
+		public long getLastLag() {
+			return lastLag;
+		}
+		
+		/**
+		 * @return maximum time between writing and delivering a strip in nanoseconds
+		 */
+		public long getMaxLag() {
+			return maxLag;
+		}
+	}
+	
+	/**
+	 * Holds the newest strip of a receiver
+	 */
+	private class Mailbox implements Runnable {
+		final PixelStreamReceiver receiver;
+		final AtomicReference<Pending> pending = new AtomicReference<>();
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		final AtomicLong delivered = new AtomicLong();
+		final AtomicLong dropped = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		volatile long lastLag;
+		volatile long maxLag;
+		
+		Mailbox(PixelStreamReceiver receiver) {
+			this.receiver = receiver;
+		}
+		
+		void offer(Color[] strip) {
+			if(pending.getAndSet(new Pending(strip, System.nanoTime())) != null)
+				dropped.incrementAndGet();
+			schedule();
+		}
+		
+		void schedule() {
+			if(scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(this);
+				} catch(RejectedExecutionException e) {
+					scheduled.set(false);
+					Logger.error(e, "Could not dispatch pixel data");
+				}
+			}
+		}
+		
+		@Override
+		public void run() {
+			try {
+				Pending p;
+				while((p = pending.getAndSet(null)) != null) {
+					deliver(p.strip, p.writeTime);
+				}
+			} finally {
+				scheduled.set(false);
+			}
+			// strip offered after the last check
+			if(pending.get() != null)
+				schedule();
+		}
+		
+		void deliver(Color[] strip, long writeTime) {
+			long lag = System.nanoTime() - writeTime;
+			lastLag = lag;
+			if(lag > maxLag)
+				maxLag = lag;
+			try {
+				receiver.receivedPixelData(strip);
+				delivered.incrementAndGet();
+			} catch(Exception e) {
+				errors.incrementAndGet();
+				Logger.error(e, "Pixel stream receiver threw an exception");
+			}
+		}
+	}
+	
+	/**
+	 * Strip together with the time it was written, both are swapped at once
+	 */
+	private static final class Pending {
+		final Color[] strip;
+		final long writeTime;
+		
+		Pending(Color[] strip, long writeTime) {
+			this.strip = strip;
+			this.writeTime = writeTime;
+		}
 	}
 
 }
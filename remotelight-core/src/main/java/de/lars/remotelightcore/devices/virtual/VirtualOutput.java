@@ -23,8 +23,7 @@
 package de.lars.remotelightcore.devices.virtual;
 
 import de.lars.remotelightcore.utils.color.Color;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.Set;
 
 import de.lars.remotelightcore.devices.ConnectionState;
@@ -39,7 +38,7 @@ public class VirtualOutput extends Device {
 	public VirtualOutput(String id, int pixels) {
 		super(id, pixels);
 		out = new PixelOutputStream();
-		listeners = new HashSet<VirtualOutputListener>();
+		listeners = new CopyOnWriteArraySet<VirtualOutputListener>();
 	}
 
 	@Override
@@ -47,12 +46,9 @@ public class VirtualOutput extends Device {
 		out.setActive(true);
 		
 		// fire onActivate event
-		for(Iterator<VirtualOutputListener> it = listeners.iterator(); it.hasNext();) {
-			VirtualOutputListener l = it.next();
+		for(VirtualOutputListener l : listeners) {
 			if(l != null)
 				l.onActivate(this);
-			else
-				it.remove(); // remove null elements
 		}
 		return ConnectionState.CONNECTED;
 	}
@@ -62,12 +58,9 @@ public class VirtualOutput extends Device {
 		out.setActive(false);
 		
 		// fire onDeactivate event
-		for(Iterator<VirtualOutputListener> it = listeners.iterator(); it.hasNext();) {
-			VirtualOutputListener l = it.next();
+		for(VirtualOutputListener l : listeners) {
 			if(l != null)
 				l.onDeactivate(this);
-			else
-				it.remove(); // removed null elements
 		}
 		return ConnectionState.DISCONNECTED;
 	}
@@ -82,7 +75,7 @@ public class VirtualOutput extends Device {
 		if(out == null)
 			out = new PixelOutputStream();
 		if(listeners == null)
-			listeners = new HashSet<VirtualOutputListener>();
+			listeners = new CopyOnWriteArraySet<VirtualOutputListener>();
 	}
 
 	@Override
@@ -90,6 +83,19 @@ public class VirtualOutput extends Device {
 		out.writeStrip(pixels);
 	}
 	
+	/**
+	 * Set how the pixels are passed to the receivers of the output stream
+	 * @param mode	dispatch mode
+	 * @see PixelOutputStream#setDispatchMode(DispatchMode)
+	 */
+	public void setDispatchMode(DispatchMode mode) {
+		out.setDispatchMode(mode);
+	}
+	
+	public DispatchMode getDispatchMode() {
+		return out.getDispatchMode();
+	}
+	
 	/**
 	 * Get the pixel output stream of this instance to receive pixel data
 	 * @return		pixel output stream used by this instance
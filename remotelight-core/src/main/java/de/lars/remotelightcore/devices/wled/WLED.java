@@ -0,0 +1,148 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.wled;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.tinylog.Logger;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.NetworkDevice;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Output device for WLED nodes using the UDP realtime protocol DNRGB
+ */
+public class WLED extends Device implements NetworkDevice {
+	private static final long serialVersionUID = -2376517180436452910L;
+	
+	/** default realtime timeout in seconds */
+	public final static int DEFAULT_TIMEOUT = 2;
+	
+	private String ip;
+	private int port;
+	private int timeout;
+	private transient volatile WLEDSender sender;
+
+	public WLED(String id, String ip) {
+		super(id, 0);
+		this.ip = ip;
+	}
+	
+	public String getIp() {
+		return ip;
+	}
+	
+	public void setIp(String ip) {
+		this.ip = ip;
+	}
+	
+	/**
+	 * @return UDP port of the WLED node
+	 */
+	public int getPort() {
+		return port > 0 ? port : WLEDPacket.PORT;
+	}
+	
+	/**
+	 * @param port UDP port of the WLED node or 0 for the default port
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+	
+	/**
+	 * @return seconds after which WLED leaves the realtime mode
+	 * 			if no packet arrives (255 = never)
+	 */
+	public int getTimeout() {
+		return timeout > 0 ? timeout : DEFAULT_TIMEOUT;
+	}
+	
+	/**
+	 * @param timeout realtime timeout in seconds (1-255) or 0 for the default
+	 */
+	public void setTimeout(int timeout) {
+		this.timeout = Math.max(0, Math.min(WLEDPacket.TIMEOUT_INFINITE, timeout));
+		WLEDSender s = sender;
+		if(s != null)
+			s.setTimeout(getTimeout());
+	}
+
+	@Override
+	public ConnectionState connect() {
+		try {
+			InetSocketAddress target = new InetSocketAddress(ip.trim(), getPort());
+			if(target.isUnresolved())
+				throw new IOException("Could not resolve host " + ip);
+			WLEDSender s = new WLEDSender();
+			s.setTarget(target);
+			s.setTimeout(getTimeout());
+			sender = s;
+			return ConnectionState.CONNECTED;
+		} catch(IOException | RuntimeException e) {
+			Logger.error(e, "Could not initialize WLED sender!");
+			return ConnectionState.FAILED;
+		}
+	}
+
+	@Override
+	public ConnectionState disconnect() {
+		WLEDSender s = sender;
+		sender = null;
+		if(s != null) {
+			try {
+				s.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close WLED sender.");
+			}
+		}
+		return ConnectionState.DISCONNECTED;
+	}
+
+	@Override
+	public ConnectionState getConnectionState() {
+		return (sender != null) ? ConnectionState.CONNECTED : ConnectionState.DISCONNECTED;
+	}
+
+	@Override
+	public void send(FrameBuffer frame) {
+		WLEDSender s = sender;
+		if(s == null)
+			return;
+		try {
+			s.send(frame);
+		} catch (IOException | IllegalArgumentException e) {
+			Logger.error(e, "Could not send WLED data.");
+			disconnect();
+		}
+	}
+
+	@Override
+	public void onLoad() {
+	}
+
+}
@@ -0,0 +1,83 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.wled;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoder for the WLED UDP realtime protocol DNRGB.
+ * <p>
+ * A packet consists of the protocol byte, the realtime timeout in seconds,
+ * the 16 bit index of the first LED and up to {@link #MAX_PIXELS} RGB
+ * values. WLED returns to its normal mode when no packet arrived within
+ * the timeout, a timeout of {@link #TIMEOUT_INFINITE} keeps it in
+ * realtime mode until it is changed manually.
+ */
+public class WLEDPacket {
+	
+	/** WLED realtime UDP port */
+	public final static int PORT = 21324;
+	/** protocol byte of DNRGB */
+	public final static int PROTOCOL_DNRGB = 4;
+	public final static int HEADER_LENGTH = 4;
+	/** maximum number of RGB pixels per packet */
+	public final static int MAX_PIXELS = 489;
+	/** stay in realtime mode until the next packet of another source */
+	public final static int TIMEOUT_INFINITE = 255;
+	
+	public final static int PROTOCOL_OFFSET = 0;
+	/** offset of the timeout byte */
+	public final static int TIMEOUT_OFFSET = 1;
+	/** offset of the 16 bit start index (big endian) */
+	public final static int START_INDEX_OFFSET = 2;
+	/** offset of the first RGB value */
+	public final static int DATA_OFFSET = HEADER_LENGTH;
+	
+	/**
+	 * Create a DNRGB packet with empty pixel data in a direct buffer.
+	 * Only the timeout and the pixel data need to be updated
+	 * before sending it.
+	 * 
+	 * @param startIndex	index of the first LED
+	 * @param pixels		number of pixels (1-{@link #MAX_PIXELS})
+	 * @param timeout		realtime timeout in seconds (1-255)
+	 * @return				direct buffer containing the packet
+	 * @see #TIMEOUT_OFFSET
+	 * @see #DATA_OFFSET
+	 */
+	public static ByteBuffer createTemplate(int startIndex, int pixels, int timeout) {
+		if(pixels < 1 || pixels > MAX_PIXELS)
+			throw new IllegalArgumentException("Invalid number of pixels: " + pixels);
+		if(startIndex < 0 || startIndex > 0xFFFF)
+			throw new IllegalArgumentException("Invalid start index: " + startIndex);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_LENGTH + pixels * 3).order(ByteOrder.BIG_ENDIAN);
+		buffer.put((byte) PROTOCOL_DNRGB);
+		buffer.put((byte) timeout);
+		buffer.putShort((short) startIndex);
+		buffer.clear();
+		return buffer;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+
+package de.lars.remotelightcore.devices.wled;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import de.lars.remotelightcore.devices.udp.ChunkedUdpSender;
+
+/**
+ * Sends frames as WLED DNRGB packets.
+ * <p>
+ * Frames with more than {@link WLEDPacket#MAX_PIXELS} pixels are split
+ * into chunks addressed by their start index.
+ */
+public class WLEDSender extends ChunkedUdpSender {
+	
+	private volatile int timeout = WLEDPacket.TIMEOUT_INFINITE;
+	
+	/**
+	 * Create a sender bound to any free port
+	 * @throws IOException if the channel could not be opened
+	 */
+	public WLEDSender() throws IOException {
+		this(null);
+	}
+	
+	/**
+	 * @param bindAddress	local address or {@code null} for any free port
+	 * @throws IOException	if the channel could not be opened
+	 */
+	public WLEDSender(InetSocketAddress bindAddress) throws IOException {
+		super(bindAddress, "WLED", WLEDPacket.MAX_PIXELS, WLEDPacket.DATA_OFFSET);
+	}
+	
+	/**
+	 * @param timeout realtime timeout in seconds (1-255), applied with the next frame
+	 */
+	public void setTimeout(int timeout) {
+		this.timeout = Math.max(1, Math.min(WLEDPacket.TIMEOUT_INFINITE, timeout));
+	}
+	
+	public int getTimeout() {
+		return timeout;
+	}
+	
+	@Override
+	protected ByteBuffer createPacket(int firstPixel, int pixels, boolean last) {
+		if(firstPixel > 0xFFFF)
+			throw new IllegalArgumentException("DNRGB supports at most 65535 as start index.");
+		return WLEDPacket.createTemplate(firstPixel, pixels, timeout);
+	}
+	
+	@Override
+	protected void updateHeaders(ByteBuffer[] packets) {
+		final byte timeoutByte = (byte) timeout;
+		for(ByteBuffer p : packets)
+			p.put(WLEDPacket.TIMEOUT_OFFSET, timeoutByte);
+	}
+
+}
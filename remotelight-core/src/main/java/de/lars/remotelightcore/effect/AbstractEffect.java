@@ -1,6 +1,7 @@
 package de.lars.remotelightcore.effect;
 
 import de.lars.remotelightcore.RemoteLightCore;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.utils.color.Color;
 
@@ -9,6 +10,8 @@ public abstract class AbstractEffect {
 	private String name;
 	private String displayname;
 	private int pixel;
+	private FrameBuffer frame;
+	private long elapsedNanos;
 	
 	public AbstractEffect(String name) {
 		this.name = name;
@@ -47,6 +50,32 @@ public abstract class AbstractEffect {
 		return pixel;
 	}
 	
+	/**
+	 * Set the real time that elapsed since the previous frame.
+	 * Called by the effect manager before every {@link #onLoop()}.
+	 * @param nanos	elapsed time in nanoseconds
+	 */
+	public void setElapsedTime(long nanos) {
+		this.elapsedNanos = nanos;
+	}
+	
+	/**
+	 * Get the real time that elapsed since the previous frame. Effects can
+	 * use this to animate independently of the frame rate.
+	 * @return	elapsed time in nanoseconds
+	 */
+	protected long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	/**
+	 * @return	elapsed time since the previous frame in milliseconds
+	 * @see #getElapsedNanos()
+	 */
+	protected double getElapsedMillis() {
+		return elapsedNanos / 1_000_000.0;
+	}
+	
 	protected void onEnable() {}
 	public void onDisable() {}
 	
@@ -55,9 +84,10 @@ public abstract class AbstractEffect {
 	 */
 	@Deprecated
 	public void onLoop() {
-		Color[] strip = onEffect();
-		if(strip != null)
-			OutputManager.addToOutput(strip);
+		if(frame == null)
+			frame = new FrameBuffer(getPixel());
+		if(onEffect(frame))
+			OutputManager.addToOutput(frame);
 	}
 	
 	public void onEnable(int pixel) {
@@ -68,5 +98,24 @@ public abstract class AbstractEffect {
 	public Color[] onEffect() {
 		return null;
 	}
+	
+	/**
+	 * Render the next frame into the given frame buffer. The frame buffer
+	 * is reused for every frame, so effects overriding this method do not
+	 * need to allocate a new color array per frame.
+	 * <p>Calls {@link #onEffect()} and copies the returned color array
+	 * into the frame by default.
+	 * 
+	 * @param frame	reusable frame buffer
+	 * @return		true if a new frame was rendered,
+	 * 				false if nothing should be output
+	 */
+	public boolean onEffect(FrameBuffer frame) {
+		Color[] strip = onEffect();
+		if(strip == null)
+			return false;
+		frame.setColors(strip);
+		return true;
+	}
 
 }
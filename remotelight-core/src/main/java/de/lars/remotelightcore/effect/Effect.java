@@ -27,6 +27,7 @@ import java.util.List;
 
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.settings.Setting;
+import de.lars.remotelightcore.settings.SettingHandle;
 
 public abstract class Effect extends AbstractEffect {
 	
@@ -73,6 +74,19 @@ public abstract class Effect extends AbstractEffect {
 		return RemoteLightCore.getInstance().getSettingsManager().getSettingFromId(id);
 	}
 	
+	/**
+	 * Get a cached handle for a setting. Use this for
+	 * settings that are read in every frame.
+	 * 
+	 * @param <T>		the value type
+	 * @param id		the id of the setting
+	 * @param valueType	class of the setting value
+	 * @return			the setting handle
+	 */
+	public <T> SettingHandle<T> getSettingHandle(String id, Class<T> valueType) {
+		return RemoteLightCore.getInstance().getSettingsManager().getHandle(id, valueType);
+	}
+	
 	/**
 	 * Get all settings used by this music effect
 	 * 
@@ -60,6 +60,8 @@ import de.lars.remotelightcore.settings.SettingsManager;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingInt;
+import de.lars.remotelightcore.utils.RenderClock;
+import de.lars.remotelightcore.utils.RenderClock.TickListener;
 import de.lars.remotelightcore.utils.color.Color;
 import de.lars.remotelightcore.utils.color.PixelColorUtils;
 import de.lars.remotelightcore.utils.maths.TimeUtil;
@@ -74,11 +76,13 @@ public class LuaManager extends EffectManager {
 	private ScheduledExecutorService timerThread;
 	private ScheduledFuture<?> timerTask;
 	private List<File> luaScripts;
-	private LuaScript activeScript;
+	private volatile LuaScript activeScript;
+	private volatile RenderClock.Task clockTask;
+	private volatile long elapsedTime;
 	
 	private LuaExceptionListener listener;
 	private TimeUtil timeUtil;
-	private int delay;
+	private volatile int delay;
 	
 	public LuaManager() {
 		LuaThread.thread_orphan_check_interval = 5;
@@ -107,7 +111,7 @@ public class LuaManager extends EffectManager {
 		debugLib = new CustomLuaDebugLib(globals, MAX_INSTRUCTIONS);
 		globals.load(debugLib);
 		// coerce LedStrip, LuaColor and LuaSettings class
-		globals.set("strip", CoerceJavaToLua.coerce(new LedStrip()));
+		globals.set("strip", CoerceJavaToLua.coerce(new LedStrip(this::getElapsedTime)));
 		globals.set("colorUtil", CoerceJavaToLua.coerce(new LuaColor()));
 		globals.set("settings", CoerceJavaToLua.coerce(new LuaSettings()));
 		
@@ -132,13 +136,28 @@ public class LuaManager extends EffectManager {
 				executeScript(luaFilePath);
 				
 				// lua animation loop
-				while(activeScript != null && activeScript.isActive()) {
-					activeScript.onLoop();
-					try {
-						Thread.sleep(delay);
-					} catch (InterruptedException e) {
-						Logger.error(e);
-					}
+				final LuaScript script = activeScript;
+				if(script != null && script.isActive()) {
+					final RenderClock clock = RemoteLightCore.getInstance().getRenderClock();
+					clockTask = clock.schedule("Lua", LuaManager.this::getDelay, new TickListener() {
+						// own task, clockTask may not be assigned yet or belong to a newer script
+						private RenderClock.Task task;
+						
+						@Override
+						public void onTick(long elapsedNanos) {
+							if(task == null)
+								task = clock.getCurrentTask();
+							if(script != activeScript || !script.isActive()) {
+								// stopped or replaced before the task was scheduled
+								clock.cancel(task);
+								return;
+							}
+							elapsedTime = elapsedNanos;
+							long start = System.nanoTime();
+							script.onLoop();
+							recordFrame(task, System.nanoTime() - start);
+						}
+					});
 				}
 			}
 		}, "Lua thread").start();
@@ -201,6 +220,8 @@ public class LuaManager extends EffectManager {
 			
 			activeScript.setActive(false);
 			debugLib.setInterrupted(true);
+			RemoteLightCore.getInstance().getRenderClock().cancel(clockTask);
+			clockTask = null;
 //			if(timerTask != null)
 //				timerTask.cancel(true);
 			
@@ -260,6 +281,15 @@ public class LuaManager extends EffectManager {
 		return delay;
 	}
 	
+	/**
+	 * Get the real time that elapsed between the last two
+	 * {@code onLoop()} calls of the active script
+	 * @return elapsed time in nanoseconds
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+	
 	/**
 	 * Get the TimeUtil used for the delayReached() function in lua
 	 * @return			{@link TimeUtil} instance
@@ -24,6 +24,8 @@ package de.lars.remotelightcore.lua.utils;
 
 import de.lars.remotelightcore.utils.color.Color;
 
+import java.util.function.LongSupplier;
+
 import org.luaj.vm2.LuaError;
 import org.luaj.vm2.LuaTable;
 import org.luaj.vm2.LuaValue;
@@ -39,10 +41,23 @@ import de.lars.remotelightcore.utils.color.PixelColorUtils;
 import de.lars.remotelightcore.utils.color.RainbowWheel;
 
 public class LedStrip {
+	/**
+	 * Returns the real time in milliseconds that elapsed since the previous loop
+	 */
+	public final ZeroArgFunction elapsedTime;
+	
 	/**
 	 * This class allows controlling LED strips from Lua
+	 * @param elapsedNanos	supplier for the real time between the last two loops in nanoseconds
 	 */
-	public LedStrip() {}
+	public LedStrip(LongSupplier elapsedNanos) {
+		elapsedTime = new ZeroArgFunction() {
+			@Override
+			public LuaValue call() {
+				return LuaValue.valueOf(elapsedNanos.getAsLong() / 1_000_000.0);
+			}
+		};
+	}
 
 	/**
 	 * Returns the LED number of the current strip
@@ -62,11 +77,12 @@ public class LedStrip {
 	public static VarArgFunction show = new VarArgFunction() {
 		public Varargs invoke(Varargs args) {
 			LuaTable strip = args.checktable(1);
+			final int ledNum = RemoteLightCore.getLedNum();
 			
-			if(strip.length() == RemoteLightCore.getLedNum()) {
-				Color[] outPixels = new Color[RemoteLightCore.getLedNum()];
+			if(strip.length() == ledNum) {
+				Color[] outPixels = new Color[ledNum];
 				
-				for(int i = 1; i <= RemoteLightCore.getLedNum(); i++) {
+				for(int i = 1; i <= ledNum; i++) {
 					LuaTable rgb = strip.get(i).checktable();
 					int r = rgb.get(1).checkint();
 					int g = rgb.get(2).checkint();
@@ -75,7 +91,7 @@ public class LedStrip {
 				}
 				OutputManager.addToOutput(outPixels);
 			} else {
-				throw new LuaError("Expected a table length of " + RemoteLightCore.getLedNum() + ", got " + strip.length());
+				throw new LuaError("Expected a table length of " + ledNum + ", got " + strip.length());
 			}
 			return NIL;
 		}
@@ -0,0 +1,140 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ * <p>
+ * Values are recorded with microsecond resolution. Every power of two
+ * is divided into {@value #SUB_BUCKETS} linear sub-buckets, so the
+ * relative error of a reported percentile is below 7% over the whole
+ * range (similar to an HDR histogram with one significant digit).
+ * Recording never blocks and never allocates.
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 4;
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** values above 2^MAX_EXPONENT us (~18 hours) are recorded in the last bucket */
+	private static final int MAX_EXPONENT = 36;
+	private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Record a duration
+	 * @param nanos	duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		buckets.incrementAndGet(bucketIndex(micros));
+		count.increment();
+		sum.add(micros);
+		long m;
+		while(micros > (m = max.get())) {
+			if(max.compareAndSet(m, micros))
+				break;
+		}
+	}
+	
+	public long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * @return mean value in milliseconds
+	 */
+	public double getMean() {
+		long c = count.sum();
+		return c == 0 ? 0 : sum.sum() / 1000.0 / c;
+	}
+	
+	/**
+	 * @return maximum value in milliseconds
+	 */
+	public double getMax() {
+		return max.get() / 1000.0;
+	}
+	
+	/**
+	 * Get the value below which the given percentage of all values fall
+	 * @param percentile	percentile between 0 and 100
+	 * @return				value in milliseconds (upper bound of the bucket)
+	 */
+	public double getPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = buckets.get(i);
+			total += snapshot[i];
+		}
+		if(total == 0)
+			return 0;
+		long threshold = (long) Math.ceil(total * Math.max(0, Math.min(100, percentile)) / 100.0);
+		threshold = Math.max(1, threshold);
+		long cumulative = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += snapshot[i];
+			if(cumulative >= threshold) {
+				return Math.min(bucketUpperBound(i), max.get()) / 1000.0;
+			}
+		}
+		return getMax();
+	}
+	
+	public void reset() {
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+	
+	static int bucketIndex(long micros) {
+		if(micros < SUB_BUCKETS)
+			return (int) micros;
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if(exponent > MAX_EXPONENT)
+			return BUCKET_COUNT - 1;
+		int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+	}
+	
+	static long bucketUpperBound(int index) {
+		if(index < SUB_BUCKETS)
+			return index;
+		int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+		int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+		return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+}
@@ -0,0 +1,195 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Performance counters of an effect manager or an output.
+ * <p>
+ * All counters and histograms are lock-free, so they can be updated
+ * from the render and sender threads and read from any other thread.
+ * <ul>
+ * <li><b>render</b>: time an effect needs to render a frame</li>
+ * <li><b>encode</b>: time to apply the output patch and color correction</li>
+ * <li><b>send</b>: time the device needs to encode and transmit the frame</li>
+ * </ul>
+ */
+public class PerformanceMetrics {
+	
+	/** fps is reported as 0 if there was no frame for this time */
+	private static final long FPS_TIMEOUT = TimeUnit.SECONDS.toNanos(2);
+	/** weight of the newest frame interval for the smoothed fps */
+	private static final double FPS_SMOOTHING = 0.1;
+	
+	private final String name;
+	private final LatencyHistogram renderTime = new LatencyHistogram();
+	private final LatencyHistogram encodeTime = new LatencyHistogram();
+	private final LatencyHistogram sendTime = new LatencyHistogram();
+	private final LongAdder frames = new LongAdder();
+	private final LongAdder droppedFrames = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private volatile long lastFrameTime;
+	private volatile double fps;
+	
+	public PerformanceMetrics(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Count a finished frame and update the frame rate
+	 */
+	public void recordFrame() {
+		frames.increment();
+		long now = System.nanoTime();
+		long last = lastFrameTime;
+		lastFrameTime = now;
+		if(last != 0 && now > last) {
+			double current = TimeUnit.SECONDS.toNanos(1) / (double) (now - last);
+			double f = fps;
+			fps = f == 0 ? current : f + (current - f) * FPS_SMOOTHING;
+		}
+	}
+	
+	public void recordRenderTime(long nanos) {
+		renderTime.record(nanos);
+	}
+	
+	public void recordEncodeTime(long nanos) {
+		encodeTime.record(nanos);
+	}
+	
+	public void recordSendTime(long nanos) {
+		sendTime.record(nanos);
+	}
+	
+	public void recordDropped(long frames) {
+		droppedFrames.add(frames);
+	}
+	
+	public void recordError() {
+		errors.increment();
+	}
+	
+	public LatencyHistogram getRenderTime() {
+		return renderTime;
+	}
+	
+	public LatencyHistogram getEncodeTime() {
+		return encodeTime;
+	}
+	
+	public LatencyHistogram getSendTime() {
+		return sendTime;
+	}
+	
+	public long getFrames() {
+		return frames.sum();
+	}
+	
+	public long getDroppedFrames() {
+		return droppedFrames.sum();
+	}
+	
+	public long getErrors() {
+		return errors.sum();
+	}
+	
+	/**
+	 * @return smoothed number of frames per second
+	 */
+	public double getFps() {
+		if(System.nanoTime() - lastFrameTime > FPS_TIMEOUT)
+			return 0;
+		return fps;
+	}
+	
+	public void reset() {
+		renderTime.reset();
+		encodeTime.reset();
+		sendTime.reset();
+		frames.reset();
+		droppedFrames.reset();
+		errors.reset();
+		fps = 0;
+		lastFrameTime = 0;
+	}
+	
+	/**
+	 * Create a snapshot of all values, e.g. for serialization.
+	 * Durations are in milliseconds.
+	 * @return ordered map of all values
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("fps", round(getFps()));
+		map.put("frames", getFrames());
+		map.put("dropped", getDroppedFrames());
+		map.put("errors", getErrors());
+		putHistogram(map, "render", renderTime);
+		putHistogram(map, "encode", encodeTime);
+		putHistogram(map, "send", sendTime);
+		return map;
+	}
+	
+	private void putHistogram(Map<String, Object> map, String key, LatencyHistogram h) {
+		if(h.getCount() == 0)
+			return;
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		values.put("count", h.getCount());
+		values.put("mean", round(h.getMean()));
+		values.put("p50", round(h.getPercentile(50)));
+		values.put("p90", round(h.getPercentile(90)));
+		values.put("p99", round(h.getPercentile(99)));
+		values.put("max", round(h.getMax()));
+		map.put(key, values);
+	}
+	
+	private static double round(double value) {
+		return Math.round(value * 1000) / 1000.0;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(name);
+		sb.append(String.format(": %.1f fps, %d frames, %d dropped, %d errors", getFps(), getFrames(), getDroppedFrames(), getErrors()));
+		appendHistogram(sb, "render", renderTime);
+		appendHistogram(sb, "encode", encodeTime);
+		appendHistogram(sb, "send", sendTime);
+		return sb.toString();
+	}
+	
+	private void appendHistogram(StringBuilder sb, String key, LatencyHistogram h) {
+		if(h.getCount() == 0)
+			return;
+		sb.append(String.format(", %s mean %.2f / p99 %.2f / max %.2f ms", key, h.getMean(), h.getPercentile(99), h.getMax()));
+	}
+
+}
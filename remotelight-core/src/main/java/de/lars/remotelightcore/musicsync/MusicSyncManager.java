@@ -46,6 +46,8 @@ import de.lars.remotelightcore.out.OutputManager;
 import de.lars.remotelightcore.settings.Setting;
 import de.lars.remotelightcore.settings.SettingsManager;
 import de.lars.remotelightcore.settings.types.SettingObject;
+import de.lars.remotelightcore.utils.RenderClock;
+import de.lars.remotelightcore.utils.RenderClock.TickListener;
 import de.lars.remotelightcore.utils.color.Color;
 import de.lars.remotelightcore.utils.color.PixelColorUtils;
 
@@ -57,16 +59,17 @@ public class MusicSyncManager extends EffectManager {
 	public static boolean initNativeSound = true;
 	
 	private SettingsManager sm;
-	private MusicEffect activeEffect;
+	private volatile MusicEffect activeEffect;
 	private List<MusicEffect> effects;
 	private String input;
-	private boolean active = false;
+	private volatile boolean active = false;
+	private volatile RenderClock.Task clockTask;
 	private MusicSyncUtils musicUtils;
 	private SoundProcessing soundProcessor;
 	private NativeSound nativeSound;
 	private NativeSoundDevice nativeSoundDevice;
 	
-	private int delay = 20;
+	private volatile int delay = 20;
 	private double sensitivity = 1;
 	private double adjustment = 3;
 	private double volume;
@@ -329,45 +332,53 @@ public class MusicSyncManager extends EffectManager {
 			active = true;
 			Logger.info("Starting MusicSync Thread.");
 			
-			new Thread(new Runnable() {
+			final RenderClock clock = RemoteLightCore.getInstance().getRenderClock();
+			clockTask = clock.schedule("MusicSync", this::getDelay, new TickListener() {
+				// own task, clockTask may not be assigned yet or belong to a newer task
+				private RenderClock.Task task;
 				
 				@Override
-				public void run() {
-					while(activeEffect != null) {
-						musicUtils.process(pitch, volume, pitchTime, sensitivity, soundProcessor);
-						volume = musicUtils.getVolume();
-						activeEffect.setBump(musicUtils.isBump());
-						activeEffect.setVolume(volume);
-						activeEffect.setPitch(pitch);
-						activeEffect.setPitchTime(pitchTime);
-						activeEffect.setSoundProcessor(soundProcessor);
-						activeEffect.setSensitivity(sensitivity);
-						activeEffect.setAdjustment(adjustment);
-						activeEffect.setMaxSpl(musicUtils.getMaxSpl());
-						activeEffect.setMinSpl(musicUtils.getMinSpl());
-						activeEffect.setSpl(musicUtils.getSpl());
-						
-						try {
-							
-						activeEffect.onLoop();
+				public void onTick(long elapsedNanos) {
+					if(task == null)
+						task = clock.getCurrentTask();
+					MusicEffect effect = activeEffect;
+					if(effect == null) {
+						clock.cancel(task);
+						active = false;
+						Logger.info("Stopped MusicSync Thread.");
+						// restart if an effect was set in the meantime
+						if(activeEffect != null)
+							loop();
+						return;
+					}
+					musicUtils.process(pitch, volume, pitchTime, sensitivity, soundProcessor);
+					volume = musicUtils.getVolume();
+					effect.setBump(musicUtils.isBump());
+					effect.setVolume(volume);
+					effect.setPitch(pitch);
+					effect.setPitchTime(pitchTime);
+					effect.setSoundProcessor(soundProcessor);
+					effect.setSensitivity(sensitivity);
+					effect.setAdjustment(adjustment);
+					effect.setMaxSpl(musicUtils.getMaxSpl());
+					effect.setMinSpl(musicUtils.getMinSpl());
+					effect.setSpl(musicUtils.getSpl());
+					effect.setElapsedTime(elapsedNanos);
+					
+					try {
 						
-						} catch(Exception e) {
-							Logger.error(e, "There was an error executing the MusicEffect '" + activeEffect.getDisplayname() + "'.");
-							// stop on exception
-							stop();
-							break;
-						}
+						long start = System.nanoTime();
+						effect.onLoop();
+						recordFrame(task, System.nanoTime() - start);
 						
-						try {
-							Thread.sleep(delay);
-						} catch (InterruptedException e) {
-							e.printStackTrace();
-						}
+					} catch(Exception e) {
+						getMetrics().recordError();
+						Logger.error(e, "There was an error executing the MusicEffect '" + effect.getDisplayname() + "'.");
+						// stop on exception
+						stop();
 					}
-					active = false;
-					Logger.info("Stopped MusicSync Thread.");
 				}
-			}, "MusicSync loop").start();
+			});
 		}
 	}
 	
@@ -27,6 +27,7 @@ import java.util.Random;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingColor;
 import de.lars.remotelightcore.settings.types.SettingInt;
@@ -46,6 +47,9 @@ public class Bars extends MusicEffect {
 	private boolean lastPeak;
 	private double avgVol;
 	private int barWidth = 5;
+	private final SettingHandle<Integer> barWidthSetting;
+	private final SettingHandle<String> modeSetting;
+	private final SettingHandle<Color> colorSetting;
 
 	public Bars() {
 		super("Bars");
@@ -53,6 +57,9 @@ public class Bars extends MusicEffect {
 		String[] modes = new String[] {"Rainbow", "Frequency", "Random", "Static"};
 		this.addSetting(new SettingSelection("musicsync.bars.mode", "Color mode", SettingCategory.MusicEffect, null, modes, "Static", Model.ComboBox));
 		this.addSetting(new SettingColor("musicsync.bars.color", "Color", SettingCategory.MusicEffect, null, Color.RED));
+		barWidthSetting = getSettingHandle("musicsync.bars.barwidth", Integer.class);
+		modeSetting = getSettingHandle("musicsync.bars.mode", String.class);
+		colorSetting = getSettingHandle("musicsync.bars.color", Color.class);
 	}
 	
 	@Override
@@ -64,7 +71,7 @@ public class Bars extends MusicEffect {
 	
 	@Override
 	public void onLoop() {
-		barWidth = ((SettingInt) getSetting("musicsync.bars.barwidth")).get();	// get bar width from settings
+		barWidth = barWidthSetting.get(5);	// get bar width from settings
 		
 		double vol = this.getSpl();
 		avgVol = (vol + getMaxSpl() * (0.8 + getSensitivity() / 20)) / 2;	// smooth max volume and calculate average
@@ -94,7 +101,7 @@ public class Bars extends MusicEffect {
 	
 	private void setColor() {
 		String prevMode = mode;
-		mode = getSetting(SettingSelection.class, "musicsync.bars.mode").getSelected();
+		mode = modeSetting.get("Static");
 		if(!mode.equals(prevMode)) {
 			// hide color option when mode is not static
 			this.hideSetting("musicsync.bars.color", !mode.equals("Static"));
@@ -103,7 +110,7 @@ public class Bars extends MusicEffect {
 		
 		switch (mode.toLowerCase()) {
 			case "static":
-				color = getSetting(SettingColor.class, "musicsync.bars.color").get();
+				color = colorSetting.get(Color.RED);
 				break;
 			case "frequency":
 				color = ColorUtil.soundToColor((int) this.getPitch());
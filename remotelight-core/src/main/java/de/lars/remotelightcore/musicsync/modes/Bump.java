@@ -26,6 +26,7 @@ import de.lars.remotelightcore.utils.color.Color;
 
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingInt;
@@ -38,6 +39,9 @@ public class Bump extends MusicEffect {
 	private int colorIndex = 0;
 	private Color color = Color.black;
 	private int pDelay; //previous delay
+	private final SettingHandle<Integer> speed;
+	private final SettingHandle<Boolean> background;
+	private final SettingHandle<Boolean> center;
 
 	public Bump() {
 		super("Bump");
@@ -45,6 +49,9 @@ public class Bump extends MusicEffect {
 		this.addSetting(new SettingInt("musicsync.bump.speed", "Speed", SettingCategory.MusicEffect, "", 50, 20, 100, 5));
 		this.addSetting(new SettingBoolean("musicsync.bump.background", "Background", SettingCategory.MusicEffect, "", true));
 		this.addSetting(new SettingBoolean("musicsync.bump.center", "Center", SettingCategory.MusicEffect, "", false));
+		speed = getSettingHandle("musicsync.bump.speed", Integer.class);
+		background = getSettingHandle("musicsync.bump.background", Boolean.class);
+		center = getSettingHandle("musicsync.bump.center", Boolean.class);
 	}
 	
 	@Override
@@ -61,9 +68,9 @@ public class Bump extends MusicEffect {
 	
 	@Override
 	public void onLoop() {
-		RemoteLightCore.getInstance().getMusicSyncManager().setDelay(((SettingInt) getSetting("musicsync.bump.speed")).get());
-		boolean background = ((SettingBoolean) getSetting("musicsync.bump.background")).get();
-		boolean center = ((SettingBoolean) getSetting("musicsync.bump.center")).get();
+		RemoteLightCore.getInstance().getMusicSyncManager().setDelay(speed.get(50));
+		boolean background = this.background.get(true);
+		boolean center = this.center.get(false);
 		
 		if(this.isBump()) {
 			if(++colorIndex >= colors.length) {
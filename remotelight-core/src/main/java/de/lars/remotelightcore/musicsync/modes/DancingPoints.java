@@ -27,6 +27,7 @@ import java.util.Random;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingColor;
@@ -38,6 +39,7 @@ public class DancingPoints extends MusicEffect {
 	
 	private SettingBoolean sRandomColor;
 	private SettingColor sColor;
+	private final SettingHandle<Boolean> sIdleActivity;
 	
 	private boolean randomColor;
 	private int numLEDs;
@@ -56,6 +58,7 @@ public class DancingPoints extends MusicEffect {
 		sRandomColor = this.addSetting(new SettingBoolean("musicsync.dancingpoints.randomcolor", "Random color", SettingCategory.MusicEffect, "", true));
 		sColor = this.addSetting(new SettingColor("musicsync.dancingpoints.color", "Color", SettingCategory.MusicEffect, "", Color.RED));
 		this.addSetting(new SettingBoolean("musicsync.dancingpoints.idleactivity", "Idle activity", SettingCategory.MusicEffect, "Move points randomly when no music is playing.", false));
+		sIdleActivity = getSettingHandle("musicsync.dancingpoints.idleactivity", Boolean.class);
 	}
 	
 	@Override
@@ -85,7 +88,7 @@ public class DancingPoints extends MusicEffect {
 			this.hideSetting(sColor, randomColor);
 			this.updateEffectOptions();
 		}
-		boolean idleActivity = getSetting(SettingBoolean.class, "musicsync.dancingpoints.idleactivity").get();
+		boolean idleActivity = sIdleActivity.get(false);
 		boolean bump = this.isBump();
 		
 		if(bump) lastBump = System.currentTimeMillis();
@@ -25,6 +25,7 @@ package de.lars.remotelightcore.musicsync.modes;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingColor;
 import de.lars.remotelightcore.settings.types.SettingSelection;
@@ -51,6 +52,8 @@ public class Energy extends MusicEffect {
 	private SettingColor sColorLow;
 	private SettingColor sColorMid;
 	private SettingColor sColorHigh;
+	private final SettingHandle<String> sPosition;
+	private final SettingHandle<String> sMode;
 	
 	public Energy() {
 		super("Energy");
@@ -65,6 +68,8 @@ public class Energy extends MusicEffect {
 		sColorLow = this.addSetting(new SettingColor("musicsync.energy.color.low", "Color Lows", SettingCategory.MusicEffect, "Color for low tones", Color.RED));
 		sColorMid = this.addSetting(new SettingColor("musicsync.energy.color.mid", "Color Mids", SettingCategory.MusicEffect, "Color for mid tones", Color.GREEN));
 		sColorHigh = this.addSetting(new SettingColor("musicsync.energy.color.high", "Color Highs", SettingCategory.MusicEffect, "Color for high tones", Color.BLUE));
+		sPosition = getSettingHandle("musicsync.energy.position", String.class);
+		sMode = getSettingHandle("musicsync.energy.mode", String.class);
 	}
 	
 	@Override
@@ -241,9 +246,9 @@ public class Energy extends MusicEffect {
 	}
 	
 	private void handleSettings() {
-		position = getSetting(SettingSelection.class, "musicsync.energy.position").get();
+		position = sPosition.get(POS_MODES[0]);
 		String prevMode = mode;
-		mode = ((SettingSelection) getSetting("musicsync.energy.mode")).getSelected();
+		mode = sMode.get("Static");
 		if(!mode.equals(prevMode)) { // mode changed
 			// hide static color option
 			this.hideSetting(sColorStatic, !mode.equals("Static"));
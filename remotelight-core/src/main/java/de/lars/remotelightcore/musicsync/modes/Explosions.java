@@ -32,6 +32,7 @@ import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.musicsync.MusicSyncManager;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingColor;
 import de.lars.remotelightcore.settings.types.SettingSelection;
@@ -45,6 +46,7 @@ import de.lars.remotelightcore.utils.maths.MathHelper;
 public class Explosions extends MusicEffect {
 	
 	private SettingColor sColor;
+	private final SettingHandle<String> sMode;
 	private Color[] strip;
 	private List<Explosion> listExplosions;
 	private int maxExplosions;
@@ -55,6 +57,7 @@ public class Explosions extends MusicEffect {
 		String[] modes = {"Random", "Rainbow", "Frequency", "Static"};
 		this.addSetting(new SettingSelection("musicsync.explosions.mode", "Mode", SettingCategory.MusicEffect, "Explosion color mode", modes, "Random", Model.ComboBox));
 		sColor = this.addSetting(new SettingColor("musicsync.explosions.color", "Color", SettingCategory.MusicEffect, null, Color.RED));
+		sMode = getSettingHandle("musicsync.explosions.mode", String.class);
 	}
 
 	@Override
@@ -95,7 +98,7 @@ public class Explosions extends MusicEffect {
 	}
 	
 	private Color getColor() {
-		String mode = this.getSetting(SettingSelection.class, "musicsync.explosions.mode").getSelected();
+		String mode = sMode.get("Random");
 		switch (mode.toLowerCase()) {
 		case "random":
 			return RainbowWheel.getRandomColor();
@@ -177,7 +180,7 @@ public class Explosions extends MusicEffect {
 	
 	@Override
 	public void onSettingUpdate() {
-		String mode = this.getSetting(SettingSelection.class, "musicsync.explosions.mode").getSelected();
+		String mode = sMode.get("Random");
 		this.hideSetting(sColor, !mode.equals("Static"));
 		super.onSettingUpdate();
 	}
@@ -28,6 +28,7 @@ import java.util.Random;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingColor;
@@ -44,11 +45,15 @@ public class Flame extends MusicEffect {
 	private Color[] strip;
 	private int hue;
 	private boolean rainbow;
+	private final SettingHandle<Boolean> sRainbow;
+	private final SettingHandle<Color> sColor;
 
 	public Flame() {
 		super("Flame");
 		this.addSetting(new SettingBoolean("musicsync.flame.rainbow", "Rainbow", SettingCategory.MusicEffect, null, false));
 		this.addSetting(new SettingColor("musicsync.flame.color", "Color", SettingCategory.MusicEffect, null, Color.RED));
+		sRainbow = getSettingHandle("musicsync.flame.rainbow", Boolean.class);
+		sColor = getSettingHandle("musicsync.flame.color", Color.class);
 	}
 	
 	@Override
@@ -60,13 +65,14 @@ public class Flame extends MusicEffect {
 	
 	@Override
 	public void onLoop() {
-		if(rainbow != getSetting(SettingBoolean.class, "musicsync.flame.rainbow").get()) {
-			rainbow = getSetting(SettingBoolean.class, "musicsync.flame.rainbow").get();
+		boolean rainbowSetting = sRainbow.get(false);
+		if(rainbow != rainbowSetting) {
+			rainbow = rainbowSetting;
 			// hide color option on rainbow mode
 			this.hideSetting("musicsync.flame.color", rainbow);
 			this.updateEffectOptions();
 		}
-		Color color = ((SettingColor) getSetting("musicsync.flame.color")).get();
+		Color color = sColor.get(Color.RED);
 		int ledNum = RemoteLightCore.getLedNum();
 		
 		if(rainbow) {
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingColor;
@@ -41,6 +42,8 @@ public class LevelBar extends MusicEffect {
 	private SettingColor sColor2;
 	private SettingColor sColor3;
 	private SettingBoolean sAutoChange;
+	private final SettingHandle<Boolean> sSmooth;
+	private final SettingHandle<Color> sBackground;
 	private boolean autoChange;
 	private boolean smooth;
 	private ArrayList<Color[]> pattern = new ArrayList<>();
@@ -57,6 +60,8 @@ public class LevelBar extends MusicEffect {
 		sColor1 = this.addSetting(new SettingColor("musicsync.levelbar.color1", "Color 1", SettingCategory.MusicEffect, "", Color.RED));
 		sColor2 = this.addSetting(new SettingColor("musicsync.levelbar.color2", "Color 2", SettingCategory.MusicEffect, "", Color.RED));
 		sColor3 = this.addSetting(new SettingColor("musicsync.levelbar.color3", "Color 3", SettingCategory.MusicEffect, "", Color.RED));
+		sSmooth = getSettingHandle("musicsync.levelbar.smooth", Boolean.class);
+		sBackground = getSettingHandle("musicsync.levelbar.background", Color.class);
 	}
 	
 	@Override
@@ -182,8 +187,8 @@ public class LevelBar extends MusicEffect {
 			// update effect options panel
 			this.updateEffectOptions();
 		}
-		smooth = getSetting(SettingBoolean.class, "musicsync.levelbar.smooth").get();
-		background = getSetting(SettingColor.class, "musicsync.levelbar.background").get();
+		smooth = sSmooth.get(false);
+		background = sBackground.get(Color.BLACK);
 	}
 
 }
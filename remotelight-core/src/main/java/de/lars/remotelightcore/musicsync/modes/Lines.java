@@ -27,6 +27,7 @@ import de.lars.remotelightcore.utils.color.Color;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingColor;
@@ -53,6 +54,11 @@ public class Lines extends MusicEffect {
 	
 	private int linesNum; // number of lines
 	private int maxLineLength; // max line length
+	private final SettingHandle<Boolean> sRotate;
+	private final SettingHandle<Boolean> sSmooth;
+	private final SettingHandle<String> sColorMode;
+	private final SettingHandle<Color> sColor;
+	private final SettingHandle<Integer> sLines;
 
 	public Lines() {
 		super("Lines");
@@ -61,6 +67,11 @@ public class Lines extends MusicEffect {
 		this.addSetting(new SettingSelection("musicsync.lines.colormode", "Color mode", SettingCategory.MusicEffect, null, colorModes, "Static", Model.ComboBox));
 		this.addSetting(new SettingColor("musicsync.lines.color", "Color", SettingCategory.MusicEffect, "Static color", Color.RED));
 		this.addSetting(new SettingInt("musicsync.lines.lines", "Lines", SettingCategory.MusicEffect, "Number of lines", 10, 2, 300, 1));
+		sRotate = getSettingHandle("musicsync.lines.rotate", Boolean.class);
+		sSmooth = getSettingHandle("musicsync.lines.smooth", Boolean.class);
+		sColorMode = getSettingHandle("musicsync.lines.colormode", String.class);
+		sColor = getSettingHandle("musicsync.lines.color", Color.class);
+		sLines = getSettingHandle("musicsync.lines.lines", Integer.class);
 	}
 	
 	@Override
@@ -93,8 +104,9 @@ public class Lines extends MusicEffect {
 			prevData = data;
 		}
 		
+		boolean smooth = sSmooth.get(false);
 		for(int i = 0; i < linesNum; i++) {
-			if(data[i] >= prevData[i] || !getSetting(SettingBoolean.class, "musicsync.lines.smooth").get()) {
+			if(data[i] >= prevData[i] || !smooth) {
 				prevData[i] = data[i];
 			} else {
 				prevData[i] = Math.max(0, prevData[i] - linesNum);
@@ -155,19 +167,19 @@ public class Lines extends MusicEffect {
 			return Color.GREEN;
 		}
 		// static color
-		return getSetting(SettingColor.class, "musicsync.lines.color").get();
+		return sColor.get(Color.RED);
 	}
 	
 	private void handleSettings() {
 		String prevMode = mode;
-		mode = getSetting(SettingSelection.class, "musicsync.lines.colormode").getSelected();
+		mode = sColorMode.get(colorModes[0]);
 		if(!mode.equals(prevMode)) {
 			// hide color option when static mode is not selected
 			this.hideSetting("musicsync.lines.color", !mode.equals("Static"));
 			this.updateEffectOptions();
 		}
-		rotate = getSetting(SettingBoolean.class, "musicsync.lines.rotate").get();
-		linesNum = getSetting(SettingInt.class, "musicsync.lines.lines").get();
+		rotate = sRotate.get(false);
+		linesNum = sLines.get(10);
 	}
 
 }
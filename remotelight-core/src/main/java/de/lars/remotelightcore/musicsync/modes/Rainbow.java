@@ -24,6 +24,7 @@ package de.lars.remotelightcore.musicsync.modes;
 
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingInt;
@@ -53,6 +54,14 @@ public class Rainbow extends MusicEffect {
 	private float peakMarkerDeltaPos;
 	private int peakMarkerHue; // for Cycle and Touched color modes
 	private float peakMarkerDropSpeed = 0.2f;
+	
+	private final SettingHandle<String> sMode;
+	private final SettingHandle<Boolean> sSmoothRise;
+	private final SettingHandle<Boolean> sSmoothFall;
+	private final SettingHandle<Integer> sSteps;
+	private final SettingHandle<Boolean> sPeakMarker;
+	private final SettingHandle<Integer> sPeakMarkerDropSpeed;
+	private final SettingHandle<String> sPeakMarkerColorMode;
 
 	public Rainbow() {
 		super("Rainbow");
@@ -63,17 +72,24 @@ public class Rainbow extends MusicEffect {
 		this.addSetting(new SettingBoolean("musicsync.rainbow.peakmarker", "Peak Marker", SettingCategory.MusicEffect, null, false));
 		this.addSetting(new SettingInt("musicsync.rainbow.peakmarker.dropspeed", "Peak Marker Speed", SettingCategory.MusicEffect, "Drop speed of the peak marker.", 2, 1, 10, 1));
 		this.addSetting(new SettingSelection("musicsync.rainbow.peakmarker.colormode", "Peak Marker Color Mode", SettingCategory.MusicEffect, null, PEAKMARKER_MODES, PEAKMARKER_MODES[0], Model.ComboBox));
+		sMode = getSettingHandle("musicsync.rainbow.mode", String.class);
+		sSmoothRise = getSettingHandle("musicsync.rainbow.smoothrise", Boolean.class);
+		sSmoothFall = getSettingHandle("musicsync.rainbow.smoothfall", Boolean.class);
+		sSteps = getSettingHandle("musicsync.rainbow.steps", Integer.class);
+		sPeakMarker = getSettingHandle("musicsync.rainbow.peakmarker", Boolean.class);
+		sPeakMarkerDropSpeed = getSettingHandle("musicsync.rainbow.peakmarker.dropspeed", Integer.class);
+		sPeakMarkerColorMode = getSettingHandle("musicsync.rainbow.peakmarker.colormode", String.class);
 	}
 	
 	private void initOptions() {
-		smoothRise = getSetting(SettingBoolean.class, "musicsync.rainbow.smoothrise").get();
-		smoothFall= getSetting(SettingBoolean.class, "musicsync.rainbow.smoothfall").get();
-		hueStepSize = getSetting(SettingInt.class, "musicsync.rainbow.steps").get();
-		mode = getSetting(SettingSelection.class, "musicsync.rainbow.mode").get().toLowerCase();
+		smoothRise = sSmoothRise.get(true);
+		smoothFall= sSmoothFall.get(true);
+		hueStepSize = sSteps.get(5);
+		mode = sMode.get(MODES[0]).toLowerCase();
 		boolean prevShowPeakMarker = showPeakMarker;
-		showPeakMarker = getSetting(SettingBoolean.class, "musicsync.rainbow.peakmarker").get();
-		peakMarkerDropSpeed = 0.1f * getSetting(SettingInt.class, "musicsync.rainbow.peakmarker.dropspeed").get();
-		peakMarkerColorMode = getSetting(SettingSelection.class, "musicsync.rainbow.peakmarker.colormode").get().toLowerCase();
+		showPeakMarker = sPeakMarker.get(false);
+		peakMarkerDropSpeed = 0.1f * sPeakMarkerDropSpeed.get(2);
+		peakMarkerColorMode = sPeakMarkerColorMode.get(PEAKMARKER_MODES[0]).toLowerCase();
 		if(prevShowPeakMarker != showPeakMarker) { // check if peak marker setting has changed
 			// hide peak marker related settings if peak marker is disabled
 			this.hideSetting("musicsync.rainbow.peakmarker.dropspeed", !showPeakMarker);
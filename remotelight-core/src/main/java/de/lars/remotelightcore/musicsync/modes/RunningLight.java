@@ -25,6 +25,7 @@ package de.lars.remotelightcore.musicsync.modes;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
 import de.lars.remotelightcore.settings.types.SettingInt;
@@ -40,11 +41,15 @@ public class RunningLight extends MusicEffect {
 	private double lastTime = 0;
 	private final double multiplier = 0.2;
 	private int groupSize;
+	private final SettingHandle<Boolean> sCentered;
+	private final SettingHandle<Integer> sGroupSize;
 
 	public RunningLight() {
 		super("RunningLight");
 		this.addSetting(new SettingBoolean("musicsync.runninglight.centered", "Centered", SettingCategory.MusicEffect, "", false));
 		this.addSetting(new SettingInt("musicsync.runninglight.groupsize", "Group size", SettingCategory.MusicEffect, "Number of LEDs per group", 3, 1, 5, 1));
+		sCentered = getSettingHandle("musicsync.runninglight.centered", Boolean.class);
+		sGroupSize = getSettingHandle("musicsync.runninglight.groupsize", Integer.class);
 	}
 
 	@Override
@@ -63,8 +68,8 @@ public class RunningLight extends MusicEffect {
 
 	@Override
 	public void onLoop() {
-		centered = ((SettingBoolean) getSetting("musicsync.runninglight.centered")).get();
-		groupSize = ((SettingInt) getSetting("musicsync.runninglight.groupsize")).get();
+		centered = sCentered.get(false);
+		groupSize = sGroupSize.get(3);
 		
 		int half = RemoteLightCore.getLedNum() / 2;
 		double pitch = this.getPitch();
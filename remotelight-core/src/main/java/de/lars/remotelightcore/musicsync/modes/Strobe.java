@@ -25,6 +25,7 @@ package de.lars.remotelightcore.musicsync.modes;
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.musicsync.MusicEffect;
 import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
 import de.lars.remotelightcore.settings.types.SettingColor;
 import de.lars.remotelightcore.settings.types.SettingInt;
@@ -41,12 +42,18 @@ public class Strobe extends MusicEffect {
 	private int flashDuration;
 	private boolean flashSwitch;
 	private Color color = Color.WHITE;
+	private final SettingHandle<Color> sColor;
+	private final SettingHandle<Integer> sFlashRatio;
+	private final SettingHandle<Integer> sFlashDuration;
 
 	public Strobe() {
 		super("Strobe");
 		flashRatio = this.addSetting(new SettingInt("musicsync.strobe.flashratio", "Flash ratio (per second)", SettingCategory.MusicEffect, "Flashes per second", 4, 1, 100, 1)).get();
 		flashDuration = this.addSetting(new SettingInt("musicsync.strobe.flashduration", "Flash duration (in ms)", SettingCategory.MusicEffect, "", 1500, 100, 50000, 100)).get();
 		this.addSetting(new SettingColor("musicsync.strobe.color", "Color", SettingCategory.MusicEffect, "", Color.WHITE));
+		sColor = getSettingHandle("musicsync.strobe.color", Color.class);
+		sFlashRatio = getSettingHandle("musicsync.strobe.flashratio", Integer.class);
+		sFlashDuration = getSettingHandle("musicsync.strobe.flashduration", Integer.class);
 		
 		timeDuration = new TimeUtil(flashDuration, false);
 		timeFlashes = new TimeUtil(1000 / flashRatio, true);
@@ -66,9 +73,9 @@ public class Strobe extends MusicEffect {
 	
 	@Override
 	public void onLoop() {
-		color = ((SettingColor) getSetting("musicsync.strobe.color")).get();
-		flashRatio = ((SettingInt) getSetting("musicsync.strobe.flashratio")).get();
-		flashDuration = ((SettingInt) getSetting("musicsync.strobe.flashduration")).get();
+		color = sColor.get(Color.WHITE);
+		flashRatio = sFlashRatio.get(4);
+		flashDuration = sFlashDuration.get(1500);
 		timeFlashes.setInterval(1000 / flashRatio);
 		timeDuration.setInterval(flashDuration);
 		
@@ -0,0 +1,428 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.networkinput;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.lars.remotelightcore.devices.artnet.ArtnetPacket;
+import de.lars.remotelightcore.devices.e131.E131Packet;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Decodes E1.31 or Art-Net packets into a frame buffer.
+ * <p>
+ * The DMX slots of every accepted universe are written in place into one
+ * reused {@link FrameBuffer}. A frame is handed to the {@link FrameListener}
+ * as soon as all universes of the layout were received, when a universe
+ * arrives a second time (the source sends fewer universes than expected)
+ * or, if the source synchronizes its universes, when the synchronization
+ * packet of that source arrives. E1.31 synchronization packets of other
+ * sources are ignored.
+ * <p>
+ * Every universe follows a single source. A source with a higher priority
+ * takes over, sources with the same or a lower priority are ignored until
+ * the current source stops sending for {@link #SOURCE_TIMEOUT} ms or
+ * terminates the stream. Packets of the current source that are older than
+ * the last one (sequence number) are discarded. Art-Net has no priority,
+ * the sender address is used as source.
+ * <p>
+ * E1.31 packets sent by this application ({@link E131Packet#CLIENT_UUID})
+ * are ignored, so outputs can not loop back into the input.
+ * <p>
+ * All packets have to be passed from the same thread.
+ */
+public class DmxInputDecoder {
+	
+	/** time (ms) after which a silent source loses a universe (E1.31 network data loss) */
+	public final static int SOURCE_TIMEOUT = 2500;
+	/** time (ms) after the last ArtSync after which Art-Net universes are output immediately again */
+	public final static int ARTNET_SYNC_TIMEOUT = 4000;
+	/** sequence numbers within this distance before the last one are out of order */
+	public final static int SEQUENCE_WINDOW = 20;
+	
+	private final static long ARTNET_ID = 0x4172742D4E657400L; // "Art-Net\0"
+	private final static long SOURCE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(SOURCE_TIMEOUT);
+	private final static long ARTNET_SYNC_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(ARTNET_SYNC_TIMEOUT);
+	private final static long OWN_CID_HIGH = E131Packet.CLIENT_UUID.getMostSignificantBits();
+	private final static long OWN_CID_LOW = E131Packet.CLIENT_UUID.getLeastSignificantBits();
+	
+	private final InputProtocol protocol;
+	private final FrameListener listener;
+	
+	// requested layout, applied by the receiving thread
+	private volatile int requestedStartUniverse;
+	private volatile int requestedUniverseSize = 510;
+	private volatile int requestedPixels;
+	private volatile boolean layoutChanged = true;
+	private volatile boolean ignoreOwnPackets = true;
+	
+	private FrameBuffer frame = new FrameBuffer(0);
+	private Universe[] universes = new Universe[0];
+	private int startUniverse;
+	private int universeSize;
+	private int receivedUniverses;
+	private boolean waitingForSync;
+	private int syncAddress;
+	// source of the universe that waits for synchronization
+	private long syncSourceHigh;
+	private long syncSourceLow;
+	private long lastArtSync;
+	
+	private final AtomicLong packets = new AtomicLong();
+	private final AtomicLong frames = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong outOfSequence = new AtomicLong();
+	private final AtomicLong invalid = new AtomicLong();
+	
+	/**
+	 * @param protocol	protocol of the packets
+	 * @param listener	listener for complete frames
+	 */
+	public DmxInputDecoder(InputProtocol protocol, FrameListener listener) {
+		this.protocol = protocol;
+		this.listener = listener;
+	}
+	
+	/**
+	 * Set the universe layout. Can be called from any thread,
+	 * the layout is applied with the next packet.
+	 * @param startUniverse	universe (E1.31) or port address (Art-Net) of the first pixel
+	 * @param universeSize	number of DMX slots used per universe
+	 * @param pixels		number of pixels
+	 */
+	public void setLayout(int startUniverse, int universeSize, int pixels) {
+		requestedStartUniverse = Math.max(0, startUniverse);
+		requestedUniverseSize = Math.max(3, Math.min(E131Packet.DATA_LENGTH, universeSize));
+		requestedPixels = Math.max(0, pixels);
+		layoutChanged = true;
+	}
+	
+	/**
+	 * @param ignoreOwnPackets	ignore E1.31 packets with the CID of this application
+	 * 							(default), disable to receive from a local sender
+	 */
+	public void setIgnoreOwnPackets(boolean ignoreOwnPackets) {
+		this.ignoreOwnPackets = ignoreOwnPackets;
+	}
+	
+	/**
+	 * @return number of universes of the requested layout
+	 */
+	public int getUniverseCount() {
+		int size = requestedUniverseSize;
+		return (requestedPixels * 3 + size - 1) / size;
+	}
+	
+	public InputProtocol getProtocol() {
+		return protocol;
+	}
+	
+	/**
+	 * Decode a packet
+	 * @param packet	packet data from position 0 to limit
+	 * @param sender	address of the sender
+	 */
+	public void decode(ByteBuffer packet, SocketAddress sender) {
+		if(layoutChanged)
+			applyLayout();
+		packets.incrementAndGet();
+		final long now = System.nanoTime();
+		if(protocol == InputProtocol.ARTNET)
+			decodeArtnet(packet, sender, now);
+		else
+			decodeE131(packet, now);
+	}
+	
+	private void decodeE131(ByteBuffer packet, long now) {
+		final int limit = packet.limit();
+		if(limit < E131Packet.SYNC_LENGTH
+				|| packet.getShort(0) != 0x0010
+				|| packet.getInt(4) != 0x4153432D		// "ASC-E1.17\0\0\0"
+				|| packet.getInt(8) != 0x45312E31
+				|| packet.getInt(12) != 0x37000000) {
+			invalid.incrementAndGet();
+			return;
+		}
+		final long cidHigh = packet.getLong(E131Packet.CID_OFFSET);
+		final long cidLow = packet.getLong(E131Packet.CID_OFFSET + 8);
+		if(ignoreOwnPackets && cidHigh == OWN_CID_HIGH && cidLow == OWN_CID_LOW)
+			return; // sent by an output of this application
+		final int rootVector = packet.getInt(E131Packet.ROOT_VECTOR_OFFSET);
+		final int framingVector = packet.getInt(E131Packet.FRAMING_VECTOR_OFFSET);
+		
+		if(rootVector == E131Packet.VECTOR_ROOT_E131_EXTENDED
+				&& framingVector == E131Packet.VECTOR_E131_EXTENDED_SYNCHRONIZATION) {
+			int address = packet.getShort(E131Packet.SYNC_UNIVERSE_OFFSET) & 0xFFFF;
+			if(waitingForSync && address == syncAddress
+					&& cidHigh == syncSourceHigh && cidLow == syncSourceLow) {
+				pushFrame();
+			}
+			return;
+		}
+		if(rootVector != E131Packet.VECTOR_ROOT_E131_DATA
+				|| framingVector != E131Packet.VECTOR_E131_DATA_PACKET
+				|| limit < E131Packet.DATA_OFFSET) {
+			invalid.incrementAndGet();
+			return;
+		}
+		final int options = packet.get(E131Packet.OPTIONS_OFFSET) & 0xFF;
+		if((options & E131Packet.OPTION_PREVIEW_DATA) != 0
+				|| packet.get(E131Packet.START_CODE_OFFSET) != 0) {
+			return; // visualization data or alternate start code
+		}
+		final int universe = packet.getShort(E131Packet.UNIVERSE_OFFSET) & 0xFFFF;
+		final int index = universe - startUniverse;
+		if(index < 0 || index >= universes.length)
+			return;
+		
+		if(!accept(universes[index],
+				cidHigh,
+				cidLow,
+				packet.get(E131Packet.PRIORITY_OFFSET) & 0xFF,
+				packet.get(E131Packet.SEQUENCE_OFFSET) & 0xFF,
+				true,
+				(options & E131Packet.OPTION_STREAM_TERMINATED) != 0,
+				now)) {
+			return;
+		}
+		int slots = (packet.getShort(E131Packet.PROPERTY_COUNT_OFFSET) & 0xFFFF) - 1;
+		slots = Math.min(slots, limit - E131Packet.DATA_OFFSET);
+		int sync = packet.getShort(E131Packet.SYNC_ADDRESS_OFFSET) & 0xFFFF;
+		receiveUniverse(index, packet, E131Packet.DATA_OFFSET, slots, sync);
+	}
+	
+	private void decodeArtnet(ByteBuffer packet, SocketAddress sender, long now) {
+		final int limit = packet.limit();
+		if(limit < ArtnetPacket.SYNC_LENGTH || packet.getLong(0) != ARTNET_ID) {
+			invalid.incrementAndGet();
+			return;
+		}
+		final int opCode = (packet.get(ArtnetPacket.OPCODE_OFFSET) & 0xFF)
+				| (packet.get(ArtnetPacket.OPCODE_OFFSET + 1) & 0xFF) << 8;
+		if(opCode == ArtnetPacket.OP_SYNC) {
+			lastArtSync = now;
+			if(waitingForSync)
+				pushFrame();
+			return;
+		}
+		if(opCode != ArtnetPacket.OP_DMX)
+			return; // poll, reply etc.
+		if(limit < ArtnetPacket.HEADER_LENGTH) {
+			invalid.incrementAndGet();
+			return;
+		}
+		final int portAddress = (packet.get(ArtnetPacket.PORT_ADDRESS_OFFSET) & 0xFF)
+				| (packet.get(ArtnetPacket.PORT_ADDRESS_OFFSET + 1) & 0x7F) << 8;
+		final int index = portAddress - startUniverse;
+		if(index < 0 || index >= universes.length)
+			return;
+		
+		long sourceHigh = 0;
+		long sourceLow = 0;
+		if(sender instanceof InetSocketAddress) {
+			InetSocketAddress address = (InetSocketAddress) sender;
+			sourceHigh = address.getAddress() != null ? address.getAddress().hashCode() : 0;
+			sourceLow = address.getPort();
+		}
+		final int sequence = packet.get(ArtnetPacket.SEQUENCE_OFFSET) & 0xFF;
+		if(!accept(universes[index], sourceHigh, sourceLow, E131Packet.DEFAULT_PRIORITY,
+				sequence, sequence != 0, false, now)) {
+			return;
+		}
+		int slots = Math.min(packet.getShort(ArtnetPacket.LENGTH_OFFSET) & 0xFFFF, limit - ArtnetPacket.DATA_OFFSET);
+		// ArtSync received recently: nodes output on the next ArtSync
+		boolean sync = lastArtSync != 0 && now - lastArtSync < ARTNET_SYNC_TIMEOUT_NANOS;
+		receiveUniverse(index, packet, ArtnetPacket.DATA_OFFSET, slots, sync ? 1 : 0);
+	}
+	
+	/**
+	 * Check priority and sequence number of a packet and
+	 * update the source of the universe
+	 * @return true if the data of the packet should be used
+	 */
+	private boolean accept(Universe u, long sourceHigh, long sourceLow, int priority,
+			int sequence, boolean checkSequence, boolean terminated, long now) {
+		boolean live = u.hasSource && now - u.lastPacket < SOURCE_TIMEOUT_NANOS;
+		if(live && u.sourceHigh == sourceHigh && u.sourceLow == sourceLow) {
+			if(checkSequence && u.checkSequence) {
+				int diff = (byte) (sequence - u.sequence);
+				if(diff <= 0 && diff > -SEQUENCE_WINDOW) {
+					outOfSequence.incrementAndGet();
+					return false;
+				}
+			}
+		} else if(live && priority <= u.priority) {
+			rejected.incrementAndGet();
+			return false;
+		}
+		if(terminated) {
+			// release the universe for other sources, data is ignored
+			u.hasSource = false;
+			return false;
+		}
+		u.hasSource = true;
+		u.sourceHigh = sourceHigh;
+		u.sourceLow = sourceLow;
+		u.priority = priority;
+		u.sequence = sequence;
+		u.checkSequence = checkSequence;
+		u.lastPacket = now;
+		return true;
+	}
+	
+	/**
+	 * Write the DMX slots into the frame and push the frame if it is complete
+	 * @param sync	synchronization address or 0 to output the frame when it is complete
+	 */
+	private void receiveUniverse(int index, ByteBuffer packet, int dataOffset, int slots, int sync) {
+		Universe u = universes[index];
+		if(u.received) {
+			// next frame started before all universes arrived
+			pushFrame();
+		}
+		writeSlots(packet, dataOffset, Math.min(slots, universeSize), index * universeSize);
+		u.received = true;
+		receivedUniverses++;
+		
+		if(sync != 0) {
+			waitingForSync = true;
+			syncAddress = sync;
+			syncSourceHigh = u.sourceHigh;
+			syncSourceLow = u.sourceLow;
+		} else if(receivedUniverses == universes.length) {
+			pushFrame();
+		}
+	}
+	
+	/**
+	 * Copy DMX slots into the frame starting at the specified channel
+	 */
+	private void writeSlots(ByteBuffer packet, int pos, int slots, int channel) {
+		final int[] data = frame.getData();
+		int end = pos + Math.min(slots, data.length * 3 - channel);
+		int pixel = channel / 3;
+		int component = channel % 3;
+		// complete pixels
+		if(component == 0) {
+			for(; pos + 2 < end; pos += 3) {
+				data[pixel++] = (packet.get(pos) & 0xFF) << 16
+						| (packet.get(pos + 1) & 0xFF) << 8
+						| (packet.get(pos + 2) & 0xFF);
+			}
+		}
+		// pixels split across universes
+		for(; pos < end; pos++) {
+			int shift = 16 - component * 8;
+			data[pixel] = (data[pixel] & ~(0xFF << shift)) | (packet.get(pos) & 0xFF) << shift;
+			if(++component == 3) {
+				component = 0;
+				pixel++;
+			}
+		}
+	}
+	
+	private void pushFrame() {
+		for(Universe u : universes)
+			u.received = false;
+		receivedUniverses = 0;
+		waitingForSync = false;
+		frames.incrementAndGet();
+		listener.onFrame(frame);
+	}
+	
+	private void applyLayout() {
+		layoutChanged = false;
+		startUniverse = requestedStartUniverse;
+		universeSize = requestedUniverseSize;
+		int pixels = requestedPixels;
+		if(frame.size() != pixels)
+			frame = new FrameBuffer(pixels);
+		Universe[] list = new Universe[(pixels * 3 + universeSize - 1) / universeSize];
+		for(int i = 0; i < list.length; i++)
+			list[i] = new Universe();
+		universes = list;
+		receivedUniverses = 0;
+		waitingForSync = false;
+	}
+	
+	/**
+	 * @return number of decoded packets
+	 */
+	public long getPackets() {
+		return packets.get();
+	}
+	
+	/**
+	 * @return number of frames passed to the listener
+	 */
+	public long getFrames() {
+		return frames.get();
+	}
+	
+	/**
+	 * @return number of packets ignored because another source has a higher priority
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+	
+	/**
+	 * @return number of packets discarded because of their sequence number
+	 */
+	public long getOutOfSequence() {
+		return outOfSequence.get();
+	}
+	
+	/**
+	 * @return number of packets that are no valid E1.31 or Art-Net packets
+	 */
+	public long getInvalid() {
+		return invalid.get();
+	}
+	
+	
+	public interface FrameListener {
+		/**
+		 * Called by the receiving thread when a frame is complete.
+		 * The frame is reused and must be copied if it is needed later.
+		 * @param frame	decoded frame
+		 */
+		void onFrame(FrameBuffer frame);
+	}
+	
+	private static class Universe {
+		boolean received;
+		boolean hasSource;
+		long sourceHigh;
+		long sourceLow;
+		int priority;
+		int sequence;
+		boolean checkSequence;
+		long lastPacket;
+	}
+
+}
@@ -0,0 +1,179 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.networkinput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.tinylog.Logger;
+
+import de.lars.remotelightcore.devices.e131.E131Sender;
+
+/**
+ * Receives E1.31 or Art-Net packets on a {@link DatagramChannel} and passes
+ * them to a {@link DmxInputDecoder}. The channel blocks in a dedicated
+ * thread and every packet is decoded straight from the receive buffer, so
+ * a frame is handed on as soon as its last packet arrived.
+ */
+public class DmxInputReceiver implements Closeable {
+	
+	/** size of the receive buffer, larger than any E1.31 or Art-Net packet */
+	public final static int BUFFER_SIZE = 1024;
+	
+	private final DatagramChannel channel;
+	private final DmxInputDecoder decoder;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final List<MembershipKey> memberships = new ArrayList<>();
+	private volatile Thread thread;
+	
+	/**
+	 * @param bindAddress	local address, usually the wildcard address
+	 * 						and the port of the protocol
+	 * @param decoder		decoder for the received packets
+	 * @throws IOException	if the channel could not be opened
+	 */
+	public DmxInputReceiver(InetSocketAddress bindAddress, DmxInputDecoder decoder) throws IOException {
+		this.decoder = decoder;
+		channel = DatagramChannel.open(StandardProtocolFamily.INET);
+		try {
+			channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			channel.bind(bindAddress);
+		} catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Join the E1.31 multicast groups of the universes on all
+	 * multicast capable network interfaces. Groups of universes
+	 * that were joined before and are not in the range are left.
+	 * @param startUniverse	first universe
+	 * @param count			number of universes
+	 * @return				number of interfaces the groups were joined on
+	 */
+	public synchronized int joinMulticastGroups(int startUniverse, int count) {
+		List<MembershipKey> keys = new ArrayList<>();
+		int joined = 0;
+		try {
+			for(NetworkInterface ni : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+				if(!ni.isUp() || !ni.supportsMulticast())
+					continue;
+				try {
+					for(int u = startUniverse; u < startUniverse + count; u++) {
+						InetAddress group = E131Sender.getMulticastAddress(u);
+						// returns the existing key if the group is already joined
+						keys.add(channel.join(group, ni));
+					}
+					joined++;
+				} catch(IOException | UnsupportedOperationException e) {
+					Logger.debug("Could not join E1.31 multicast groups on " + ni.getName() + ": " + e.getMessage());
+				}
+			}
+		} catch(IOException e) {
+			Logger.warn(e, "Could not list network interfaces.");
+		}
+		for(MembershipKey key : memberships) {
+			if(!keys.contains(key))
+				key.drop();
+		}
+		memberships.clear();
+		memberships.addAll(keys);
+		return joined;
+	}
+	
+	public synchronized void start() {
+		if(thread != null)
+			return;
+		thread = new Thread(this::run, "Network input " + decoder.getProtocol());
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	private void run() {
+		while(channel.isOpen()) {
+			try {
+				buffer.clear();
+				SocketAddress sender = channel.receive(buffer);
+				buffer.flip();
+				decoder.decode(buffer, sender);
+			} catch(ClosedChannelException e) {
+				break;
+			} catch(IOException e) {
+				Logger.error(e, "Could not receive network input packet.");
+			} catch(RuntimeException e) {
+				Logger.error(e, "Could not process network input packet.");
+			}
+		}
+	}
+	
+	/**
+	 * @return the local address the channel is bound to
+	 * @throws IOException	if the channel is closed
+	 */
+	public SocketAddress getLocalAddress() throws IOException {
+		return channel.getLocalAddress();
+	}
+	
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+	
+	/**
+	 * Close the channel and wait until the receiving thread has finished
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		Thread t;
+		synchronized (this) {
+			t = thread;
+			thread = null;
+		}
+		if(t != null && t != Thread.currentThread()) {
+			try {
+				t.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	public DmxInputDecoder getDecoder() {
+		return decoder;
+	}
+
+}
@@ -0,0 +1,50 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.networkinput;
+
+import de.lars.remotelightcore.devices.artnet.ArtnetPacket;
+
+/**
+ * Network protocols a {@link NetworkInputManager} can receive
+ */
+public enum InputProtocol {
+	
+	/** sACN (ANSI E1.31) */
+	E131(de.lars.remotelightcore.devices.e131.E131.PORT),
+	/** Art-Net (ArtDmx) */
+	ARTNET(ArtnetPacket.PORT);
+	
+	private final int port;
+	
+	private InputProtocol(int port) {
+		this.port = port;
+	}
+	
+	/**
+	 * @return default UDP port of the protocol
+	 */
+	public int getPort() {
+		return port;
+	}
+
+}
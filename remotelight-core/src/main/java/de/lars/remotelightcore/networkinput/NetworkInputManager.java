@@ -0,0 +1,153 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.networkinput;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.tinylog.Logger;
+
+import de.lars.remotelightcore.EffectManager;
+import de.lars.remotelightcore.EffectManagerHelper.EffectType;
+import de.lars.remotelightcore.RemoteLightCore;
+import de.lars.remotelightcore.out.FrameBuffer;
+import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightcore.settings.SettingsManager;
+import de.lars.remotelightcore.settings.types.SettingInt;
+
+/**
+ * Uses E1.31 (sACN) or Art-Net from the network as effect source,
+ * e.g. to drive the outputs from a lighting desk. Frames are passed
+ * to the {@link OutputManager} by the receiving thread as soon as
+ * they are complete.
+ */
+public class NetworkInputManager extends EffectManager {
+	
+	private volatile InputProtocol activeProtocol;
+	private volatile DmxInputReceiver receiver;
+	private volatile DmxInputDecoder decoder;
+	private volatile int startUniverse;
+	private volatile int universeSize;
+	private volatile int pixels;
+	
+	@Override
+	public String getName() {
+		return "NetworkInputManager";
+	}
+	
+	@Override
+	public boolean isActive() {
+		return activeProtocol != null;
+	}
+	
+	/**
+	 * @return the protocol the manager listens for or null if inactive
+	 */
+	public InputProtocol getActiveProtocol() {
+		return activeProtocol;
+	}
+	
+	/**
+	 * @return decoder of the active input including packet counters or null
+	 */
+	public DmxInputDecoder getDecoder() {
+		return decoder;
+	}
+	
+	/**
+	 * Listen for the specified protocol on its default port
+	 * @param protocol	E1.31 or Art-Net
+	 * @return			true if the port could be opened
+	 */
+	public boolean start(InputProtocol protocol) {
+		RemoteLightCore.getInstance().getEffectManagerHelper().stopAllExceptFor(EffectType.NetworkInput);
+		SettingsManager sm = RemoteLightCore.getInstance().getSettingsManager();
+		startUniverse = sm.getSetting(SettingInt.class, "netinput.universe").get();
+		universeSize = sm.getSetting(SettingInt.class, "netinput.universesize").get();
+		
+		synchronized (this) {
+			closeReceiver();
+			DmxInputDecoder d = new DmxInputDecoder(protocol, this::onFrame);
+			pixels = RemoteLightCore.getLedNum();
+			d.setLayout(startUniverse, universeSize, pixels);
+			try {
+				receiver = new DmxInputReceiver(new InetSocketAddress(protocol.getPort()), d);
+			} catch(IOException e) {
+				Logger.error(e, "Could not open network input port " + protocol.getPort() + ".");
+				RemoteLightCore.getInstance().showErrorNotification(e, "Network Input");
+				activeProtocol = null;
+				return false;
+			}
+			if(protocol == InputProtocol.E131)
+				receiver.joinMulticastGroups(startUniverse, d.getUniverseCount());
+			decoder = d;
+			activeProtocol = protocol;
+			receiver.start();
+		}
+		Logger.info("Listening for " + protocol + " on port " + protocol.getPort() + ".");
+		return true;
+	}
+	
+	@Override
+	public void stop() {
+		synchronized (this) {
+			if(activeProtocol == null)
+				return;
+			closeReceiver();
+			activeProtocol = null;
+		}
+		Logger.info("Stopped network input.");
+		turnOffLeds();
+	}
+	
+	private void closeReceiver() {
+		if(receiver != null) {
+			try {
+				receiver.close();
+			} catch (IOException e) {
+				Logger.error(e, "Could not close network input port.");
+			}
+			receiver = null;
+		}
+	}
+	
+	/**
+	 * Called by the receiving thread for every complete frame
+	 */
+	private void onFrame(FrameBuffer frame) {
+		long start = System.nanoTime();
+		int ledNum = RemoteLightCore.getLedNum();
+		if(ledNum != pixels) {
+			// pixel number changed, applied with the next packet
+			pixels = ledNum;
+			DmxInputDecoder d = decoder;
+			d.setLayout(startUniverse, universeSize, ledNum);
+			DmxInputReceiver r = receiver;
+			if(r != null && d.getProtocol() == InputProtocol.E131)
+				r.joinMulticastGroups(startUniverse, d.getUniverseCount());
+		}
+		OutputManager.addToOutput(frame);
+		recordFrame(null, System.nanoTime() - start);
+	}
+
+}
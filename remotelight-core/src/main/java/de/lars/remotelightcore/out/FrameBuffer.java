@@ -0,0 +1,225 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.out;
+
+import java.util.Arrays;
+
+import de.lars.remotelightcore.utils.color.Color;
+
+/**
+ * Reusable frame of packed RGB pixels. Every pixel is stored as a single
+ * {@code int} with red in bits 16-23, green in bits 8-15 and blue in bits 0-7
+ * (same layout as {@link Color#getRGB()} without the alpha byte).
+ * <p>
+ * The backing array is only reallocated when the frame grows beyond its
+ * current capacity, so a frame buffer can be passed through the whole
+ * render and output pipeline without creating new objects per frame.
+ */
+public class FrameBuffer {
+
+	private int[] pixels;
+	private int size;
+
+	/**
+	 * Create a new black frame buffer
+	 * @param size	number of pixels
+	 */
+	public FrameBuffer(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Frame size must not be negative: " + size);
+		this.pixels = new int[size];
+		this.size = size;
+	}
+
+	/**
+	 * Create a new frame buffer containing the colors of the array
+	 * @param colors	color array
+	 * @return			new frame buffer
+	 */
+	public static FrameBuffer fromColors(Color[] colors) {
+		FrameBuffer frame = new FrameBuffer(colors.length);
+		frame.setColors(colors);
+		return frame;
+	}
+
+	/**
+	 * @return	number of pixels
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the backing array. Only the first {@link #size()} entries
+	 * belong to the frame.
+	 * @return	packed RGB array
+	 */
+	public int[] getData() {
+		return pixels;
+	}
+
+	/**
+	 * Change the number of pixels. The backing array is only reallocated
+	 * if the new size exceeds the current capacity. Pixel values are not
+	 * cleared.
+	 * @param size	new number of pixels
+	 * @return		this frame buffer
+	 */
+	public FrameBuffer resize(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Frame size must not be negative: " + size);
+		if(size > pixels.length)
+			pixels = Arrays.copyOf(pixels, size);
+		this.size = size;
+		return this;
+	}
+
+	public int getRGB(int index) {
+		return pixels[index];
+	}
+
+	public int getRed(int index) {
+		return (pixels[index] >> 16) & 0xFF;
+	}
+
+	public int getGreen(int index) {
+		return (pixels[index] >> 8) & 0xFF;
+	}
+
+	public int getBlue(int index) {
+		return pixels[index] & 0xFF;
+	}
+
+	/**
+	 * @param index	pixel index
+	 * @param rgb	combined RGB value (alpha is ignored)
+	 */
+	public void setRGB(int index, int rgb) {
+		pixels[index] = rgb & 0xFFFFFF;
+	}
+
+	/**
+	 * @param index	pixel index
+	 * @param r		red value 0..255
+	 * @param g		green value 0..255
+	 * @param b		blue value 0..255
+	 */
+	public void setRGB(int index, int r, int g, int b) {
+		pixels[index] = ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+	}
+
+	public void setColor(int index, Color color) {
+		pixels[index] = color.getRGB() & 0xFFFFFF;
+	}
+
+	/**
+	 * Create a new {@link Color} object from the pixel value
+	 * @param index	pixel index
+	 * @return		new color instance
+	 */
+	public Color getColor(int index) {
+		return new Color(pixels[index]);
+	}
+
+	/**
+	 * Set all pixels to the same color
+	 * @param rgb	combined RGB value
+	 */
+	public void fill(int rgb) {
+		Arrays.fill(pixels, 0, size, rgb & 0xFFFFFF);
+	}
+
+	public void fill(Color color) {
+		fill(color.getRGB());
+	}
+
+	/**
+	 * Resize this frame to the length of the color array and
+	 * copy all colors. {@code null} entries are treated as black.
+	 * @param colors	color array
+	 * @return			this frame buffer
+	 */
+	public FrameBuffer setColors(Color[] colors) {
+		resize(colors.length);
+		for(int i = 0; i < colors.length; i++) {
+			Color c = colors[i];
+			pixels[i] = c != null ? c.getRGB() & 0xFFFFFF : 0;
+		}
+		return this;
+	}
+
+	/**
+	 * Resize this frame to the size of the source and copy all pixels.
+	 * @param src	source frame
+	 * @return		this frame buffer
+	 */
+	public FrameBuffer copyFrom(FrameBuffer src) {
+		resize(src.size);
+		System.arraycopy(src.pixels, 0, pixels, 0, src.size);
+		return this;
+	}
+
+	/**
+	 * Copy a range of pixels from the source frame into this frame.
+	 * The size of this frame is not changed.
+	 * @param src		source frame
+	 * @param srcPos	start index in the source frame
+	 * @param destPos	start index in this frame
+	 * @param length	number of pixels to copy
+	 */
+	public void copyRange(FrameBuffer src, int srcPos, int destPos, int length) {
+		if(srcPos < 0 || destPos < 0 || length < 0 || srcPos + length > src.size || destPos + length > size)
+			throw new IndexOutOfBoundsException("Invalid range: src " + srcPos + ", dest " + destPos + ", length " + length);
+		System.arraycopy(src.pixels, srcPos, pixels, destPos, length);
+	}
+
+	/**
+	 * Check if both frames have the same size and pixel values
+	 * @param other	frame to compare with
+	 * @return		true if the frames are identical
+	 */
+	public boolean contentEquals(FrameBuffer other) {
+		if(other == null || other.size != size)
+			return false;
+		final int[] o = other.pixels;
+		for(int i = 0; i < size; i++) {
+			if(pixels[i] != o[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Convert the frame to a new color array. Used as adapter
+	 * for effects and outputs that still work with color arrays.
+	 * @return	new color array
+	 */
+	public Color[] toColors() {
+		Color[] colors = new Color[size];
+		for(int i = 0; i < size; i++) {
+			colors[i] = new Color(pixels[i]);
+		}
+		return colors;
+	}
+
+}
@@ -0,0 +1,165 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.out;
+
+import de.lars.remotelightcore.out.patch.OutputPatch;
+
+/**
+ * Immutable snapshot of the LED layout of the primary output.
+ * <p>
+ * A new snapshot is created whenever the primary output or its
+ * patch changes, so effects and scripts can read the number of LEDs
+ * without synchronizing with the output manager.
+ * 
+ * @see OutputManager#getGeometry()
+ */
+public final class LedGeometry {
+	
+	/** geometry used when no output is active */
+	public static final LedGeometry EMPTY = new LedGeometry(null, -1, OutputManager.MIN_PIXELS, OutputManager.MIN_PIXELS, 0, 0, false);
+	
+	private final Output output;
+	private final int revision;
+	private final int pixels;
+	private final int clone;
+	private final int shift;
+	private final boolean mirrored;
+	private final int ledNum;
+	
+	private LedGeometry(Output output, int revision, int ledNum, int pixels, int clone, int shift, boolean mirrored) {
+		this.output = output;
+		this.revision = revision;
+		this.ledNum = ledNum;
+		this.pixels = pixels;
+		this.clone = clone;
+		this.shift = shift;
+		this.mirrored = mirrored;
+	}
+	
+	/**
+	 * Create a snapshot of the current output layout
+	 * @param output	the output or {@code null}
+	 * @return			new geometry snapshot
+	 */
+	public static LedGeometry of(Output output) {
+		if(output == null)
+			return EMPTY;
+		OutputPatch patch = output.getOutputPatch();
+		int ledNum = patch.getClone() > 0 ? patch.getPatchedPixelNumber() : output.getPixels();
+		return new LedGeometry(output, patch.getRevision(), ledNum, output.getPixels(),
+				patch.getClone(), patch.getShift(), patch.isCloneMirrored());
+	}
+	
+	/**
+	 * Check if this snapshot still describes the output
+	 * @param output	the current primary output
+	 * @return			true if the output and its patch did not change
+	 */
+	public boolean isValidFor(Output output) {
+		if(output != this.output)
+			return false;
+		return output == null || output.getOutputPatch().getRevision() == revision;
+	}
+	
+	/**
+	 * @return the output this snapshot was created from or {@code null}
+	 */
+	public Output getOutput() {
+		return output;
+	}
+	
+	/**
+	 * @return number of pixels effects should render
+	 */
+	public int getLedNum() {
+		return ledNum;
+	}
+	
+	/**
+	 * @return number of physical pixels of the output
+	 */
+	public int getPixels() {
+		return pixels;
+	}
+	
+	/**
+	 * @return number of times the effect is repeated on the output
+	 * 			(1 if the strip is not cloned)
+	 */
+	public int getSegmentCount() {
+		return clone + 1;
+	}
+	
+	/**
+	 * @return number of pixels per segment
+	 */
+	public int getSegmentLength() {
+		return ledNum;
+	}
+	
+	public int getShift() {
+		return shift;
+	}
+	
+	public boolean isMirrored() {
+		return mirrored;
+	}
+	
+	/**
+	 * Get the physical pixel an effect pixel is shown on. Applies
+	 * shift, clone and mirror the same way as {@link OutputPatch}:
+	 * every second segment is reversed if the clones are mirrored,
+	 * a mirrored strip without clones is reversed completely.
+	 * @param segment	segment index, 0 if the strip is not cloned
+	 * @param index		index of the pixel rendered by the effect
+	 * @return			index of the physical pixel or {@code -1} if the
+	 * 					pixel is cut off at the end of the output
+	 * @throws IndexOutOfBoundsException if the segment or the index
+	 * 			is out of range
+	 */
+	public int getPixelIndex(int segment, int index) {
+		if(segment < 0 || segment >= getSegmentCount())
+			throw new IndexOutOfBoundsException("Segment " + segment + " out of range (segments: " + getSegmentCount() + ")");
+		if(index < 0 || index >= ledNum)
+			throw new IndexOutOfBoundsException("Index " + index + " out of range (leds: " + ledNum + ")");
+		int pos = index;
+		if(shift != 0 && Math.abs(shift) < ledNum && ledNum > 1)
+			pos = (index + (shift > 0 ? shift : ledNum + shift)) % ledNum;
+		if(clone > 0) {
+			if(mirrored && segment % 2 == 1)
+				pos = ledNum - 1 - pos;
+			pos += segment * ledNum;
+			return pos < pixels ? pos : -1;
+		}
+		if(mirrored && ledNum > 1)
+			pos = ledNum - 1 - pos;
+		return pos;
+	}
+	
+	@Override
+	public String toString() {
+		return "LedGeometry[leds=" + ledNum + ", pixels=" + pixels + ", segments=" + getSegmentCount()
+			+ ", shift=" + shift + ", mirrored=" + mirrored + "]";
+	}
+
+}
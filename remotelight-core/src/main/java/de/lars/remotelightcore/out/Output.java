@@ -26,6 +26,8 @@ import de.lars.remotelightcore.utils.color.Color;
 import java.io.Serializable;
 
 import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.metrics.PerformanceMetrics;
+import de.lars.remotelightcore.out.patch.ColorCorrection;
 import de.lars.remotelightcore.out.patch.OutputPatch;
 
 public abstract class Output implements Serializable {
@@ -37,6 +39,10 @@ public abstract class Output implements Serializable {
 	private String id;
 	private int pixels;
 	private OutputPatch outputPatch;
+	private int maxFps;
+	private int keepAliveInterval;
+	private ColorCorrection colorCorrection;
+	private transient volatile PerformanceMetrics metrics;
 	
 	public Output(String id, int pixels) {
 		this.id = id;
@@ -68,6 +74,67 @@ public abstract class Output implements Serializable {
 		return outputPatch;
 	}
 	
+	/**
+	 * Get the gamma and white point calibration of this output
+	 * @return	color correction of this output
+	 */
+	public ColorCorrection getColorCorrection() {
+		// backward compatible
+		if(colorCorrection == null)
+			colorCorrection = new ColorCorrection();
+		return colorCorrection;
+	}
+	
+	/**
+	 * Get the interval in which unchanged frames are sent again.
+	 * Identical frames are skipped in between, so static content does
+	 * not keep the connection busy. Receivers with a timeout stay lit
+	 * as long as the interval is shorter than their timeout.
+	 * @return	keep-alive interval in milliseconds or 0 if every
+	 * 			frame is sent (default)
+	 */
+	public int getKeepAliveInterval() {
+		return Math.max(0, keepAliveInterval);
+	}
+	
+	/**
+	 * Enable sending unchanged frames only in the given interval
+	 * @param keepAliveInterval	interval in milliseconds or 0 to send
+	 * 							every frame
+	 */
+	public void setKeepAliveInterval(int keepAliveInterval) {
+		this.keepAliveInterval = Math.max(0, keepAliveInterval);
+	}
+	
+	/**
+	 * Get the maximum number of frames per second sent to this output
+	 * @return	frame rate cap or 0 if unlimited
+	 */
+	public int getMaxFps() {
+		return maxFps;
+	}
+	
+	/**
+	 * Limit the number of frames per second sent to this output
+	 * @param maxFps	frame rate cap or 0 to disable the limit
+	 */
+	public void setMaxFps(int maxFps) {
+		this.maxFps = Math.max(0, maxFps);
+	}
+	
+	/**
+	 * @return encode/send time, frame rate, drop and error counters of this output
+	 */
+	public PerformanceMetrics getMetrics() {
+		if(metrics == null) {
+			synchronized (this) {
+				if(metrics == null)
+					metrics = new PerformanceMetrics(id);
+			}
+		}
+		return metrics;
+	}
+	
 	public void onActivate() {
 	}
 	
@@ -78,5 +145,16 @@ public abstract class Output implements Serializable {
 
 	public void onOutput(Color[] pixels) {
 	}
+	
+	/**
+	 * Called by the output loop for every frame. The frame buffer is
+	 * reused by the caller and must not be stored.
+	 * <p>Converts the frame to a color array and calls
+	 * {@link #onOutput(Color[])} by default.
+	 * @param frame	frame to output
+	 */
+	public void onOutput(FrameBuffer frame) {
+		onOutput(frame.toColors());
+	}
 
 }
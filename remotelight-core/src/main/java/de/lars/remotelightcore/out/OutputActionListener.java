@@ -25,7 +25,7 @@ package de.lars.remotelightcore.out;
 public interface OutputActionListener {
 	
 	public enum OutputActionType {
-		ACTIVATED, DEACTIVATED, ACTIVE_OUTPUT_CHANGED, DISCONNECTED
+		ACTIVATED, DEACTIVATED, ACTIVE_OUTPUT_CHANGED, DISCONNECTED, RECONNECTING, RECONNECTED
 	}
 	
 	public void onOutputAction(Output output, OutputActionType type);
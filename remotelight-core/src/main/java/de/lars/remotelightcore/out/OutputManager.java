@@ -22,19 +22,31 @@
 
 package de.lars.remotelightcore.out;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.tinylog.Logger;
 
 import de.lars.remotelightcore.RemoteLightCore;
 import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.ReconnectSupervisor;
 import de.lars.remotelightcore.event.events.types.ConnectionEvent;
 import de.lars.remotelightcore.event.events.types.ConnectionEvent.Action;
 import de.lars.remotelightcore.out.OutputActionListener.OutputActionType;
+import de.lars.remotelightcore.settings.SettingHandle;
 import de.lars.remotelightcore.settings.SettingsManager;
 import de.lars.remotelightcore.settings.types.SettingBoolean;
-import de.lars.remotelightcore.settings.types.SettingInt;
 import de.lars.remotelightcore.utils.OutputUtil;
+import de.lars.remotelightcore.utils.RenderClock;
+import de.lars.remotelightcore.utils.RenderClock.TickListener;
 import de.lars.remotelightcore.utils.color.Color;
-import de.lars.remotelightcore.utils.color.PixelColorUtils;
 
 public class OutputManager {
 	
@@ -43,17 +55,38 @@ public class OutputManager {
 	
 	private RemoteLightCore core;
 	private SettingsManager sm;
-	private volatile Output activeOutput;
+	private SettingHandle<Integer> delaySetting;
+	private SettingHandle<Boolean> reconnectSetting;
+	private final ReconnectSupervisor reconnectSupervisor = new ReconnectSupervisor();
+	private volatile Output activeOutput;	// primary output, defines the number of LEDs
+	private final List<OutputSender> senders = new CopyOnWriteArrayList<OutputSender>();
+	// outputs that lost the connection are deactivated here, not on the output loop thread
+	private final ExecutorService deactivator = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "Output deactivation");
+		t.setDaemon(true);
+		return t;
+	});
+	private final Set<Output> deactivating = ConcurrentHashMap.newKeySet();
 	private OutputActionListener actionListener;
-	private Color[] outputPixels;
-	private Color[] lastPixels;
+	private final Object producerLock = new Object();
+	private FrameBuffer lastFrame;		// last frame added by an effect
+	private Color[] lastColors;
+	private final TripleFrameBuffer frameExchange = new TripleFrameBuffer(0);
+	private final AtomicLong framesProduced = new AtomicLong();
+	private final AtomicLong framesSent = new AtomicLong();
+	private final AtomicLong framesDropped = new AtomicLong();
 	private int delay = 50;
-	private int brightness = 100;
-	private boolean active;
+	private volatile int brightness = 100;
+	private volatile boolean active;
+	private volatile RenderClock.Task clockTask;
+	private volatile LedGeometry geometry = LedGeometry.EMPTY;
 	
 	public OutputManager() {
 		core = RemoteLightCore.getInstance();
 		sm = core.getSettingsManager();
+		delaySetting = sm.getHandle("out.delay", Integer.class);
+		reconnectSetting = sm.getHandle("out.reconnect", Boolean.class);
+		reconnectSupervisor.setReconnectListener(device -> fireOutputAction(device, OutputActionType.RECONNECTED));
 		active = false;
 	}
 	
@@ -67,27 +100,128 @@ public class OutputManager {
 		}
 	}
 
-	public synchronized Output getActiveOutput() {
+	/**
+	 * @return supervisor that reconnects active devices which lost the connection
+	 */
+	public ReconnectSupervisor getReconnectSupervisor() {
+		return reconnectSupervisor;
+	}
+
+	public Output getActiveOutput() {
 		return activeOutput;
 	}
+	
+	/**
+	 * Get the LED layout of the primary output. The returned snapshot
+	 * is immutable and can be read without locking; a new snapshot is
+	 * created when the primary output or its patch changes.
+	 * @return current geometry snapshot
+	 */
+	public LedGeometry getGeometry() {
+		LedGeometry g = geometry;
+		Output output = activeOutput;
+		if(!g.isValidFor(output)) {
+			g = LedGeometry.of(output);
+			geometry = g;
+		}
+		return g;
+	}
 
+	/**
+	 * Set the primary output. The previous primary output is deactivated,
+	 * additional outputs stay active.
+	 * @param activeOutput new primary output
+	 */
 	public synchronized void setActiveOutput(Output activeOutput) {
-		this.setEnabled(false);
 		if(this.activeOutput != null && !(this.activeOutput.getId().equals(activeOutput.getId()))) {
 			
 			deactivate(this.activeOutput);
 		}
-		if(outputPixels == null) {
-			outputPixels = PixelColorUtils.colorAllPixels(Color.BLACK, activeOutput.getPixels());
-			lastPixels = PixelColorUtils.colorAllPixels(Color.BLACK, activeOutput.getPixels());
+		if(!frameExchange.hasFrame()) {
+			setOutputPixels(new FrameBuffer(activeOutput.getPixels()));
 		}
 
 		activate(activeOutput);
 		this.activeOutput = activeOutput;
+		geometry = LedGeometry.of(activeOutput);
+		startSender(activeOutput);
+		// the primary output is always the first sender
+		OutputSender sender = getSender(activeOutput);
+		if(senders.indexOf(sender) > 0) {
+			senders.remove(sender);
+			senders.add(0, sender);
+		}
 		fireOutputAction(activeOutput, OutputActionType.ACTIVE_OUTPUT_CHANGED);
 		this.loop();
 	}
 	
+	/**
+	 * Activate an additional output without deactivating the other
+	 * active outputs. Every output is driven by its own sender thread,
+	 * so a slow output does not delay the others. If there is no
+	 * active output yet, the output becomes the primary output.
+	 * @param output output to activate
+	 */
+	public synchronized void addActiveOutput(Output output) {
+		if(activeOutput == null) {
+			setActiveOutput(output);
+			return;
+		}
+		if(isOutputActive(output))
+			return;
+		activate(output);
+		startSender(output);
+		this.loop();
+	}
+	
+	/**
+	 * @return list of all active outputs, the primary output is the first
+	 */
+	public List<Output> getActiveOutputs() {
+		List<Output> outputs = new ArrayList<Output>(senders.size());
+		for(OutputSender sender : senders) {
+			outputs.add(sender.getOutput());
+		}
+		return outputs;
+	}
+	
+	/**
+	 * @param output output to check
+	 * @return true if the output is one of the active outputs
+	 */
+	public boolean isOutputActive(Output output) {
+		return getSender(output) != null;
+	}
+	
+	/**
+	 * @param output active output
+	 * @return the sender of the output or null if the output is not active
+	 */
+	public OutputSender getSender(Output output) {
+		for(OutputSender sender : senders) {
+			Output o = sender.getOutput();
+			if(o == output || o.getId().equals(output.getId()))
+				return sender;
+		}
+		return null;
+	}
+	
+	private void startSender(Output output) {
+		if(isOutputActive(output))
+			return;
+		OutputSender sender = new OutputSender(output, framesSent);
+		sender.start();
+		senders.add(sender);
+	}
+	
+	private void stopSender(Output output) {
+		OutputSender sender = getSender(output);
+		if(sender != null) {
+			senders.remove(sender);
+			sender.stop();
+		}
+	}
+	
 	/**
 	 * Connects the device if not connected
 	 */
@@ -105,12 +239,20 @@ public class OutputManager {
 	 */
 	public synchronized void deactivate(Output output) {
 		Logger.info("Deactivate output: " + output.getId() + String.format(" (%s)", OutputUtil.getOutputTypeAsString(output)));
+		if(output instanceof Device) {
+			reconnectSupervisor.cancel((Device) output);
+		}
 		if(output.getState() == ConnectionState.CONNECTED) {
 			output.onDeactivate();
 			core.getEventHandler().call(new ConnectionEvent(output, Action.DEACTIVATE));
 		}
+		stopSender(output);
 		if(activeOutput != null && (output == activeOutput || output.getId().equals(activeOutput.getId()))) {
-			activeOutput = null;
+			// next active output becomes the primary output
+			activeOutput = senders.isEmpty() ? null : senders.get(0).getOutput();
+			geometry = LedGeometry.of(activeOutput);
+			if(activeOutput != null)
+				fireOutputAction(activeOutput, OutputActionType.ACTIVE_OUTPUT_CHANGED);
 		}
 		fireOutputAction(activeOutput, OutputActionType.DEACTIVATED);
 	}
@@ -128,8 +270,9 @@ public class OutputManager {
 	 * @return Delay of the output loop
 	 */
 	public int getDelay() {
-		if(((SettingInt) sm.getSettingFromId("out.delay")) != null) {
-			delay = ((SettingInt) sm.getSettingFromId("out.delay")).get();
+		Integer value = delaySetting.get();
+		if(value != null) {
+			delay = value;
 		}
 		return delay;
 	}
@@ -151,7 +294,12 @@ public class OutputManager {
 	 * @return Color array that was last sent
 	 */
 	public Color[] getLastColors() {
-		return lastPixels;
+		synchronized (producerLock) {
+			if(lastColors == null && lastFrame != null) {
+				lastColors = lastFrame.toColors();
+			}
+			return lastColors;
+		}
 	}
 	
 	/**
@@ -160,9 +308,30 @@ public class OutputManager {
 	 */
 	public void setEnabled(boolean enabled) {
 		active = enabled;
-		if(!active && activeOutput != null) {
-			deactivate(activeOutput);
-		}		
+		if(!active) {
+			stopLoop();
+			Output primary = activeOutput;
+			for(OutputSender sender : senders) {
+				if(sender.getOutput() != primary)
+					deactivate(sender.getOutput());
+			}
+			if(primary != null) {
+				deactivate(primary);
+			}
+		}
+	}
+	
+	/**
+	 * Stop the output loop without deactivating the outputs
+	 */
+	private void stopLoop() {
+		active = false;
+		RenderClock.Task task = clockTask;
+		if(task != null) {
+			core.getRenderClock().cancel(task);
+			clockTask = null;
+			Logger.info("Stopped output loop.");
+		}
 	}
 	
 	/**
@@ -176,7 +345,10 @@ public class OutputManager {
 	public void close() {
 		if(activeOutput != null) {
 			if(sm.getSetting(SettingBoolean.class, "out.effects.disableleds").get()) {
-				activeOutput.onOutput(PixelColorUtils.colorAllPixels(Color.BLACK, RemoteLightCore.getLedNum()));
+				for(OutputSender sender : senders) {
+					sender.stop();
+					sender.getOutput().onOutput(new FrameBuffer(sender.getOutput().getPixels()));
+				}
 			}
 			
 			//save last output before closing
@@ -195,75 +367,115 @@ public class OutputManager {
 		RemoteLightCore.getInstance().getOutputManager().setOutputPixels(pixels);
 	}
 	
+	/**
+	 * The content of the frame is copied, so the caller
+	 * can reuse the frame buffer for the next frame.
+	 * @param frame Frame which size must be equal the number of LEDs
+	 */
+	public static void addToOutput(FrameBuffer frame) {
+		RemoteLightCore.getInstance().getOutputManager().setOutputPixels(frame);
+	}
+	
+	/**
+	 * 
+	 * @return Number of frames added to the output
+	 */
+	public long getFramesProduced() {
+		return framesProduced.get();
+	}
+	
+	/**
+	 * 
+	 * @return Number of frames sent by all output senders
+	 */
+	public long getFramesSent() {
+		return framesSent.get();
+	}
+	
+	/**
+	 * 
+	 * @return Number of frames that were replaced by a newer
+	 * frame before the output loop could send them
+	 */
+	public long getFramesDropped() {
+		return framesDropped.get();
+	}
+	
 	private void setOutputPixels(Color[] pixels) {
-		lastPixels = pixels;
-		outputPixels = this.changeBrightness(pixels, getBrightness());
+		synchronized (producerLock) {
+			if(lastFrame == null)
+				lastFrame = new FrameBuffer(pixels.length);
+			lastFrame.setColors(pixels);
+			publishFrame();
+		}
 	}
 	
-	private Color[] getOutputPixels() {
-		Color[] out = outputPixels;
-		return out;
+	private void setOutputPixels(FrameBuffer frame) {
+		synchronized (producerLock) {
+			if(lastFrame == null)
+				lastFrame = new FrameBuffer(frame.size());
+			lastFrame.copyFrom(frame);
+			publishFrame();
+		}
+	}
+	
+	/**
+	 * Hand the last frame over to the output loop. The producer lock is
+	 * only shared between effect threads, the output loop never waits for it.
+	 * Brightness is applied by the outputs (see {@link Output#getColorCorrection()}).
+	 */
+	private void publishFrame() {
+		lastColors = null;
+		frameExchange.getWriteFrame().copyFrom(lastFrame);
+		framesProduced.incrementAndGet();
+		if(frameExchange.publish()) {
+			framesDropped.incrementAndGet();
+		}
 	}
 	
 	private void loop() {
 		if(!active) {
 			active = true;
-			new Thread(new Runnable() {
+			Logger.info("Started output loop.");
+			clockTask = core.getRenderClock().schedule("Output", this::getDelay, new TickListener() {
 				
 				@Override
-				public void run() {
-					Logger.info("Started output loop.");
+				public void onTick(long elapsedNanos) {
+					if(!frameExchange.hasFrame() || senders.isEmpty()) {
+						Logger.info("Invalid output data, stop Output loop!");
+						stopLoop();
+						return;
+					}
 					
-					while(active) {
-						if((outputPixels != null) && (activeOutput != null) && (activeOutput.getState() == ConnectionState.CONNECTED)) {
-							
-							Color[] out = getOutputPixels();
-							activeOutput.onOutput(out);
-							
-							try {
-								Thread.sleep(getDelay());
-							} catch (InterruptedException e) {
-								Logger.error(e);
+					FrameBuffer out = frameExchange.getReadFrame();
+					for(OutputSender sender : senders) {
+						Output output = sender.getOutput();
+						if(output.getState() == ConnectionState.CONNECTED) {
+							// hand over to the sender thread of the output
+							sender.offer(out);
+						} else if(output instanceof Device && reconnectSetting.get(true)) {
+							// keep rendering, sending resumes when the device is connected again
+							Device device = (Device) output;
+							// reconnect on the sender thread, never while a frame is sent
+							if(!reconnectSupervisor.isReconnecting(device) && reconnectSupervisor.watch(device, sender)) {
+								fireOutputAction(output, OutputActionType.RECONNECTING);
 							}
-						} else if(activeOutput != null && activeOutput.getState() != ConnectionState.CONNECTED) {
-							Logger.info("Output not connected, deactivate Output!");
-							setEnabled(false);
-							fireOutputAction(activeOutput, OutputActionType.DISCONNECTED);
-						} else {
-							Logger.info("Invalid output data, disable Output loop!");
-							setEnabled(false);
+						} else if(deactivating.add(output)) {
+							// deactivating joins the sender thread, do not block the output loop
+							Logger.info("Output " + output.getId() + " not connected, deactivate Output!");
+							deactivator.execute(() -> {
+								try {
+									deactivate(output);
+									fireOutputAction(output, OutputActionType.DISCONNECTED);
+								} finally {
+									deactivating.remove(output);
+								}
+							});
 						}
 					}
-					Logger.info("Stopped output loop.");
 				}
-			}, "Output loop").start();
-		}
-	}
-	
-	/**
-	 * 
-	 * @param colors Color array
-	 * @param value Dim value between 0 and 100
-	 */
-	private Color[] changeBrightness(Color[] color, int value) {
-		Color[] colors = new Color[color.length];
-		if(value < 0) {
-			value = 0;
-		} else if(value > 100) {
-			value = 100;
-		}
-		for(int i = 0; i < colors.length; i++) {
-			int r = color[i].getRed();
-			int g = color[i].getGreen();
-			int b = color[i].getBlue();
-			
-			r = r * value / 100;
-			g = g * value / 100;
-			b = b * value / 100;
-			
-			colors[i] = new Color(r, g, b);
+			});
 		}
-		return colors;
 	}
 
 }
@@ -0,0 +1,221 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.out;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.tinylog.Logger;
+
+/**
+ * Sends frames to a single {@link Output} on its own thread.
+ * <p>
+ * Frames are handed over through a {@link TripleFrameBuffer} that only
+ * holds the newest frame. If the output is slower than the output loop,
+ * older frames are replaced (and counted as dropped) instead of queuing up,
+ * so a slow device never delays other outputs or receives outdated frames.
+ * The send rate can be limited with {@link Output#getMaxFps()}.
+ * <p>
+ * Tasks passed to {@link #execute(Runnable)} run on the sender thread
+ * between two frames, e.g. to reconnect the output while no frame is sent.
+ */
+public class OutputSender implements Executor {
+	
+	private final Output output;
+	private final TripleFrameBuffer mailbox;
+	private final AtomicLong framesSent = new AtomicLong();
+	private final AtomicLong totalFramesSent;
+	private final AtomicLong framesDropped = new AtomicLong();
+	private final AtomicLong sendErrors = new AtomicLong();
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private volatile boolean running;
+	private volatile Thread thread;
+	private long lastSend;
+	
+	public OutputSender(Output output) {
+		this(output, null);
+	}
+	
+	/**
+	 * @param output			output to send to
+	 * @param totalFramesSent	counter shared by all senders or null
+	 */
+	public OutputSender(Output output, AtomicLong totalFramesSent) {
+		this.output = output;
+		this.totalFramesSent = totalFramesSent;
+		this.mailbox = new TripleFrameBuffer(output.getPixels());
+	}
+	
+	public Output getOutput() {
+		return output;
+	}
+	
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		thread = new Thread(this::run, "Output sender " + output.getId());
+		thread.start();
+	}
+	
+	/**
+	 * Stop the sender thread and wait until the current frame is sent.
+	 */
+	public void stop() {
+		Thread t;
+		synchronized (this) {
+			running = false;
+			t = thread;
+			thread = null;
+		}
+		if(t != null && t != Thread.currentThread()) {
+			LockSupport.unpark(t);
+			try {
+				t.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Hand a new frame to the sender. The frame is copied and fitted to the
+	 * pixel number of the output (cut or filled up with black).
+	 * Never blocks, even if the output is still busy with the previous frame.
+	 * @param frame	frame to send
+	 */
+	public void offer(FrameBuffer frame) {
+		FrameBuffer target = mailbox.getWriteFrame();
+		int pixels = output.getPixels();
+		if(pixels <= 0 || pixels == frame.size()) {
+			target.copyFrom(frame);
+		} else {
+			target.resize(pixels);
+			int length = Math.min(pixels, frame.size());
+			target.copyRange(frame, 0, 0, length);
+			if(length < pixels) {
+				Arrays.fill(target.getData(), length, pixels, 0);
+			}
+		}
+		if(mailbox.publish()) {
+			framesDropped.incrementAndGet();
+			output.getMetrics().recordDropped(1);
+		}
+		Thread t = thread;
+		if(t != null)
+			LockSupport.unpark(t);
+	}
+	
+	/**
+	 * Run the task on the sender thread before the next frame is sent.
+	 * @param task	task to run
+	 * @throws RejectedExecutionException if the sender is not running
+	 */
+	@Override
+	public void execute(Runnable task) {
+		if(!running)
+			throw new RejectedExecutionException("Sender of output " + output.getId() + " is not running");
+		tasks.add(task);
+		Thread t = thread;
+		if(t != null)
+			LockSupport.unpark(t);
+	}
+	
+	/**
+	 * @return number of frames sent to the output
+	 */
+	public long getFramesSent() {
+		return framesSent.get();
+	}
+	
+	/**
+	 * @return number of frames that were replaced by a newer frame
+	 * 			before they could be sent
+	 */
+	public long getFramesDropped() {
+		return framesDropped.get();
+	}
+	
+	/**
+	 * @return number of frames that could not be sent because
+	 * 			the output threw an exception
+	 */
+	public long getSendErrors() {
+		return sendErrors.get();
+	}
+	
+	private void run() {
+		Logger.debug("Started sender thread for output " + output.getId());
+		while(running) {
+			Runnable task;
+			while((task = tasks.poll()) != null) {
+				try {
+					task.run();
+				} catch(Exception e) {
+					Logger.error(e, "Could not run task on sender thread of output " + output.getId());
+				}
+			}
+			
+			if(!mailbox.hasNewFrame()) {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+				continue;
+			}
+			
+			// respect frame rate cap
+			int maxFps = output.getMaxFps();
+			if(maxFps > 0) {
+				long wait = lastSend + TimeUnit.SECONDS.toNanos(1) / maxFps - System.nanoTime();
+				if(wait > 0) {
+					LockSupport.parkNanos(this, wait);
+					continue;
+				}
+			}
+			
+			// always take the newest frame, skipped frames are counted as dropped
+			FrameBuffer frame = mailbox.getReadFrame();
+			lastSend = System.nanoTime();
+			try {
+				output.onOutput(frame);
+				framesSent.incrementAndGet();
+				if(totalFramesSent != null)
+					totalFramesSent.incrementAndGet();
+			} catch(Exception e) {
+				sendErrors.incrementAndGet();
+				output.getMetrics().recordError();
+				Logger.error(e, "Could not send frame to output " + output.getId());
+			}
+		}
+		Logger.debug("Stopped sender thread for output " + output.getId());
+	}
+
+}
@@ -0,0 +1,110 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.out;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer for handing frames from a producer
+ * (effect thread) to a consumer (output loop).
+ * <p>
+ * The producer always writes into its own back buffer and swaps it with
+ * the shared middle buffer when the frame is complete. The consumer swaps
+ * its front buffer with the middle buffer if a new frame was published.
+ * Neither side ever waits for the other and the consumer always gets the
+ * newest complete frame. Frames that are overwritten before the consumer
+ * picked them up are counted as dropped.
+ * <p>
+ * There must only be one producer and one consumer at a time. Callers with
+ * multiple producer threads need to serialize {@link #getWriteFrame()} and
+ * {@link #publish()} themselves.
+ */
+public class TripleFrameBuffer {
+	
+	/** flag set in {@link #middle} if it contains an unread frame */
+	private static final int DIRTY = 0x4;
+	private static final int INDEX_MASK = 0x3;
+	
+	private final FrameBuffer[] buffers;
+	private final AtomicInteger middle;
+	private int back;	// only accessed by the producer
+	private int front;	// only accessed by the consumer
+	private volatile boolean published;
+	
+	public TripleFrameBuffer(int size) {
+		buffers = new FrameBuffer[] {
+				new FrameBuffer(size), new FrameBuffer(size), new FrameBuffer(size) };
+		back = 0;
+		middle = new AtomicInteger(1);
+		front = 2;
+	}
+	
+	/**
+	 * Producer side: get the frame buffer the next frame should be written to.
+	 * The content is undefined and must be overwritten completely.
+	 * @return back buffer of the producer
+	 */
+	public FrameBuffer getWriteFrame() {
+		return buffers[back];
+	}
+	
+	/**
+	 * Producer side: publish the frame written to {@link #getWriteFrame()}.
+	 * @return true if the previously published frame was not read by
+	 * 			the consumer and is therefore dropped
+	 */
+	public boolean publish() {
+		int old = middle.getAndSet(back | DIRTY);
+		back = old & INDEX_MASK;
+		published = true;
+		return (old & DIRTY) != 0;
+	}
+	
+	/**
+	 * @return true if a frame was published which was not read yet
+	 */
+	public boolean hasNewFrame() {
+		return (middle.get() & DIRTY) != 0;
+	}
+	
+	/**
+	 * @return true if at least one frame was published
+	 */
+	public boolean hasFrame() {
+		return published;
+	}
+	
+	/**
+	 * Consumer side: get the newest complete frame. If no new frame was
+	 * published since the last call, the previous frame is returned again.
+	 * The returned frame stays valid until the next call of this method.
+	 * @return newest frame
+	 */
+	public FrameBuffer getReadFrame() {
+		if(hasNewFrame()) {
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return buffers[front];
+	}
+	
+}
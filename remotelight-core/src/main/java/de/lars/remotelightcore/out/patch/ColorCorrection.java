@@ -0,0 +1,170 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.out.patch;
+
+import java.io.Serializable;
+
+/**
+ * Per output color calibration (gamma and white point).
+ * <p>
+ * Gamma, white point and the global brightness are combined into a
+ * lookup table with 256 entries per channel, which is only rebuilt
+ * when one of the values changes.
+ */
+public class ColorCorrection implements Serializable {
+	private static final long serialVersionUID = -2871398620245738105L;
+	
+	public static final float MIN_GAMMA = 0.1f;
+	public static final float MAX_GAMMA = 5.0f;
+	
+	private float gammaRed = 1.0f;
+	private float gammaGreen = 1.0f;
+	private float gammaBlue = 1.0f;
+	private int whiteRed = 255;
+	private int whiteGreen = 255;
+	private int whiteBlue = 255;
+	
+	/** incremented on every change of gamma or white point */
+	private transient volatile int revision;
+	private transient volatile LookupTable lookupTable;
+	
+	public ColorCorrection() {
+	}
+	
+	/**
+	 * Set the same gamma value for all channels
+	 * @param gamma	gamma value, 1.0 to disable gamma correction
+	 */
+	public void setGamma(float gamma) {
+		setGamma(gamma, gamma, gamma);
+	}
+	
+	public void setGamma(float red, float green, float blue) {
+		this.gammaRed = clampGamma(red);
+		this.gammaGreen = clampGamma(green);
+		this.gammaBlue = clampGamma(blue);
+		revision++;
+	}
+	
+	public float getGammaRed() {
+		return gammaRed;
+	}
+	
+	public float getGammaGreen() {
+		return gammaGreen;
+	}
+	
+	public float getGammaBlue() {
+		return gammaBlue;
+	}
+	
+	/**
+	 * Set the color which is output for full white (white balance)
+	 * @param red	red value 0..255
+	 * @param green	green value 0..255
+	 * @param blue	blue value 0..255
+	 */
+	public void setWhitePoint(int red, int green, int blue) {
+		this.whiteRed = clampValue(red);
+		this.whiteGreen = clampValue(green);
+		this.whiteBlue = clampValue(blue);
+		revision++;
+	}
+	
+	public int getWhiteRed() {
+		return whiteRed;
+	}
+	
+	public int getWhiteGreen() {
+		return whiteGreen;
+	}
+	
+	public int getWhiteBlue() {
+		return whiteBlue;
+	}
+	
+	/**
+	 * Get the lookup table for the given brightness. The table contains
+	 * 256 entries for red, followed by 256 entries for green and blue.
+	 * A new array is created whenever the table is rebuilt, so callers
+	 * can detect changes by comparing the reference.
+	 * @param brightness	global brightness 0..100
+	 * @return				lookup table with 768 entries
+	 */
+	public int[] getLookupTable(int brightness) {
+		if(brightness < 0) {
+			brightness = 0;
+		} else if(brightness > 100) {
+			brightness = 100;
+		}
+		// read the revision before the values, a concurrent change
+		// results in an outdated revision and a rebuild on the next call
+		int rev = revision;
+		LookupTable lut = lookupTable;
+		if(lut == null || lut.revision != rev || lut.brightness != brightness) {
+			int[] t = new int[768];
+			fillChannel(t, 0, gammaRed, whiteRed, brightness);
+			fillChannel(t, 256, gammaGreen, whiteGreen, brightness);
+			fillChannel(t, 512, gammaBlue, whiteBlue, brightness);
+			lut = new LookupTable(t, rev, brightness);
+			lookupTable = lut;
+		}
+		return lut.table;
+	}
+	
+	private static void fillChannel(int[] t, int offset, float gamma, int white, int brightness) {
+		gamma = clampGamma(gamma);
+		// white point and brightness as a single factor
+		double scale = white / 255.0 * brightness / 100.0;
+		for(int v = 0; v < 256; v++) {
+			double corrected = gamma == 1.0f ? v : Math.pow(v / 255.0, gamma) * 255.0;
+			t[offset + v] = (int) (corrected * scale + 0.5);
+		}
+	}
+	
+	private static float clampGamma(float gamma) {
+		if(gamma <= 0 || Float.isNaN(gamma))
+			return 1.0f;
+		return Math.max(MIN_GAMMA, Math.min(MAX_GAMMA, gamma));
+	}
+	
+	private static int clampValue(int value) {
+		return Math.max(0, Math.min(255, value));
+	}
+	
+	/**
+	 * Immutable lookup table together with the values it was built for
+	 */
+	private static class LookupTable {
+		final int[] table;
+		final int revision;
+		final int brightness;
+		
+		LookupTable(int[] table, int revision, int brightness) {
+			this.table = table;
+			this.revision = revision;
+			this.brightness = brightness;
+		}
+	}
+
+}
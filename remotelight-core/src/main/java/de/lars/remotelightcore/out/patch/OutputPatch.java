@@ -24,8 +24,10 @@ package de.lars.remotelightcore.out.patch;
 
 import de.lars.remotelightcore.utils.color.Color;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import de.lars.remotelightcore.devices.arduino.RgbOrder;
+import de.lars.remotelightcore.out.FrameBuffer;
 import de.lars.remotelightcore.utils.color.ColorUtil;
 import de.lars.remotelightcore.utils.color.PixelColorUtils;
 
@@ -39,6 +41,15 @@ public class OutputPatch implements Serializable {
 	private int shift;		// shift all colors to left or right
 	private int clone;		// number of times the strip is cloned
 	private boolean cloneMirrored;
+	// compiled patch, rebuilt when the settings change
+	private transient volatile boolean compiled;
+	// incremented on every change, used by LedGeometry snapshots
+	private transient volatile int revision;
+	private transient int[] indexMap;
+	private transient int compiledLength;
+	private transient RgbOrder compiledOrder;
+	private transient int[] compiledLut;
+	private transient int[] channelTable;
 
 	
 	public OutputPatch(int pixel) {
@@ -48,6 +59,16 @@ public class OutputPatch implements Serializable {
 	
 	public void setPixelNumber(int pixel) {
 		this.pixel = pixel;
+		compiled = false;
+		revision++;
+	}
+	
+	
+	/**
+	 * @return change counter of this patch
+	 */
+	public int getRevision() {
+		return revision;
 	}
 	
 	
@@ -58,6 +79,8 @@ public class OutputPatch implements Serializable {
 
 	public void setShift(int shift) {
 		this.shift = shift;
+		compiled = false;
+		revision++;
 	}
 
 
@@ -68,6 +91,8 @@ public class OutputPatch implements Serializable {
 
 	public void setClone(int clone) {
 		this.clone = clone;
+		compiled = false;
+		revision++;
 	}
 	
 	
@@ -78,6 +103,8 @@ public class OutputPatch implements Serializable {
 	
 	public void setCloneMirrored(boolean cloneMirrored) {
 		this.cloneMirrored = cloneMirrored;
+		compiled = false;
+		revision++;
 	}
 	
 	
@@ -96,6 +123,164 @@ public class OutputPatch implements Serializable {
 	}
 	
 	
+	/**
+	 * Apply RGB order, shift, clone and mirror to the input frame and
+	 * write the result into the output frame. Uses the compiled index map,
+	 * so every frame is a single pass without allocations.
+	 * @param input		frame rendered by the effect
+	 * @param output	reusable destination frame
+	 * @param rgbOrder	RGB order of the device
+	 * @return			the output frame
+	 */
+	public FrameBuffer patchOutput(FrameBuffer input, FrameBuffer output, RgbOrder rgbOrder) {
+		return patchOutput(input, output, rgbOrder, null);
+	}
+	
+	/**
+	 * Apply RGB order, shift, clone, mirror and the color lookup table
+	 * (see {@link ColorCorrection#getLookupTable(int)}) in a single pass.
+	 * @param input		frame rendered by the effect
+	 * @param output	reusable destination frame
+	 * @param rgbOrder	RGB order of the device
+	 * @param lut		lookup table with 768 entries or null
+	 * @return			the output frame
+	 */
+	public FrameBuffer patchOutput(FrameBuffer input, FrameBuffer output, RgbOrder rgbOrder, int[] lut) {
+		return patchOutput(input, 0, input.size(), output, rgbOrder, lut);
+	}
+	
+	/**
+	 * Patch a slice of the input frame without copying it. Pixel {@code i}
+	 * of the slice is pixel {@code offset + i} of the input frame, pixels
+	 * outside of the input frame are black. This allows to pad or center
+	 * the slice using a negative offset or a length that exceeds the frame.
+	 * @param input		frame rendered by the effect
+	 * @param offset	index of the first slice pixel in the input frame, may be negative
+	 * @param length	number of pixels in the slice
+	 * @param output	reusable destination frame
+	 * @param rgbOrder	RGB order of the device
+	 * @param lut		lookup table with 768 entries or null
+	 * @return			the output frame
+	 */
+	public FrameBuffer patchOutput(FrameBuffer input, int offset, int length, FrameBuffer output, RgbOrder rgbOrder, int[] lut) {
+		if(length < 0)
+			throw new IllegalArgumentException("Slice length must not be negative: " + length);
+		int[] map = indexMap;
+		if(!compiled || length != compiledLength || map == null) {
+			map = compile(length);
+		}
+		int[] t = channelTable;
+		if(t == null || rgbOrder != compiledOrder || lut != compiledLut) {
+			t = compileChannelTable(rgbOrder, lut);
+		}
+		
+		output.resize(map.length);
+		final int[] src = input.getData();
+		final int[] dest = output.getData();
+		// slice indices that are inside of the input frame
+		final int min = Math.max(0, -offset);
+		final int max = input.size() - offset;
+		for(int i = 0; i < map.length; i++) {
+			int index = map[i];
+			if(index < min || index >= max) {
+				dest[i] = 0;
+			} else {
+				int rgb = src[offset + index];
+				dest[i] = t[(rgb >> 16) & 0xFF] | t[256 + ((rgb >> 8) & 0xFF)] | t[512 + (rgb & 0xFF)];
+			}
+		}
+		return output;
+	}
+	
+	/**
+	 * Compile shift, clone and mirror into a table which contains the
+	 * source index for every output pixel ({@code -1} for black pixels).
+	 * The table is rebuilt if the patch settings or the input length change.
+	 * @param length	number of input pixels
+	 * @return			the index map
+	 */
+	private int[] compile(int length) {
+		compiled = true;
+		
+		// shift: input pixel i is moved to (i + start) % length
+		int start = 0;
+		if(shift != 0 && Math.abs(shift) < length && length > 1)
+			start = shift > 0 ? shift : length + shift;
+		int[] shifted = new int[length];
+		for(int i = 0; i < length; i++) {
+			shifted[(i + start) % length] = i;
+		}
+		
+		int[] map;
+		if(clone != 0 && length >= getPatchedPixelNumber()) {
+			// clone / mirror the strip x times
+			map = new int[pixel];
+			Arrays.fill(map, -1);
+			int counterClone = 0;	// counts the number of clones
+			int indexInput = 0;
+			byte summand = 1;
+			
+			for(int i = 0; i < pixel && length > 0; i++) {
+				map[i] = shifted[indexInput];
+				
+				indexInput += summand;		// +1 or -1 if mirrored
+				
+				if(indexInput >= length || indexInput < 0) {
+					if(++counterClone <= clone) {
+						if(cloneMirrored && summand == 1) {
+							indexInput = length - 1;
+							summand = -1;
+						} else {
+							indexInput = 0;
+							summand = 1;
+						}
+					} else {
+						break;
+					}
+				}
+			}
+		} else if(clone <= 0 && cloneMirrored && length > 1) {
+			// mirror function if mirror is enabled but clone is 0
+			map = new int[length];
+			for(int i = 0; i < length; i++) {
+				map[i] = shifted[length - 1 - i];
+			}
+		} else {
+			map = shifted;
+		}
+		
+		compiledLength = length;
+		indexMap = map;
+		return map;
+	}
+	
+	/**
+	 * Build a table that maps every value of a source channel directly to
+	 * its corrected value at the bit position given by the RGB order, so a
+	 * pixel only needs three lookups and two OR operations.
+	 * @param rgbOrder	RGB order of the device
+	 * @param lut		color lookup table or null
+	 * @return			table with 768 entries (red, green, blue)
+	 */
+	private int[] compileChannelTable(RgbOrder rgbOrder, int[] lut) {
+		String order = rgbOrder != null ? rgbOrder.name() : RgbOrder.RGB.name();
+		String channels = "RGB";
+		int[] t = new int[768];
+		for(int c = 0; c < 3; c++) {
+			// position of the source channel in the output
+			int destShift = 16 - 8 * order.indexOf(channels.charAt(c));
+			for(int v = 0; v < 256; v++) {
+				int value = lut != null ? lut[c * 256 + v] : v;
+				t[c * 256 + v] = (value & 0xFF) << destShift;
+			}
+		}
+		compiledOrder = rgbOrder;
+		compiledLut = lut;
+		channelTable = t;
+		return t;
+	}
+	
+	
 	private Color[] rgbOrder(Color[] input, RgbOrder rgbOrder) {
 		Color[] out = new Color[input.length];
 		for(int i = 0; i < out.length; i++) {
@@ -40,14 +40,17 @@ import de.lars.remotelightcore.scene.scenes.Ocean;
 import de.lars.remotelightcore.scene.scenes.SnowSparkle;
 import de.lars.remotelightcore.scene.scenes.Space;
 import de.lars.remotelightcore.scene.scenes.Sunset;
+import de.lars.remotelightcore.utils.RenderClock;
+import de.lars.remotelightcore.utils.RenderClock.TickListener;
 import de.lars.remotelightcore.utils.color.Color;
 import de.lars.remotelightcore.utils.color.PixelColorUtils;
 
 public class SceneManager extends EffectManager {
 	
-	private Scene activeScene;
+	private volatile Scene activeScene;
 	private List<Scene> scenes;
-	private boolean active = false;
+	private volatile boolean active = false;
+	private volatile RenderClock.Task clockTask;
 	
 	public SceneManager() {
 		scenes = new ArrayList<Scene>();
@@ -103,37 +106,47 @@ public class SceneManager extends EffectManager {
 			active = true;
 			Logger.info("Starting Scene Thread.");
 			
-			new Thread(new Runnable() {
+			final RenderClock clock = RemoteLightCore.getInstance().getRenderClock();
+			clockTask = clock.schedule("Scene", this::getLoopDelay, new TickListener() {
+				// own task, clockTask may not be assigned yet or belong to a newer task
+				private RenderClock.Task task;
 				
 				@Override
-				public void run() {
-					while(activeScene != null) {
-						try {
-						activeScene.onLoop();
-						
-						} catch(Exception e) {
-							Logger.error(e, "There was an error executing the scene '" + activeScene.getDisplayname() + "'.");
-							// stop on exception
-							stop();
-							break;
-						}
-						
-						int delay = activeScene.getDelay();
+				public void onTick(long elapsedNanos) {
+					if(task == null)
+						task = clock.getCurrentTask();
+					Scene scene = activeScene;
+					if(scene == null) {
+						clock.cancel(task);
+						active = false;
+						Logger.info("Stopped Scene Thread.");
+						// restart if an effect was set in the meantime
+						if(activeScene != null)
+							loop();
+						return;
+					}
+					try {
+						scene.setElapsedTime(elapsedNanos);
+						long start = System.nanoTime();
+						scene.onLoop();
+						recordFrame(task, System.nanoTime() - start);
 						
-						try {
-							Thread.sleep(delay);
-						} catch (InterruptedException e) {
-							Logger.error("Scene Thread could not wait for delay! (delay: " + delay + ")");
-							e.printStackTrace();
-						}
+					} catch(Exception e) {
+						getMetrics().recordError();
+						Logger.error(e, "There was an error executing the scene '" + scene.getDisplayname() + "'.");
+						// stop on exception
+						stop();
 					}
-					active = false;
-					Logger.info("Stopped Scene Thread.");
 				}
-			}).start();
+			});
 		}
 	}
 	
+	private int getLoopDelay() {
+		Scene scene = activeScene;
+		return scene != null ? scene.getDelay() : RenderClock.MIN_PERIOD;
+	}
+	
 	private void registerScenes() {
 		scenes.add(new Sunset());
 		scenes.add(new Fire());
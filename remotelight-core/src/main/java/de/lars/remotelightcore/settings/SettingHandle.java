@@ -0,0 +1,105 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.settings;
+
+/**
+ * Cached reference to a registered setting.
+ * <p>
+ * The setting is resolved once and only looked up again when settings
+ * were added, removed or loaded in the meantime. This makes reading a
+ * setting value in render loops as cheap as a field access.
+ *
+ * @param <T> type of the setting value, e.g. {@code Integer} for
+ * 				{@link de.lars.remotelightcore.settings.types.SettingInt}
+ * @see SettingsManager#getHandle(String, Class)
+ */
+public class SettingHandle<T> {
+	
+	private final SettingsManager manager;
+	private final String id;
+	private final Class<T> valueType;
+	private Setting setting;
+	private volatile int generation = -1;
+	
+	SettingHandle(SettingsManager manager, String id, Class<T> valueType) {
+		this.manager = manager;
+		this.id = id;
+		this.valueType = valueType;
+	}
+	
+	public String getId() {
+		return id;
+	}
+	
+	/**
+	 * @return the referenced setting or {@code null} if no setting
+	 * 			with the id is registered
+	 */
+	public Setting getSetting() {
+		int current = manager.getGeneration();
+		if(current != generation) {
+			setting = manager.getSettingFromId(id);
+			generation = current;
+		}
+		return setting;
+	}
+	
+	/**
+	 * @return true if a setting with the id is registered
+	 */
+	public boolean isPresent() {
+		return getSetting() != null;
+	}
+	
+	/**
+	 * @return the setting value or {@code null} if the setting is not
+	 * 			registered or the value has a different type
+	 */
+	public T get() {
+		Setting s = getSetting();
+		if(s == null)
+			return null;
+		Object value = s.get();
+		return valueType.isInstance(value) ? valueType.cast(value) : null;
+	}
+	
+	/**
+	 * @param defaultValue value returned if the setting is not available
+	 * @return the setting value or the default value
+	 */
+	public T get(T defaultValue) {
+		T value = get();
+		return value != null ? value : defaultValue;
+	}
+	
+	/**
+	 * Set the value of the setting (if registered)
+	 * @param value new value
+	 */
+	public void set(T value) {
+		Setting s = getSetting();
+		if(s != null)
+			s.set(value);
+	}
+
+}
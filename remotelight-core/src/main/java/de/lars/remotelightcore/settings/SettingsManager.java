@@ -24,7 +24,11 @@ package de.lars.remotelightcore.settings;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.tinylog.Logger;
 
@@ -44,20 +48,28 @@ public class SettingsManager {
 	}
 	
 	private List<Setting> settings;
+	/** id lookup table, kept in sync with the settings list */
+	private final Map<String, Setting> index;
+	/** incremented on every structural change, see {@link SettingHandle} */
+	private final AtomicInteger generation;
 	private FileStorage fileStorage;
 	
 	public SettingsManager(FileStorage fileStorage) {
 		this.settings = new ArrayList<Setting>();
+		this.index = new ConcurrentHashMap<String, Setting>();
+		this.generation = new AtomicInteger();
 		this.fileStorage = fileStorage;
 	}
 	
 	/**
-	 * Get all settings registered by this manager
+	 * Get all settings registered by this manager.
+	 * Use {@link #addSetting(Setting)} and {@link #removeSetting(String)}
+	 * to register or remove settings.
 	 * 
-	 * @return A list with all settings
+	 * @return An unmodifiable list with all settings
 	 */
 	public List<Setting> getSettings() {
-		return this.settings;
+		return Collections.unmodifiableList(this.settings);
 	}
 	
 	/**
@@ -93,16 +105,43 @@ public class SettingsManager {
 	}
 	
 	public Setting getSettingFromId(String id) {
+		if(id == null)
+			return null;
+		return index.get(id);
+	}
+	
+	/**
+	 * Get a cached handle for the setting with the given id. The handle
+	 * can be stored and read in every frame without lookup costs.
+	 * 
+	 * @param <T>		the value type
+	 * @param id		the setting id
+	 * @param valueType	class of the setting value, e.g. {@code Integer.class}
+	 * @return			handle for the setting, the setting does not need
+	 * 					to be registered yet
+	 */
+	public <T> SettingHandle<T> getHandle(String id, Class<T> valueType) {
+		return new SettingHandle<T>(this, id, valueType);
+	}
+	
+	/**
+	 * @return number of structural changes (add, remove, load)
+	 */
+	int getGeneration() {
+		return generation.get();
+	}
+	
+	private void rebuildIndex() {
+		index.clear();
 		for(Setting s : settings) {
-			if(s.getId().equals(id)) {
-				return s;
-			}
+			if(s.getId() != null)
+				index.putIfAbsent(s.getId(), s);
 		}
-		return null;
+		generation.incrementAndGet();
 	}
 	
 	public SettingObject getSettingObject(String id) {
-		return getSettingFromType(new SettingObject(id, null, null));
+		return (SettingObject) getSettingFromId(id);
 	}
 	
 	/**
@@ -151,6 +190,9 @@ public class SettingsManager {
 		}
 		Logger.info("Registered Setting '" + setting.getId() + "'.");
 		settings.add(setting);
+		if(setting.getId() != null)
+			index.put(setting.getId(), setting);
+		generation.incrementAndGet();
 		return setting;
 	}
 	
@@ -162,6 +204,8 @@ public class SettingsManager {
 			for(int i = 0; i < settings.size(); i++) {
 				if(settings.get(i).getId().equals(id)) {
 					settings.remove(i);
+					index.remove(id);
+					generation.incrementAndGet();
 					Logger.info("Removed Setting '" + id + "'.");
 					break;
 				}
@@ -174,6 +218,7 @@ public class SettingsManager {
 	 */
 	public void deleteSettings() {
 		settings = new ArrayList<Setting>();
+		rebuildIndex();
 	}
 	
 	public void updateSetting(Setting oldSetting, Setting newSetting) {
@@ -183,6 +228,8 @@ public class SettingsManager {
 			int oldIndex = settings.indexOf(oldSetting);
 			if(oldIndex != -1) {
 				settings.set(oldIndex, newSetting);
+				index.put(newSetting.getId(), newSetting);
+				generation.incrementAndGet();
 				Logger.info("Updated setting " + oldSetting.getId() +
 						". Old type: " + oldSetting.getClass().getSimpleName() +
 						" New type: " + newSetting.getClass().getSimpleName());
@@ -258,6 +305,7 @@ public class SettingsManager {
 	public void load(String key) {
 		if(fileStorage.get(key) != null && fileStorage.get(key) instanceof List<?>) {
 			settings = (List<Setting>) fileStorage.get(key);
+			rebuildIndex();
 			Logger.info("Loaded " + settings.size() + " settings from data file.");
 		} else {
 			Logger.warn("Invalid or empty data! Could not load settings from data file.");
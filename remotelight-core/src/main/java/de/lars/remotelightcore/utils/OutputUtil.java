@@ -26,11 +26,14 @@ import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.Device;
 import de.lars.remotelightcore.devices.arduino.Arduino;
 import de.lars.remotelightcore.devices.artnet.Artnet;
+import de.lars.remotelightcore.devices.ddp.DDP;
 import de.lars.remotelightcore.devices.e131.E131;
 import de.lars.remotelightcore.devices.link.chain.Chain;
 import de.lars.remotelightcore.devices.link.multi.MultiOutput;
+import de.lars.remotelightcore.devices.opc.OPC;
 import de.lars.remotelightcore.devices.remotelightserver.RemoteLightServer;
 import de.lars.remotelightcore.devices.virtual.VirtualOutput;
+import de.lars.remotelightcore.devices.wled.WLED;
 import de.lars.remotelightcore.out.Output;
 
 public class OutputUtil {
@@ -48,6 +51,15 @@ public class OutputUtil {
 		if(o instanceof E131) {
 			return "E131";
 		}
+		if(o instanceof DDP) {
+			return "DDP";
+		}
+		if(o instanceof WLED) {
+			return "WLED";
+		}
+		if(o instanceof OPC) {
+			return "OPC";
+		}
 		if(o instanceof VirtualOutput) {
 			return "VirtualOutput";
 		}
@@ -70,6 +82,12 @@ public class OutputUtil {
 			return Artnet.class;
 		case "E131":
 			return E131.class;
+		case "DDP":
+			return DDP.class;
+		case "WLED":
+			return WLED.class;
+		case "OPC":
+			return OPC.class;
 		case "VirtualOutput":
 			return VirtualOutput.class;
 		case "Chain":
@@ -94,6 +112,15 @@ public class OutputUtil {
 		if(d instanceof E131) {
 			return ((E131)d).isMulticastMode() ? "Multicast" : ((E131)d).getUnicastAddress();
 		}
+		if(d instanceof DDP) {
+			return ((DDP)d).getIp();
+		}
+		if(d instanceof WLED) {
+			return ((WLED)d).getIp();
+		}
+		if(d instanceof OPC) {
+			return ((OPC)d).getIp();
+		}
 		return "No connection info";
 	}
 	
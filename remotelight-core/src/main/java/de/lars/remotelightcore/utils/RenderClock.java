@@ -0,0 +1,205 @@
+/*-
+ * >===license-start
+ * RemoteLight
+ * ===
+ * Copyright (C) 2019 - 2020 Lars O.
+ * ===
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * <===license-end
+ */
+
+package de.lars.remotelightcore.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+import org.tinylog.Logger;
+
+/**
+ * Fixed-rate clock that drives the effect managers and the output loop.
+ * <p>
+ * Every task is scheduled at absolute deadlines based on
+ * {@link System#nanoTime()}, so the time needed to render or send a frame
+ * does not add up to the configured delay. If a task falls behind, it is
+ * executed again immediately until it caught up. If it is more than
+ * {@link #MAX_CATCH_UP} frames late, the missed frames are skipped.
+ * <p>
+ * Every task runs on its own thread, so a slow or blocking task (e.g. a
+ * Lua script or an FFT pass) does not delay the other effect managers or
+ * the output. The thread of a task ends when the task is cancelled.
+ */
+public class RenderClock {
+	
+	/** maximum number of frames a task may run late before frames are skipped */
+	public static final int MAX_CATCH_UP = 2;
+	/** minimum period of a task in milliseconds */
+	public static final int MIN_PERIOD = 1;
+	
+	private final List<Task> tasks;
+	
+	public RenderClock() {
+		tasks = new CopyOnWriteArrayList<Task>();
+	}
+	
+	/**
+	 * Listener that is called on every tick of a task
+	 */
+	public interface TickListener {
+		/**
+		 * Called on the thread of the task
+		 * @param elapsedNanos	real time since the previous tick
+		 * 						in nanoseconds
+		 */
+		public void onTick(long elapsedNanos);
+	}
+	
+	/**
+	 * Schedule a new task
+	 * @param name		name of the task (used for log messages and the thread name)
+	 * @param period	supplier for the period in milliseconds,
+	 * 					queried after every tick
+	 * @param listener	listener which is called on every tick
+	 * @return			the scheduled task
+	 */
+	public Task schedule(String name, IntSupplier period, TickListener listener) {
+		Task task = new Task(name, period, listener);
+		tasks.add(task);
+		task.thread.start();
+		Logger.debug("[RenderClock] Scheduled task " + name);
+		return task;
+	}
+	
+	/**
+	 * Remove the task from the clock. The task is not
+	 * executed anymore after this method returned, unless it is
+	 * currently running.
+	 * @param task	task to cancel
+	 */
+	public void cancel(Task task) {
+		if(task != null) {
+			task.cancelled = true;
+			tasks.remove(task);
+			LockSupport.unpark(task.thread);
+			Logger.debug("[RenderClock] Cancelled task " + task.name);
+		}
+	}
+	
+	/**
+	 * Get the task of the calling thread. Allows a tick listener to cancel
+	 * its own task without relying on the field the task was assigned to,
+	 * which may be written after the first tick or by a newer task.
+	 * @return the task running on the calling thread or null
+	 */
+	public Task getCurrentTask() {
+		Thread current = Thread.currentThread();
+		for(Task task : tasks) {
+			if(task.thread == current)
+				return task;
+		}
+		return null;
+	}
+	
+	/**
+	 * @return true if the caller is running on the thread of a task
+	 */
+	public boolean isClockThread() {
+		Thread current = Thread.currentThread();
+		for(Task task : tasks) {
+			if(task.thread == current)
+				return true;
+		}
+		return false;
+	}
+	
+	
+	public static class Task {
+		
+		private final String name;
+		private final IntSupplier period;
+		private final TickListener listener;
+		private final Thread thread;
+		private volatile boolean cancelled;
+		private long deadline;
+		private long lastTick;
+		private volatile long skippedFrames;
+		
+		private Task(String name, IntSupplier period, TickListener listener) {
+			this.name = name;
+			this.period = period;
+			this.listener = listener;
+			this.thread = new Thread(this::run, "Render clock " + name);
+			// first tick after one period, like the previous sleep loops
+			this.lastTick = System.nanoTime();
+			this.deadline = lastTick + getPeriodNanos();
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public boolean isCancelled() {
+			return cancelled;
+		}
+		
+		/**
+		 * @return number of frames that were skipped because
+		 * 			the task was running late
+		 */
+		public long getSkippedFrames() {
+			return skippedFrames;
+		}
+		
+		private long getPeriodNanos() {
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(MIN_PERIOD, period.getAsInt()));
+		}
+		
+		private void run() {
+			while(!cancelled) {
+				long now = System.nanoTime();
+				long wait = deadline - now;
+				if(wait <= 0) {
+					tick(now);
+				} else {
+					LockSupport.parkNanos(this, wait);
+				}
+			}
+		}
+		
+		private void tick(long now) {
+			long elapsed = now - lastTick;
+			lastTick = now;
+			try {
+				listener.onTick(elapsed);
+			} catch(Exception e) {
+				Logger.error(e, "[RenderClock] Error in task " + name);
+			}
+			
+			long periodNanos = getPeriodNanos();
+			deadline += periodNanos;
+			long late = System.nanoTime() - deadline;
+			if(late > periodNanos * MAX_CATCH_UP) {
+				// too far behind, skip missed frames
+				long missed = late / periodNanos;
+				skippedFrames += missed;
+				deadline += missed * periodNanos;
+			}
+		}
+		
+	}
+
+}
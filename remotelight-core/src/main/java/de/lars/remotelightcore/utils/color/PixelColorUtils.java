@@ -132,25 +132,23 @@ public class PixelColorUtils {
 	 *
 	 */
 	public static void setPixel(int pixel, Color color) {
+		final int ledNum = RemoteLightCore.getLedNum();
 		Color[] strip = RemoteLightCore.getInstance().getOutputManager().getLastColors();
-		if(strip.length < 1) {
-			strip = colorAllPixels(Color.BLACK, RemoteLightCore.getLedNum());
+		if(strip.length != ledNum) {
+			// LED number changed, keep the colors that still fit
+			Color[] leds = colorAllPixels(Color.BLACK, ledNum);
+			System.arraycopy(strip, 0, leds, 0, Math.min(strip.length, ledNum));
+			strip = leds;
 		}
-		Color[] leds = strip;
-		for(int i = 0; i < RemoteLightCore.getLedNum(); i++) {
-			if(i == pixel) {
-				leds[i] = color;
-				
-			} else {
-				leds[i] = strip[i];
-			}
+		if(pixel >= 0 && pixel < ledNum) {
+			strip[pixel] = color;
 		}
-		OutputManager.addToOutput(leds);
+		OutputManager.addToOutput(strip);
 	}
 	
 	public static Color[] pixelHashToColorArray(HashMap<Integer, Color> pixelHash) {
 		Color[] leds = new Color[RemoteLightCore.getLedNum()];
-		for(int i = 0; i < RemoteLightCore.getLedNum(); i++) {
+		for(int i = 0; i < leds.length; i++) {
 			if(pixelHash.get(i) == null) {
 				leds[i] = Color.BLACK;
 			} else {
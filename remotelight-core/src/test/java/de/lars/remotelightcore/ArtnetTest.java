@@ -0,0 +1,84 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.artnet.ArtnetPacket;
+import de.lars.remotelightcore.devices.artnet.ArtnetSender;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class ArtnetTest {
+	
+	@DisplayName("ArtDmx and ArtSync over loopback")
+	@Test
+	public void loopbackTest() throws IOException {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(DatagramChannel receiver = DatagramChannel.open()) {
+			receiver.bind(new InetSocketAddress(loopback, 0));
+			int port = ((InetSocketAddress) receiver.getLocalAddress()).getPort();
+			
+			try(ArtnetSender sender = new ArtnetSender(new InetSocketAddress(loopback, 0), port)) {
+				sender.configure(loopback, 1, 2, 171, true);
+				FrameBuffer frame = new FrameBuffer(100); // 300 channels: 171 + 129
+				
+				for(int f = 0; f < 2; f++) {
+					for(int i = 0; i < frame.size(); i++)
+						frame.setRGB(i, i + f, i * 2, 255 - i);
+					sender.send(frame);
+					
+					byte[] channels = new byte[frame.size() * 3];
+					for(int i = 0; i < frame.size(); i++) {
+						channels[i * 3] = (byte) frame.getRed(i);
+						channels[i * 3 + 1] = (byte) frame.getGreen(i);
+						channels[i * 3 + 2] = (byte) frame.getBlue(i);
+					}
+					for(int u = 0; u < 2; u++) {
+						ByteBuffer packet = ByteBuffer.wrap(UdpTestUtils.receive(receiver)).order(ByteOrder.BIG_ENDIAN);
+						int slots = u == 0 ? 171 : 129;
+						int length = slots + 1; // padded to even length
+						assertEquals(ArtnetPacket.HEADER_LENGTH + length, packet.limit());
+						assertHeader(packet, ArtnetPacket.OP_DMX);
+						assertEquals(f + 1, packet.get(ArtnetPacket.SEQUENCE_OFFSET));
+						assertEquals((1 << 4) | (2 + u), packet.get(ArtnetPacket.PORT_ADDRESS_OFFSET));
+						assertEquals(0, packet.get(ArtnetPacket.PORT_ADDRESS_OFFSET + 1));
+						assertEquals(length, packet.getShort(16));
+						
+						byte[] dmx = new byte[slots];
+						packet.position(ArtnetPacket.DATA_OFFSET);
+						packet.get(dmx);
+						assertArrayEquals(Arrays.copyOfRange(channels, u * 171, u * 171 + slots), dmx);
+					}
+					// ArtSync after the last universe
+					ByteBuffer sync = ByteBuffer.wrap(UdpTestUtils.receive(receiver));
+					assertEquals(ArtnetPacket.SYNC_LENGTH, sync.limit());
+					assertHeader(sync, ArtnetPacket.OP_SYNC);
+				}
+				assertNull(receiver.receive(ByteBuffer.allocate(600)));
+			}
+		}
+	}
+	
+	private void assertHeader(ByteBuffer packet, int opCode) {
+		byte[] id = new byte[8];
+		packet.position(0);
+		packet.get(id);
+		assertEquals("Art-Net\0", new String(id, StandardCharsets.US_ASCII));
+		assertEquals(opCode & 0xFF, packet.get(8) & 0xFF);
+		assertEquals(opCode >> 8, packet.get(9) & 0xFF);
+		assertEquals(ArtnetPacket.PROTOCOL_VERSION, packet.getShort(10));
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.ddp.DDP;
+import de.lars.remotelightcore.devices.ddp.DDPPacket;
+import de.lars.remotelightcore.devices.ddp.DDPSender;
+import de.lars.remotelightcore.io.FileStorage;
+import de.lars.remotelightcore.io.jsondeserializer.DeviceDeserializer;
+import de.lars.remotelightcore.io.jsonserializer.DeviceSerializer;
+
+public class DDPTest {
+
+	@DisplayName("DDP packets over loopback")
+	@Test
+	public void loopbackTest() throws IOException {
+		try(DDPSender sender = new DDPSender(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+			// 480 + 480 + 40 pixels
+			UdpTestUtils.loopback(sender, DDPPacket.MAX_PIXELS, DDPPacket.DATA_OFFSET, 1000, 2, null,
+					(packet, f, p, offset, length) -> {
+				int flags = DDPPacket.FLAG_VERSION_1 | (p == 2 ? DDPPacket.FLAG_PUSH : 0);
+				assertEquals(flags, packet.get(DDPPacket.FLAGS_OFFSET));
+				assertEquals(f + 1, packet.get(DDPPacket.SEQUENCE_OFFSET));
+				assertEquals(DDPPacket.TYPE_RGB24, packet.get(DDPPacket.TYPE_OFFSET));
+				assertEquals(DDPPacket.DESTINATION_DISPLAY, packet.get(DDPPacket.DESTINATION_OFFSET));
+				assertEquals(offset, packet.getInt(DDPPacket.DATA_OFFSET_OFFSET));
+				assertEquals(length, packet.getShort(DDPPacket.LENGTH_OFFSET));
+			});
+		}
+	}
+
+	@DisplayName("DDP device serialization")
+	@Test
+	public void serializationTest() {
+		Gson gson = new GsonBuilder()
+				.registerTypeAdapter(FileStorage.TYPE_DEVICES_LIST, new DeviceSerializer())
+				.registerTypeAdapter(FileStorage.TYPE_DEVICES_LIST, new DeviceDeserializer())
+				.create();
+		DDP ddp = new DDP("ddp", "192.168.1.20");
+		ddp.setPort(4049);
+		ddp.setPixels(600);
+		List<Device> devices = new ArrayList<>();
+		devices.add(ddp);
+
+		String json = gson.toJson(devices, FileStorage.TYPE_DEVICES_LIST);
+		List<Device> loaded = gson.fromJson(json, FileStorage.TYPE_DEVICES_LIST);
+		assertEquals(1, loaded.size());
+		assertTrue(loaded.get(0) instanceof DDP);
+		DDP loadedDdp = (DDP) loaded.get(0);
+		assertEquals("ddp", loadedDdp.getId());
+		assertEquals("192.168.1.20", loadedDdp.getIp());
+		assertEquals(4049, loadedDdp.getPort());
+		assertEquals(600, loadedDdp.getPixels());
+	}
+
+}
@@ -0,0 +1,211 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.arduino.DeltaProtocol;
+import de.lars.remotelightcore.devices.arduino.SerialWriter;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class DeltaProtocolTest {
+
+	@DisplayName("Delta protocol picks the smallest encoding")
+	@Test
+	public void encodingTest() {
+		DeltaProtocol encoder = new DeltaProtocol();
+		Decoder decoder = new Decoder();
+		Random random = new Random(42);
+		FrameBuffer frame = new FrameBuffer(1000);
+		final int overhead = DeltaProtocol.HEADER_LENGTH + DeltaProtocol.TRAILER_LENGTH;
+
+		// random key frame, raw is smaller
+		for(int i = 0; i < frame.size(); i++)
+			frame.setRGB(i, random.nextInt());
+		assertEquals(overhead + frame.size() * 3, roundTrip(encoder, decoder, frame));
+		assertEquals(DeltaProtocol.TYPE_RAW, encoder.getLastType());
+
+		// two changed pixels next to each other and one single pixel
+		frame.setRGB(10, 0x123456);
+		frame.setRGB(11, 0x654321);
+		frame.setRGB(500, 0xABCDEF);
+		int length = roundTrip(encoder, decoder, frame);
+		assertEquals(DeltaProtocol.TYPE_DELTA, encoder.getLastType());
+		// skip 10, literal 2, skip 64 * 7 + 40, literal 1
+		assertEquals(overhead + 1 + 1 + 6 + 8 + 1 + 3, length);
+
+		// unchanged frame
+		assertEquals(overhead, roundTrip(encoder, decoder, frame));
+		assertEquals(DeltaProtocol.TYPE_DELTA, encoder.getLastType());
+
+		// solid color with a different size
+		frame = new FrameBuffer(600);
+		frame.fill(0xFF0000);
+		assertEquals(overhead + 10 * 4, roundTrip(encoder, decoder, frame));
+		assertEquals(DeltaProtocol.TYPE_KEYFRAME, encoder.getLastType());
+	}
+
+	@DisplayName("Delta protocol sends periodic key frames")
+	@Test
+	public void keyframeTest() {
+		DeltaProtocol encoder = new DeltaProtocol();
+		encoder.setKeyframeInterval(10);
+		Decoder decoder = new Decoder();
+		Random random = new Random(7);
+		FrameBuffer frame = new FrameBuffer(300);
+		frame.fill(0x000080);
+
+		int keyframes = 0;
+		for(int f = 0; f < 100; f++) {
+			// sparse changes, some runs
+			for(int c = random.nextInt(20); c > 0; c--) {
+				int start = random.nextInt(frame.size());
+				int rgb = random.nextInt(3) == 0 ? 0 : random.nextInt();
+				for(int i = start; i < Math.min(frame.size(), start + random.nextInt(8) + 1); i++)
+					frame.setRGB(i, rgb);
+			}
+			roundTrip(encoder, decoder, frame);
+			if(encoder.getLastType() != DeltaProtocol.TYPE_DELTA)
+				keyframes++;
+		}
+		assertEquals(10, keyframes);
+	}
+
+	@DisplayName("Deltas refer to the last written frame")
+	@Test
+	public void writerTest() throws Exception {
+		CountDownLatch firstWrite = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		ByteArrayOutputStream port = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				firstWrite.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				written.write(b, off, len);
+			}
+		};
+
+		SerialWriter writer = new SerialWriter(port, null, "test");
+		writer.setEncoder(new DeltaProtocol());
+		writer.start();
+		FrameBuffer frame = new FrameBuffer(200);
+		byte[] data = null;
+		try {
+			data = DeltaProtocol.packFrame(frame, data);
+			writer.offer(data, data.length);
+			assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+			// frames 1 to 9 replace each other, frame 9 is encoded against frame 0
+			for(int f = 1; f < 10; f++) {
+				frame.setRGB(f, 0xFFFFFF);
+				data = DeltaProtocol.packFrame(frame, data);
+				writer.offer(data, data.length);
+			}
+			release.countDown();
+			long deadline = System.currentTimeMillis() + 5000;
+			while(writer.getFramesWritten() < 2 && System.currentTimeMillis() < deadline)
+				Thread.sleep(5);
+		} finally {
+			writer.stop();
+		}
+		assertEquals(2, writer.getFramesWritten());
+
+		Decoder decoder = new Decoder();
+		byte[] stream = written.toByteArray();
+		int pos = decoder.decode(stream, 0);
+		assertEquals(DeltaProtocol.TYPE_KEYFRAME, decoder.type);
+		assertEquals(stream.length, decoder.decode(stream, pos));
+		assertEquals(DeltaProtocol.TYPE_DELTA, decoder.type);
+		assertArrayEquals(data, decoder.pixels);
+	}
+
+	/**
+	 * Encode and decode the frame and compare the result
+	 * @return encoded length
+	 */
+	private int roundTrip(DeltaProtocol encoder, Decoder decoder, FrameBuffer frame) {
+		byte[] data = DeltaProtocol.packFrame(frame, null);
+		int length = encoder.encode(data, data.length);
+		assertEquals(length, decoder.decode(Arrays.copyOf(encoder.getBuffer(), length), 0));
+		assertEquals(encoder.getLastType(), decoder.type);
+		assertArrayEquals(data, decoder.pixels, "decoded frame differs");
+		return length;
+	}
+
+	/**
+	 * Reference decoder, works like the Arduino sketch
+	 */
+	private static class Decoder {
+		byte[] pixels = new byte[0];
+		int type;
+
+		/**
+		 * @return position after the frame
+		 */
+		int decode(byte[] data, int pos) {
+			assertEquals(DeltaProtocol.MAGIC_1, data[pos]);
+			assertEquals(DeltaProtocol.MAGIC_2, data[pos + 1]);
+			int check = DeltaProtocol.HEADER_CHECKSUM_SEED;
+			for(int i = 2; i < 7; i++)
+				check ^= data[pos + i] & 0xFF;
+			assertEquals(check, data[pos + 7] & 0xFF, "header checksum");
+			type = data[pos + 2];
+			int count = (data[pos + 3] & 0xFF) << 8 | (data[pos + 4] & 0xFF);
+			int length = (data[pos + 5] & 0xFF) << 8 | (data[pos + 6] & 0xFF);
+			pos += DeltaProtocol.HEADER_LENGTH;
+			final int end = pos + length;
+			byte checksum = 0;
+			for(int i = pos; i < end; i++)
+				checksum ^= data[i];
+			assertEquals(checksum, data[end], "payload checksum");
+
+			if(type == DeltaProtocol.TYPE_DELTA) {
+				assertEquals(count * 3, pixels.length, "delta without key frame");
+			} else {
+				pixels = new byte[count * 3];
+			}
+			if(type == DeltaProtocol.TYPE_RAW) {
+				assertEquals(count * 3, length);
+				System.arraycopy(data, pos, pixels, 0, length);
+				return end + DeltaProtocol.TRAILER_LENGTH;
+			}
+
+			int index = 0;
+			while(pos < end) {
+				int op = data[pos] & DeltaProtocol.OP_MASK;
+				int n = (data[pos++] & (DeltaProtocol.MAX_COUNT - 1)) + 1;
+				if(op == DeltaProtocol.OP_SKIP) {
+					assertEquals(DeltaProtocol.TYPE_DELTA, type, "skip in key frame");
+				} else if(op == DeltaProtocol.OP_RUN) {
+					for(int i = 0; i < n; i++)
+						System.arraycopy(data, pos, pixels, (index + i) * 3, 3);
+					pos += 3;
+				} else {
+					assertEquals(DeltaProtocol.OP_LITERAL, op);
+					System.arraycopy(data, pos, pixels, index * 3, n * 3);
+					pos += n * 3;
+				}
+				index += n;
+			}
+			assertEquals(end, pos);
+			assertTrue(index <= count);
+			if(type == DeltaProtocol.TYPE_KEYFRAME)
+				assertEquals(count, index, "key frame does not cover all pixels");
+			return end + DeltaProtocol.TRAILER_LENGTH;
+		}
+	}
+
+}
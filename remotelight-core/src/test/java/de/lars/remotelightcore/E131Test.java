@@ -0,0 +1,97 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.e131.E131Packet;
+import de.lars.remotelightcore.devices.e131.E131Sender;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class E131Test {
+	
+	@DisplayName("E1.31 packets over loopback")
+	@Test
+	public void loopbackTest() throws IOException {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(DatagramChannel receiver = DatagramChannel.open()) {
+			receiver.bind(new InetSocketAddress(loopback, 0));
+			int port = ((InetSocketAddress) receiver.getLocalAddress()).getPort();
+			
+			try(E131Sender sender = new E131Sender(new InetSocketAddress(loopback, 0), port)) {
+				sender.configure(1, 510, loopback);
+				Random random = new Random(42);
+				FrameBuffer frame = new FrameBuffer(400); // 1200 channels: 510 + 510 + 180
+				
+				for(int f = 0; f < 3; f++) {
+					for(int i = 0; i < frame.size(); i++)
+						frame.setRGB(i, random.nextInt());
+					sender.send(frame);
+					assertEquals(3, sender.getUniverseCount());
+					
+					byte[] channels = new byte[frame.size() * 3];
+					for(int i = 0; i < frame.size(); i++) {
+						channels[i * 3] = (byte) frame.getRed(i);
+						channels[i * 3 + 1] = (byte) frame.getGreen(i);
+						channels[i * 3 + 2] = (byte) frame.getBlue(i);
+					}
+					for(int u = 0; u < 3; u++) {
+						byte[] dmx = Arrays.copyOfRange(channels, u * 510, Math.min(channels.length, (u + 1) * 510));
+						byte[] expected = new E131Packet().createPacket(1 + u, f, dmx);
+						assertArrayEquals(expected, UdpTestUtils.receive(receiver), "frame " + f + " universe " + (1 + u));
+					}
+				}
+			}
+		}
+	}
+	
+	@DisplayName("E1.31 synchronization over loopback")
+	@Test
+	public void syncTest() throws IOException {
+		final int syncUniverse = 7000;
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(DatagramChannel receiver = DatagramChannel.open()) {
+			receiver.bind(new InetSocketAddress(loopback, 0));
+			int port = ((InetSocketAddress) receiver.getLocalAddress()).getPort();
+			
+			try(E131Sender sender = new E131Sender(new InetSocketAddress(loopback, 0), port)) {
+				sender.configure(10, 512, loopback, syncUniverse);
+				FrameBuffer frame = new FrameBuffer(1000); // 3000 channels = 6 universes
+				
+				for(int f = 0; f < 3; f++) {
+					frame.fill(f);
+					sender.send(frame);
+					
+					// data packets in universe order, all with sync address
+					for(int u = 0; u < 6; u++) {
+						ByteBuffer packet = ByteBuffer.wrap(UdpTestUtils.receive(receiver));
+						assertEquals(10 + u, packet.getShort(E131Packet.UNIVERSE_OFFSET));
+						assertEquals(syncUniverse, packet.getShort(109));
+						assertEquals(f, packet.get(E131Packet.SEQUENCE_OFFSET));
+					}
+					// followed by exactly one sync packet
+					byte[] sync = UdpTestUtils.receive(receiver);
+					assertArrayEquals(new E131Packet().createSyncPacket(syncUniverse, f), sync);
+					ByteBuffer packet = ByteBuffer.wrap(sync);
+					assertEquals(E131Packet.VECTOR_ROOT_E131_EXTENDED, packet.getInt(18));
+					assertEquals(E131Packet.VECTOR_E131_EXTENDED_SYNCHRONIZATION, packet.getInt(40));
+					assertEquals(syncUniverse, packet.getShort(45));
+				}
+				// no further packets
+				assertNull(receiver.receive(ByteBuffer.allocate(E131Packet.LENGTH)));
+			}
+		}
+	}
+
+}
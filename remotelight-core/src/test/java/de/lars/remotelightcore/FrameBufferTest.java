@@ -0,0 +1,141 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.out.FrameBuffer;
+import de.lars.remotelightcore.utils.color.Color;
+
+public class FrameBufferTest {
+
+	@DisplayName("Packed RGB values")
+	@Test
+	public void packingTest() {
+		FrameBuffer frame = new FrameBuffer(3);
+		assertEquals(3, frame.size());
+		assertEquals(0, frame.getRGB(0));
+
+		frame.setRGB(0, 0x12, 0x34, 0x56);
+		assertEquals(0x123456, frame.getRGB(0));
+		assertEquals(0x12, frame.getRed(0));
+		assertEquals(0x34, frame.getGreen(0));
+		assertEquals(0x56, frame.getBlue(0));
+
+		// alpha and out of range channel bits are masked
+		frame.setRGB(1, 0xFFABCDEF);
+		assertEquals(0xABCDEF, frame.getRGB(1));
+		frame.setRGB(2, 0x1FF, 0x100, -1);
+		assertEquals(0xFF00FF, frame.getRGB(2));
+
+		frame.setColor(0, new Color(1, 2, 3));
+		assertEquals(0x010203, frame.getRGB(0));
+		assertEquals(new Color(1, 2, 3), frame.getColor(0));
+
+		frame.fill(Color.RED);
+		for(int i = 0; i < frame.size(); i++)
+			assertEquals(0xFF0000, frame.getRGB(i));
+		assertThrows(IllegalArgumentException.class, () -> new FrameBuffer(-1));
+	}
+
+	@DisplayName("Conversion from and to color arrays")
+	@Test
+	public void colorConversionTest() {
+		Color[] colors = {Color.RED, null, new Color(10, 20, 30)};
+		FrameBuffer frame = FrameBuffer.fromColors(colors);
+		assertEquals(3, frame.size());
+		assertEquals(0xFF0000, frame.getRGB(0));
+		assertEquals(0, frame.getRGB(1)); // null is black
+		assertEquals(0x0A141E, frame.getRGB(2));
+
+		Color[] converted = frame.toColors();
+		assertArrayEquals(new Color[] {Color.RED, Color.BLACK, new Color(10, 20, 30)}, converted);
+
+		// setColors resizes the frame
+		assertSame(frame, frame.setColors(new Color[] {Color.BLUE}));
+		assertEquals(1, frame.size());
+		assertEquals(0x0000FF, frame.getRGB(0));
+	}
+
+	@DisplayName("Resize, copy and compare")
+	@Test
+	public void copyTest() {
+		FrameBuffer src = new FrameBuffer(5);
+		for(int i = 0; i < src.size(); i++)
+			src.setRGB(i, i + 1);
+
+		// the backing array is kept when shrinking and growing within its capacity
+		FrameBuffer dest = new FrameBuffer(8);
+		int[] data = dest.getData();
+		dest.copyFrom(src);
+		assertSame(data, dest.getData());
+		assertEquals(5, dest.size());
+		assertTrue(dest.contentEquals(src));
+		assertTrue(src.contentEquals(dest));
+		dest.resize(8);
+		assertSame(data, dest.getData());
+		dest.resize(20);
+		assertEquals(20, dest.size());
+		assertEquals(5, dest.getRGB(4));
+
+		// different size or content
+		assertFalse(dest.contentEquals(src));
+		dest.copyFrom(src);
+		dest.setRGB(2, 0xFFFFFF);
+		assertFalse(dest.contentEquals(src));
+		assertFalse(src.contentEquals(null));
+		// unused capacity is ignored
+		dest.copyFrom(src);
+		assertTrue(dest.contentEquals(src));
+	}
+
+	@DisplayName("Copy pixel ranges")
+	@Test
+	public void copyRangeTest() {
+		FrameBuffer src = new FrameBuffer(4);
+		for(int i = 0; i < src.size(); i++)
+			src.setRGB(i, i + 1);
+		FrameBuffer dest = new FrameBuffer(6);
+		dest.copyRange(src, 1, 3, 3);
+		assertArrayEquals(new int[] {0, 0, 0, 2, 3, 4}, dest.getData());
+		assertEquals(6, dest.size());
+
+		assertThrows(IndexOutOfBoundsException.class, () -> dest.copyRange(src, 2, 0, 3));
+		assertThrows(IndexOutOfBoundsException.class, () -> dest.copyRange(src, 0, 4, 3));
+		assertThrows(IndexOutOfBoundsException.class, () -> dest.copyRange(src, -1, 0, 1));
+	}
+
+	@DisplayName("Device without send implementation")
+	@Test
+	public void missingSendTest() {
+		Device device = new Device("nosend", 3) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			public ConnectionState connect() {
+				return ConnectionState.CONNECTED;
+			}
+			@Override
+			public ConnectionState disconnect() {
+				return ConnectionState.DISCONNECTED;
+			}
+			@Override
+			public ConnectionState getConnectionState() {
+				return ConnectionState.CONNECTED;
+			}
+			@Override
+			public void onLoad() {
+			}
+		};
+		assertThrows(UnsupportedOperationException.class, () -> device.send(new FrameBuffer(3)));
+		assertThrows(UnsupportedOperationException.class, () -> device.send(new Color[3]));
+	}
+
+}
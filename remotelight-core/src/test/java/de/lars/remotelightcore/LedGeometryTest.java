@@ -0,0 +1,139 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.arduino.RgbOrder;
+import de.lars.remotelightcore.devices.virtual.VirtualOutput;
+import de.lars.remotelightcore.out.FrameBuffer;
+import de.lars.remotelightcore.out.LedGeometry;
+import de.lars.remotelightcore.out.Output;
+import de.lars.remotelightcore.out.patch.OutputPatch;
+
+public class LedGeometryTest {
+	
+	@DisplayName("Geometry snapshot of an output")
+	@Test
+	public void snapshotTest() {
+		assertSame(LedGeometry.EMPTY, LedGeometry.of(null));
+		
+		Output output = geometry(12, 0, 2, true).getOutput();
+		LedGeometry geometry = LedGeometry.of(output);
+		assertEquals(4, geometry.getLedNum());
+		assertEquals(12, geometry.getPixels());
+		assertEquals(3, geometry.getSegmentCount());
+		assertEquals(4, geometry.getSegmentLength());
+		assertTrue(geometry.isValidFor(output));
+		
+		// snapshot is outdated after a patch change
+		output.getOutputPatch().setShift(1);
+		assertFalse(geometry.isValidFor(output));
+		assertFalse(geometry.isValidFor(null));
+	}
+	
+	@DisplayName("Index mapping with offset and reverse")
+	@Test
+	public void offsetReverseTest() {
+		LedGeometry plain = geometry(10, 0, 0, false);
+		LedGeometry reverse = geometry(10, 0, 0, true);
+		LedGeometry offset = geometry(10, 3, 0, false);
+		LedGeometry negativeOffset = geometry(10, -3, 0, false);
+		LedGeometry offsetReverse = geometry(10, 3, 0, true);
+		for(int i = 0; i < 10; i++) {
+			assertEquals(i, plain.getPixelIndex(0, i));
+			assertEquals(9 - i, reverse.getPixelIndex(0, i));
+			assertEquals((i + 3) % 10, offset.getPixelIndex(0, i));
+			assertEquals((i + 7) % 10, negativeOffset.getPixelIndex(0, i));
+			assertEquals(9 - (i + 3) % 10, offsetReverse.getPixelIndex(0, i));
+		}
+		// shift is ignored if it exceeds the strip
+		assertEquals(0, geometry(10, 10, 0, false).getPixelIndex(0, 0));
+	}
+	
+	@DisplayName("Index mapping of cloned and serpentine segments")
+	@Test
+	public void serpentineTest() {
+		LedGeometry cloned = geometry(12, 0, 2, false);
+		LedGeometry serpentine = geometry(12, 0, 2, true);
+		for(int i = 0; i < 4; i++) {
+			assertEquals(i, cloned.getPixelIndex(0, i));
+			assertEquals(4 + i, cloned.getPixelIndex(1, i));
+			assertEquals(8 + i, cloned.getPixelIndex(2, i));
+			
+			assertEquals(i, serpentine.getPixelIndex(0, i));
+			assertEquals(7 - i, serpentine.getPixelIndex(1, i));
+			assertEquals(8 + i, serpentine.getPixelIndex(2, i));
+		}
+		// offset is applied in every segment
+		LedGeometry shifted = geometry(12, 1, 2, true);
+		assertEquals(1, shifted.getPixelIndex(0, 0));
+		assertEquals(6, shifted.getPixelIndex(1, 0));
+		assertEquals(8, shifted.getPixelIndex(2, 3));
+	}
+	
+	@DisplayName("Index mapping bounds")
+	@Test
+	public void boundsTest() {
+		LedGeometry geometry = geometry(12, 0, 2, true);
+		assertThrows(IndexOutOfBoundsException.class, () -> geometry.getPixelIndex(-1, 0));
+		assertThrows(IndexOutOfBoundsException.class, () -> geometry.getPixelIndex(3, 0));
+		assertThrows(IndexOutOfBoundsException.class, () -> geometry.getPixelIndex(0, -1));
+		assertThrows(IndexOutOfBoundsException.class, () -> geometry.getPixelIndex(0, 4));
+		assertThrows(IndexOutOfBoundsException.class, () -> geometry(10, 0, 0, false).getPixelIndex(1, 0));
+		
+		// 11 pixels in 3 segments of 4 pixels: last pixel is cut off
+		LedGeometry partial = geometry(11, 0, 2, false);
+		assertEquals(4, partial.getLedNum());
+		assertEquals(10, partial.getPixelIndex(2, 2));
+		assertEquals(-1, partial.getPixelIndex(2, 3));
+	}
+	
+	@DisplayName("Index mapping equals output patch")
+	@Test
+	public void patchEqualityTest() {
+		FrameBuffer output = new FrameBuffer(0);
+		for(int pixels : new int[] {2, 7, 11, 60}) {
+			for(int shift = -pixels; shift <= pixels; shift += Math.max(1, pixels / 5)) {
+				for(int clone = 0; clone <= 3; clone++) {
+					for(boolean mirrored : new boolean[] {false, true}) {
+						LedGeometry geometry = geometry(pixels, shift, clone, mirrored);
+						OutputPatch patch = geometry.getOutput().getOutputPatch();
+						if(geometry.getLedNum() <= 0)
+							continue;
+						
+						// every effect pixel has a unique color
+						FrameBuffer input = new FrameBuffer(geometry.getLedNum());
+						for(int i = 0; i < input.size(); i++)
+							input.setRGB(i, i + 1);
+						patch.patchOutput(input, output, RgbOrder.RGB);
+						
+						String config = "pixels=" + pixels + " shift=" + shift + " clone=" + clone + " mirrored=" + mirrored;
+						for(int s = 0; s < geometry.getSegmentCount(); s++) {
+							for(int i = 0; i < geometry.getLedNum(); i++) {
+								int index = geometry.getPixelIndex(s, i);
+								if(index != -1)
+									assertEquals(i + 1, output.getRGB(index), config + " segment=" + s + " index=" + i);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	private static LedGeometry geometry(int pixels, int shift, int clone, boolean mirrored) {
+		VirtualOutput output = new VirtualOutput("geometry", pixels);
+		OutputPatch patch = output.getOutputPatch();
+		patch.setShift(shift);
+		patch.setClone(clone);
+		patch.setCloneMirrored(mirrored);
+		return LedGeometry.of(output);
+	}
+
+}
@@ -0,0 +1,179 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.link.FanOutDispatcher;
+import de.lars.remotelightcore.devices.link.FanOutDispatcher.ChildStatus;
+import de.lars.remotelightcore.devices.link.chain.Chain;
+import de.lars.remotelightcore.devices.link.multi.DividingMethod;
+import de.lars.remotelightcore.devices.link.multi.MultiOutput;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class LinkedDeviceTest {
+
+	@DisplayName("Chain passes slices to the linked devices")
+	@Test
+	public void chainTest() {
+		TestDevice a = new TestDevice("a", 3);
+		TestDevice b = new TestDevice("b", 5);
+		b.getOutputPatch().setShift(1);
+		Chain chain = new Chain("chain");
+		chain.addDevices(a, b);
+		assertEquals(8, chain.getPixels());
+		assertEquals(ConnectionState.CONNECTED, chain.connect());
+
+		try {
+			chain.onOutput(createFrame(8));
+			assertPixels(a, 1, 2, 3);
+			// shift is applied to the slice
+			assertPixels(b, 8, 4, 5, 6, 7);
+		} finally {
+			chain.disconnect();
+		}
+		assertEquals(ConnectionState.DISCONNECTED, chain.getConnectionState());
+	}
+
+	@DisplayName("MultiOutput cuts, pads and centers slices")
+	@Test
+	public void multiOutputTest() {
+		TestDevice small = new TestDevice("small", 4);
+		TestDevice large = new TestDevice("large", 8);
+		MultiOutput multi = new MultiOutput("multi");
+		multi.addDevices(small, large);
+		multi.connect();
+
+		multi.setProcessingMethod(DividingMethod.CUT_OVERHANGING);
+		multi.onOutput(createFrame(8));
+		assertPixels(small, 1, 2, 3, 4);
+		assertPixels(large, 1, 2, 3, 4, 5, 6, 7, 8);
+
+		multi.setProcessingMethod(DividingMethod.CUT_OVERHANGING_CENTER);
+		multi.onOutput(createFrame(8));
+		assertPixels(small, 3, 4, 5, 6);
+
+		multi.setProcessingMethod(DividingMethod.BLACK_OVERHANGING);
+		multi.onOutput(createFrame(4));
+		assertPixels(small, 1, 2, 3, 4);
+		assertPixels(large, 1, 2, 3, 4, 0, 0, 0, 0);
+
+		multi.setProcessingMethod(DividingMethod.BLACK_OVERHANGING_CENTER);
+		multi.onOutput(createFrame(4));
+		assertPixels(large, 0, 0, 1, 2, 3, 4, 0, 0);
+		multi.disconnect();
+	}
+
+	@DisplayName("Slow and failing devices do not affect other linked devices")
+	@Test
+	public void isolationTest() throws InterruptedException {
+		TestDevice healthy = new TestDevice("healthy", 4);
+		TestDevice slow = new TestDevice("slow", 4);
+		slow.block = new CountDownLatch(1);
+		TestDevice failing = new TestDevice("failing", 4);
+		failing.fail = true;
+		TestDevice offline = new TestDevice("offline", 4);
+		offline.state = ConnectionState.FAILED;
+		MultiOutput multi = new MultiOutput("multi");
+		multi.addDevices(healthy, slow, failing, offline);
+		FanOutDispatcher dispatcher = multi.getDispatcher();
+		// only the first frame waits for the blocked device, the following frames skip it
+		dispatcher.setDeadline(500);
+
+		assertEquals(ConnectionState.CONNECTED, multi.connect());
+		try {
+			final int frames = 5;
+			for(int f = 0; f < frames; f++)
+				multi.onOutput(createFrame(4));
+			// the group stays connected while a linked device is offline
+			assertEquals(ConnectionState.CONNECTED, multi.getConnectionState());
+
+			List<ChildStatus> status = dispatcher.getStatus();
+			// all frames were sent while the slow device is still blocked in the first frame
+			assertEquals(frames, status.get(0).getFramesSent());
+			assertEquals(0, status.get(1).getFramesSent());
+			assertEquals(frames - 1, status.get(1).getFramesSkipped());
+			assertEquals(frames, status.get(2).getSendErrors());
+			assertEquals(ConnectionState.FAILED, status.get(3).getState());
+			assertEquals(0, status.get(3).getFramesSent());
+			assertPixels(healthy, 1, 2, 3, 4);
+		} finally {
+			slow.block.countDown();
+			multi.disconnect();
+		}
+	}
+
+	/**
+	 * @return frame with pixel values 1 to size
+	 */
+	private FrameBuffer createFrame(int size) {
+		FrameBuffer frame = new FrameBuffer(size);
+		for(int i = 0; i < size; i++)
+			frame.setRGB(i, i + 1);
+		return frame;
+	}
+
+	private void assertPixels(TestDevice device, int... expected) {
+		assertEquals(expected.length, device.frame.size(), device.getId());
+		for(int i = 0; i < expected.length; i++)
+			assertEquals(expected[i], device.frame.getRGB(i), device.getId() + " pixel " + i);
+	}
+
+	private static class TestDevice extends Device {
+		private static final long serialVersionUID = 1L;
+		FrameBuffer frame = new FrameBuffer(0);
+		volatile ConnectionState state = ConnectionState.CONNECTED;
+		volatile CountDownLatch block;
+		volatile boolean fail;
+
+		TestDevice(String id, int pixels) {
+			super(id, pixels);
+			setPixels(pixels);
+		}
+
+		@Override
+		public void send(FrameBuffer frame) {
+			if(fail)
+				throw new IllegalStateException("send failed");
+			this.frame.copyFrom(frame);
+			if(block != null) {
+				try {
+					block.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		@Override
+		protected boolean isColorCorrectionEnabled() {
+			return false;
+		}
+
+		@Override
+		public ConnectionState connect() {
+			return state;
+		}
+
+		@Override
+		public ConnectionState disconnect() {
+			return ConnectionState.DISCONNECTED;
+		}
+
+		@Override
+		public ConnectionState getConnectionState() {
+			return state;
+		}
+
+		@Override
+		public void onLoad() {
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.metrics.LatencyHistogram;
+import de.lars.remotelightcore.metrics.PerformanceMetrics;
+
+public class MetricsTest {
+	
+	@DisplayName("Latency histogram percentiles")
+	@Test
+	public void histogramTest() {
+		LatencyHistogram h = new LatencyHistogram();
+		// 1..1000 ms
+		for(int i = 1; i <= 1000; i++) {
+			h.record(i * 1_000_000L);
+		}
+		assertEquals(1000, h.getCount());
+		assertEquals(500.5, h.getMean(), 0.01);
+		assertEquals(1000, h.getMax(), 0.001);
+		// bucket resolution is better than 7%
+		assertEquals(500, h.getPercentile(50), 500 * 0.07);
+		assertEquals(990, h.getPercentile(99), 990 * 0.07);
+		assertEquals(1000, h.getPercentile(100), 0.001);
+		assertTrue(h.getPercentile(50) < h.getPercentile(99));
+		
+		h.reset();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getPercentile(99), 0);
+	}
+	
+	@DisplayName("Concurrent metrics recording")
+	@Test
+	public void concurrencyTest() throws InterruptedException {
+		final PerformanceMetrics m = new PerformanceMetrics("test");
+		final int perThread = 50000;
+		Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				for(int j = 0; j < perThread; j++) {
+					m.recordSendTime(j * 1000L);
+					m.recordError();
+				}
+			});
+			threads[i].start();
+		}
+		for(Thread t : threads)
+			t.join();
+		assertEquals(threads.length * perThread, m.getSendTime().getCount());
+		assertEquals(threads.length * perThread, m.getErrors());
+		assertTrue(m.toMap().containsKey("send"));
+		String summary = m.toString();
+		assertTrue(summary.startsWith("test: "), summary);
+		assertTrue(summary.contains(threads.length * perThread + " errors"), summary);
+		assertTrue(summary.contains("send mean"), summary);
+		assertFalse(summary.contains("render mean"), summary);
+	}
+
+}
@@ -0,0 +1,195 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.artnet.ArtnetSender;
+import de.lars.remotelightcore.devices.e131.E131Packet;
+import de.lars.remotelightcore.devices.e131.E131Sender;
+import de.lars.remotelightcore.networkinput.DmxInputDecoder;
+import de.lars.remotelightcore.networkinput.DmxInputReceiver;
+import de.lars.remotelightcore.networkinput.InputProtocol;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class NetworkInputTest {
+	
+	@DisplayName("E1.31 input from a local sender")
+	@Test
+	public void e131Test() throws Exception {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		BlockingQueue<FrameBuffer> frames = new LinkedBlockingQueue<>();
+		DmxInputDecoder decoder = new DmxInputDecoder(InputProtocol.E131, f -> frames.add(new FrameBuffer(f.size()).copyFrom(f)));
+		decoder.setLayout(1, 510, 400); // 1200 channels: 510 + 510 + 180
+		// the local sender uses the CID of this application
+		decoder.setIgnoreOwnPackets(false);
+		
+		try(DmxInputReceiver receiver = new DmxInputReceiver(new InetSocketAddress(loopback, 0), decoder)) {
+			receiver.start();
+			int port = ((InetSocketAddress) receiver.getLocalAddress()).getPort();
+			try(E131Sender sender = new E131Sender(new InetSocketAddress(loopback, 0), port)) {
+				Random random = new Random(42);
+				FrameBuffer frame = new FrameBuffer(400);
+				
+				// immediate and synchronized output
+				int[] syncUniverses = {0, 7000};
+				for(int sync : syncUniverses) {
+					sender.configure(1, 510, loopback, sync);
+					for(int f = 0; f < 3; f++) {
+						for(int i = 0; i < frame.size(); i++)
+							frame.setRGB(i, random.nextInt() & 0xFFFFFF);
+						sender.send(frame);
+						FrameBuffer received = frames.poll(1, TimeUnit.SECONDS);
+						assertNotNull(received, "frame " + f + " sync " + sync);
+						assertTrue(frame.contentEquals(received), "frame " + f + " sync " + sync);
+					}
+				}
+				assertNull(frames.poll(50, TimeUnit.MILLISECONDS));
+				assertEquals(6, decoder.getFrames());
+				assertEquals(0, decoder.getInvalid());
+			}
+		}
+	}
+	
+	@DisplayName("Art-Net input from a local sender")
+	@Test
+	public void artnetTest() throws Exception {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		BlockingQueue<FrameBuffer> frames = new LinkedBlockingQueue<>();
+		DmxInputDecoder decoder = new DmxInputDecoder(InputProtocol.ARTNET, f -> frames.add(new FrameBuffer(f.size()).copyFrom(f)));
+		decoder.setLayout(0, 512, 300); // universes are not aligned to pixels
+		
+		try(DmxInputReceiver receiver = new DmxInputReceiver(new InetSocketAddress(loopback, 0), decoder)) {
+			receiver.start();
+			int port = ((InetSocketAddress) receiver.getLocalAddress()).getPort();
+			try(ArtnetSender sender = new ArtnetSender(new InetSocketAddress(loopback, 0), port)) {
+				Random random = new Random(7);
+				FrameBuffer frame = new FrameBuffer(300);
+				
+				for(boolean sync : new boolean[] {false, true}) {
+					sender.configure(loopback, 0, 0, 512, sync);
+					for(int f = 0; f < 3; f++) {
+						for(int i = 0; i < frame.size(); i++)
+							frame.setRGB(i, random.nextInt() & 0xFFFFFF);
+						sender.send(frame);
+						FrameBuffer received = frames.poll(1, TimeUnit.SECONDS);
+						assertNotNull(received, "frame " + f + " sync " + sync);
+						assertTrue(frame.contentEquals(received), "frame " + f + " sync " + sync);
+					}
+				}
+				assertNull(frames.poll(50, TimeUnit.MILLISECONDS));
+				assertEquals(6, decoder.getFrames());
+			}
+		}
+	}
+	
+	@DisplayName("Priority and sequence numbers")
+	@Test
+	public void priorityTest() {
+		FrameBuffer[] last = new FrameBuffer[1];
+		DmxInputDecoder decoder = new DmxInputDecoder(InputProtocol.E131, f -> last[0] = f);
+		decoder.setLayout(1, 510, 170); // single universe
+		
+		// source A, priority 100
+		decoder.decode(createPacket(1, 100, 10, 0x10, false), null);
+		assertEquals(0x101010, last[0].getRGB(0));
+		// source B with lower and equal priority is ignored
+		decoder.decode(createPacket(2, 50, 0, 0x20, false), null);
+		decoder.decode(createPacket(2, 100, 1, 0x20, false), null);
+		assertEquals(0x101010, last[0].getRGB(0));
+		assertEquals(2, decoder.getRejected());
+		// source B with higher priority takes over
+		decoder.decode(createPacket(2, 150, 2, 0x30, false), null);
+		assertEquals(0x303030, last[0].getRGB(0));
+		decoder.decode(createPacket(1, 100, 11, 0x10, false), null);
+		assertEquals(0x303030, last[0].getRGB(0));
+		assertEquals(3, decoder.getRejected());
+		
+		// old and repeated packets of source B are discarded
+		decoder.decode(createPacket(2, 150, 1, 0x40, false), null);
+		decoder.decode(createPacket(2, 150, 2, 0x40, false), null);
+		assertEquals(0x303030, last[0].getRGB(0));
+		assertEquals(2, decoder.getOutOfSequence());
+		// sequence number wraps around
+		for(int sequence = 100; sequence <= 255; sequence += 50)
+			decoder.decode(createPacket(2, 150, sequence, 0x50, false), null);
+		decoder.decode(createPacket(2, 150, 0, 0x60, false), null);
+		assertEquals(0x606060, last[0].getRGB(0));
+		assertEquals(2, decoder.getOutOfSequence());
+		
+		// source B terminates the stream, source A takes over again
+		decoder.decode(createPacket(2, 150, 1, 0x70, true), null);
+		assertEquals(0x606060, last[0].getRGB(0));
+		decoder.decode(createPacket(1, 100, 12, 0x80, false), null);
+		assertEquals(0x808080, last[0].getRGB(0));
+		assertEquals(8, decoder.getFrames());
+		
+		// other universes and invalid packets
+		decoder.decode(ByteBuffer.wrap(new E131Packet().createPacket(2, 0, new byte[510])), null);
+		decoder.decode(ByteBuffer.wrap(new byte[200]), null);
+		assertEquals(8, decoder.getFrames());
+		assertEquals(1, decoder.getInvalid());
+		
+		// own packets are ignored
+		decoder.decode(ByteBuffer.wrap(new E131Packet().createPacket(1, 13, new byte[510])), null);
+		assertEquals(8, decoder.getFrames());
+		assertEquals(3, decoder.getRejected());
+	}
+	
+	@DisplayName("E1.31 synchronization only by the source of the universe")
+	@Test
+	public void syncSourceTest() {
+		FrameBuffer[] last = new FrameBuffer[1];
+		DmxInputDecoder decoder = new DmxInputDecoder(InputProtocol.E131, f -> last[0] = f);
+		decoder.setLayout(1, 510, 170);
+		
+		byte[] dmx = new byte[510];
+		Arrays.fill(dmx, (byte) 0x10);
+		ByteBuffer packet = ByteBuffer.wrap(new E131Packet().createPacket(1, 0, dmx, 7000));
+		packet.putLong(E131Packet.CID_OFFSET, 1);
+		decoder.decode(packet, null);
+		assertNull(last[0]);
+		// synchronization packet of another source
+		decoder.decode(createSyncPacket(2, 7000), null);
+		assertNull(last[0]);
+		decoder.decode(createSyncPacket(1, 7000), null);
+		assertNotNull(last[0]);
+		assertEquals(0x101010, last[0].getRGB(0));
+		assertEquals(1, decoder.getFrames());
+	}
+	
+	private ByteBuffer createSyncPacket(int source, int syncAddress) {
+		ByteBuffer packet = ByteBuffer.wrap(new E131Packet().createSyncPacket(syncAddress, 0));
+		packet.putLong(E131Packet.CID_OFFSET, source);
+		return packet;
+	}
+	
+	/**
+	 * Create a data packet for universe 1 with all slots set to the same value
+	 */
+	private ByteBuffer createPacket(int source, int priority, int sequence, int value, boolean terminated) {
+		byte[] dmx = new byte[510];
+		Arrays.fill(dmx, (byte) value);
+		ByteBuffer packet = ByteBuffer.wrap(new E131Packet().createPacket(1, sequence, dmx));
+		packet.putLong(E131Packet.CID_OFFSET, source);
+		packet.put(E131Packet.PRIORITY_OFFSET, (byte) priority);
+		if(terminated)
+			packet.put(E131Packet.OPTIONS_OFFSET, (byte) E131Packet.OPTION_STREAM_TERMINATED);
+		return packet;
+	}
+
+}
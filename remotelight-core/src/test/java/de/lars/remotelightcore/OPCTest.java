@@ -0,0 +1,129 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.opc.OPCClient;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class OPCTest {
+
+	@DisplayName("OPC set-pixel messages and reconnect")
+	@Test
+	public void sendTest() throws Exception {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(ServerSocket server = new ServerSocket(0, 1, loopback)) {
+			server.setSoTimeout(5000);
+			OPCClient client = new OPCClient(new InetSocketAddress(loopback, server.getLocalPort()), 3);
+			try {
+				assertEquals(ConnectionState.CONNECTED, client.connect());
+				FrameBuffer frame = createFrame(100, 0);
+
+				try(Socket socket = server.accept()) {
+					DataInputStream in = openStream(socket);
+					for(int f = 0; f < 3; f++) {
+						frame = createFrame(100, f);
+						client.send(frame);
+						assertArrayEquals(encode(frame), readMessage(in, 3));
+					}
+				}
+				// server closed the connection, the client reconnects and sends the last frame again
+				try(Socket socket = server.accept()) {
+					assertArrayEquals(encode(frame), readMessage(openStream(socket), 3));
+					assertEquals(1, client.getReconnects());
+					assertEquals(ConnectionState.CONNECTED, client.getState());
+				}
+			} finally {
+				client.disconnect();
+			}
+			assertEquals(ConnectionState.DISCONNECTED, client.getState());
+		}
+	}
+
+	@DisplayName("OPC sends only the newest frame when the socket backs up")
+	@Test
+	public void backpressureTest() throws Exception {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(ServerSocket server = new ServerSocket(0, 1, loopback)) {
+			server.setSoTimeout(5000);
+			server.setReceiveBufferSize(4096);
+			OPCClient client = new OPCClient(new InetSocketAddress(loopback, server.getLocalPort()), 0);
+			try {
+				assertEquals(ConnectionState.CONNECTED, client.connect());
+				try(Socket socket = server.accept()) {
+					// server does not read, the socket buffers fill up
+					final int frames = 200;
+					FrameBuffer frame = null;
+					for(int f = 0; f < frames; f++) {
+						frame = createFrame(OPCClient.MAX_PIXELS, f);
+						client.send(frame);
+					}
+					Thread.sleep(200);
+					assertTrue(client.getFramesDropped() > 0, "no frames dropped");
+
+					// read until the newest frame arrives
+					DataInputStream in = openStream(socket);
+					byte[] expected = encode(frame);
+					int received = 0;
+					byte[] message;
+					do {
+						message = readMessage(in, 0);
+						received++;
+					} while(!Arrays.equals(expected, message));
+					assertTrue(received < frames, "old frames were queued");
+					assertEquals(frames, received + client.getFramesDropped());
+				}
+			} finally {
+				client.disconnect();
+			}
+		}
+	}
+
+	private FrameBuffer createFrame(int pixels, int seed) {
+		FrameBuffer frame = new FrameBuffer(pixels);
+		for(int i = 0; i < pixels; i++)
+			frame.setRGB(i, i * 31 + seed * 7919);
+		return frame;
+	}
+
+	private byte[] encode(FrameBuffer frame) {
+		byte[] data = new byte[frame.size() * 3];
+		for(int i = 0; i < frame.size(); i++) {
+			data[i * 3] = (byte) frame.getRed(i);
+			data[i * 3 + 1] = (byte) frame.getGreen(i);
+			data[i * 3 + 2] = (byte) frame.getBlue(i);
+		}
+		return data;
+	}
+
+	private DataInputStream openStream(Socket socket) throws IOException {
+		socket.setSoTimeout(5000);
+		return new DataInputStream(socket.getInputStream());
+	}
+
+	/**
+	 * Read a single OPC message and check the header
+	 * @return pixel data of the message
+	 */
+	private byte[] readMessage(DataInputStream in, int channel) throws IOException {
+		assertEquals(channel, in.readUnsignedByte());
+		assertEquals(OPCClient.COMMAND_SET_PIXELS, in.readUnsignedByte());
+		byte[] data = new byte[in.readUnsignedShort()];
+		in.readFully(data);
+		return data;
+	}
+
+}
@@ -0,0 +1,142 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.arduino.RgbOrder;
+import de.lars.remotelightcore.out.FrameBuffer;
+import de.lars.remotelightcore.out.patch.ColorCorrection;
+import de.lars.remotelightcore.out.patch.OutputPatch;
+import de.lars.remotelightcore.utils.color.Color;
+
+public class OutputPatchTest {
+	
+	@DisplayName("Compiled output patch equals color array patch")
+	@Test
+	public void equalityTest() {
+		Random random = new Random(42);
+		FrameBuffer output = new FrameBuffer(0);
+		
+		for(int pixel : new int[] {1, 2, 7, 60, 150}) {
+			for(int shift = -pixel; shift <= pixel; shift += Math.max(1, pixel / 5)) {
+				for(int clone = 0; clone <= 3; clone++) {
+					for(boolean mirrored : new boolean[] {false, true}) {
+						for(RgbOrder order : RgbOrder.values()) {
+							OutputPatch patch = new OutputPatch(pixel);
+							patch.setShift(shift);
+							patch.setClone(clone);
+							patch.setCloneMirrored(mirrored);
+							if(patch.getPatchedPixelNumber() <= 0)
+								continue;
+							
+							Color[] input = randomStrip(random, patch.getPatchedPixelNumber());
+							Color[] expected = patch.patchOutput(input, order);
+							patch.patchOutput(FrameBuffer.fromColors(input), output, order);
+							
+							String config = "pixel=" + pixel + " shift=" + shift + " clone=" + clone + " mirrored=" + mirrored + " order=" + order;
+							assertEquals(expected.length, output.size(), config);
+							for(int i = 0; i < expected.length; i++) {
+								assertEquals(expected[i].getRGB() & 0xFFFFFF, output.getRGB(i), config + " index=" + i);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	@DisplayName("Color correction lookup table")
+	@Test
+	public void colorCorrectionTest() {
+		ColorCorrection cc = new ColorCorrection();
+		int[] lut = cc.getLookupTable(100);
+		assertEquals(255, lut[255]);
+		assertEquals(128, lut[256 + 128]);
+		// table is cached until a value changes
+		assertTrue(lut == cc.getLookupTable(100));
+		
+		lut = cc.getLookupTable(50);
+		assertEquals(128, lut[255]);
+		
+		cc.setGamma(2.2f);
+		cc.setWhitePoint(255, 200, 255);
+		lut = cc.getLookupTable(100);
+		assertEquals(255, lut[255]);
+		assertEquals(200, lut[256 + 255]);
+		assertTrue(lut[128] < 64, "Gamma should darken mid tones");
+		
+		// applied together with the RGB order
+		OutputPatch patch = new OutputPatch(1);
+		FrameBuffer input = new FrameBuffer(1);
+		input.setRGB(0, 255, 255, 0);
+		FrameBuffer output = patch.patchOutput(input, new FrameBuffer(1), RgbOrder.GBR, lut);
+		assertEquals(200, output.getRed(0));
+		assertEquals(0, output.getGreen(0));
+		assertEquals(255, output.getBlue(0));
+	}
+	
+	@DisplayName("Patch a slice of a shared frame")
+	@Test
+	public void sliceTest() {
+		FrameBuffer input = new FrameBuffer(10);
+		for(int i = 0; i < input.size(); i++)
+			input.setRGB(i, i + 1);
+		OutputPatch patch = new OutputPatch(4);
+		FrameBuffer output = new FrameBuffer(0);
+		
+		patch.patchOutput(input, 3, 4, output, RgbOrder.RGB, null);
+		assertPixels(output, 4, 5, 6, 7);
+		// pixels outside of the input frame are black
+		patch.patchOutput(input, -2, 4, output, RgbOrder.RGB, null);
+		assertPixels(output, 0, 0, 1, 2);
+		patch.patchOutput(input, 8, 4, output, RgbOrder.RGB, null);
+		assertPixels(output, 9, 10, 0, 0);
+		
+		patch.setShift(1);
+		patch.patchOutput(input, 3, 4, output, RgbOrder.RGB, null);
+		assertPixels(output, 7, 4, 5, 6);
+	}
+	
+	private void assertPixels(FrameBuffer frame, int... expected) {
+		assertEquals(expected.length, frame.size());
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], frame.getRGB(i), "index=" + i);
+		}
+	}
+	
+	@DisplayName("Compiled output patch is reused across frames")
+	@Test
+	public void reuseTest() {
+		final int pixel = 3000;
+		OutputPatch patch = new OutputPatch(pixel);
+		patch.setShift(17);
+		patch.setClone(1);
+		patch.setCloneMirrored(true);
+		Random random = new Random(1);
+		FrameBuffer output = new FrameBuffer(pixel);
+		
+		for(int f = 0; f < 5; f++) {
+			Color[] strip = randomStrip(random, patch.getPatchedPixelNumber());
+			Color[] expected = patch.patchOutput(strip, RgbOrder.GRB);
+			patch.patchOutput(FrameBuffer.fromColors(strip), output, RgbOrder.GRB);
+			assertEquals(expected.length, output.size());
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i].getRGB() & 0xFFFFFF, output.getRGB(i), "frame " + f + " index " + i);
+			}
+		}
+	}
+	
+	private Color[] randomStrip(Random random, int length) {
+		Color[] strip = new Color[length];
+		for(int i = 0; i < length; i++) {
+			strip[i] = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+		}
+		return strip;
+	}
+
+}
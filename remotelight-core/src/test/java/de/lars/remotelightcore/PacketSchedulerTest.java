@@ -0,0 +1,138 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.udp.PacketScheduler;
+import de.lars.remotelightcore.devices.udp.TransmissionMode;
+import de.lars.remotelightcore.devices.udp.TransmissionSettings;
+import de.lars.remotelightcore.devices.udp.UniverseStats;
+
+public class PacketSchedulerTest {
+
+	private static final int PACKETS = 6;
+
+	@DisplayName("Batched transmission keeps order and counts packets")
+	@Test
+	public void batchedTest() throws IOException {
+		TransmissionSettings settings = new TransmissionSettings();
+		settings.setMode(TransmissionMode.BATCHED);
+		settings.setBatchSize(2);
+		settings.setBatchGap(5000);
+
+		long duration = transmit(settings, 1, 0);
+		// two pauses between three batches
+		assertTrue(duration >= TimeUnit.MICROSECONDS.toNanos(2 * 5000), "batches were not paused: " + duration);
+	}
+
+	@DisplayName("Paced transmission spreads packets across the frame interval")
+	@Test
+	public void pacedTest() throws IOException {
+		TransmissionSettings settings = new TransmissionSettings();
+		settings.setMode(TransmissionMode.PACED);
+		settings.setPacing(50);
+
+		// second frame is paced based on the 40 ms interval of the first two
+		long duration = transmit(settings, 2, 40);
+		assertTrue(duration >= TimeUnit.MILLISECONDS.toNanos(40) * 50 / 100 * (PACKETS - 1) / PACKETS * 9 / 10,
+				"packets were not paced: " + duration);
+	}
+	
+	@DisplayName("Universe statistics are reset and cleared")
+	@Test
+	public void statsResetTest() throws IOException {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(DatagramChannel receiver = DatagramChannel.open();
+				DatagramChannel channel = DatagramChannel.open()) {
+			receiver.bind(new InetSocketAddress(loopback, 0));
+			channel.bind(new InetSocketAddress(loopback, 0));
+			
+			PacketScheduler scheduler = new PacketScheduler(channel);
+			UniverseStats stats = scheduler.getStats(1);
+			scheduler.send(ByteBuffer.allocate(10), receiver.getLocalAddress(), stats);
+			assertEquals(1, stats.getPackets());
+			assertEquals(10, stats.getBytes());
+			
+			// reset keeps the statistics object of the sender
+			scheduler.resetStats();
+			assertEquals(0, stats.getPackets());
+			assertEquals(0, stats.getBytes());
+			assertSame(stats, scheduler.getStats(1));
+			
+			// clear removes universes of an old layout
+			scheduler.clearStats();
+			assertTrue(scheduler.getAllStats().isEmpty());
+		}
+	}
+
+	/**
+	 * Transmit a number of frames and check the received packets
+	 * @return duration of the last frame in nanoseconds
+	 */
+	private long transmit(TransmissionSettings settings, int frames, long frameDelay) throws IOException {
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		try(DatagramChannel receiver = DatagramChannel.open();
+				DatagramChannel channel = DatagramChannel.open()) {
+			receiver.bind(new InetSocketAddress(loopback, 0));
+			channel.bind(new InetSocketAddress(loopback, 0));
+			SocketAddress target = receiver.getLocalAddress();
+
+			PacketScheduler scheduler = new PacketScheduler(channel);
+			scheduler.setSettings(settings);
+			ByteBuffer[] packets = new ByteBuffer[PACKETS];
+			SocketAddress[] targets = new SocketAddress[PACKETS];
+			UniverseStats[] stats = new UniverseStats[PACKETS];
+			for(int i = 0; i < PACKETS; i++) {
+				packets[i] = ByteBuffer.allocateDirect(100 + i);
+				packets[i].put(0, (byte) i);
+				targets[i] = target;
+				stats[i] = scheduler.getStats(i + 1);
+			}
+
+			long duration = 0;
+			for(int f = 0; f < frames; f++) {
+				if(f > 0) {
+					try {
+						Thread.sleep(frameDelay);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				for(ByteBuffer p : packets)
+					p.clear();
+				long start = System.nanoTime();
+				scheduler.transmit(packets, targets, stats);
+				duration = System.nanoTime() - start;
+
+				for(int i = 0; i < PACKETS; i++) {
+					byte[] data = UdpTestUtils.receive(receiver);
+					assertEquals(100 + i, data.length);
+					assertEquals(i, data[0]);
+				}
+			}
+
+			assertEquals(PACKETS, scheduler.getAllStats().size());
+			for(int i = 0; i < PACKETS; i++) {
+				UniverseStats s = scheduler.getAllStats().get(i);
+				assertEquals(i + 1, s.getUniverse());
+				assertEquals(frames, s.getPackets());
+				assertEquals(frames * (100 + i), s.getBytes());
+				assertEquals(0, s.getErrors());
+			}
+			return duration;
+		}
+	}
+
+}
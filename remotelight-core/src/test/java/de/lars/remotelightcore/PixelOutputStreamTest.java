@@ -0,0 +1,111 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.virtual.DispatchMode;
+import de.lars.remotelightcore.devices.virtual.PixelOutputStream;
+import de.lars.remotelightcore.devices.virtual.PixelOutputStream.ReceiverStats;
+import de.lars.remotelightcore.devices.virtual.PixelStreamReceiver;
+import de.lars.remotelightcore.devices.virtual.VirtualOutput;
+import de.lars.remotelightcore.utils.color.Color;
+
+public class PixelOutputStreamTest {
+
+	@DisplayName("Slow receivers do not block the output")
+	@Test
+	public void asyncTest() throws InterruptedException {
+		VirtualOutput output = new VirtualOutput("virtual", 10);
+		PixelOutputStream stream = output.getOutputStream();
+		CountDownLatch release = new CountDownLatch(1);
+		Color[][] slowLast = new Color[1][];
+		PixelStreamReceiver slow = strip -> {
+			slowLast[0] = strip;
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		CountDownLatch fastDone = new CountDownLatch(1);
+		Color[][] last = new Color[1][];
+		final int frames = 100;
+		Color[][] strips = new Color[frames][];
+		PixelStreamReceiver fast = strip -> {
+			last[0] = strip;
+			if(strip == strips[frames - 1])
+				fastDone.countDown();
+		};
+		stream.addReceiver(slow);
+		stream.addReceiver(fast);
+		output.connect();
+
+		for(int f = 0; f < frames; f++) {
+			strips[f] = new Color[] {new Color(f, 0, 0)};
+			output.send(strips[f]);
+		}
+		// all strips were written and delivered while the slow receiver is still blocked
+		assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+		assertSame(strips[frames - 1], last[0]);
+
+		release.countDown();
+		// slow receiver skipped the strips written while it was blocked
+		long deadline = System.currentTimeMillis() + 5000;
+		while(slowLast[0] != strips[frames - 1] && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		Thread.sleep(20);
+		ReceiverStats slowStats = stream.getReceiverStats(slow);
+		assertSame(strips[frames - 1], slowLast[0]);
+		assertTrue(slowStats.getDelivered() <= 2);
+		assertEquals(frames, slowStats.getDelivered() + slowStats.getDropped());
+		assertTrue(slowStats.getMaxLag() > 0);
+		ReceiverStats fastStats = stream.getReceiverStats(fast);
+		assertEquals(frames, fastStats.getDelivered() + fastStats.getDropped());
+		output.disconnect();
+	}
+
+	@DisplayName("Synchronous dispatch and receiver changes during output")
+	@Test
+	public void syncTest() throws InterruptedException {
+		VirtualOutput output = new VirtualOutput("virtual", 10);
+		output.setDispatchMode(DispatchMode.SYNCHRONOUS);
+		PixelOutputStream stream = output.getOutputStream();
+		Thread caller = Thread.currentThread();
+		Thread[] receiverThread = new Thread[1];
+		PixelStreamReceiver receiver = strip -> receiverThread[0] = Thread.currentThread();
+		PixelStreamReceiver failing = strip -> {
+			throw new IllegalStateException("receiver failed");
+		};
+		stream.addReceiver(receiver);
+		stream.addReceiver(failing);
+		output.connect();
+
+		output.send(new Color[] {Color.RED});
+		assertSame(caller, receiverThread[0]);
+		assertEquals(1, stream.getReceiverStats(receiver).getDelivered());
+		assertEquals(1, stream.getReceiverStats(failing).getErrors());
+
+		// add and remove receivers while another thread writes strips
+		Thread writer = new Thread(() -> {
+			for(int i = 0; i < 500; i++)
+				output.send(new Color[] {Color.BLUE});
+		});
+		writer.start();
+		for(int i = 0; i < 2000; i++) {
+			PixelStreamReceiver r = strip -> {};
+			stream.addReceiver(r);
+			stream.removeReceiver(r);
+		}
+		writer.join(5000);
+		assertEquals(501, stream.getReceiverStats(receiver).getDelivered());
+		output.disconnect();
+	}
+
+}
@@ -0,0 +1,142 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.remotelightserver.RLClient;
+import de.lars.remotelightcore.devices.remotelightserver.RLFrameDecoder;
+import de.lars.remotelightcore.devices.remotelightserver.RLFrameEncoder;
+import de.lars.remotelightcore.devices.remotelightserver.RLProtocol;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+public class RLProtocolTest {
+
+	@DisplayName("Binary frame encoding round trip")
+	@Test
+	public void encodingTest() throws IOException {
+		RLFrameEncoder encoder = new RLFrameEncoder(RLProtocol.SUPPORTED_FLAGS);
+		RLFrameDecoder decoder = new RLFrameDecoder();
+		Random random = new Random(42);
+		FrameBuffer frame = new FrameBuffer(1000);
+
+		// random key frame
+		for(int i = 0; i < frame.size(); i++)
+			frame.setRGB(i, random.nextInt());
+		byte[] data = roundTrip(encoder, decoder, frame);
+		assertEquals(RLProtocol.TYPE_RAW, data[0]);
+		assertEquals(RLProtocol.FRAME_HEADER_LENGTH + frame.size() * 3, data.length);
+
+		// few changed pixels
+		frame.setRGB(10, 0x123456);
+		frame.setRGB(500, 0xABCDEF);
+		frame.setRGB(501, 0);
+		data = roundTrip(encoder, decoder, frame);
+		assertEquals(RLProtocol.TYPE_DELTA, data[0]);
+		assertEquals(RLProtocol.FRAME_HEADER_LENGTH + 2 * 4 + 3 * 3, data.length);
+
+		// unchanged frame
+		data = roundTrip(encoder, decoder, frame);
+		assertEquals(RLProtocol.TYPE_DELTA, data[0]);
+		assertEquals(RLProtocol.FRAME_HEADER_LENGTH, data.length);
+
+		// solid color with a different size
+		frame = new FrameBuffer(600);
+		frame.fill(0xFF0000);
+		data = roundTrip(encoder, decoder, frame);
+		assertEquals(RLProtocol.TYPE_RLE, data[0]);
+		assertEquals(RLProtocol.FRAME_HEADER_LENGTH + 3 * 4, data.length);
+
+		// gradient, RLE disabled
+		RLFrameEncoder rawEncoder = new RLFrameEncoder(0);
+		for(int i = 0; i < frame.size(); i++)
+			frame.setRGB(i, i / 10);
+		assertEquals(RLProtocol.TYPE_RAW, roundTrip(rawEncoder, new RLFrameDecoder(), frame)[0]);
+		assertEquals(RLProtocol.TYPE_RLE, roundTrip(encoder, decoder, frame)[0]);
+	}
+
+	@DisplayName("RLClient negotiates the binary protocol")
+	@Test
+	public void binaryHandshakeTest() throws Exception {
+		try(ServerSocket server = new ServerSocket(RLClient.PORT, 1, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(5000);
+			RLClient client = new RLClient(InetAddress.getLoopbackAddress().getHostAddress());
+			Thread connector = new Thread(client::connect);
+			connector.start();
+			try(Socket socket = server.accept()) {
+				socket.setSoTimeout(5000);
+				socket.getOutputStream().write(RLProtocol.createHandshake(RLProtocol.VERSION, RLProtocol.FLAG_DELTA));
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				int handshake = RLProtocol.readHandshake(in);
+				assertEquals(RLProtocol.VERSION, RLProtocol.getVersion(handshake));
+				assertEquals(RLProtocol.FLAG_DELTA, RLProtocol.getFlags(handshake));
+				connector.join(5000);
+				assertEquals(ConnectionState.CONNECTED, client.getState());
+				assertEquals(RLProtocol.VERSION, client.getProtocolVersion());
+
+				RLFrameDecoder decoder = new RLFrameDecoder();
+				FrameBuffer frame = new FrameBuffer(300);
+				for(int f = 0; f < 3; f++) {
+					frame.setRGB(f * 10, 0x010203 * (f + 1));
+					client.send(frame);
+					assertTrue(frame.contentEquals(decoder.read(in)), "frame " + f);
+				}
+			} finally {
+				client.disconnect();
+			}
+		}
+	}
+
+	@DisplayName("RLClient falls back to JSON for old servers")
+	@Test
+	public void jsonFallbackTest() throws Exception {
+		try(ServerSocket server = new ServerSocket(RLClient.PORT, 1, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(5000);
+			RLClient client = new RLClient(InetAddress.getLoopbackAddress().getHostAddress());
+			Thread connector = new Thread(client::connect);
+			connector.start();
+			try(Socket socket = server.accept()) {
+				socket.setSoTimeout(5000);
+				connector.join(5000);
+				assertEquals(ConnectionState.CONNECTED, client.getState());
+				assertEquals(0, client.getProtocolVersion());
+
+				FrameBuffer frame = new FrameBuffer(2);
+				frame.setRGB(1, 0xFF0000);
+				client.send(frame);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				assertEquals(client.serializeToJSON(frame), reader.readLine());
+			} finally {
+				client.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Encode and decode the frame and compare the result
+	 * @return encoded frame
+	 */
+	private byte[] roundTrip(RLFrameEncoder encoder, RLFrameDecoder decoder, FrameBuffer frame) throws IOException {
+		int length = encoder.encode(frame);
+		byte[] data = Arrays.copyOf(encoder.getBuffer(), length);
+		FrameBuffer decoded = decoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+		assertTrue(frame.contentEquals(decoded), "decoded frame differs");
+		return data;
+	}
+
+}
@@ -0,0 +1,133 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.Backoff;
+import de.lars.remotelightcore.devices.ConnectionState;
+import de.lars.remotelightcore.devices.Device;
+import de.lars.remotelightcore.devices.ReconnectSupervisor;
+
+public class ReconnectTest {
+
+	@DisplayName("Exponential backoff with jitter")
+	@Test
+	public void backoffTest() {
+		Backoff backoff = new Backoff(100, 1000, 0.5);
+		long[] max = {100, 200, 400, 800, 1000, 1000};
+		for(int i = 0; i < max.length; i++) {
+			long delay = backoff.nextDelay();
+			assertTrue(delay <= max[i] && delay >= max[i] / 2, "attempt " + i + ": " + delay);
+		}
+		assertEquals(max.length, backoff.getAttempts());
+		for(int i = 0; i < 100; i++)
+			assertTrue(backoff.nextDelay() <= 1000);
+
+		backoff.reset();
+		assertEquals(100, new Backoff(100, 1000, 0).nextDelay());
+		assertTrue(backoff.nextDelay() <= 100);
+	}
+
+	@DisplayName("Supervisor reconnects devices in the background")
+	@Test
+	public void supervisorTest() throws InterruptedException {
+		ReconnectSupervisor supervisor = new ReconnectSupervisor();
+		supervisor.setDelays(5, 20);
+		CountDownLatch reconnected = new CountDownLatch(1);
+		supervisor.setReconnectListener(d -> reconnected.countDown());
+		try {
+			// fails three times
+			FlakyDevice device = new FlakyDevice(3);
+			assertTrue(supervisor.watch(device));
+			assertFalse(supervisor.watch(device));
+			assertTrue(supervisor.isReconnecting(device));
+
+			assertTrue(reconnected.await(5, TimeUnit.SECONDS));
+			assertEquals(4, device.attempts.get());
+			assertEquals(ConnectionState.CONNECTED, device.getConnectionState());
+			assertFalse(supervisor.isReconnecting(device));
+
+			// cancelled devices are not reconnected
+			FlakyDevice never = new FlakyDevice(Integer.MAX_VALUE);
+			supervisor.watch(never);
+			Thread.sleep(50);
+			supervisor.cancel(never);
+			int attempts = never.attempts.get();
+			assertTrue(attempts > 0);
+			Thread.sleep(100);
+			assertTrue(never.attempts.get() <= attempts + 1);
+			assertFalse(supervisor.isReconnecting(never));
+		} finally {
+			supervisor.shutdown();
+		}
+	}
+
+	@DisplayName("Supervisor runs attempts on the executor of the device")
+	@Test
+	public void executorTest() throws InterruptedException {
+		ReconnectSupervisor supervisor = new ReconnectSupervisor();
+		supervisor.setDelays(5, 20);
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "sender"));
+		CountDownLatch reconnected = new CountDownLatch(1);
+		AtomicReference<String> thread = new AtomicReference<>();
+		supervisor.setReconnectListener(d -> {
+			thread.set(Thread.currentThread().getName());
+			reconnected.countDown();
+		});
+		try {
+			FlakyDevice device = new FlakyDevice(1);
+			assertTrue(supervisor.watch(device, executor));
+			assertTrue(reconnected.await(5, TimeUnit.SECONDS));
+			assertEquals("sender", thread.get());
+			assertEquals(2, device.attempts.get());
+		} finally {
+			supervisor.shutdown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static class FlakyDevice extends Device {
+		private static final long serialVersionUID = 1L;
+		final AtomicInteger attempts = new AtomicInteger();
+		final int failures;
+		volatile ConnectionState state = ConnectionState.FAILED;
+
+		FlakyDevice(int failures) {
+			super("flaky", 10);
+			this.failures = failures;
+		}
+
+		@Override
+		public ConnectionState connect() {
+			state = attempts.incrementAndGet() > failures ? ConnectionState.CONNECTED : ConnectionState.FAILED;
+			return state;
+		}
+
+		@Override
+		public ConnectionState disconnect() {
+			state = ConnectionState.DISCONNECTED;
+			return state;
+		}
+
+		@Override
+		public ConnectionState getConnectionState() {
+			return state;
+		}
+
+		@Override
+		public void onLoad() {
+		}
+	}
+
+}
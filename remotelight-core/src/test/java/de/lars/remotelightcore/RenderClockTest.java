@@ -0,0 +1,93 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.utils.RenderClock;
+
+public class RenderClockTest {
+	
+	@DisplayName("Render clock drift compensation")
+	@Test
+	public void driftTest() throws InterruptedException {
+		final int period = 10;
+		final RenderClock clock = new RenderClock();
+		final AtomicInteger ticks = new AtomicInteger();
+		final AtomicLong elapsedSum = new AtomicLong();
+		
+		// every tick takes more than half of the period
+		long start = System.nanoTime();
+		RenderClock.Task task = clock.schedule("Test", () -> period, elapsed -> {
+			ticks.incrementAndGet();
+			elapsedSum.addAndGet(elapsed);
+			try {
+				Thread.sleep(6);
+			} catch (InterruptedException e) {}
+		});
+		Thread.sleep(1000);
+		clock.cancel(task);
+		long duration = System.nanoTime() - start;
+		
+		int count = ticks.get();
+		int expected = (int) (TimeUnit.NANOSECONDS.toMillis(duration) / period);
+		// never more ticks than periods; a sleep based loop would only reach ~60%
+		assertTrue(count <= expected + 2, "Unexpected tick count: " + count + ", expected " + expected);
+		assertTrue(count + task.getSkippedFrames() >= expected * 0.7, "Unexpected tick count: " + count + ", expected " + expected);
+		// elapsed times are measured between ticks and add up to at most the run time
+		assertTrue(elapsedSum.get() <= duration);
+	}
+	
+	@DisplayName("Blocking tasks do not delay other tasks")
+	@Test
+	public void isolationTest() throws InterruptedException {
+		final RenderClock clock = new RenderClock();
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch ticks = new CountDownLatch(20);
+		
+		RenderClock.Task blocking = clock.schedule("Blocking", () -> 5, elapsed -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {}
+		});
+		RenderClock.Task other = clock.schedule("Other", () -> 5, elapsed -> {
+			ticks.countDown();
+		});
+		try {
+			// the blocking task only returns after the other task ticked 20 times
+			assertTrue(ticks.await(10, TimeUnit.SECONDS), "task was blocked by another task");
+		} finally {
+			release.countDown();
+			clock.cancel(blocking);
+			clock.cancel(other);
+		}
+	}
+
+	@DisplayName("Tasks can cancel themselves from their tick")
+	@Test
+	public void selfCancelTest() throws InterruptedException {
+		RenderClock clock = new RenderClock();
+		AtomicInteger ticks = new AtomicInteger();
+		CountDownLatch cancelled = new CountDownLatch(1);
+		RenderClock.Task task = clock.schedule("self", () -> 1, elapsed -> {
+			ticks.incrementAndGet();
+			RenderClock.Task current = clock.getCurrentTask();
+			clock.cancel(current);
+			if(current != null)
+				cancelled.countDown();
+		});
+		assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+		assertTrue(task.isCancelled());
+		assertEquals(1, ticks.get());
+		assertNull(clock.getCurrentTask());
+	}
+
+}
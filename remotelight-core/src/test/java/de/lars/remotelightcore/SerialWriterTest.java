@@ -0,0 +1,110 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.arduino.SerialWriter;
+
+public class SerialWriterTest {
+
+	@DisplayName("Slow port receives only the newest frame")
+	@Test
+	public void latestFrameTest() throws Exception {
+		CountDownLatch firstWrite = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		// blocks on the first write like a full serial buffer
+		ByteArrayOutputStream port = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				firstWrite.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				written.write(b, off, len);
+			}
+		};
+
+		SerialWriter writer = new SerialWriter(port, null, "test");
+		writer.start();
+		try {
+			writer.offer(new byte[] {0}, 1);
+			assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+			// the first frame is being written, frames 1 to 9 replace each other
+			for(int f = 1; f < 10; f++)
+				writer.offer(new byte[] {(byte) f, (byte) f}, 2);
+			release.countDown();
+			waitFor(() -> writer.getFramesWritten() == 2);
+		} finally {
+			writer.stop();
+		}
+		assertArrayEquals(new byte[] {0, 9, 9}, written.toByteArray());
+		assertEquals(8, writer.getFramesDropped());
+	}
+
+	@DisplayName("Ack pacing waits for the microcontroller")
+	@Test
+	public void ackPacingTest() throws Exception {
+		PipedOutputStream ack = new PipedOutputStream();
+		PipedInputStream ackIn = new PipedInputStream(ack);
+		Semaphore frames = new Semaphore(0);
+		ByteArrayOutputStream port = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				super.write(b, off, len);
+				frames.release();
+			}
+		};
+
+		SerialWriter writer = new SerialWriter(port, ackIn, "test");
+		writer.setAckPacing(true);
+		writer.setAckTimeout(2000);
+		writer.start();
+		try {
+			writer.offer(new byte[] {1}, 1);
+			assertTrue(frames.tryAcquire(5, TimeUnit.SECONDS));
+			writer.offer(new byte[] {2}, 1);
+			// no ack yet
+			assertFalse(frames.tryAcquire(100, TimeUnit.MILLISECONDS), "frame sent before ack");
+			writer.offer(new byte[] {3}, 1);
+			ack.write('A');
+			ack.flush();
+			assertTrue(frames.tryAcquire(5, TimeUnit.SECONDS));
+			assertArrayEquals(new byte[] {1, 3}, port.toByteArray());
+			assertEquals(1, writer.getFramesDropped());
+			assertEquals(0, writer.getAckTimeouts());
+
+			// missing ack, the frame is sent after the timeout
+			writer.setAckTimeout(50);
+			writer.offer(new byte[] {4}, 1);
+			assertTrue(frames.tryAcquire(5, TimeUnit.SECONDS));
+			assertEquals(1, writer.getAckTimeouts());
+		} finally {
+			writer.stop();
+		}
+		assertEquals(3, writer.getFramesWritten());
+	}
+
+	private void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while(!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertTrue(condition.getAsBoolean(), "timed out");
+	}
+
+}
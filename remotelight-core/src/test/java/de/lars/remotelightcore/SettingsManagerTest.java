@@ -0,0 +1,58 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.io.FileStorage;
+import de.lars.remotelightcore.settings.SettingHandle;
+import de.lars.remotelightcore.settings.SettingsManager;
+import de.lars.remotelightcore.settings.SettingsManager.SettingCategory;
+import de.lars.remotelightcore.settings.types.SettingInt;
+import de.lars.remotelightcore.settings.types.SettingString;
+
+public class SettingsManagerTest {
+	
+	@DisplayName("Indexed setting lookup and handles")
+	@Test
+	public void handleTest() {
+		SettingsManager sm = new SettingsManager(new FileStorage(new File("SettingsManagerTest.json")));
+		for(int i = 0; i < 500; i++) {
+			sm.addSetting(new SettingInt("test." + i, "Test " + i, SettingCategory.Intern, null, i, 0, 1000, 1), false);
+		}
+		assertEquals(250, sm.getSetting(SettingInt.class, "test.250").get());
+		assertNull(sm.getSettingFromId("test.missing"));
+		
+		SettingHandle<Integer> handle = sm.getHandle("test.42", Integer.class);
+		SettingHandle<Integer> missing = sm.getHandle("test.late", Integer.class);
+		assertEquals(42, handle.get());
+		assertFalse(missing.isPresent());
+		
+		// handle follows value changes and structural changes
+		sm.getSetting(SettingInt.class, "test.42").setValue(7);
+		assertEquals(7, handle.get());
+		sm.removeSetting("test.42");
+		assertNull(handle.get());
+		assertEquals(5, handle.get(5));
+		SettingInt late = sm.addSetting(new SettingInt("test.late", "Late", SettingCategory.Intern, null, 3, 0, 10, 1), false);
+		assertSame(late, missing.getSetting());
+		assertEquals(3, missing.get());
+		
+		// settings list can only be changed through the manager
+		assertThrows(UnsupportedOperationException.class, () -> sm.getSettings().remove(late));
+		assertSame(late, sm.getSettingFromId("test.late"));
+		
+		// wrong value type
+		sm.addSetting(new SettingString("test.string", "String", SettingCategory.Intern, null, "abc"), false);
+		assertNull(sm.getHandle("test.string", Integer.class).get());
+		assertEquals("abc", sm.getHandle("test.string", String.class).get());
+	}
+
+}
@@ -0,0 +1,69 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.out.FrameBuffer;
+import de.lars.remotelightcore.out.TripleFrameBuffer;
+
+public class TripleFrameBufferTest {
+	
+	@DisplayName("Triple buffer drop counting")
+	@Test
+	public void dropTest() {
+		TripleFrameBuffer tb = new TripleFrameBuffer(4);
+		assertFalse(tb.hasFrame());
+		
+		tb.getWriteFrame().fill(1);
+		assertFalse(tb.publish());
+		tb.getWriteFrame().fill(2);
+		assertTrue(tb.publish()); // frame 1 was never read
+		
+		assertEquals(2, tb.getReadFrame().getRGB(0));
+		assertFalse(tb.hasNewFrame());
+		assertEquals(2, tb.getReadFrame().getRGB(3));
+		
+		tb.getWriteFrame().fill(3);
+		assertFalse(tb.publish());
+		assertEquals(3, tb.getReadFrame().getRGB(0));
+	}
+	
+	@DisplayName("Triple buffer concurrent handoff")
+	@Test
+	public void concurrencyTest() throws InterruptedException {
+		final int frames = 200000;
+		final TripleFrameBuffer tb = new TripleFrameBuffer(64);
+		final AtomicBoolean torn = new AtomicBoolean();
+		
+		Thread producer = new Thread(() -> {
+			for(int i = 1; i <= frames; i++) {
+				tb.getWriteFrame().fill(i);
+				tb.publish();
+			}
+		});
+		producer.start();
+		
+		int last = 0;
+		while(last < frames) {
+			if(!tb.hasFrame())
+				continue;
+			FrameBuffer frame = tb.getReadFrame();
+			int value = frame.getRGB(0);
+			for(int i = 1; i < frame.size(); i++) {
+				if(frame.getRGB(i) != value)
+					torn.set(true);
+			}
+			assertTrue(value >= last, "Frame went backwards: " + value + " < " + last);
+			last = value;
+		}
+		producer.join();
+		assertFalse(torn.get(), "Consumer received a torn frame");
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import de.lars.remotelightcore.devices.udp.ChunkedUdpSender;
+import de.lars.remotelightcore.out.FrameBuffer;
+
+/**
+ * Helper methods for tests of UDP based devices
+ */
+public class UdpTestUtils {
+	
+	private UdpTestUtils() {
+	}
+	
+	/**
+	 * Checks the header of a received chunk
+	 */
+	public interface ChunkCheck {
+		/**
+		 * @param packet	received packet
+		 * @param frame		frame number
+		 * @param chunk		chunk number
+		 * @param offset	index of the first channel of the chunk
+		 * @param length	number of channels in the chunk
+		 */
+		void check(ByteBuffer packet, int frame, int chunk, int offset, int length);
+	}
+	
+	/**
+	 * Send random frames over loopback and check the pixel data of every
+	 * chunk. The headers are checked by the given {@link ChunkCheck}.
+	 * @param sender		sender bound to the loopback address
+	 * @param chunkPixels	maximum number of pixels per chunk
+	 * @param dataOffset	offset of the pixel data in a packet
+	 * @param pixels		number of pixels per frame
+	 * @param frames		number of frames
+	 * @param beforeFrame	called with the frame number before a frame is sent or {@code null}
+	 * @param check			header check
+	 */
+	public static void loopback(ChunkedUdpSender sender, int chunkPixels, int dataOffset, int pixels, int frames,
+			IntConsumer beforeFrame, ChunkCheck check) throws IOException {
+		try(DatagramChannel receiver = DatagramChannel.open()) {
+			receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			sender.setTarget(receiver.getLocalAddress());
+			Random random = new Random(42);
+			FrameBuffer frame = new FrameBuffer(pixels);
+			int chunks = (pixels + chunkPixels - 1) / chunkPixels;
+			
+			for(int f = 0; f < frames; f++) {
+				if(beforeFrame != null)
+					beforeFrame.accept(f);
+				for(int i = 0; i < frame.size(); i++)
+					frame.setRGB(i, random.nextInt());
+				sender.send(frame);
+				assertEquals(chunks, sender.getPacketCount());
+				
+				byte[] channels = new byte[frame.size() * 3];
+				for(int i = 0; i < frame.size(); i++) {
+					channels[i * 3] = (byte) frame.getRed(i);
+					channels[i * 3 + 1] = (byte) frame.getGreen(i);
+					channels[i * 3 + 2] = (byte) frame.getBlue(i);
+				}
+				for(int c = 0; c < chunks; c++) {
+					ByteBuffer packet = ByteBuffer.wrap(receive(receiver));
+					int offset = c * chunkPixels * 3;
+					int length = Math.min(chunkPixels * 3, channels.length - offset);
+					assertEquals(dataOffset + length, packet.limit());
+					check.check(packet, f, c, offset, length);
+					
+					byte[] data = new byte[length];
+					packet.position(dataOffset);
+					packet.get(data);
+					assertArrayEquals(Arrays.copyOfRange(channels, offset, offset + length), data, "frame " + f + " chunk " + c);
+				}
+			}
+			assertNull(receiver.receive(ByteBuffer.allocate(2048)));
+		}
+	}
+	
+	/**
+	 * Receive a single packet, waits up to one second
+	 * @param channel	receiving channel
+	 * @return			packet data
+	 */
+	public static byte[] receive(DatagramChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(2048);
+		channel.configureBlocking(false);
+		long timeout = System.currentTimeMillis() + 1000;
+		while(channel.receive(buffer) == null) {
+			if(System.currentTimeMillis() > timeout)
+				break;
+			Thread.yield();
+		}
+		assertTrue(buffer.position() > 0, "no packet received");
+		buffer.flip();
+		byte[] data = new byte[buffer.remaining()];
+		buffer.get(data);
+		return data;
+	}
+
+}
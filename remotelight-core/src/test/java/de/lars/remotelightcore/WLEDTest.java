@@ -0,0 +1,33 @@
+package de.lars.remotelightcore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.lars.remotelightcore.devices.wled.WLEDPacket;
+import de.lars.remotelightcore.devices.wled.WLEDSender;
+
+public class WLEDTest {
+
+	@DisplayName("DNRGB chunks over loopback")
+	@Test
+	public void loopbackTest() throws IOException {
+		try(WLEDSender sender = new WLEDSender(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+			int[] timeouts = {5, WLEDPacket.TIMEOUT_INFINITE};
+			// 489 + 489 + 22 pixels
+			UdpTestUtils.loopback(sender, WLEDPacket.MAX_PIXELS, WLEDPacket.DATA_OFFSET, 1000, timeouts.length,
+					f -> sender.setTimeout(timeouts[f]),
+					(packet, f, p, offset, length) -> {
+				assertEquals(WLEDPacket.PROTOCOL_DNRGB, packet.get(WLEDPacket.PROTOCOL_OFFSET));
+				assertEquals(timeouts[f], packet.get(WLEDPacket.TIMEOUT_OFFSET) & 0xFF);
+				assertEquals(offset / 3, packet.getShort(WLEDPacket.START_INDEX_OFFSET) & 0xFFFF);
+			});
+		}
+	}
+
+}
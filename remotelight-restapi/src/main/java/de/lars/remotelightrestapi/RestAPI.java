@@ -12,6 +12,7 @@ import de.lars.remotelightrestapi.handlers.ColorHandler.ColorHandlerPixels;
 import de.lars.remotelightrestapi.handlers.EffectsHandler;
 import de.lars.remotelightrestapi.handlers.EffectsHandler.EffectsActiveHandler;
 import de.lars.remotelightrestapi.handlers.InformationHandler;
+import de.lars.remotelightrestapi.handlers.MetricsHandler;
 import de.lars.remotelightrestapi.handlers.OutputsHandler;
 import de.lars.remotelightrestapi.handlers.OutputsHandler.OutputActivateHandler;
 import de.lars.remotelightrestapi.handlers.SettingsHandler;
@@ -49,6 +50,8 @@ public class RestAPI extends RouterNanoHTTPD {
 		addRoute("/color/pixel", ColorHandlerPixels.class);
 		// settings
 		addRoute("/settings", SettingsHandler.class);
+		// metrics
+		addRoute("/metrics", MetricsHandler.class);
 	}
 
 	
@@ -0,0 +1,50 @@
+package de.lars.remotelightrestapi.handlers;
+
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+
+import de.lars.remotelightcore.EffectManager;
+import de.lars.remotelightcore.RemoteLightCore;
+import de.lars.remotelightcore.out.Output;
+import de.lars.remotelightcore.out.OutputManager;
+import de.lars.remotelightrestapi.RestAPI;
+import fi.iki.elonen.NanoHTTPD.IHTTPSession;
+import fi.iki.elonen.NanoHTTPD.Response;
+import fi.iki.elonen.NanoHTTPD.Response.IStatus;
+import fi.iki.elonen.router.RouterNanoHTTPD.UriResource;
+
+public class MetricsHandler extends RequestHandler {
+
+	@Override
+	public IStatus getStatus() {
+		return Response.Status.OK;
+	}
+
+	@Override
+	public Response get(UriResource uriResource, Map<String, String> urlParams, IHTTPSession session) {
+		RemoteLightCore core = RemoteLightCore.getInstance();
+		OutputManager om = core.getOutputManager();
+		JsonObject root = new JsonObject();
+		
+		JsonObject loop = new JsonObject();
+		loop.addProperty("produced", om.getFramesProduced());
+		loop.addProperty("sent", om.getFramesSent());
+		loop.addProperty("dropped", om.getFramesDropped());
+		root.add("output_loop", loop);
+		
+		JsonObject effects = new JsonObject();
+		for(EffectManager em : core.getEffectManagerHelper().getAllManagers()) {
+			effects.add(em.getName(), RestAPI.getGson().toJsonTree(em.getMetrics().toMap()));
+		}
+		root.add("effects", effects);
+		
+		JsonObject outputs = new JsonObject();
+		for(Output output : om.getActiveOutputs()) {
+			outputs.add(output.getId(), RestAPI.getGson().toJsonTree(output.getMetrics().toMap()));
+		}
+		root.add("outputs", outputs);
+		return json(root);
+	}
+
+}
@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 
 import org.tinylog.Logger;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -75,6 +76,11 @@ public class OutputsHandler extends RequestHandler {
 			String id = activeOutput != null ? activeOutput.getId() : null;
 			JsonObject jsonObj = new JsonObject();
 			jsonObj.addProperty("active_output", id);
+			JsonArray activeOutputs = new JsonArray();
+			for(Output o : RemoteLightCore.getInstance().getOutputManager().getActiveOutputs()) {
+				activeOutputs.add(o.getId());
+			}
+			jsonObj.add("active_outputs", activeOutputs);
 			return json(jsonObj);
 		}
 		